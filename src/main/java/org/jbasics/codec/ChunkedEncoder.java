@@ -58,6 +58,28 @@ public class ChunkedEncoder implements Encoder<CharSequence, CharSequence> {
 		this.separator = ContractCheck.mustNotBeNullOrEmpty(separator, "separator");
 	}
 
+	/**
+	 * Returns the size of a chunk.
+	 *
+	 * @return The chunk size
+	 *
+	 * @since 1.0
+	 */
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * Returns the separator written between the chunks.
+	 *
+	 * @return The separator
+	 *
+	 * @since 1.0
+	 */
+	public String getSeparator() {
+		return this.separator;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import org.jbasics.annotation.ImmutableState;
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.exception.DelegatedException;
+import org.jbasics.pattern.builder.Builder;
+import org.jbasics.pattern.coder.Codec;
+import org.jbasics.pattern.coder.Encoder;
+import org.jbasics.stream.BoundedPipe;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A chain of {@link CodecStage}s coding a stream of bytes. Unlike the {@link EncoderChain} and {@link DecoderChain}
+ * the stages are connected by streams so no stage needs to hold the complete intermediate result (as long as the
+ * stage itself is a streaming one, see {@link CodecStages}). Encoding runs the stages in the order added, decoding
+ * in the reverse order.
+ * <p>
+ * Without an executor all stages run fused in the calling thread. With an executor each stage but the first runs in
+ * a task of its own connected through a {@link BoundedPipe} so the stages overlap. Since each of those tasks blocks
+ * while its pipe is empty the executor must be able to run all of them at the same time (like a cached thread pool
+ * does). The streams returned must always be closed to end the tasks.
+ * </p>
+ * <p>
+ * The guarantee to be thread safe is only guaranteed if the stages given are also thread safe. Same applies to be
+ * immutable.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe(derived = true)
+@ImmutableState(derived = true)
+public final class CodecPipeline implements Codec<byte[], byte[]> {
+	public static final int DEFAULT_BUFFER_SIZE = 65536;
+	private static final int COPY_BUFFER_SIZE = 8192;
+
+	private final CodecStage[] stages;
+	private final Executor executor;
+	private final int bufferSize;
+
+	private CodecPipeline(final CodecStage[] stages, final Executor executor, final int bufferSize) {
+		this.stages = stages;
+		this.executor = executor;
+		this.bufferSize = bufferSize;
+	}
+
+	public static CodecPipelineBuilder newBuilder() {
+		return new CodecPipelineBuilder();
+	}
+
+	/**
+	 * Wraps the given stream so all bytes written to the returned stream are encoded by all stages and written to the
+	 * given stream. Closing the returned stream completes the encoding, closes the given stream and waits for all
+	 * stage tasks to finish.
+	 *
+	 * @param out The stream to write the encoded bytes to (must not be null).
+	 *
+	 * @return The stream to write the bytes to encode to.
+	 *
+	 * @throws IOException If creating a stage stream fails. The stage tasks already started are failed as well.
+	 */
+	public OutputStream encoding(final OutputStream out) throws IOException {
+		OutputStream current = ContractCheck.mustNotBeNull(out, "out");
+		final List<CompletableFuture<Void>> tasks = new ArrayList<CompletableFuture<Void>>();
+		final List<BoundedPipe> pipes = new ArrayList<BoundedPipe>();
+		try {
+			for (int i = this.stages.length - 1; i >= 0; i--) {
+				current = this.stages[i].encoding(current);
+				if (i > 0 && this.executor != null) {
+					final BoundedPipe pipe = new BoundedPipe(this.bufferSize);
+					pipes.add(pipe);
+					tasks.add(transfer(pipe, pipe.getSource(), current));
+					current = pipe.getSink();
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// the started tasks would wait forever for input on their pipes
+			for (final BoundedPipe pipe : pipes) {
+				pipe.fail(e);
+			}
+			throw e;
+		}
+		return tasks.isEmpty() ? current : new JoiningOutputStream(current, tasks);
+	}
+
+	/**
+	 * Wraps the given stream so all bytes read from the returned stream are the bytes of the given stream decoded by
+	 * all stages in reverse order. Closing the returned stream closes all stages and the given stream.
+	 *
+	 * @param in The stream to read the encoded bytes from (must not be null).
+	 *
+	 * @return The stream to read the decoded bytes from.
+	 *
+	 * @throws IOException If creating a stage stream fails.
+	 */
+	public InputStream decoding(final InputStream in) throws IOException {
+		InputStream current = ContractCheck.mustNotBeNull(in, "in");
+		for (int i = this.stages.length - 1; i > 0; i--) {
+			if (this.executor != null) {
+				final BoundedPipe pipe = new BoundedPipe(this.bufferSize);
+				final CodecStage stage = this.stages[i];
+				final InputStream source = current;
+				this.executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try (InputStream decoding = stage.decoding(source); OutputStream sink = pipe.getSink()) {
+							CodecPipeline.copy(decoding, sink);
+						} catch (IOException | RuntimeException e) {
+							pipe.fail(e);
+						}
+					}
+				});
+				current = pipe.getSource();
+			} else {
+				current = this.stages[i].decoding(current);
+			}
+		}
+		return this.stages[0].decoding(current);
+	}
+
+	/**
+	 * Encodes all bytes of the input stream to the output stream. Neither stream is closed.
+	 *
+	 * @param in  The stream to encode.
+	 * @param out The stream to write the encoded bytes to.
+	 *
+	 * @return The amount of bytes read from the input.
+	 *
+	 * @throws IOException If reading, coding or writing fails.
+	 */
+	public long encode(final InputStream in, final OutputStream out) throws IOException {
+		ContractCheck.mustNotBeNull(in, "in");
+		try (OutputStream encoding = encoding(new UnclosableOutputStream(out))) {
+			return CodecPipeline.copy(in, encoding);
+		}
+	}
+
+	/**
+	 * Decodes all bytes of the input stream to the output stream. Neither stream is closed.
+	 *
+	 * @param in  The stream to decode.
+	 * @param out The stream to write the decoded bytes to.
+	 *
+	 * @return The amount of bytes written to the output.
+	 *
+	 * @throws IOException If reading, coding or writing fails.
+	 */
+	public long decode(final InputStream in, final OutputStream out) throws IOException {
+		ContractCheck.mustNotBeNull(out, "out");
+		try (InputStream decoding = decoding(new UnclosableInputStream(in))) {
+			return CodecPipeline.copy(decoding, out);
+		}
+	}
+
+	@Override
+	public byte[] encode(final byte[] input) {
+		try {
+			final ByteArrayOutputStream result = new ByteArrayOutputStream(Math.max(32, input.length * 2));
+			try (OutputStream encoding = encoding(result)) {
+				encoding.write(input);
+			}
+			return result.toByteArray();
+		} catch (IOException e) {
+			throw DelegatedException.delegate(e);
+		}
+	}
+
+	@Override
+	public byte[] decode(final byte[] encodedInput) {
+		try {
+			final ByteArrayOutputStream result = new ByteArrayOutputStream(Math.max(32, encodedInput.length));
+			decode(new ByteArrayInputStream(encodedInput), result);
+			return result.toByteArray();
+		} catch (IOException e) {
+			throw DelegatedException.delegate(e);
+		}
+	}
+
+	private CompletableFuture<Void> transfer(final BoundedPipe pipe, final InputStream source, final OutputStream target) {
+		final CompletableFuture<Void> result = new CompletableFuture<Void>();
+		this.executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try (InputStream in = source; OutputStream out = target) {
+					CodecPipeline.copy(in, out);
+				} catch (IOException | RuntimeException e) {
+					pipe.fail(e);
+					result.completeExceptionally(e);
+					return;
+				}
+				result.complete(null);
+			}
+		});
+		return result;
+	}
+
+	private static long copy(final InputStream in, final OutputStream out) throws IOException {
+		final byte[] buffer = new byte[CodecPipeline.COPY_BUFFER_SIZE];
+		long result = 0;
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, read);
+			result += read;
+		}
+		return result;
+	}
+
+	private static final class JoiningOutputStream extends FilterOutputStream {
+		private final List<CompletableFuture<Void>> tasks;
+		private boolean closed;
+
+		private JoiningOutputStream(final OutputStream out, final List<CompletableFuture<Void>> tasks) {
+			super(out);
+			this.tasks = tasks;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			this.out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			IOException failure = null;
+			try {
+				this.out.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+			for (final CompletableFuture<Void> task : this.tasks) {
+				try {
+					task.join();
+				} catch (CompletionException e) {
+					if (failure == null) {
+						failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException("Pipeline stage failed", e.getCause());
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	private static final class UnclosableOutputStream extends FilterOutputStream {
+		private UnclosableOutputStream(final OutputStream out) {
+			super(ContractCheck.mustNotBeNull(out, "out"));
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			this.out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.out.flush();
+		}
+	}
+
+	private static final class UnclosableInputStream extends FilterInputStream {
+		private UnclosableInputStream(final InputStream in) {
+			super(ContractCheck.mustNotBeNull(in, "in"));
+		}
+
+		@Override
+		public void close() {
+			// the caller owns the stream
+		}
+	}
+
+	public static final class CodecPipelineBuilder implements Builder<CodecPipeline> {
+		private final List<CodecStage> stages = new ArrayList<CodecStage>();
+		private Executor executor;
+		private int bufferSize = CodecPipeline.DEFAULT_BUFFER_SIZE;
+
+		public CodecPipelineBuilder withStage(final CodecStage stage) {
+			this.stages.add(ContractCheck.mustNotBeNull(stage, "stage"));
+			return this;
+		}
+
+		public CodecPipelineBuilder withCodec(final Codec<byte[], byte[]> codec) {
+			return withStage(CodecStages.of(codec));
+		}
+
+		public CodecPipelineBuilder withEncoder(final Encoder<byte[], byte[]> encoder) {
+			return withStage(CodecStages.of(ContractCheck.mustNotBeNull(encoder, "encoder"), null));
+		}
+
+		public CodecPipelineBuilder withTextCodec(final Codec<byte[], CharSequence> codec) {
+			return withStage(CodecStages.ofText(codec));
+		}
+
+		public CodecPipelineBuilder withChunks(final ChunkedEncoder chunkedEncoder) {
+			return withStage(CodecStages.of(chunkedEncoder));
+		}
+
+		public CodecPipelineBuilder withXOrCrypt(final XOrCryptCodec codec) {
+			return withStage(CodecStages.of(codec));
+		}
+
+		/**
+		 * Sets the executor to run the stages on overlapping. The executor must be able to run one task per stage
+		 * (except the first) at the same time. Null runs all stages fused in the calling thread.
+		 *
+		 * @param executor The executor or null.
+		 *
+		 * @return This builder.
+		 */
+		public CodecPipelineBuilder withExecutor(final Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+
+		public CodecPipelineBuilder withBufferSize(final int bufferSize) {
+			this.bufferSize = ContractCheck.mustBeInRange(bufferSize, 1, Integer.MAX_VALUE, "bufferSize");
+			return this;
+		}
+
+		@Override
+		public CodecPipeline build() {
+			ContractCheck.mustNotBeNullOrEmpty(this.stages, "stages");
+			final List<CodecStage> fused = new ArrayList<CodecStage>(this.stages.size());
+			for (final CodecStage stage : this.stages) {
+				final CodecStage temp = fused.isEmpty() ? null : CodecStages.fuse(fused.get(fused.size() - 1), stage);
+				if (temp != null) {
+					fused.set(fused.size() - 1, temp);
+				} else {
+					fused.add(stage);
+				}
+			}
+			return new CodecPipeline(fused.toArray(new CodecStage[fused.size()]), this.executor, this.bufferSize);
+		}
+
+		@Override
+		public void reset() {
+			this.stages.clear();
+			this.executor = null;
+			this.bufferSize = CodecPipeline.DEFAULT_BUFFER_SIZE;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A stage of a {@link CodecPipeline} coding a stream of bytes. For encoding the stage wraps the stream the encoded
+ * bytes are written to, for decoding it wraps the stream the encoded bytes are read from. Closing the encoding stream
+ * must write any pending data and close the wrapped stream. Closing the decoding stream must close the wrapped stream.
+ * <p>
+ * Stages for the codecs of this package and for {@link org.jbasics.pattern.coder.Encoder}s and {@link
+ * org.jbasics.pattern.coder.Decoder}s working on complete values are created by {@link CodecStages}.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public interface CodecStage {
+
+	/**
+	 * Wraps the given stream so all bytes written to the returned stream are encoded and written to the given stream.
+	 *
+	 * @param out The stream to write the encoded bytes to.
+	 *
+	 * @return The stream to write the bytes to encode to.
+	 *
+	 * @throws IOException If creating the stream fails.
+	 */
+	OutputStream encoding(OutputStream out) throws IOException;
+
+	/**
+	 * Wraps the given stream so all bytes read from the returned stream are the decoded bytes of the given stream.
+	 *
+	 * @param in The stream to read the encoded bytes from.
+	 *
+	 * @return The stream to read the decoded bytes from.
+	 *
+	 * @throws IOException If creating the stream fails.
+	 */
+	InputStream decoding(InputStream in) throws IOException;
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.pattern.coder.Codec;
+import org.jbasics.pattern.coder.Decoder;
+import org.jbasics.pattern.coder.Encoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Factory for the {@link CodecStage}s of a {@link CodecPipeline}. The codecs of this package are coded in streaming
+ * manner holding only a fixed size buffer. Any other {@link Encoder} or {@link Decoder} can be used as well but since
+ * those work on complete values the stage collects the whole input of that stage before it is coded.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public final class CodecStages {
+	private static final int BUFFER_SIZE = 8192;
+
+	private CodecStages() {
+		// no instances
+	}
+
+	/**
+	 * Creates the streaming stage of the given RFC3548 codec.
+	 *
+	 * @param codec The codec (must not be null).
+	 *
+	 * @return The streaming stage.
+	 */
+	public static CodecStage of(final RFC3548StreamCodec codec) {
+		return new RFC3548Stage(ContractCheck.mustNotBeNull(codec, "codec"));
+	}
+
+	/**
+	 * Creates the stage for a text codec where the text is written as US-ASCII. For the RFC3548 codecs the stage works in
+	 * streaming manner.
+	 *
+	 * @param codec The codec (must not be null).
+	 *
+	 * @return The stage.
+	 */
+	public static CodecStage ofText(final Codec<byte[], CharSequence> codec) {
+		ContractCheck.mustNotBeNull(codec, "codec");
+		if (codec instanceof RFC3548Base64Codec) {
+			return of(((RFC3548Base64Codec) codec).getStreamCodec());
+		} else if (codec instanceof RFC3548Base32Codec) {
+			return of(((RFC3548Base32Codec) codec).getStreamCodec());
+		} else if (codec instanceof RFC3548Base16Codec) {
+			return of(((RFC3548Base16Codec) codec).getStreamCodec());
+		}
+		return ofText(codec, codec, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Creates the stage for a text encoder and decoder working on complete values where the text is written in the
+	 * given charset. Either the encoder or the decoder can be null in which case the stage does not support the
+	 * direction.
+	 *
+	 * @param encoder The encoder (can be null).
+	 * @param decoder The decoder (can be null).
+	 * @param charset The charset of the text (must not be null).
+	 *
+	 * @return The stage collecting the input before coding.
+	 */
+	public static CodecStage ofText(final Encoder<byte[], CharSequence> encoder, final Decoder<byte[], CharSequence> decoder, final Charset charset) {
+		ContractCheck.mustNotBeNull(charset, "charset");
+		return new MaterializingStage(encoder == null ? null : new Encoder<byte[], byte[]>() {
+			@Override
+			public byte[] encode(final byte[] input) {
+				return encoder.encode(input).toString().getBytes(charset);
+			}
+		}, decoder == null ? null : new Decoder<byte[], byte[]>() {
+			@Override
+			public byte[] decode(final byte[] input) {
+				return decoder.decode(new String(input, charset));
+			}
+		});
+	}
+
+	/**
+	 * Creates the stage for a codec working on complete byte arrays.
+	 *
+	 * @param codec The codec (must not be null).
+	 *
+	 * @return The stage collecting the input before coding.
+	 */
+	public static CodecStage of(final Codec<byte[], byte[]> codec) {
+		ContractCheck.mustNotBeNull(codec, "codec");
+		return new MaterializingStage(codec, codec);
+	}
+
+	/**
+	 * Creates the stage for an encoder and decoder working on complete byte arrays. Either the encoder or the decoder
+	 * can be null in which case the stage does not support the direction.
+	 *
+	 * @param encoder The encoder (can be null).
+	 * @param decoder The decoder (can be null).
+	 *
+	 * @return The stage collecting the input before coding.
+	 */
+	public static CodecStage of(final Encoder<byte[], byte[]> encoder, final Decoder<byte[], byte[]> decoder) {
+		return new MaterializingStage(encoder, decoder);
+	}
+
+	/**
+	 * Creates the streaming stage separating the bytes in chunks like the {@link ChunkedEncoder} does (the separator is
+	 * written as US-ASCII). Decoding removes the separators written.
+	 *
+	 * @param chunkedEncoder The chunked encoder to take the chunk size and separator from (must not be null).
+	 *
+	 * @return The streaming stage.
+	 */
+	public static CodecStage of(final ChunkedEncoder chunkedEncoder) {
+		return new ChunkedStage(ContractCheck.mustNotBeNull(chunkedEncoder, "chunkedEncoder"));
+	}
+
+	/**
+	 * Creates the streaming stage of the {@link XOrCryptCodec}. The stage works on the bytes passing through it and
+	 * does not know about any charset. Its output is the same as the one of the codec if the input is the text encoded
+	 * in the charset of the codec.
+	 *
+	 * @param codec The codec (must not be null).
+	 *
+	 * @return The streaming stage.
+	 */
+	public static CodecStage of(final XOrCryptCodec codec) {
+		return new XOrCryptStage(ContractCheck.mustNotBeNull(codec, "codec"));
+	}
+
+	/**
+	 * Fuses a chunked stage following an RFC3548 stage into the RFC3548 stage if the separator is not part of the
+	 * alphabet (and therefore ignored when decoding). Returns null if the stages cannot be fused.
+	 */
+	static CodecStage fuse(final CodecStage first, final CodecStage second) {
+		if (first instanceof RFC3548Stage && second instanceof ChunkedStage) {
+			final RFC3548StreamCodec codec = ((RFC3548Stage) first).codec;
+			final ChunkedEncoder chunkedEncoder = ((ChunkedStage) second).chunkedEncoder;
+			if (codec.chunkSize() == 0 && codec.isIgnored(chunkedEncoder.getSeparator())) {
+				return of(codec.withChunks(chunkedEncoder));
+			}
+		}
+		return null;
+	}
+
+	private static final class RFC3548Stage implements CodecStage {
+		private final RFC3548StreamCodec codec;
+
+		private RFC3548Stage(final RFC3548StreamCodec codec) {
+			this.codec = codec;
+		}
+
+		@Override
+		public OutputStream encoding(final OutputStream out) {
+			return this.codec.wrap(out);
+		}
+
+		@Override
+		public InputStream decoding(final InputStream in) {
+			return this.codec.wrap(in);
+		}
+	}
+
+	private static final class MaterializingStage implements CodecStage {
+		private final Encoder<byte[], byte[]> encoder;
+		private final Decoder<byte[], byte[]> decoder;
+
+		private MaterializingStage(final Encoder<byte[], byte[]> encoder, final Decoder<byte[], byte[]> decoder) {
+			if (encoder == null && decoder == null) {
+				throw new IllegalArgumentException("Either encoder or decoder must be supplied");
+			}
+			this.encoder = encoder;
+			this.decoder = decoder;
+		}
+
+		@Override
+		public OutputStream encoding(final OutputStream out) {
+			if (this.encoder == null) {
+				throw new UnsupportedOperationException("Stage does not support encoding");
+			}
+			return new ByteArrayOutputStream(CodecStages.BUFFER_SIZE) {
+				private boolean closed;
+
+				@Override
+				public void close() throws IOException {
+					if (!this.closed) {
+						this.closed = true;
+						try {
+							out.write(MaterializingStage.this.encoder.encode(toByteArray()));
+						} finally {
+							out.close();
+						}
+					}
+				}
+			};
+		}
+
+		@Override
+		public InputStream decoding(final InputStream in) throws IOException {
+			if (this.decoder == null) {
+				throw new UnsupportedOperationException("Stage does not support decoding");
+			}
+			final ByteArrayOutputStream temp = new ByteArrayOutputStream(CodecStages.BUFFER_SIZE);
+			try {
+				final byte[] buffer = new byte[CodecStages.BUFFER_SIZE];
+				int read;
+				while ((read = in.read(buffer)) >= 0) {
+					temp.write(buffer, 0, read);
+				}
+			} finally {
+				in.close();
+			}
+			return new ByteArrayInputStream(this.decoder.decode(temp.toByteArray()));
+		}
+	}
+
+	private static final class ChunkedStage implements CodecStage {
+		private final ChunkedEncoder chunkedEncoder;
+		private final byte[] separator;
+
+		private ChunkedStage(final ChunkedEncoder chunkedEncoder) {
+			this.chunkedEncoder = chunkedEncoder;
+			this.separator = chunkedEncoder.getSeparator().getBytes(StandardCharsets.US_ASCII);
+		}
+
+		@Override
+		public OutputStream encoding(final OutputStream out) {
+			final int chunkSize = this.chunkedEncoder.getChunkSize();
+			return new FilterOutputStream(out) {
+				private int column;
+
+				@Override
+				public void write(final int b) throws IOException {
+					if (this.column == chunkSize) {
+						this.out.write(ChunkedStage.this.separator);
+						this.column = 0;
+					}
+					this.out.write(b);
+					this.column++;
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len) throws IOException {
+					int offset = off;
+					int remaining = len;
+					while (remaining > 0) {
+						if (this.column == chunkSize) {
+							this.out.write(ChunkedStage.this.separator);
+							this.column = 0;
+						}
+						final int length = Math.min(remaining, chunkSize - this.column);
+						this.out.write(b, offset, length);
+						this.column += length;
+						offset += length;
+						remaining -= length;
+					}
+				}
+			};
+		}
+
+		@Override
+		public InputStream decoding(final InputStream in) {
+			final int chunkSize = this.chunkedEncoder.getChunkSize();
+			return new FilterInputStream(in) {
+				private final byte[] single = new byte[1];
+				private int column;
+
+				@Override
+				public int read() throws IOException {
+					return read(this.single, 0, 1) < 0 ? -1 : this.single[0] & 0xff;
+				}
+
+				@Override
+				public int read(final byte[] b, final int off, final int len) throws IOException {
+					if (len == 0) {
+						return 0;
+					}
+					if (this.column == chunkSize) {
+						if (!skipSeparator()) {
+							return -1;
+						}
+						this.column = 0;
+					}
+					final int read = this.in.read(b, off, Math.min(len, chunkSize - this.column));
+					if (read > 0) {
+						this.column += read;
+					}
+					return read;
+				}
+
+				@Override
+				public long skip(final long n) throws IOException {
+					final byte[] temp = new byte[(int) Math.min(n, CodecStages.BUFFER_SIZE)];
+					long skipped = 0;
+					int read;
+					while (skipped < n && (read = read(temp, 0, (int) Math.min(n - skipped, temp.length))) >= 0) {
+						skipped += read;
+					}
+					return skipped;
+				}
+
+				@Override
+				public int available() {
+					return 0;
+				}
+
+				@Override
+				public boolean markSupported() {
+					return false;
+				}
+
+				private boolean skipSeparator() throws IOException {
+					final byte[] expected = ChunkedStage.this.separator;
+					for (int i = 0; i < expected.length; i++) {
+						final int c = this.in.read();
+						if (c < 0) {
+							if (i == 0) {
+								return false;
+							}
+							throw new IOException("Incomplete chunk separator at end of input");
+						} else if ((byte) c != expected[i]) {
+							throw new IOException("Expected chunk separator after " + chunkSize + " bytes");
+						}
+					}
+					return true;
+				}
+			};
+		}
+	}
+
+	private static final class XOrCryptStage implements CodecStage {
+		private final byte[] xorSource;
+
+		private XOrCryptStage(final XOrCryptCodec codec) {
+			this.xorSource = codec.xorSource();
+		}
+
+		private byte key(final Random random) {
+			return (byte) (this.xorSource != null ? this.xorSource[random.nextInt(this.xorSource.length)] : random.nextInt(256));
+		}
+
+		@Override
+		public OutputStream encoding(final OutputStream out) {
+			return new FilterOutputStream(out) {
+				private byte[] buffer;
+				private Random random;
+
+				@Override
+				public void write(final int b) throws IOException {
+					start();
+					this.out.write(b ^ key(this.random));
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len) throws IOException {
+					start();
+					for (int done = 0; done < len; ) {
+						final int length = Math.min(len - done, this.buffer.length);
+						for (int i = 0; i < length; i++) {
+							this.buffer[i] = (byte) (b[off + done + i] ^ key(this.random));
+						}
+						this.out.write(this.buffer, 0, length);
+						done += length;
+					}
+				}
+
+				@Override
+				public void close() throws IOException {
+					// Even an empty input has the seed written like the codec does
+					start();
+					super.close();
+				}
+
+				private void start() throws IOException {
+					if (this.random == null) {
+						final int seed = XOrCryptCodec.nextSeed();
+						this.random = new Random(seed);
+						this.buffer = new byte[CodecStages.BUFFER_SIZE];
+						this.out.write(seed);
+					}
+				}
+			};
+		}
+
+		@Override
+		public InputStream decoding(final InputStream in) {
+			return new FilterInputStream(in) {
+				private final byte[] single = new byte[1];
+				private Random random;
+
+				@Override
+				public int read() throws IOException {
+					return read(this.single, 0, 1) < 0 ? -1 : this.single[0] & 0xff;
+				}
+
+				@Override
+				public int read(final byte[] b, final int off, final int len) throws IOException {
+					if (this.random == null) {
+						final int seed = this.in.read();
+						if (seed < 0) {
+							return -1;
+						}
+						this.random = new Random((byte) seed);
+					}
+					final int read = this.in.read(b, off, len);
+					for (int i = 0; i < read; i++) {
+						b[off + i] = (byte) (b[off + i] ^ key(this.random));
+					}
+					return read;
+				}
+
+				@Override
+				public long skip(final long n) throws IOException {
+					final byte[] temp = new byte[(int) Math.min(n, CodecStages.BUFFER_SIZE)];
+					long skipped = 0;
+					int read;
+					while (skipped < n && (read = read(temp, 0, (int) Math.min(n - skipped, temp.length))) >= 0) {
+						skipped += read;
+					}
+					return skipped;
+				}
+
+				@Override
+				public boolean markSupported() {
+					return false;
+				}
+			};
+		}
+	}
+}
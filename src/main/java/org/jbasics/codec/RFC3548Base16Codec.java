@@ -73,6 +73,17 @@ public class RFC3548Base16Codec implements Codec<byte[], CharSequence> {
 		return 2;
 	}
 
+	/**
+	 * Returns the streaming codec for the base 16 coding.
+	 *
+	 * @return The streaming codec
+	 *
+	 * @since 1.0
+	 */
+	public RFC3548StreamCodec getStreamCodec() {
+		return RFC3548StreamCodec.BASE16;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -98,6 +98,17 @@ public class RFC3548Base32Codec implements Codec<byte[], CharSequence> {
 		return 8;
 	}
 
+	/**
+	 * Returns the streaming codec with the same padding setting as this codec.
+	 *
+	 * @return The streaming codec
+	 *
+	 * @since 1.0
+	 */
+	public RFC3548StreamCodec getStreamCodec() {
+		return RFC3548StreamCodec.BASE32.withPadding(!this.fillWithoutPadding);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -108,6 +119,9 @@ public class RFC3548Base32Codec implements Codec<byte[], CharSequence> {
 		if (input == null || input.length == 0) {
 			return StringUtilities.EMPTY_STRING;
 		}
+		if (!this.fillWithoutPadding) {
+			return RFC3548StreamCodec.BASE32.encode(input);
+		}
 		final int lastBlockSize = input.length % 5;
 		final int fullBlocks = input.length / 5;
 		final StringBuilder builder = new StringBuilder();
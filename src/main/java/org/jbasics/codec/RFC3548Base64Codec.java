@@ -46,6 +46,7 @@ public class RFC3548Base64Codec implements Codec<byte[], CharSequence> {
 
 	private final String alphabet;
 	private final boolean fillWithoutPadding;
+	private final RFC3548StreamCodec streamCodec;
 
 	public RFC3548Base64Codec() {
 		this(false, false);
@@ -54,6 +55,7 @@ public class RFC3548Base64Codec implements Codec<byte[], CharSequence> {
 	public RFC3548Base64Codec(final boolean alternate, final boolean fillWithoutPadding) {
 		this.alphabet = alternate ? RFC3548Base64Codec.BASE64_ALPHABET_ALT : RFC3548Base64Codec.BASE64_ALPHABET;
 		this.fillWithoutPadding = fillWithoutPadding;
+		this.streamCodec = (alternate ? RFC3548StreamCodec.BASE64_ALT : RFC3548StreamCodec.BASE64).withPadding(!fillWithoutPadding);
 	}
 
 	public RFC3548Base64Codec(final boolean alternate) {
@@ -78,11 +80,23 @@ public class RFC3548Base64Codec implements Codec<byte[], CharSequence> {
 		return 4;
 	}
 
+	/**
+	 * Returns the streaming codec with the same alphabet and padding setting as this codec.
+	 *
+	 * @return The streaming codec
+	 */
+	public RFC3548StreamCodec getStreamCodec() {
+		return this.streamCodec;
+	}
+
 	@Override
 	public CharSequence encode(final byte[] input) {
 		if (input == null || input.length == 0) {
 			return StringUtilities.EMPTY_STRING;
 		}
+		if (!this.fillWithoutPadding) {
+			return this.streamCodec.encode(input);
+		}
 		final int lastBlockSize = input.length % 3;
 		final int fullBlocks = input.length / 3;
 		final StringBuilder builder = new StringBuilder();
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import org.jbasics.checker.ContractCheck;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * Input stream reading US-ASCII encoded characters from the underlying stream and returning the bytes decoded by an
+ * {@link RFC3548StreamDecoder}. Only a fixed size buffer is held so payloads of any size can be decoded. Whenever the
+ * caller supplies room for at least a complete block the bytes are decoded directly into the callers array.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class RFC3548DecodingInputStream extends FilterInputStream {
+	private static final int BUFFER_SIZE = 4096;
+	private static final int MAX_BLOCK_SIZE = 5;
+
+	private final RFC3548StreamDecoder decoder;
+	private final CharBuffer characters;
+	private final byte[] bytes;
+	private final ByteBuffer pending;
+	private final byte[] single = new byte[1];
+	private boolean endOfInput;
+
+	public RFC3548DecodingInputStream(final InputStream in, final RFC3548StreamDecoder decoder) {
+		super(ContractCheck.mustNotBeNull(in, "in"));
+		this.decoder = ContractCheck.mustNotBeNull(decoder, "decoder");
+		this.characters = CharBuffer.allocate(RFC3548DecodingInputStream.BUFFER_SIZE);
+		this.characters.flip();
+		this.bytes = new byte[RFC3548DecodingInputStream.BUFFER_SIZE];
+		this.pending = ByteBuffer.allocate(RFC3548DecodingInputStream.MAX_BLOCK_SIZE);
+		this.pending.flip();
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int read = read(this.single, 0, 1);
+		return read < 0 ? -1 : this.single[0] & 0xff;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (this.pending.hasRemaining()) {
+			return readPending(b, off, len);
+		}
+		while (true) {
+			if (len >= RFC3548DecodingInputStream.MAX_BLOCK_SIZE) {
+				final ByteBuffer target = ByteBuffer.wrap(b, off, len);
+				this.decoder.decode(this.characters, target, this.endOfInput);
+				if (target.position() > off) {
+					return target.position() - off;
+				}
+			} else {
+				this.pending.clear();
+				this.decoder.decode(this.characters, this.pending, this.endOfInput);
+				this.pending.flip();
+				if (this.pending.hasRemaining()) {
+					return readPending(b, off, len);
+				}
+			}
+			if (this.endOfInput) {
+				return -1;
+			}
+			fillCharacters();
+		}
+	}
+
+	@Override
+	public int available() throws IOException {
+		return this.pending.remaining();
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+		final byte[] temp = new byte[(int) Math.min(n, RFC3548DecodingInputStream.BUFFER_SIZE)];
+		long skipped = 0;
+		while (skipped < n) {
+			final int read = read(temp, 0, (int) Math.min(n - skipped, temp.length));
+			if (read < 0) {
+				break;
+			}
+			skipped += read;
+		}
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(final int readlimit) {
+		// mark is not supported
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	private int readPending(final byte[] b, final int off, final int len) {
+		final int length = Math.min(len, this.pending.remaining());
+		this.pending.get(b, off, length);
+		return length;
+	}
+
+	private void fillCharacters() throws IOException {
+		this.characters.compact();
+		final int read = this.in.read(this.bytes, 0, this.characters.remaining());
+		if (read < 0) {
+			this.endOfInput = true;
+		} else {
+			final char[] temp = this.characters.array();
+			final int position = this.characters.position();
+			for (int i = 0; i < read; i++) {
+				temp[position + i] = (char) (this.bytes[i] & 0xff);
+			}
+			this.characters.position(position + read);
+		}
+		this.characters.flip();
+	}
+}
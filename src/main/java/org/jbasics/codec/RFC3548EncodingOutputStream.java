@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import org.jbasics.checker.ContractCheck;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+
+/**
+ * Output stream encoding all bytes written with an {@link RFC3548StreamEncoder} and writing the encoded characters as
+ * US-ASCII to the underlying stream. Only a fixed size buffer is held so payloads of any size can be encoded. The last
+ * incomplete block is written when the stream is closed.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class RFC3548EncodingOutputStream extends FilterOutputStream {
+	private static final int BUFFER_SIZE = 4096;
+
+	private final RFC3548StreamEncoder encoder;
+	private final CharBuffer characters;
+	private final byte[] bytes;
+	private final byte[] single = new byte[1];
+	private boolean closed;
+
+	public RFC3548EncodingOutputStream(final OutputStream out, final RFC3548StreamEncoder encoder) {
+		super(ContractCheck.mustNotBeNull(out, "out"));
+		this.encoder = ContractCheck.mustNotBeNull(encoder, "encoder");
+		this.characters = CharBuffer.allocate(RFC3548EncodingOutputStream.BUFFER_SIZE);
+		this.bytes = new byte[RFC3548EncodingOutputStream.BUFFER_SIZE];
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		this.single[0] = (byte) b;
+		write(this.single, 0, 1);
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed");
+		}
+		encode(ByteBuffer.wrap(b, off, len), false);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writeCharacters();
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!this.closed) {
+			this.closed = true;
+			try {
+				encode(ByteBuffer.wrap(this.single, 0, 0), true);
+				writeCharacters();
+			} finally {
+				this.out.close();
+			}
+		}
+	}
+
+	private void encode(final ByteBuffer input, final boolean endOfInput) throws IOException {
+		while (this.encoder.encode(input, this.characters, endOfInput) == CoderResult.OVERFLOW) {
+			writeCharacters();
+		}
+	}
+
+	private void writeCharacters() throws IOException {
+		final int length = this.characters.position();
+		if (length > 0) {
+			final char[] temp = this.characters.array();
+			for (int i = 0; i < length; i++) {
+				this.bytes[i] = (byte) temp[i];
+			}
+			this.out.write(this.bytes, 0, length);
+			this.characters.clear();
+		}
+	}
+}
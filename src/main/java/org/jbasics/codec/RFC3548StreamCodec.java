@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import org.jbasics.annotation.ImmutableState;
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.arrays.ArrayConstants;
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.pattern.coder.Codec;
+import org.jbasics.text.StringUtilities;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Configuration of one of the RFC3548 codings (base 64, base 32 and base 16) for streaming use. The codec creates
+ * incremental {@link RFC3548StreamEncoder}s and {@link RFC3548StreamDecoder}s working on NIO buffers as well as stream
+ * wrappers, so the payload never needs to be held in memory completely. Chunking the encoded output like the {@link
+ * ChunkedEncoder} does is done in the same pass by configuring a chunk size and separator.
+ * <p>
+ * As a {@link Codec} the whole input is coded in one pass into an exactly sized array.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+@ImmutableState
+public final class RFC3548StreamCodec implements Codec<byte[], CharSequence> {
+	public static final RFC3548StreamCodec BASE64 = new RFC3548StreamCodec(RFC3548Base64Codec.BASE64_ALPHABET, 6, true);
+	public static final RFC3548StreamCodec BASE64_ALT = new RFC3548StreamCodec(RFC3548Base64Codec.BASE64_ALPHABET_ALT, 6, true);
+	public static final RFC3548StreamCodec BASE32 = new RFC3548StreamCodec(RFC3548Base32Codec.BASE32_ALPHABET, 5, true);
+	public static final RFC3548StreamCodec BASE16 = new RFC3548StreamCodec(RFC3548Base16Codec.BASE16_ALPHABET, 4, true);
+
+	static final int INVALID = -1;
+	static final int PADDING = -2;
+	static final char PADDING_CHARACTER = '=';
+
+	private final char[] alphabet;
+	private final int[] decodeTable;
+	private final int bitsPerCharacter;
+	private final int bytesPerBlock;
+	private final int charactersPerBlock;
+	private final boolean padding;
+	private final int chunkSize;
+	private final char[] separator;
+
+	private RFC3548StreamCodec(final String alphabet, final int bitsPerCharacter, final boolean padding) {
+		this(alphabet.toCharArray(), RFC3548StreamCodec.createDecodeTable(alphabet), bitsPerCharacter, padding, 0, new char[0]);
+	}
+
+	private RFC3548StreamCodec(final char[] alphabet, final int[] decodeTable, final int bitsPerCharacter, final boolean padding, final int chunkSize,
+			final char[] separator) {
+		this.alphabet = alphabet;
+		this.decodeTable = decodeTable;
+		this.bitsPerCharacter = bitsPerCharacter;
+		// The block is the least common multiple of eight and the bits per character (4, 5 and 6 are the only ones)
+		this.bytesPerBlock = bitsPerCharacter == 6 ? 3 : bitsPerCharacter == 5 ? 5 : 1;
+		this.charactersPerBlock = this.bytesPerBlock * 8 / bitsPerCharacter;
+		this.padding = padding;
+		this.chunkSize = chunkSize;
+		this.separator = separator;
+	}
+
+	private static int[] createDecodeTable(final String alphabet) {
+		final int[] result = new int[128];
+		Arrays.fill(result, RFC3548StreamCodec.INVALID);
+		final boolean caseInsensitive = alphabet.equals(alphabet.toUpperCase());
+		for (int i = 0; i < alphabet.length(); i++) {
+			final char c = alphabet.charAt(i);
+			result[c] = i;
+			if (caseInsensitive) {
+				result[Character.toLowerCase(c)] = i;
+			}
+		}
+		result[RFC3548StreamCodec.PADDING_CHARACTER] = RFC3548StreamCodec.PADDING;
+		return result;
+	}
+
+	/**
+	 * Returns a codec which fills the last block with the padding character (true) or only writes the characters
+	 * required for the remaining bits (false).
+	 *
+	 * @param padding True to pad the last block.
+	 *
+	 * @return The codec with the padding setting.
+	 */
+	public RFC3548StreamCodec withPadding(final boolean padding) {
+		return padding == this.padding ? this : new RFC3548StreamCodec(this.alphabet, this.decodeTable, this.bitsPerCharacter, padding, this.chunkSize, this.separator);
+	}
+
+	/**
+	 * Returns a codec which separates the encoded output in chunks of the given size like the {@link ChunkedEncoder}.
+	 * The separator is only written between chunks. Decoding ignores the separator characters as long as they are not
+	 * part of the alphabet.
+	 *
+	 * @param chunkSize The size of a chunk (must be greater than zero).
+	 * @param separator The separator to write between chunks (must not be null or empty).
+	 *
+	 * @return The codec writing chunks.
+	 */
+	public RFC3548StreamCodec withChunks(final int chunkSize, final String separator) {
+		return new RFC3548StreamCodec(this.alphabet, this.decodeTable, this.bitsPerCharacter, this.padding, ContractCheck.mustBeInRange(chunkSize, 1,
+				Integer.MAX_VALUE, "chunkSize"), ContractCheck.mustNotBeNullOrEmpty(separator, "separator").toCharArray());
+	}
+
+	/**
+	 * Returns a codec using the chunk size and separator of the given {@link ChunkedEncoder}.
+	 *
+	 * @param chunkedEncoder The chunked encoder to take the setting from.
+	 *
+	 * @return The codec writing chunks.
+	 */
+	public RFC3548StreamCodec withChunks(final ChunkedEncoder chunkedEncoder) {
+		return withChunks(ContractCheck.mustNotBeNull(chunkedEncoder, "chunkedEncoder").getChunkSize(), chunkedEncoder.getSeparator());
+	}
+
+	public RFC3548StreamEncoder newEncoder() {
+		return new RFC3548StreamEncoder(this);
+	}
+
+	public RFC3548StreamDecoder newDecoder() {
+		return new RFC3548StreamDecoder(this);
+	}
+
+	/**
+	 * Wraps the output stream so all bytes written are encoded and written as US-ASCII characters to the given stream.
+	 * The encoding is only complete after the returned stream is closed.
+	 *
+	 * @param out The stream to write the encoded characters to.
+	 *
+	 * @return The encoding output stream.
+	 */
+	public OutputStream wrap(final OutputStream out) {
+		return new RFC3548EncodingOutputStream(out, newEncoder());
+	}
+
+	/**
+	 * Wraps the input stream containing US-ASCII encoded characters so reading from the returned stream returns the
+	 * decoded bytes.
+	 *
+	 * @param in The stream to read the encoded characters from.
+	 *
+	 * @return The decoding input stream.
+	 */
+	public InputStream wrap(final InputStream in) {
+		return new RFC3548DecodingInputStream(in, newDecoder());
+	}
+
+	/**
+	 * Returns the exact number of characters the encoding of the given amount of bytes results in.
+	 *
+	 * @param length The amount of bytes.
+	 *
+	 * @return The amount of encoded characters (including the chunk separators).
+	 */
+	public long encodedLength(final long length) {
+		final long characters = this.padding ? (length + this.bytesPerBlock - 1) / this.bytesPerBlock * this.charactersPerBlock
+				: (length * 8 + this.bitsPerCharacter - 1) / this.bitsPerCharacter;
+		return characters == 0 || this.chunkSize == 0 ? characters : characters + (characters - 1) / this.chunkSize * this.separator.length;
+	}
+
+	@Override
+	public CharSequence encode(final byte[] input) {
+		if (input == null || input.length == 0) {
+			return StringUtilities.EMPTY_STRING;
+		}
+		final long length = encodedLength(input.length);
+		if (length > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Input too large to be encoded in one sequence: " + input.length);
+		}
+		final char[] result = new char[(int) length];
+		newEncoder().encode(ByteBuffer.wrap(input), CharBuffer.wrap(result), true);
+		return new String(result);
+	}
+
+	@Override
+	public byte[] decode(final CharSequence input) {
+		if (input == null || input.length() == 0) {
+			return ArrayConstants.ZERO_LENGTH_BYTE_ARRAY;
+		}
+		final ByteBuffer out = ByteBuffer.allocate((int) ((long) input.length() * this.bitsPerCharacter / 8) + this.bytesPerBlock);
+		newDecoder().decode(CharBuffer.wrap(input), out, true);
+		return Arrays.copyOf(out.array(), out.position());
+	}
+
+	boolean isIgnored(final CharSequence characters) {
+		for (int i = 0; i < characters.length(); i++) {
+			final char c = characters.charAt(i);
+			if (c < this.decodeTable.length && this.decodeTable[c] != RFC3548StreamCodec.INVALID) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	char[] alphabet() {
+		return this.alphabet;
+	}
+
+	int[] decodeTable() {
+		return this.decodeTable;
+	}
+
+	int bitsPerCharacter() {
+		return this.bitsPerCharacter;
+	}
+
+	int bytesPerBlock() {
+		return this.bytesPerBlock;
+	}
+
+	int charactersPerBlock() {
+		return this.charactersPerBlock;
+	}
+
+	boolean isPadding() {
+		return this.padding;
+	}
+
+	int chunkSize() {
+		return this.chunkSize;
+	}
+
+	char[] separator() {
+		return this.separator;
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import org.jbasics.checker.ContractCheck;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+
+/**
+ * Incremental decoder of one of the RFC3548 codings created by {@link RFC3548StreamCodec#newDecoder()}. Characters are
+ * mapped through a lookup table. Like the array based codecs all characters not part of the alphabet (line separators,
+ * white spaces and so on) are skipped. An incomplete block is kept until more input is supplied or the end of the input
+ * is signaled.
+ * <p>
+ * A decoder keeps state and must not be shared between threads. Call {@link #reset()} to reuse it.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public final class RFC3548StreamDecoder {
+	private final int[] decodeTable;
+	private final int bitsPerCharacter;
+	private final int bytesPerBlock;
+	private final int charactersPerBlock;
+
+	private long block;
+	private int blockCharacters;
+	private int paddingCharacters;
+
+	RFC3548StreamDecoder(final RFC3548StreamCodec codec) {
+		this.decodeTable = codec.decodeTable();
+		this.bitsPerCharacter = codec.bitsPerCharacter();
+		this.bytesPerBlock = codec.bytesPerBlock();
+		this.charactersPerBlock = codec.charactersPerBlock();
+	}
+
+	/**
+	 * Decodes the characters remaining in the input buffer into the output buffer. The result is {@link
+	 * CoderResult#UNDERFLOW} if all input has been consumed (and written in case of the end of input) or {@link
+	 * CoderResult#OVERFLOW} if the output buffer has not enough room left for the next block.
+	 *
+	 * @param in         The input buffer.
+	 * @param out        The output buffer.
+	 * @param endOfInput True if no more input is supplied after the given buffer.
+	 *
+	 * @return The coder result ({@link CoderResult#UNDERFLOW} or {@link CoderResult#OVERFLOW}).
+	 */
+	public CoderResult decode(final CharBuffer in, final ByteBuffer out, final boolean endOfInput) {
+		ContractCheck.mustNotBeNull(in, "in");
+		ContractCheck.mustNotBeNull(out, "out");
+		while (true) {
+			if (this.blockCharacters == this.charactersPerBlock) {
+				if (!writeBlock(out, (this.charactersPerBlock - this.paddingCharacters) * this.bitsPerCharacter / 8)) {
+					return CoderResult.OVERFLOW;
+				}
+			}
+			while (this.blockCharacters < this.charactersPerBlock && in.hasRemaining()) {
+				final char c = in.get();
+				final int value = c < this.decodeTable.length ? this.decodeTable[c] : RFC3548StreamCodec.INVALID;
+				if (value >= 0) {
+					this.block = this.block << this.bitsPerCharacter | value;
+					this.blockCharacters++;
+				} else if (value == RFC3548StreamCodec.PADDING && this.blockCharacters > 0) {
+					this.block <<= this.bitsPerCharacter;
+					this.blockCharacters++;
+					this.paddingCharacters++;
+				}
+			}
+			if (this.blockCharacters < this.charactersPerBlock) {
+				if (endOfInput && this.blockCharacters > 0) {
+					final int missing = this.charactersPerBlock - this.blockCharacters;
+					final int bytes = (this.blockCharacters - this.paddingCharacters) * this.bitsPerCharacter / 8;
+					this.block <<= missing * this.bitsPerCharacter;
+					if (!writeBlock(out, bytes)) {
+						this.block >>>= missing * this.bitsPerCharacter;
+						return CoderResult.OVERFLOW;
+					}
+				}
+				return CoderResult.UNDERFLOW;
+			}
+		}
+	}
+
+	/**
+	 * Resets the decoder dropping any pending characters of an incomplete block.
+	 *
+	 * @return This decoder.
+	 */
+	public RFC3548StreamDecoder reset() {
+		this.block = 0L;
+		this.blockCharacters = 0;
+		this.paddingCharacters = 0;
+		return this;
+	}
+
+	private boolean writeBlock(final ByteBuffer out, final int bytes) {
+		if (out.remaining() < bytes) {
+			return false;
+		}
+		for (int i = 0, shift = (this.bytesPerBlock - 1) * 8; i < bytes; i++, shift -= 8) {
+			out.put((byte) (this.block >>> shift));
+		}
+		reset();
+		return true;
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import org.jbasics.checker.ContractCheck;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+
+/**
+ * Incremental encoder of one of the RFC3548 codings created by {@link RFC3548StreamCodec#newEncoder()}. Like a {@link
+ * java.nio.charset.CharsetEncoder} the encoder consumes as much of the input buffer as possible and keeps the bytes of
+ * an incomplete block until either more input is supplied or the end of the input is signaled. Chunk separators are
+ * written inline so the output never needs to be processed again.
+ * <p>
+ * An encoder keeps state and must not be shared between threads. Call {@link #reset()} to reuse it.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public final class RFC3548StreamEncoder {
+	private final char[] alphabet;
+	private final int bitsPerCharacter;
+	private final int bytesPerBlock;
+	private final int charactersPerBlock;
+	private final int mask;
+	private final boolean padding;
+	private final int chunkSize;
+	private final char[] separator;
+
+	private long block;
+	private int blockBytes;
+	private int column;
+
+	RFC3548StreamEncoder(final RFC3548StreamCodec codec) {
+		this.alphabet = codec.alphabet();
+		this.bitsPerCharacter = codec.bitsPerCharacter();
+		this.bytesPerBlock = codec.bytesPerBlock();
+		this.charactersPerBlock = codec.charactersPerBlock();
+		this.mask = (1 << this.bitsPerCharacter) - 1;
+		this.padding = codec.isPadding();
+		this.chunkSize = codec.chunkSize();
+		this.separator = codec.separator();
+	}
+
+	/**
+	 * Encodes the bytes remaining in the input buffer into the output buffer. The result is {@link
+	 * CoderResult#UNDERFLOW} if all input has been consumed (and written in case of the end of input) or {@link
+	 * CoderResult#OVERFLOW} if the output buffer has not enough room left. Bytes of an incomplete block are consumed and
+	 * kept internally.
+	 *
+	 * @param in         The input buffer.
+	 * @param out        The output buffer.
+	 * @param endOfInput True if no more input is supplied after the given buffer.
+	 *
+	 * @return The coder result ({@link CoderResult#UNDERFLOW} or {@link CoderResult#OVERFLOW}).
+	 */
+	public CoderResult encode(final ByteBuffer in, final CharBuffer out, final boolean endOfInput) {
+		ContractCheck.mustNotBeNull(in, "in");
+		ContractCheck.mustNotBeNull(out, "out");
+		while (true) {
+			if (this.blockBytes == this.bytesPerBlock) {
+				if (!writeBlock(out, this.charactersPerBlock)) {
+					return CoderResult.OVERFLOW;
+				}
+			}
+			if (this.blockBytes == 0 && this.chunkSize == 0) {
+				encodeBlocks(in, out);
+			}
+			while (this.blockBytes < this.bytesPerBlock && in.hasRemaining()) {
+				this.block = this.block << 8 | in.get() & 0xff;
+				this.blockBytes++;
+			}
+			if (this.blockBytes < this.bytesPerBlock) {
+				if (endOfInput && this.blockBytes > 0) {
+					final int remainingBits = this.blockBytes * 8;
+					this.block <<= (this.bytesPerBlock - this.blockBytes) * 8;
+					if (!writeBlock(out, (remainingBits + this.bitsPerCharacter - 1) / this.bitsPerCharacter)) {
+						this.block >>>= (this.bytesPerBlock - this.blockBytes) * 8;
+						return CoderResult.OVERFLOW;
+					}
+				}
+				return CoderResult.UNDERFLOW;
+			}
+		}
+	}
+
+	/**
+	 * Resets the encoder dropping any pending bytes of an incomplete block.
+	 *
+	 * @return This encoder.
+	 */
+	public RFC3548StreamEncoder reset() {
+		this.block = 0L;
+		this.blockBytes = 0;
+		this.column = 0;
+		return this;
+	}
+
+	/*
+	 * Tight loop for complete blocks without chunking and no pending bytes.
+	 */
+	private void encodeBlocks(final ByteBuffer in, final CharBuffer out) {
+		final int blocks = Math.min(in.remaining() / this.bytesPerBlock, out.remaining() / this.charactersPerBlock);
+		for (int b = 0; b < blocks; b++) {
+			long temp = 0L;
+			for (int i = 0; i < this.bytesPerBlock; i++) {
+				temp = temp << 8 | in.get() & 0xff;
+			}
+			for (int shift = (this.charactersPerBlock - 1) * this.bitsPerCharacter; shift >= 0; shift -= this.bitsPerCharacter) {
+				out.put(this.alphabet[(int) (temp >>> shift) & this.mask]);
+			}
+		}
+	}
+
+	/*
+	 * Writes the given amount of characters of the current block (filling up with padding if required) if the output
+	 * has enough room for the characters and all separators.
+	 */
+	private boolean writeBlock(final CharBuffer out, final int characters) {
+		final int written = this.padding ? this.charactersPerBlock : characters;
+		if (out.remaining() < written + separatorsFor(written) * this.separator.length) {
+			return false;
+		}
+		int shift = (this.charactersPerBlock - 1) * this.bitsPerCharacter;
+		for (int i = 0; i < written; i++, shift -= this.bitsPerCharacter) {
+			if (this.chunkSize > 0 && this.column == this.chunkSize) {
+				out.put(this.separator);
+				this.column = 0;
+			}
+			out.put(i < characters ? this.alphabet[(int) (this.block >>> shift) & this.mask] : RFC3548StreamCodec.PADDING_CHARACTER);
+			this.column++;
+		}
+		this.block = 0L;
+		this.blockBytes = 0;
+		return true;
+	}
+
+	private int separatorsFor(final int characters) {
+		if (this.chunkSize == 0) {
+			return 0;
+		}
+		int result = 0;
+		int temp = this.column;
+		for (int i = 0; i < characters; i++) {
+			if (temp == this.chunkSize) {
+				result++;
+				temp = 0;
+			}
+			temp++;
+		}
+		return result;
+	}
+}
@@ -60,7 +60,7 @@ public class XOrCryptCodec implements Codec<CharSequence, byte[]> {
 		final ByteBuffer bytes = this.charset.encode(CharBuffer.wrap(decoded));
 		final byte[] b = new byte[bytes.limit() + 1];
 		bytes.get(b, 1, bytes.limit());
-		final int seed = Math.abs((int) (Math.random() * 983) % 109) + 13;
+		final int seed = XOrCryptCodec.nextSeed();
 		b[0] = (byte) seed;
 		final Random r = new Random(seed);
 		if (this.xorSource != null) {
@@ -75,6 +75,14 @@ public class XOrCryptCodec implements Codec<CharSequence, byte[]> {
 		return b;
 	}
 
+	static int nextSeed() {
+		return Math.abs((int) (Math.random() * 983) % 109) + 13;
+	}
+
+	byte[] xorSource() {
+		return this.xorSource;
+	}
+
 	@Override
 	public CharSequence decode(final byte[] encoded) {
 		final ByteBuffer b = ByteBuffer.allocate(encoded.length - 1);
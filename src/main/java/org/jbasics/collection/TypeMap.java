@@ -23,16 +23,43 @@
  */
 package org.jbasics.collection;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * A map with types as keys where a lookup finds the entry of the closest related type depending on the variance. <p> A
+ * {@link Variance#CONTRAVARIANT} map returns the entry of the nearest super type of the requested type and a {@link
+ * Variance#COVARIANT} map the entry of the nearest sub type. The distance between two types is the shortest path over
+ * super classes and interfaces. On equal distance the entry put first wins. </p> <p> The type hierarchies are
+ * linearized once per class into the distances of all super types. The entry resolved for a requested type is cached
+ * until the map is modified, so repeated lookups of the same type are a single hash lookup. The cache is a {@link
+ * ClassValue} replaced on every modification so it neither grows with the looked up types nor keeps them (or their
+ * class loaders) reachable. Concurrent lookups are safe as long as the map is not modified at the same time. </p>
+ *
+ * @author Mirko Klemm
+ * @since 1.0
+ */
 public class TypeMap<E> implements Map<Class<?>, E> {
 
 	public static final int MAX_RANK = 100;
+	private static final Class<?> NO_MATCH = NoMatch.class;
+	private static final ClassValue<Map<Class<?>, Integer>> HIERARCHIES = new ClassValue<Map<Class<?>, Integer>>() {
+		@Override
+		protected Map<Class<?>, Integer> computeValue(final Class<?> type) {
+			return TypeMap.linearize(type);
+		}
+	};
 	private final Variance variance;
 	private final Map<Class<?>, E> rawMap = new LinkedHashMap<>();
+	private volatile ClassValue<Class<?>> resolved = new Resolved();
 
 	public TypeMap(final Variance variance) {
 		this.variance = variance;
@@ -54,7 +81,11 @@ public class TypeMap<E> implements Map<Class<?>, E> {
 
 	@Override
 	public boolean containsKey(final Object key) {
-		return lookup((Class<?>) key) != null;
+		if (this.variance == Variance.INVARIANT) {
+			return this.rawMap.containsKey(key);
+		} else {
+			return resolve((Class<?>) key) != TypeMap.NO_MATCH;
+		}
 	}
 
 	@Override
@@ -67,58 +98,83 @@ public class TypeMap<E> implements Map<Class<?>, E> {
 		if (this.variance == Variance.INVARIANT) {
 			return this.rawMap.get(key);
 		} else {
-			return lookup((Class<?>) key);
+			final Class<?> temp = resolve((Class<?>) key);
+			return temp == TypeMap.NO_MATCH ? null : this.rawMap.get(temp);
 		}
 	}
 
 	@Override
 	public E put(final Class<?> key, final E value) {
-		return this.rawMap.put(key, value);
+		final boolean added = !this.rawMap.containsKey(key);
+		final E result = this.rawMap.put(key, value);
+		if (added) {
+			invalidate();
+		}
+		return result;
 	}
 
 	@Override
 	public E remove(final Object key) {
-		return this.rawMap.remove(key);
+		final boolean removed = this.rawMap.containsKey(key);
+		final E result = this.rawMap.remove(key);
+		if (removed) {
+			invalidate();
+		}
+		return result;
 	}
 
 	@Override
 	public void putAll(final Map<? extends Class<?>, ? extends E> m) {
 		this.rawMap.putAll(m);
+		invalidate();
 	}
 
 	@Override
 	public void clear() {
 		this.rawMap.clear();
+		invalidate();
 	}
 
 	@Override
 	public Set<Class<?>> keySet() {
-		return this.rawMap.keySet();
+		return new InvalidatingSet<>(this.rawMap.keySet());
 	}
 
 	@Override
 	public Collection<E> values() {
-		return this.rawMap.values();
+		return new InvalidatingCollection<>(this.rawMap.values());
 	}
 
 	@Override
 	public Set<java.util.Map.Entry<Class<?>, E>> entrySet() {
-		return this.rawMap.entrySet();
+		return new InvalidatingSet<>(this.rawMap.entrySet());
 	}
 
-	private E lookup(final Class<?> type) {
-		E bestRanked = null;
+	/**
+	 * Returns the key of the best ranked entry for the type. The resolved key is cached instead of the value so
+	 * changing the value of an existing entry does not require to invalidate the cache.
+	 */
+	private Class<?> resolve(final Class<?> type) {
+		return this.resolved.get(type);
+	}
+
+	private Class<?> lookup(final Class<?> type) {
+		Class<?> bestRanked = TypeMap.NO_MATCH;
 		int bestRank = TypeMap.MAX_RANK;
-		for (final Map.Entry<Class<?>, E> cls : this.rawMap.entrySet()) {
-			final int rank = getRank(cls.getKey(), type);
+		for (final Class<?> cls : this.rawMap.keySet()) {
+			final int rank = getRank(cls, type);
 			if (rank < bestRank) {
 				bestRank = rank;
-				bestRanked = cls.getValue();
+				bestRanked = cls;
 			}
 		}
 		return bestRanked;
 	}
 
+	private void invalidate() {
+		this.resolved = new Resolved();
+	}
+
 	public int getRank(final Class<?> general, final Class<?> special) {
 		return getRank(this.variance, general, special);
 	}
@@ -126,30 +182,156 @@ public class TypeMap<E> implements Map<Class<?>, E> {
 	public static int getRank(final Variance variance, final Class<?> general, final Class<?> special) {
 		switch (variance) {
 		case CONTRAVARIANT:
-			return findRank(0, general, special);
+			return findRank(general, special);
 		case COVARIANT:
-			return findRank(0, special, general);
+			return findRank(special, general);
 		default:
 			return TypeMap.MAX_RANK;
 		}
 	}
 
-	private static int findRank(final int currentRank, final Class<?> general, final Class<?> special) {
-		if (general.equals(special)) {
-			return currentRank;
-		} else if (!general.isAssignableFrom(special)) {
-			return TypeMap.MAX_RANK;
-		} else {
-			int classRank = TypeMap.MAX_RANK;
-			if (special.getSuperclass() != null) {
-				classRank = findRank(currentRank + 1, general, special.getSuperclass());
+	/**
+	 * Returns the linearized hierarchy of the type. The returned map holds the type itself and all its super classes
+	 * and interfaces with their shortest distance to the type in order of the distance.
+	 *
+	 * @param type The type
+	 *
+	 * @return The unmodifiable map of all super types to their distance
+	 */
+	public static Map<Class<?>, Integer> getHierarchy(final Class<?> type) {
+		return TypeMap.HIERARCHIES.get(type);
+	}
+
+	private static int findRank(final Class<?> general, final Class<?> special) {
+		final Integer rank = TypeMap.HIERARCHIES.get(special).get(general);
+		return rank == null ? TypeMap.MAX_RANK : Math.min(rank.intValue(), TypeMap.MAX_RANK);
+	}
+
+	private static Map<Class<?>, Integer> linearize(final Class<?> type) {
+		final Map<Class<?>, Integer> result = new LinkedHashMap<>();
+		final Deque<Class<?>> queue = new ArrayDeque<>();
+		result.put(type, Integer.valueOf(0));
+		queue.add(type);
+		while (!queue.isEmpty()) {
+			final Class<?> current = queue.poll();
+			final Integer distance = Integer.valueOf(result.get(current).intValue() + 1);
+			final Class<?> superClass = current.getSuperclass();
+			if (superClass != null && !result.containsKey(superClass)) {
+				result.put(superClass, distance);
+				queue.add(superClass);
+			}
+			for (final Class<?> iface : current.getInterfaces()) {
+				if (!result.containsKey(iface)) {
+					result.put(iface, distance);
+					queue.add(iface);
+				}
 			}
-			int interfaceRank = TypeMap.MAX_RANK;
-			for (final Class<?> iface : special.getInterfaces()) {
-				final int currentInterfaceRank = findRank(currentRank + 1, general, iface);
-				interfaceRank = Math.min(interfaceRank, currentInterfaceRank);
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	private static final class NoMatch {
+	}
+
+	/**
+	 * One generation of resolved keys. A new generation replaces the old one whenever the map is modified.
+	 */
+	private final class Resolved extends ClassValue<Class<?>> {
+		@Override
+		protected Class<?> computeValue(final Class<?> type) {
+			return lookup(type);
+		}
+	}
+
+	private final class InvalidatingIterator<T> implements Iterator<T> {
+		private final Iterator<T> delegate;
+
+		private InvalidatingIterator(final Iterator<T> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.delegate.hasNext();
+		}
+
+		@Override
+		public T next() {
+			return this.delegate.next();
+		}
+
+		@Override
+		public void remove() {
+			this.delegate.remove();
+			invalidate();
+		}
+	}
+
+	/**
+	 * View of the raw map invalidating the resolved types when entries are removed through it.
+	 */
+	private final class InvalidatingSet<T> extends AbstractSet<T> {
+		private final Set<T> delegate;
+
+		private InvalidatingSet(final Set<T> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return new InvalidatingIterator<>(this.delegate.iterator());
+		}
+
+		@Override
+		public int size() {
+			return this.delegate.size();
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+			return this.delegate.contains(o);
+		}
+
+		@Override
+		public boolean remove(final Object o) {
+			final boolean result = this.delegate.remove(o);
+			if (result) {
+				invalidate();
 			}
-			return Math.min(classRank, interfaceRank);
+			return result;
+		}
+
+		@Override
+		public void clear() {
+			this.delegate.clear();
+			invalidate();
+		}
+	}
+
+	/**
+	 * View of the raw map values invalidating the resolved types when entries are removed through it.
+	 */
+	private final class InvalidatingCollection<T> extends AbstractCollection<T> {
+		private final Collection<T> delegate;
+
+		private InvalidatingCollection(final Collection<T> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return new InvalidatingIterator<>(this.delegate.iterator());
+		}
+
+		@Override
+		public int size() {
+			return this.delegate.size();
+		}
+
+		@Override
+		public void clear() {
+			this.delegate.clear();
+			invalidate();
 		}
 	}
 }
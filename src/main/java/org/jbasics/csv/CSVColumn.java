@@ -0,0 +1,457 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.checker.ContractCheck;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.DoubleSummaryStatistics;
+import java.util.TimeZone;
+import java.util.function.DoublePredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * A single typed column of a {@link CSVColumnTable}. The values are stored in a primitive array matching the
+ * {@link CSVColumnType} and empty fields are recorded in a null bitmap. Scans, filters and aggregations over numeric
+ * columns work on the primitive values directly without boxing.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public final class CSVColumn {
+	private final String name;
+	private final CSVColumnType type;
+	private final int size;
+	private final BitSet nulls;
+	private final int[] ints;
+	private final long[] longs;
+	private final double[] doubles;
+	private final Object[] objects;
+
+	private CSVColumn(final Builder builder) {
+		this.name = builder.name;
+		this.type = builder.type;
+		this.size = builder.size;
+		this.nulls = (BitSet) builder.nulls.clone();
+		this.ints = builder.ints == null ? null : Arrays.copyOf(builder.ints, this.size);
+		this.longs = builder.longs == null ? null : Arrays.copyOf(builder.longs, this.size);
+		this.doubles = builder.doubles == null ? null : Arrays.copyOf(builder.doubles, this.size);
+		this.objects = builder.objects == null ? null : Arrays.copyOf(builder.objects, this.size);
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public CSVColumnType getType() {
+		return this.type;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isNull(final int row) {
+		checkRow(row);
+		return this.nulls.get(row);
+	}
+
+	public int nullCount() {
+		return this.nulls.cardinality();
+	}
+
+	public int getInt(final int row) {
+		checkRow(row);
+		if (this.ints == null) {
+			throw new IllegalStateException("Column " + this.name + " of type " + this.type + " has no int values");
+		}
+		return this.ints[row];
+	}
+
+	public long getLong(final int row) {
+		checkRow(row);
+		if (this.ints != null) {
+			return this.ints[row];
+		} else if (this.longs != null) {
+			return this.longs[row];
+		}
+		throw new IllegalStateException("Column " + this.name + " of type " + this.type + " has no long values");
+	}
+
+	public double getDouble(final int row) {
+		checkRow(row);
+		switch (this.type) {
+			case INT:
+				return this.ints[row];
+			case LONG:
+				return this.longs[row];
+			case DOUBLE:
+				return this.doubles[row];
+			case DECIMAL:
+				return this.nulls.get(row) ? 0d : ((BigDecimal) this.objects[row]).doubleValue();
+			default:
+				throw new IllegalStateException("Column " + this.name + " of type " + this.type + " has no numeric values");
+		}
+	}
+
+	public BigDecimal getDecimal(final int row) {
+		checkRow(row);
+		if (this.nulls.get(row)) {
+			return null;
+		}
+		switch (this.type) {
+			case INT:
+				return BigDecimal.valueOf(this.ints[row]);
+			case LONG:
+				return BigDecimal.valueOf(this.longs[row]);
+			case DOUBLE:
+				return BigDecimal.valueOf(this.doubles[row]);
+			case DECIMAL:
+				return (BigDecimal) this.objects[row];
+			default:
+				throw new IllegalStateException("Column " + this.name + " of type " + this.type + " has no numeric values");
+		}
+	}
+
+	/**
+	 * Returns the value as string. Numbers are rendered with their canonical string form and dates as ISO-8601 instant
+	 * so the text is not necessarily the one originally parsed.
+	 *
+	 * @param row The row index.
+	 *
+	 * @return The value as string or null if the field was empty.
+	 */
+	public String getString(final int row) {
+		checkRow(row);
+		if (this.nulls.get(row)) {
+			return null;
+		}
+		switch (this.type) {
+			case INT:
+				return Integer.toString(this.ints[row]);
+			case LONG:
+				return Long.toString(this.longs[row]);
+			case DOUBLE:
+				return Double.toString(this.doubles[row]);
+			case DATE:
+				return Instant.ofEpochMilli(this.longs[row]).toString();
+			default:
+				return this.objects[row].toString();
+		}
+	}
+
+	/**
+	 * Returns the boxed value of the given row. This boxes primitive values and should not be used in scans.
+	 *
+	 * @param row The row index.
+	 *
+	 * @return The boxed value or null if the field was empty.
+	 */
+	public Object getValue(final int row) {
+		checkRow(row);
+		if (this.nulls.get(row)) {
+			return null;
+		}
+		switch (this.type) {
+			case INT:
+				return Integer.valueOf(this.ints[row]);
+			case LONG:
+				return Long.valueOf(this.longs[row]);
+			case DOUBLE:
+				return Double.valueOf(this.doubles[row]);
+			case DATE:
+				return Instant.ofEpochMilli(this.longs[row]);
+			default:
+				return this.objects[row];
+		}
+	}
+
+	/**
+	 * Returns the non null values of an INT column.
+	 *
+	 * @return The stream of the int values.
+	 */
+	public IntStream ints() {
+		if (this.ints == null) {
+			throw new IllegalStateException("Column " + this.name + " of type " + this.type + " has no int values");
+		}
+		return nonNullRows().map(row -> this.ints[row]);
+	}
+
+	/**
+	 * Returns the non null values of an INT, LONG or DATE column.
+	 *
+	 * @return The stream of the long values.
+	 */
+	public LongStream longs() {
+		if (this.ints != null) {
+			return nonNullRows().mapToLong(row -> this.ints[row]);
+		} else if (this.longs != null) {
+			return nonNullRows().mapToLong(row -> this.longs[row]);
+		}
+		throw new IllegalStateException("Column " + this.name + " of type " + this.type + " has no long values");
+	}
+
+	/**
+	 * Returns the non null values of a numeric column.
+	 *
+	 * @return The stream of the double values.
+	 */
+	public DoubleStream doubles() {
+		if (!this.type.isNumeric()) {
+			throw new IllegalStateException("Column " + this.name + " of type " + this.type + " has no numeric values");
+		}
+		if (this.doubles != null) {
+			return nonNullRows().mapToDouble(row -> this.doubles[row]);
+		}
+		return nonNullRows().mapToDouble(this::getDouble);
+	}
+
+	public DoubleSummaryStatistics statistics() {
+		return doubles().summaryStatistics();
+	}
+
+	public double sum() {
+		return doubles().sum();
+	}
+
+	/**
+	 * Sums the values exactly as {@link BigDecimal}. Other than {@link #sum()} this is exact for DECIMAL columns.
+	 *
+	 * @return The exact sum of all non null values.
+	 */
+	public BigDecimal sumDecimal() {
+		if (this.type == CSVColumnType.DECIMAL) {
+			BigDecimal result = BigDecimal.ZERO;
+			for (int row = this.nulls.nextClearBit(0); row < this.size; row = this.nulls.nextClearBit(row + 1)) {
+				result = result.add((BigDecimal) this.objects[row]);
+			}
+			return result;
+		} else if (this.ints != null || this.longs != null && this.type != CSVColumnType.DATE) {
+			return BigDecimal.valueOf(longs().sum());
+		}
+		return BigDecimal.valueOf(sum());
+	}
+
+	public BitSet filterDoubles(final DoublePredicate predicate) {
+		final BitSet result = new BitSet(this.size);
+		if (this.doubles != null) {
+			for (int row = this.nulls.nextClearBit(0); row < this.size; row = this.nulls.nextClearBit(row + 1)) {
+				if (predicate.test(this.doubles[row])) {
+					result.set(row);
+				}
+			}
+		} else {
+			for (int row = this.nulls.nextClearBit(0); row < this.size; row = this.nulls.nextClearBit(row + 1)) {
+				if (predicate.test(getDouble(row))) {
+					result.set(row);
+				}
+			}
+		}
+		return result;
+	}
+
+	public BitSet filterLongs(final LongPredicate predicate) {
+		final BitSet result = new BitSet(this.size);
+		for (int row = this.nulls.nextClearBit(0); row < this.size; row = this.nulls.nextClearBit(row + 1)) {
+			if (predicate.test(getLong(row))) {
+				result.set(row);
+			}
+		}
+		return result;
+	}
+
+	public BitSet filterStrings(final Predicate<String> predicate) {
+		final BitSet result = new BitSet(this.size);
+		for (int row = this.nulls.nextClearBit(0); row < this.size; row = this.nulls.nextClearBit(row + 1)) {
+			if (predicate.test(getString(row))) {
+				result.set(row);
+			}
+		}
+		return result;
+	}
+
+	private IntStream nonNullRows() {
+		return IntStream.range(0, this.size).filter(row -> !this.nulls.get(row));
+	}
+
+	private void checkRow(final int row) {
+		if (row < 0 || row >= this.size) {
+			throw new IndexOutOfBoundsException("Row " + row + " out of range [0," + this.size + ")");
+		}
+	}
+
+	/**
+	 * Collects the values of a column. A widening builder keeps the original text of every value until the column is
+	 * widened to STRING so a widened column holds the values reparsed from their text and text columns keep the text
+	 * as read. Dates without a time zone are taken as UTC.
+	 */
+	static final class Builder {
+		private static final TimeZone UTC = TimeZone.getTimeZone("UTC"); //$NON-NLS-1$
+
+		private final String name;
+		private final boolean widening;
+		private final BitSet nulls = new BitSet();
+		private CSVColumnType type;
+		private int size;
+		private int[] ints;
+		private long[] longs;
+		private double[] doubles;
+		private Object[] objects;
+		private String[] texts;
+
+		Builder(final String name, final CSVColumnType type, final boolean widening) {
+			this.name = name;
+			this.type = ContractCheck.mustNotBeNull(type, "type");
+			this.widening = widening;
+			allocate(16);
+			if (widening && this.type != CSVColumnType.STRING) {
+				this.texts = new String[16];
+			}
+		}
+
+		Builder append(final String text) {
+			if (text == null || text.isEmpty()) {
+				ensureCapacity();
+				this.nulls.set(this.size++);
+				return this;
+			}
+			if (this.widening && !this.type.isInferable(text)) {
+				// The value parsers accept forms like "007" which would not keep their text as number
+				widenTo(this.type.accepting(text));
+			}
+			Object value;
+			try {
+				value = this.type.getValueTypeFactory().create(text);
+			} catch (final RuntimeException e) {
+				if (!this.widening) {
+					throw new IllegalArgumentException("Value '" + text + "' in row " + this.size + " of column " + this.name + " is not of type " + this.type, e);
+				}
+				widenTo(this.type.accepting(text));
+				value = this.type.getValueTypeFactory().create(text);
+			}
+			ensureCapacity();
+			if (this.texts != null) {
+				this.texts[this.size] = text;
+			}
+			store(this.size++, value);
+			return this;
+		}
+
+		CSVColumn build() {
+			return new CSVColumn(this);
+		}
+
+		private void store(final int row, final Object value) {
+			switch (this.type) {
+				case INT:
+					this.ints[row] = ((Integer) value).intValue();
+					break;
+				case LONG:
+					this.longs[row] = ((Long) value).longValue();
+					break;
+				case DOUBLE:
+					this.doubles[row] = ((Double) value).doubleValue();
+					break;
+				case DATE:
+					XMLGregorianCalendar date = (XMLGregorianCalendar) value;
+					if (date.getTimezone() == DatatypeConstants.FIELD_UNDEFINED) {
+						date = (XMLGregorianCalendar) date.clone();
+						date.setTimezone(0);
+					}
+					this.longs[row] = date.toGregorianCalendar(Builder.UTC, null, null).getTimeInMillis();
+					break;
+				default:
+					this.objects[row] = value;
+			}
+		}
+
+		/**
+		 * Changes the type of the column and reparses the text of all values read so far with the wider type.
+		 */
+		private void widenTo(final CSVColumnType wider) {
+			this.type = wider;
+			allocate(this.texts.length);
+			for (int row = this.nulls.nextClearBit(0); row < this.size; row = this.nulls.nextClearBit(row + 1)) {
+				store(row, wider.getValueTypeFactory().create(this.texts[row]));
+			}
+			if (wider == CSVColumnType.STRING) {
+				this.texts = null;
+			}
+		}
+
+		private void allocate(final int capacity) {
+			this.ints = null;
+			this.longs = null;
+			this.doubles = null;
+			this.objects = null;
+			switch (this.type) {
+				case INT:
+					this.ints = new int[capacity];
+					break;
+				case LONG:
+				case DATE:
+					this.longs = new long[capacity];
+					break;
+				case DOUBLE:
+					this.doubles = new double[capacity];
+					break;
+				default:
+					this.objects = new Object[capacity];
+			}
+		}
+
+		private int capacity() {
+			return this.ints != null ? this.ints.length : this.longs != null ? this.longs.length : this.doubles != null ? this.doubles.length : this.objects.length;
+		}
+
+		private void ensureCapacity() {
+			if (this.size == capacity()) {
+				final int capacity = this.size * 2;
+				if (this.ints != null) {
+					this.ints = Arrays.copyOf(this.ints, capacity);
+				} else if (this.longs != null) {
+					this.longs = Arrays.copyOf(this.longs, capacity);
+				} else if (this.doubles != null) {
+					this.doubles = Arrays.copyOf(this.doubles, capacity);
+				} else {
+					this.objects = Arrays.copyOf(this.objects, capacity);
+				}
+				if (this.texts != null) {
+					this.texts = Arrays.copyOf(this.texts, capacity);
+				}
+			}
+		}
+	}
+}
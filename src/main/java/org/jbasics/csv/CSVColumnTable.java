@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.exception.DelegatedException;
+import org.jbasics.pattern.container.Indexed;
+import org.jbasics.pattern.container.TabularData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A column oriented, typed view of CSV data. Each column stores its values in a primitive array according to its
+ * {@link CSVColumnType} so numeric columns take a fraction of the memory of the string records and can be scanned and
+ * aggregated without reparsing or boxing.
+ * <p>
+ * The column types can either be given or are inferred. Inference looks at the first records (the sample) and picks
+ * the narrowest type parsing all values. Should a later value not fit the inferred type the column is widened
+ * (INT to LONG to DOUBLE and everything else to STRING). Widening to STRING renders the already parsed values with
+ * their canonical form. Given types are never widened and a value not fitting is reported with an
+ * {@link IllegalArgumentException}.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class CSVColumnTable implements Iterable<CSVColumn>, Indexed<CSVColumn>, TabularData<String> {
+	public static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+	private final CSVRecord headers;
+	private final CSVColumn[] columns;
+	private final Map<String, CSVColumn> columnsByName;
+	private final int rowSize;
+
+	private CSVColumnTable(final CSVRecord headers, final CSVColumn[] columns, final int rowSize) {
+		this.headers = headers;
+		this.columns = columns;
+		this.rowSize = rowSize;
+		final Map<String, CSVColumn> temp = new HashMap<String, CSVColumn>();
+		for (final CSVColumn column : columns) {
+			if (column.getName() != null) {
+				temp.put(column.getName(), column);
+			}
+		}
+		this.columnsByName = Collections.unmodifiableMap(temp);
+	}
+
+	/**
+	 * Builds the table reading the records from the connection. The connection is read to the end but not closed.
+	 *
+	 * @param connection The connection to read from (must not be null).
+	 * @param types      The types of the columns. Missing or null types are inferred.
+	 *
+	 * @return The column table.
+	 *
+	 * @throws IOException If reading from the connection fails.
+	 */
+	public static CSVColumnTable read(final CSVDataConnection connection, final CSVColumnType... types) throws IOException {
+		ContractCheck.mustNotBeNull(connection, "connection");
+		return read(connection.getHeaders(), connection::readNext, types);
+	}
+
+	public static CSVColumnTable build(final CSVTable table, final CSVColumnType... types) {
+		ContractCheck.mustNotBeNull(table, "table");
+		final Iterator<CSVRecord> records = table.iterator();
+		try {
+			return read(table.getHeaders(), () -> records.hasNext() ? records.next() : null, types);
+		} catch (final IOException e) {
+			throw DelegatedException.delegate(e);
+		}
+	}
+
+	private static CSVColumnTable read(final CSVRecord headers, final RecordSource source, final CSVColumnType[] types) throws IOException {
+		final List<CSVRecord> sample = new ArrayList<CSVRecord>();
+		int columnCount = headers == null ? 0 : headers.size();
+		if (types != null) {
+			columnCount = Math.max(columnCount, types.length);
+		}
+		final boolean needsInference = types == null || types.length < columnCount || hasNull(types);
+		CSVRecord current = null;
+		if (needsInference) {
+			while (sample.size() < CSVColumnTable.DEFAULT_SAMPLE_SIZE && (current = source.next()) != null) {
+				sample.add(current);
+				columnCount = Math.max(columnCount, current.size());
+			}
+		}
+		final CSVColumn.Builder[] builders = new CSVColumn.Builder[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			final CSVColumnType given = types != null && i < types.length ? types[i] : null;
+			final String name = headers != null && i < headers.size() ? headers.getField(i) : null;
+			builders[i] = new CSVColumn.Builder(name, given == null ? inferType(sample, i) : given, given == null);
+		}
+		int rows = 0;
+		for (final CSVRecord record : sample) {
+			append(builders, record);
+			rows++;
+		}
+		if (!needsInference || current != null) {
+			while ((current = source.next()) != null) {
+				if (current.size() > builders.length) {
+					throw new IllegalArgumentException("Record " + rows + " has " + current.size() + " fields but the table only " + builders.length + " columns");
+				}
+				append(builders, current);
+				rows++;
+			}
+		}
+		final CSVColumn[] columns = new CSVColumn[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			columns[i] = builders[i].build();
+		}
+		return new CSVColumnTable(headers, columns, rows);
+	}
+
+	private static boolean hasNull(final CSVColumnType[] types) {
+		for (final CSVColumnType type : types) {
+			if (type == null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static CSVColumnType inferType(final List<CSVRecord> sample, final int column) {
+		CSVColumnType result = null;
+		for (final CSVRecord record : sample) {
+			if (column < record.size()) {
+				final String text = record.getField(column);
+				if (text != null && !text.isEmpty()) {
+					result = result == null ? CSVColumnType.infer(text) : result.accepting(text);
+					if (result == CSVColumnType.STRING) {
+						break;
+					}
+				}
+			}
+		}
+		return result == null ? CSVColumnType.STRING : result;
+	}
+
+	private static void append(final CSVColumn.Builder[] builders, final CSVRecord record) {
+		for (int i = 0; i < builders.length; i++) {
+			builders[i].append(i < record.size() ? record.getField(i) : null);
+		}
+	}
+
+	public boolean hasHeaders() {
+		return this.headers != null;
+	}
+
+	public CSVRecord getHeaders() {
+		return this.headers;
+	}
+
+	public CSVColumn getColumn(final int index) {
+		return this.columns[index];
+	}
+
+	public CSVColumn getColumn(final String name) {
+		final CSVColumn result = this.columnsByName.get(name);
+		if (result == null) {
+			throw new IllegalArgumentException("No column named " + name);
+		}
+		return result;
+	}
+
+	@Override
+	public int size() {
+		return this.columns.length;
+	}
+
+	@Override
+	public CSVColumn getElementAtIndex(final int index) {
+		return getColumn(index);
+	}
+
+	@Override
+	public int columnSize() {
+		return this.columns.length;
+	}
+
+	@Override
+	public int rowSize() {
+		return this.rowSize;
+	}
+
+	@Override
+	public String getValueAtRowAndColumn(final int row, final int column) {
+		return this.columns[column].getString(row);
+	}
+
+	@Override
+	public Iterator<CSVColumn> iterator() {
+		return Collections.unmodifiableList(Arrays.asList(this.columns)).iterator();
+	}
+
+	private interface RecordSource {
+		CSVRecord next() throws IOException;
+	}
+}
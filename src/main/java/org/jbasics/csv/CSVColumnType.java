@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.configuration.properties.BigDecimalValueTypeFactory;
+import org.jbasics.configuration.properties.DateValueTypeFactory;
+import org.jbasics.configuration.properties.DoubleValueTypeFactory;
+import org.jbasics.configuration.properties.IntValueTypeFactory;
+import org.jbasics.configuration.properties.LongValueTypeFactory;
+import org.jbasics.configuration.properties.PassThruValueTypeFactory;
+import org.jbasics.pattern.factory.ParameterFactory;
+
+/**
+ * The types a {@link CSVColumn} can store. Each type parses the field text with the matching value type factory of the
+ * configuration properties. INT, LONG, DOUBLE and DATE are stored in primitive arrays (DATE as epoch milliseconds)
+ * while DECIMAL and STRING are stored as object arrays.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public enum CSVColumnType {
+	INT(IntValueTypeFactory.SHARED_INSTANCE),
+	LONG(LongValueTypeFactory.SHARED_INSTANCE),
+	DOUBLE(DoubleValueTypeFactory.SHARED_INSTANCE),
+	DECIMAL(BigDecimalValueTypeFactory.SHARED_INSTANCE),
+	DATE(DateValueTypeFactory.SHARED_INSTANCE),
+	STRING(new PassThruValueTypeFactory<String>());
+
+	private final ParameterFactory<?, String> valueTypeFactory;
+
+	CSVColumnType(final ParameterFactory<?, String> valueTypeFactory) {
+		this.valueTypeFactory = valueTypeFactory;
+	}
+
+	public ParameterFactory<?, String> getValueTypeFactory() {
+		return this.valueTypeFactory;
+	}
+
+	public boolean isNumeric() {
+		return this != DATE && this != STRING;
+	}
+
+	/**
+	 * Returns the type a column is widened to if a value cannot be parsed with this type. INT widens to LONG and LONG
+	 * to DECIMAL (a double cannot hold every long exactly) while everything else widens to {@link #STRING}.
+	 *
+	 * @return The wider type ({@link #STRING} for {@link #STRING}).
+	 */
+	public CSVColumnType widen() {
+		switch (this) {
+			case INT:
+				return LONG;
+			case LONG:
+				return DECIMAL;
+			default:
+				return STRING;
+		}
+	}
+
+	/**
+	 * Returns the narrowest type which is able to parse the given text. Numbers with a fraction or exponent are inferred
+	 * as DOUBLE since DECIMAL cannot be distinguished from DOUBLE by the text alone, DECIMAL is only inferred for
+	 * integers exceeding the LONG range. Numeric types are only inferred for plain decimal literals (see
+	 * {@link #isInferable(String)}) so values like "007" or "0x1F" stay text.
+	 *
+	 * @param text The text to check (must not be null).
+	 *
+	 * @return The narrowest type able to parse the text.
+	 */
+	public static CSVColumnType infer(final String text) {
+		final CSVColumnType result = CSVColumnType.INT.accepting(text);
+		if (result == DECIMAL && CSVColumnType.scanInteger(text, 0) != text.length()) {
+			return DOUBLE;
+		}
+		return result == STRING && CSVColumnType.DATE.parses(text) ? DATE : result;
+	}
+
+	/**
+	 * Returns this type or the narrowest type reachable by {@link #widen()} which is able to parse the given text.
+	 *
+	 * @param text The text to check (must not be null).
+	 *
+	 * @return The type accepting the text.
+	 */
+	public CSVColumnType accepting(final String text) {
+		for (CSVColumnType current = this; current != STRING; current = current.widen()) {
+			if (current.isInferable(text) && current.parses(text)) {
+				return current;
+			}
+		}
+		return STRING;
+	}
+
+	/**
+	 * Returns true if the text has the form this type is inferred from. For INT and LONG this is an optional minus
+	 * followed by decimal digits without a leading zero, DOUBLE and DECIMAL additionally allow a fraction and an
+	 * exponent. The value parsers accept more (radix prefixes, leading zeros, surrounding whitespace) but storing such a
+	 * value as number would lose its original form. The check is syntactical only, the range is not checked.
+	 *
+	 * @param text The text to check (must not be null).
+	 *
+	 * @return True if the text may be inferred as this type.
+	 */
+	public boolean isInferable(final String text) {
+		switch (this) {
+			case INT:
+			case LONG:
+				return CSVColumnType.scanInteger(text, 0) == text.length() && !"-0".equals(text);
+			case DOUBLE:
+			case DECIMAL:
+				if ("-0".equals(text)) {
+					return false;
+				}
+				int i = CSVColumnType.scanInteger(text, 0);
+				if (i < 0) {
+					return false;
+				}
+				if (i < text.length() && text.charAt(i) == '.') {
+					i = CSVColumnType.scanDigits(text, i + 1);
+				}
+				if (i > 0 && i < text.length() && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+					i++;
+					if (i < text.length() && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+						i++;
+					}
+					i = CSVColumnType.scanDigits(text, i);
+				}
+				return i == text.length();
+			default:
+				return true;
+		}
+	}
+
+	public boolean parses(final String text) {
+		try {
+			this.valueTypeFactory.create(text);
+			return true;
+		} catch (final RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Scans an optionally negative integer without leading zeros and returns the index after it or -1.
+	 */
+	private static int scanInteger(final String text, final int from) {
+		int i = from;
+		if (i < text.length() && text.charAt(i) == '-') {
+			i++;
+		}
+		if (i >= text.length() || text.charAt(i) < '0' || text.charAt(i) > '9') {
+			return -1;
+		}
+		if (text.charAt(i) == '0') {
+			i++;
+			return i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9' ? -1 : i;
+		}
+		return CSVColumnType.scanDigits(text, i);
+	}
+
+	/**
+	 * Scans at least one decimal digit and returns the index after the digits or -1.
+	 */
+	private static int scanDigits(final String text, final int from) {
+		int i = from;
+		while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+			i++;
+		}
+		return i > from ? i : -1;
+	}
+}
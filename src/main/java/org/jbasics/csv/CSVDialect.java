@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.annotation.ImmutableState;
+import org.jbasics.annotation.ThreadSafe;
+
+/**
+ * The dialect of CSV data consisting of the separator, the quote character and if the first record holds the
+ * headers. A dialect is typically the result of a {@link CSVDialectDetector} and accepted by the {@link CSVParser} and
+ * {@link CSVRecordReader}.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+@ImmutableState
+public final class CSVDialect {
+	public static final char DEFAULT_QUOTE = '"';
+	public static final CSVDialect RFC4180 = new CSVDialect(',', CSVDialect.DEFAULT_QUOTE, false);
+
+	private final char separator;
+	private final char quote;
+	private final boolean headers;
+
+	public CSVDialect(final char separator, final char quote, final boolean headers) {
+		if (separator == quote || separator == '\r' || separator == '\n') {
+			throw new IllegalArgumentException("Illegal separator " + separator + " for quote " + quote);
+		}
+		this.separator = separator;
+		this.quote = quote;
+		this.headers = headers;
+	}
+
+	public char getSeparator() {
+		return this.separator;
+	}
+
+	public char getQuote() {
+		return this.quote;
+	}
+
+	public boolean hasHeaders() {
+		return this.headers;
+	}
+
+	public CSVDialect withHeaders(final boolean headers) {
+		return this.headers == headers ? this : new CSVDialect(this.separator, this.quote, headers);
+	}
+
+	public CSVDialect withSeparator(final char separator) {
+		return this.separator == separator ? this : new CSVDialect(separator, this.quote, this.headers);
+	}
+
+	@Override
+	public int hashCode() {
+		return (this.separator * 31 + this.quote) * 31 + (this.headers ? 1 : 0);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		final CSVDialect other = (CSVDialect) obj;
+		return this.separator == other.separator && this.quote == other.quote && this.headers == other.headers;
+	}
+
+	@Override
+	public String toString() {
+		return "CSVDialect[separator='" + this.separator + "', quote='" + this.quote + "', headers=" + this.headers + "]";
+	}
+}
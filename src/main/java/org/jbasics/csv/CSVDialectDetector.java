@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.exception.DelegatedException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Detects the {@link CSVDialect} of a data sample. The sample is scanned once and for every candidate quote character
+ * the number of every candidate separator outside of quotes is counted per line. The separator whose per line count
+ * is most consistent (and highest on a tie) wins. The quote character is the candidate found most often at field
+ * boundaries. Finally the first few records are checked if the first record looks like a header, which is the case
+ * if its values do not fit the type or length of the values below.
+ * <p>
+ * If the sample is given as bytes in an ASCII compatible charset (UTF-8, ISO-8859, windows code pages) the bytes are
+ * scanned directly without decoding.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class CSVDialectDetector {
+	public static final char[] DEFAULT_SEPARATORS = {',', ';', '\t', '|'};
+	public static final char[] DEFAULT_QUOTES = {'"', '\''};
+	public static final int DEFAULT_MAX_LINES = 32;
+
+	private static final String ASCII_PROBE = ",;\t|:\"'\r\n";
+	private static final Charset US_ASCII = Charset.forName("US-ASCII");
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	private final char[] separators;
+	private final char[] quotes;
+	private final int maxLines;
+
+	public CSVDialectDetector() {
+		this(CSVDialectDetector.DEFAULT_SEPARATORS, CSVDialectDetector.DEFAULT_QUOTES, CSVDialectDetector.DEFAULT_MAX_LINES);
+	}
+
+	public CSVDialectDetector(final char[] separators, final char[] quotes, final int maxLines) {
+		this.separators = ContractCheck.mustNotBeNull(separators, "separators").clone();
+		this.quotes = ContractCheck.mustNotBeNull(quotes, "quotes").clone();
+		if (this.separators.length == 0 || this.quotes.length == 0) {
+			throw new IllegalArgumentException("At least one separator and quote candidate is required");
+		}
+		this.maxLines = ContractCheck.mustBeInRange(maxLines, 2, Integer.MAX_VALUE, "maxLines");
+	}
+
+	/**
+	 * Detects the dialect of the encoded sample.
+	 *
+	 * @param sample   The sample data.
+	 * @param offset   The offset of the sample in the array.
+	 * @param length   The length of the sample.
+	 * @param complete True if the sample holds the complete data so the last line is complete as well.
+	 * @param charset  The charset of the data.
+	 *
+	 * @return The detected dialect.
+	 */
+	public CSVDialect detect(final byte[] sample, final int offset, final int length, final boolean complete, final Charset charset) {
+		ContractCheck.mustNotBeNull(sample, "sample");
+		final Charset temp = charset == null ? Charset.defaultCharset() : charset;
+		if (Arrays.equals(CSVDialectDetector.ASCII_PROBE.getBytes(temp), CSVDialectDetector.ASCII_PROBE.getBytes(CSVDialectDetector.US_ASCII))) {
+			return detect(new ByteCharSequence(sample, offset, length), complete);
+		}
+		return detect(temp.decode(ByteBuffer.wrap(sample, offset, length)), complete);
+	}
+
+	public CSVDialect detect(final CharSequence sample, final boolean complete) {
+		final int q = this.quotes.length;
+		final int s = this.separators.length;
+		final boolean[] quoted = new boolean[q];
+		final int[] boundaryQuotes = new int[q];
+		final int[] lines = new int[q];
+		final int[] lineLengths = new int[q];
+		final int[][] counts = new int[q][s];
+		final int[][][] lineCounts = new int[q][s][this.maxLines];
+		final int length = sample.length();
+		char previous = '\n';
+		for (int i = 0; i < length; i++) {
+			final char c = sample.charAt(i);
+			final boolean lineEnd = c == '\n' || c == '\r' && (i + 1 >= length || sample.charAt(i + 1) != '\n');
+			for (int qi = 0; qi < q; qi++) {
+				if (lines[qi] >= this.maxLines) {
+					continue;
+				}
+				if (c == this.quotes[qi]) {
+					quoted[qi] = !quoted[qi];
+					if (isBoundary(previous) || i + 1 >= length || isBoundary(sample.charAt(i + 1))) {
+						boundaryQuotes[qi]++;
+					}
+					lineLengths[qi]++;
+				} else if (!quoted[qi]) {
+					if (lineEnd) {
+						if (lineLengths[qi] > 0) {
+							for (int si = 0; si < s; si++) {
+								lineCounts[qi][si][lines[qi]] = counts[qi][si];
+								counts[qi][si] = 0;
+							}
+							lines[qi]++;
+							lineLengths[qi] = 0;
+						}
+					} else if (c != '\r') {
+						for (int si = 0; si < s; si++) {
+							if (c == this.separators[si]) {
+								counts[qi][si]++;
+							}
+						}
+						lineLengths[qi]++;
+					}
+				} else {
+					lineLengths[qi]++;
+				}
+			}
+			previous = c;
+		}
+		int quoteIndex = 0;
+		for (int qi = 1; qi < q; qi++) {
+			if (boundaryQuotes[qi] > boundaryQuotes[quoteIndex]) {
+				quoteIndex = qi;
+			}
+		}
+		if (complete && !quoted[quoteIndex] && lineLengths[quoteIndex] > 0 && lines[quoteIndex] < this.maxLines) {
+			for (int si = 0; si < s; si++) {
+				lineCounts[quoteIndex][si][lines[quoteIndex]] = counts[quoteIndex][si];
+			}
+			lines[quoteIndex]++;
+		}
+		final char separator = selectSeparator(lineCounts[quoteIndex], lines[quoteIndex], counts[quoteIndex]);
+		final char quote = this.quotes[quoteIndex];
+		return new CSVDialect(separator, quote, detectHeaders(sample, complete, separator, quote));
+	}
+
+	private boolean isBoundary(final char c) {
+		if (c == '\n' || c == '\r') {
+			return true;
+		}
+		for (final char separator : this.separators) {
+			if (c == separator) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private char selectSeparator(final int[][] lineCounts, final int lines, final int[] partialCounts) {
+		if (lines == 0) {
+			int best = -1;
+			for (int si = 0; si < this.separators.length; si++) {
+				if (partialCounts[si] > 0 && (best < 0 || partialCounts[si] > partialCounts[best])) {
+					best = si;
+				}
+			}
+			return best < 0 ? CSVDialect.RFC4180.getSeparator() : this.separators[best];
+		}
+		int best = -1;
+		int bestFrequency = 0;
+		int bestMode = 0;
+		for (int si = 0; si < this.separators.length; si++) {
+			final int[] sorted = Arrays.copyOf(lineCounts[si], lines);
+			Arrays.sort(sorted);
+			int mode = 0;
+			int frequency = 0;
+			for (int i = 0; i < lines; ) {
+				int j = i;
+				while (j < lines && sorted[j] == sorted[i]) {
+					j++;
+				}
+				if (sorted[i] > 0 && (j - i > frequency || j - i == frequency && sorted[i] > mode)) {
+					mode = sorted[i];
+					frequency = j - i;
+				}
+				i = j;
+			}
+			if (frequency > bestFrequency || frequency == bestFrequency && frequency > 0 && mode > bestMode) {
+				best = si;
+				bestFrequency = frequency;
+				bestMode = mode;
+			}
+		}
+		return best < 0 ? CSVDialect.RFC4180.getSeparator() : this.separators[best];
+	}
+
+	private boolean detectHeaders(final CharSequence sample, final boolean complete, final char separator, final char quote) {
+		final List<CSVRecord> records = new ArrayList<CSVRecord>();
+		boolean exhausted = false;
+		try {
+			final CSVRecordReader reader = new CSVRecordReader(CharBuffer.wrap(sample), separator, quote, true);
+			while (!exhausted && records.size() < this.maxLines) {
+				final CSVRecord record = reader.readNext();
+				if (record == null) {
+					exhausted = true;
+				} else {
+					records.add(record);
+				}
+			}
+		} catch (final IOException e) {
+			throw DelegatedException.delegate(e);
+		}
+		if (exhausted && !complete && !records.isEmpty()) {
+			// the last record may be cut by the end of the sample
+			records.remove(records.size() - 1);
+		}
+		if (records.size() < 2) {
+			return false;
+		}
+		final CSVRecord header = records.get(0);
+		int votes = 0;
+		for (int column = 0; column < header.size(); column++) {
+			boolean numeric = true;
+			int valueLength = -1;
+			boolean sameLength = true;
+			int values = 0;
+			for (int row = 1; row < records.size(); row++) {
+				final CSVRecord record = records.get(row);
+				if (column < record.size()) {
+					final String value = record.getField(column);
+					numeric &= isNumeric(value);
+					if (valueLength < 0) {
+						valueLength = value.length();
+					} else if (valueLength != value.length()) {
+						sameLength = false;
+					}
+					values++;
+				}
+			}
+			if (values > 0) {
+				final String value = header.getField(column);
+				if (numeric) {
+					votes += isNumeric(value) ? -1 : 1;
+				} else if (sameLength) {
+					votes += value.length() != valueLength ? 1 : -1;
+				}
+			}
+		}
+		return votes > 0;
+	}
+
+	private static boolean isNumeric(final String value) {
+		try {
+			Double.parseDouble(value);
+			return true;
+		} catch (final NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static final class ByteCharSequence implements CharSequence {
+		private final byte[] data;
+		private final int offset;
+		private final int length;
+
+		private ByteCharSequence(final byte[] data, final int offset, final int length) {
+			this.data = data;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return this.length;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			return (char) (this.data[this.offset + index] & 0xff);
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			return new ByteCharSequence(this.data, this.offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(this.data, this.offset, this.length, CSVDialectDetector.ISO_8859_1);
+		}
+	}
+}
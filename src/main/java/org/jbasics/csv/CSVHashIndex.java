@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.annotation.ImmutableState;
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A hash index over one or more columns of a {@link CSVTable}. The index is an open addressing table over int arrays
+ * referencing the row numbers so no key objects are created. Rows sharing the same key are chained in row order.
+ * Lookups take either the key values or a record of another table with the columns to take the key from which makes
+ * join style lookups allocation free.
+ * <p>
+ * An index is built once by {@link CSVTable#hashIndex(int...)} and kept with the (immutable) table.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+@ImmutableState
+public final class CSVHashIndex {
+	private final CSVTable table;
+	private final int[] columns;
+	private final int[] hashes;
+	private final int[] slots;
+	private final int[] next;
+	private final int mask;
+
+	CSVHashIndex(final CSVTable table, final int... columns) {
+		this.table = ContractCheck.mustNotBeNull(table, "table");
+		this.columns = ContractCheck.mustNotBeNull(columns, "columns").clone();
+		if (this.columns.length == 0) {
+			throw new IllegalArgumentException("At least one column must be indexed");
+		}
+		final int size = table.size();
+		int capacity = 16;
+		while (capacity < size * 2) {
+			capacity <<= 1;
+		}
+		this.mask = capacity - 1;
+		this.slots = new int[capacity];
+		this.hashes = new int[size];
+		this.next = new int[size];
+		final int[] tails = new int[size];
+		for (int row = 0; row < size; row++) {
+			final CSVRecord record = table.getRecord(row);
+			final int hash = hash(record, this.columns);
+			this.hashes[row] = hash;
+			this.next[row] = -1;
+			int slot = hash & this.mask;
+			while (true) {
+				final int head = this.slots[slot] - 1;
+				if (head < 0) {
+					this.slots[slot] = row + 1;
+					tails[row] = row;
+					break;
+				} else if (this.hashes[head] == hash && matches(table.getRecord(head), record, this.columns)) {
+					this.next[tails[head]] = row;
+					tails[head] = row;
+					break;
+				}
+				slot = (slot + 1) & this.mask;
+			}
+		}
+	}
+
+	public CSVTable getTable() {
+		return this.table;
+	}
+
+	public int[] getColumns() {
+		return this.columns.clone();
+	}
+
+	/**
+	 * Returns the first row with the given key values in the indexed columns.
+	 *
+	 * @param key The values of the key in the order of the indexed columns.
+	 *
+	 * @return The first matching record or null if none matches.
+	 */
+	public CSVRecord first(final String... key) {
+		final int row = firstRow(new CSVRecord(key), identity(key.length));
+		return row < 0 ? null : this.table.getRecord(row);
+	}
+
+	/**
+	 * Returns the first row matching the key taken from the columns of the given probe record. Typically the probe is
+	 * a record of another table which is joined with the indexed table.
+	 *
+	 * @param probe        The record to take the key values from.
+	 * @param probeColumns The columns of the probe record in the order of the indexed columns.
+	 *
+	 * @return The first matching record or null if none matches.
+	 */
+	public CSVRecord first(final CSVRecord probe, final int... probeColumns) {
+		final int row = firstRow(probe, probeColumns);
+		return row < 0 ? null : this.table.getRecord(row);
+	}
+
+	public List<CSVRecord> get(final String... key) {
+		return get(new CSVRecord(key), identity(key.length));
+	}
+
+	public List<CSVRecord> get(final CSVRecord probe, final int... probeColumns) {
+		int row = firstRow(probe, probeColumns);
+		if (row < 0) {
+			return Collections.emptyList();
+		}
+		final List<CSVRecord> result = new ArrayList<CSVRecord>(2);
+		for (; row >= 0; row = this.next[row]) {
+			result.add(this.table.getRecord(row));
+		}
+		return result;
+	}
+
+	public boolean contains(final String... key) {
+		return firstRow(new CSVRecord(key), identity(key.length)) >= 0;
+	}
+
+	private int firstRow(final CSVRecord probe, final int[] probeColumns) {
+		if (probeColumns.length != this.columns.length) {
+			throw new IllegalArgumentException("Key needs " + this.columns.length + " values but got " + probeColumns.length);
+		}
+		final int hash = hash(probe, probeColumns);
+		int slot = hash & this.mask;
+		while (true) {
+			final int head = this.slots[slot] - 1;
+			if (head < 0) {
+				return -1;
+			} else if (this.hashes[head] == hash && matches(this.table.getRecord(head), this.columns, probe, probeColumns)) {
+				return head;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+	}
+
+	private static int[] identity(final int length) {
+		final int[] result = new int[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = i;
+		}
+		return result;
+	}
+
+	private static int hash(final CSVRecord record, final int[] columns) {
+		int result = 1;
+		for (final int column : columns) {
+			final String value = column < record.size() ? record.getField(column) : null;
+			result = 31 * result + (value == null ? 0 : value.hashCode());
+		}
+		return result ^ (result >>> 16);
+	}
+
+	private static boolean matches(final CSVRecord left, final CSVRecord right, final int[] columns) {
+		return matches(left, columns, right, columns);
+	}
+
+	private static boolean matches(final CSVRecord left, final int[] leftColumns, final CSVRecord right, final int[] rightColumns) {
+		for (int i = 0; i < leftColumns.length; i++) {
+			final String l = leftColumns[i] < left.size() ? left.getField(leftColumns[i]) : null;
+			final String r = rightColumns[i] < right.size() ? right.getField(rightColumns[i]) : null;
+			if (l == null ? r != null : !l.equals(r)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
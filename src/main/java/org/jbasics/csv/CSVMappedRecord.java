@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.pattern.container.Indexed;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A single row of a {@link CSVMappedTable}. The record only references its row in the table and decodes a field each
+ * time it is accessed. Use {@link #toRecord()} to get a fully materialized {@link CSVRecord} if the fields are accessed
+ * repeatedly.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public final class CSVMappedRecord implements Iterable<String>, Indexed<String> {
+	private final CSVMappedTable table;
+	private final int rowIndex;
+
+	CSVMappedRecord(final CSVMappedTable table, final int rowIndex) {
+		this.table = table;
+		this.rowIndex = rowIndex;
+	}
+
+	@Override
+	public int size() {
+		return this.table.fieldCount(this.rowIndex);
+	}
+
+	@Override
+	public String getElementAtIndex(final int index) {
+		return getField(index);
+	}
+
+	public String getField(final int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Field index " + index + " out of range [0," + size() + ")");
+		}
+		return this.table.decodeField(this.rowIndex, index);
+	}
+
+	public CSVRecord toRecord() {
+		final String[] fields = new String[size()];
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = this.table.decodeField(this.rowIndex, i);
+		}
+		return new CSVRecord(fields);
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < size();
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return CSVMappedRecord.this.table.decodeField(CSVMappedRecord.this.rowIndex, this.next++);
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return toRecord().toString();
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.pattern.container.Indexed;
+import org.jbasics.pattern.container.Mapable;
+import org.jbasics.pattern.container.TabularData;
+import org.jbasics.pattern.factory.ParameterFactory;
+import org.jbasics.types.sequences.Sequence;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A read only CSV table working directly on the encoded bytes of a {@link ByteBuffer} (typically a memory mapped
+ * file). Upon creation the data is scanned once and only the offsets of the field ends are indexed. A field is decoded
+ * to a {@link String} only when it is accessed so reading a few columns of a wide table does not pay for the others.
+ * <p>
+ * Since the scan works on bytes the charset must encode the separator, the quote and the line breaks as single
+ * bytes which never occur within a multi byte sequence. This is true for UTF-8, US-ASCII and the ISO-8859 and
+ * windows code pages but not for UTF-16 or UTF-32. The offsets are int based so the data is limited to 2GB.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class CSVMappedTable implements Iterable<CSVMappedRecord>, Indexed<CSVMappedRecord>, TabularData<String>, Mapable<Sequence<String>, CSVMappedRecord> {
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	private final ByteBuffer data;
+	private final Charset charset;
+	private final char separator;
+	private final char quote;
+	private final CSVRecord headers;
+	private final int[] rowStarts;
+	private final int[] rowFields;
+	private final int[] fieldEnds;
+	private final int rowCount;
+	private final int maxColumnSize;
+
+	public CSVMappedTable(final ByteBuffer data, final Charset charset, final char separator, final boolean withHeaders) {
+		this(data, charset, separator, CSVDialect.DEFAULT_QUOTE, withHeaders);
+	}
+
+	public CSVMappedTable(final ByteBuffer data, final Charset charset, final CSVDialect dialect) {
+		this(data, charset, ContractCheck.mustNotBeNull(dialect, "dialect").getSeparator(), dialect.getQuote(), dialect.hasHeaders());
+	}
+
+	public CSVMappedTable(final ByteBuffer data, final Charset charset, final char separator, final char quote, final boolean withHeaders) {
+		this.data = ContractCheck.mustNotBeNull(data, "data").asReadOnlyBuffer();
+		this.charset = charset == null ? Charset.defaultCharset() : charset;
+		this.separator = separator;
+		this.quote = quote;
+		if (separator > 0x7f || quote > 0x7f) {
+			throw new IllegalArgumentException("Separator and quote must be ASCII characters to scan encoded data");
+		}
+		final Index index = new Index(this.data.remaining() / 32 + 16);
+		index.scan(this.data, (byte) separator, (byte) quote);
+		this.rowStarts = index.rowStarts;
+		this.rowFields = index.rowFields;
+		this.fieldEnds = index.fieldEnds;
+		if (withHeaders && index.rowCount > 0) {
+			this.headers = recordAt(0).toRecord();
+		} else {
+			this.headers = null;
+		}
+		this.rowCount = index.rowCount;
+		int columnSize = 0;
+		for (int i = this.headers == null ? 0 : 1; i < this.rowCount; i++) {
+			columnSize = Math.max(columnSize, this.rowFields[i + 1] - this.rowFields[i]);
+		}
+		this.maxColumnSize = columnSize;
+	}
+
+	public static CSVMappedTable open(final File file, final Charset charset, final char separator, final boolean withHeaders) throws IOException {
+		return CSVMappedTable.open(file, charset, new CSVDialect(separator, CSVDialect.DEFAULT_QUOTE, withHeaders));
+	}
+
+	public static CSVMappedTable open(final File file, final Charset charset, final CSVDialect dialect) throws IOException {
+		ContractCheck.mustNotBeNull(dialect, "dialect");
+		try (FileInputStream in = new FileInputStream(ContractCheck.mustNotBeNull(file, "file"))) {
+			final FileChannel channel = in.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File " + file + " exceeds the maximum mappable size of 2GB");
+			}
+			return new CSVMappedTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), charset, dialect);
+		}
+	}
+
+	public Charset getCharset() {
+		return this.charset;
+	}
+
+	public char getSeparator() {
+		return this.separator;
+	}
+
+	public char getQuote() {
+		return this.quote;
+	}
+
+	public boolean hasHeaders() {
+		return this.headers != null;
+	}
+
+	public CSVRecord getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public int size() {
+		return this.headers == null ? this.rowCount : this.rowCount - 1;
+	}
+
+	@Override
+	public CSVMappedRecord getElementAtIndex(final int index) {
+		return recordAt(index + (this.headers == null ? 0 : 1));
+	}
+
+	public CSVMappedRecord getRecord(final int index) {
+		return getElementAtIndex(index);
+	}
+
+	@Override
+	public int columnSize() {
+		return this.maxColumnSize;
+	}
+
+	@Override
+	public int rowSize() {
+		return size();
+	}
+
+	@Override
+	public String getValueAtRowAndColumn(final int row, final int column) {
+		if (this.maxColumnSize > column) {
+			final int rowIndex = row + (this.headers == null ? 0 : 1);
+			if (column < this.rowFields[rowIndex + 1] - this.rowFields[rowIndex]) {
+				return decodeField(rowIndex, column);
+			} else {
+				return null;
+			}
+		} else {
+			throw new IndexOutOfBoundsException("Column higher than columnSize");
+		}
+	}
+
+	@Override
+	public Iterator<CSVMappedRecord> iterator() {
+		return new Iterator<CSVMappedRecord>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < size();
+			}
+
+			@Override
+			public CSVMappedRecord next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return getElementAtIndex(this.next++);
+			}
+		};
+	}
+
+	@Override
+	public Map<Sequence<String>, CSVMappedRecord> map(final ParameterFactory<Sequence<String>, CSVMappedRecord> keyFactory) {
+		final Map<Sequence<String>, CSVMappedRecord> result = new HashMap<Sequence<String>, CSVMappedRecord>();
+		for (final CSVMappedRecord record : this) {
+			result.put(keyFactory.create(record), record);
+		}
+		return result;
+	}
+
+	public Map<Sequence<String>, CSVMappedRecord> map(final int... fields) {
+		return map(record -> {
+			Sequence<String> result = Sequence.emptySequence();
+			for (int i = fields.length; i > 0; ) {
+				final int field = fields[--i];
+				result = result.cons(field < record.size() ? record.getField(field) : null);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Materializes all records into a {@link CSVTable}. This decodes every field and should only be used on tables
+	 * fitting into memory.
+	 *
+	 * @return The materialized table.
+	 */
+	public CSVTable toTable() {
+		final CSVRecord[] records = new CSVRecord[size()];
+		for (int i = 0; i < records.length; i++) {
+			records[i] = getElementAtIndex(i).toRecord();
+		}
+		return new CSVTable(this.charset, this.separator, this.headers, records);
+	}
+
+	int fieldCount(final int rowIndex) {
+		return this.rowFields[rowIndex + 1] - this.rowFields[rowIndex];
+	}
+
+	String decodeField(final int rowIndex, final int column) {
+		final int fieldIndex = this.rowFields[rowIndex] + column;
+		final int start = column == 0 ? this.rowStarts[rowIndex] : this.fieldEnds[fieldIndex - 1] + 1;
+		final int end = this.fieldEnds[fieldIndex];
+		final byte[] temp = new byte[end - start];
+		final ByteBuffer slice = this.data.duplicate();
+		slice.limit(end).position(start);
+		slice.get(temp);
+		final byte quoteByte = (byte) this.quote;
+		int length = temp.length;
+		for (int i = 0; i < temp.length; i++) {
+			if (temp[i] == quoteByte) {
+				length = unquote(temp, i, quoteByte);
+				break;
+			}
+		}
+		return new String(temp, 0, length, this.charset);
+	}
+
+	private static int unquote(final byte[] field, final int firstQuote, final byte quote) {
+		int write = firstQuote;
+		boolean quoted = false;
+		for (int read = firstQuote; read < field.length; read++) {
+			final byte b = field[read];
+			if (b == quote) {
+				if (quoted && read + 1 < field.length && field[read + 1] == quote) {
+					field[write++] = b;
+					read++;
+				} else {
+					quoted = !quoted;
+				}
+			} else {
+				field[write++] = b;
+			}
+		}
+		return write;
+	}
+
+	private CSVMappedRecord recordAt(final int rowIndex) {
+		return new CSVMappedRecord(this, rowIndex);
+	}
+
+	private static final class Index {
+		private int[] rowStarts;
+		private int[] rowFields;
+		private int[] fieldEnds;
+		private int rowCount;
+		private int fieldCount;
+
+		private Index(final int estimatedRows) {
+			this.rowStarts = new int[estimatedRows];
+			this.rowFields = new int[estimatedRows + 1];
+			this.fieldEnds = new int[estimatedRows * 4];
+		}
+
+		private void scan(final ByteBuffer data, final byte separator, final byte quote) {
+			final int end = data.limit();
+			int rowStart = data.position();
+			int rowFieldStart = 0;
+			boolean quoted = false;
+			for (int i = rowStart; i < end; i++) {
+				final byte b = data.get(i);
+				if (b == quote) {
+					quoted = !quoted;
+				} else if (!quoted) {
+					if (b == separator) {
+						addField(i);
+					} else if (b == CSVMappedTable.LF || b == CSVMappedTable.CR) {
+						if (i > rowStart || this.fieldCount > rowFieldStart) {
+							addField(i);
+							addRow(rowStart);
+							rowFieldStart = this.fieldCount;
+						}
+						if (b == CSVMappedTable.CR && i + 1 < end && data.get(i + 1) == CSVMappedTable.LF) {
+							i++;
+						}
+						rowStart = i + 1;
+					}
+				}
+			}
+			if (end > rowStart || this.fieldCount > rowFieldStart) {
+				addField(end);
+				addRow(rowStart);
+			}
+		}
+
+		private void addField(final int fieldEnd) {
+			if (this.fieldCount == this.fieldEnds.length) {
+				this.fieldEnds = Arrays.copyOf(this.fieldEnds, this.fieldEnds.length * 2);
+			}
+			this.fieldEnds[this.fieldCount++] = fieldEnd;
+		}
+
+		private void addRow(final int rowStart) {
+			if (this.rowCount == this.rowStarts.length) {
+				this.rowStarts = Arrays.copyOf(this.rowStarts, this.rowStarts.length * 2);
+				this.rowFields = Arrays.copyOf(this.rowFields, this.rowStarts.length + 1);
+			}
+			this.rowStarts[this.rowCount] = rowStart;
+			this.rowFields[this.rowCount + 1] = this.fieldCount;
+			this.rowCount++;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.exception.DelegatedException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses encoded CSV data in parallel on a {@link ForkJoinPool}. The data is split into chunks which always end at a
+ * record boundary. Line breaks within quoted fields are respected by first counting the quotes of each raw chunk in
+ * parallel so the quoting state at every chunk start is known before the boundaries are searched. Each chunk is then
+ * decoded and parsed with a {@link CSVParser} and the records are joined in the original order.
+ * <p>
+ * Same as with the {@link CSVMappedTable} the charset must encode the quote and the line breaks as single bytes never
+ * occurring within a multi byte sequence (UTF-8, US-ASCII, ISO-8859 and windows code pages).
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class CSVParallelParser {
+	public static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 20;
+
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	private final boolean parseWithHeaders;
+	private final char separator;
+	private final char quote;
+	private final boolean skipEmptyLines;
+	private final ForkJoinPool pool;
+	private final int minChunkSize;
+
+	public CSVParallelParser(final char separator) {
+		this(true, separator, true, ForkJoinPool.commonPool(), CSVParallelParser.DEFAULT_MIN_CHUNK_SIZE);
+	}
+
+	public CSVParallelParser(final boolean parseWithHeaders, final char separator, final boolean skipEmptyLines, final ForkJoinPool pool,
+							 final int minChunkSize) {
+		this(parseWithHeaders, separator, CSVDialect.DEFAULT_QUOTE, skipEmptyLines, pool, minChunkSize);
+	}
+
+	public CSVParallelParser(final boolean parseWithHeaders, final char separator, final char quote, final boolean skipEmptyLines,
+							 final ForkJoinPool pool, final int minChunkSize) {
+		if (quote > 0x7f) {
+			throw new IllegalArgumentException("Quote must be an ASCII character to scan encoded data");
+		}
+		this.parseWithHeaders = parseWithHeaders;
+		this.separator = separator;
+		this.quote = quote;
+		this.skipEmptyLines = skipEmptyLines;
+		this.pool = ContractCheck.mustNotBeNull(pool, "pool");
+		this.minChunkSize = ContractCheck.mustBeInRange(minChunkSize, 1, Integer.MAX_VALUE, "minChunkSize");
+	}
+
+	public CSVTable parse(final File file, final Charset charset) throws IOException {
+		try (FileInputStream in = new FileInputStream(ContractCheck.mustNotBeNull(file, "file"))) {
+			final FileChannel channel = in.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File " + file + " exceeds the maximum mappable size of 2GB");
+			}
+			return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), charset);
+		}
+	}
+
+	public CSVTable parse(final ByteBuffer data, final Charset charset) {
+		final ByteBuffer input = ContractCheck.mustNotBeNull(data, "data").asReadOnlyBuffer();
+		final Charset inputCharset = charset == null ? Charset.defaultCharset() : charset;
+		final int[] boundaries = findBoundaries(input);
+		final List<ChunkTask> tasks = new ArrayList<ChunkTask>(boundaries.length - 1);
+		for (int i = 1; i < boundaries.length; i++) {
+			tasks.add(new ChunkTask(input, inputCharset, boundaries[i - 1], boundaries[i]));
+		}
+		final List<CSVRecord> records = new ArrayList<CSVRecord>();
+		this.pool.invoke(new InvokeAllTask(tasks));
+		for (final ChunkTask task : tasks) {
+			records.addAll(task.join());
+		}
+		if (this.parseWithHeaders && !records.isEmpty()) {
+			return new CSVTable(inputCharset, this.separator, records.get(0), records.subList(1, records.size()).toArray(new CSVRecord[records.size() - 1]));
+		} else {
+			return new CSVTable(inputCharset, this.separator, (CSVRecord) null, records.toArray(new CSVRecord[records.size()]));
+		}
+	}
+
+	private int[] findBoundaries(final ByteBuffer input) {
+		final int start = input.position();
+		final int length = input.remaining();
+		final int chunks = Math.max(1, Math.min(this.pool.getParallelism() * 4, length / this.minChunkSize));
+		final int chunkSize = length / chunks;
+		final List<QuoteCountTask> counts = new ArrayList<QuoteCountTask>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			counts.add(new QuoteCountTask(input, (byte) this.quote, start + i * chunkSize, i == chunks - 1 ? input.limit() : start + (i + 1) * chunkSize));
+		}
+		this.pool.invoke(new InvokeAllTask(counts));
+		final int[] boundaries = new int[chunks + 1];
+		boundaries[0] = start;
+		boolean quoted = false;
+		int last = start;
+		int count = 1;
+		for (int i = 1; i < chunks; i++) {
+			quoted ^= counts.get(i - 1).join().booleanValue();
+			final int rawStart = counts.get(i).from;
+			if (rawStart > last) {
+				final int boundary = nextRecordStart(input, rawStart, quoted);
+				if (boundary > last && boundary < input.limit()) {
+					boundaries[count++] = boundary;
+					last = boundary;
+				}
+			}
+		}
+		boundaries[count++] = input.limit();
+		final int[] result = new int[count];
+		System.arraycopy(boundaries, 0, result, 0, count);
+		return result;
+	}
+
+	private int nextRecordStart(final ByteBuffer input, final int from, final boolean quotedAtStart) {
+		final byte quoteByte = (byte) this.quote;
+		boolean quoted = quotedAtStart;
+		final int end = input.limit();
+		for (int i = from; i < end; i++) {
+			final byte b = input.get(i);
+			if (b == quoteByte) {
+				quoted = !quoted;
+			} else if (!quoted && (b == CSVParallelParser.LF || b == CSVParallelParser.CR)) {
+				if (b == CSVParallelParser.CR && i + 1 < end && input.get(i + 1) == CSVParallelParser.LF) {
+					i++;
+				}
+				return i + 1;
+			}
+		}
+		return end;
+	}
+
+	private static final class InvokeAllTask extends RecursiveAction {
+		private final List<? extends ForkJoinTask<?>> tasks;
+
+		private InvokeAllTask(final List<? extends ForkJoinTask<?>> tasks) {
+			this.tasks = tasks;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(this.tasks);
+		}
+	}
+
+	private static final class QuoteCountTask extends RecursiveTask<Boolean> {
+		private final ByteBuffer input;
+		private final byte quote;
+		private final int from;
+		private final int to;
+
+		private QuoteCountTask(final ByteBuffer input, final byte quote, final int from, final int to) {
+			this.input = input;
+			this.quote = quote;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Boolean compute() {
+			boolean odd = false;
+			for (int i = this.from; i < this.to; i++) {
+				if (this.input.get(i) == this.quote) {
+					odd = !odd;
+				}
+			}
+			return Boolean.valueOf(odd);
+		}
+	}
+
+	private final class ChunkTask extends RecursiveTask<List<CSVRecord>> {
+		private final ByteBuffer input;
+		private final Charset charset;
+		private final int from;
+		private final int to;
+
+		private ChunkTask(final ByteBuffer input, final Charset charset, final int from, final int to) {
+			this.input = input;
+			this.charset = charset;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<CSVRecord> compute() {
+			final ByteBuffer chunk = this.input.duplicate();
+			chunk.limit(this.to).position(this.from);
+			final List<CSVRecord> result = new ArrayList<CSVRecord>();
+			try {
+				new CSVParser(false, CSVParallelParser.this.separator, CSVParallelParser.this.quote, CSVParallelParser.this.skipEmptyLines).parse(this.charset.decode(chunk), result::add);
+			} catch (final IOException e) {
+				throw DelegatedException.delegate(e);
+			}
+			return result;
+		}
+	}
+}
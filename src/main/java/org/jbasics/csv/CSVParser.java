@@ -32,16 +32,20 @@ import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 public class CSVParser {
 	private final boolean parseWithHeaders;
 	private final boolean skipEmptyLines;
 	private final char separator;
+	private final char quote;
 
 	public CSVParser() {
 		this(true);
@@ -52,11 +56,20 @@ public class CSVParser {
 	}
 
 	public CSVParser(final boolean parseWithHeaders, final char separator, final boolean skipEmptyLines) {
+		this(parseWithHeaders, separator, CSVDialect.DEFAULT_QUOTE, skipEmptyLines);
+	}
+
+	public CSVParser(final boolean parseWithHeaders, final char separator, final char quote, final boolean skipEmptyLines) {
 		this.parseWithHeaders = parseWithHeaders;
 		this.separator = separator;
+		this.quote = quote;
 		this.skipEmptyLines = skipEmptyLines;
 	}
 
+	public CSVParser(final CSVDialect dialect) {
+		this(dialect.hasHeaders(), dialect.getSeparator(), dialect.getQuote(), true);
+	}
+
 	public CSVParser(final char separator) {
 		this(true, separator, true);
 	}
@@ -89,9 +102,28 @@ public class CSVParser {
 
 	public CSVTable parse(final Readable reader) throws IOException {
 		final List<CSVRecord> records = new ArrayList<CSVRecord>();
+		final CSVRecord headers = parse(reader, records::add);
+		return new CSVTable(null, this.separator, headers, records.toArray(new CSVRecord[records.size()]));
+	}
+
+	/**
+	 * Parses the given input and hands every record to the consumer as soon as it is complete. No record is retained
+	 * by the parser so the memory required stays constant regardless of the size of the input. If the parser is set
+	 * to parse with headers the first record is not handed to the consumer but returned once parsing is finished.
+	 *
+	 * @param reader   The input to parse (closed after parsing if it is {@link Closeable}).
+	 * @param consumer The consumer receiving each parsed data record in order.
+	 *
+	 * @return The header record or null if parsing without headers or the input is empty.
+	 *
+	 * @throws IOException If reading the input fails.
+	 */
+	public CSVRecord parse(final Readable reader, final Consumer<? super CSVRecord> consumer) throws IOException {
+		CSVRecord headers = null;
+		boolean expectHeaders = this.parseWithHeaders;
 		final List<String> fields = new ArrayList<String>();
 		final CharBuffer buf = CharBuffer.allocate(128);
-		final StringBuffer fieldData = new StringBuffer(32);
+		final StringBuilder fieldData = new StringBuilder(32);
 		ParsingState state = ParsingState.NONE;
 		boolean skipReadNext = false;
 		char c = ' ';
@@ -105,7 +137,7 @@ public class CSVParser {
 				}
 				switch (state) {
 					case QUOTED_END:
-						if (c == '"') {
+						if (c == this.quote) {
 							fieldData.append(c);
 							state = ParsingState.QUOTED;
 						} else {
@@ -114,7 +146,7 @@ public class CSVParser {
 						}
 						break;
 					case QUOTED:
-						if (c == '"') {
+						if (c == this.quote) {
 							state = ParsingState.QUOTED_END;
 						} else {
 							fieldData.append(c);
@@ -122,15 +154,17 @@ public class CSVParser {
 						break;
 					case RECORD_END:
 						state = ParsingState.NONE;
-						if (this.skipEmptyLines) {
-							if (fields.size() == 0 && fieldData.length() == 0) {
-								break;
+						if (!this.skipEmptyLines || fields.size() > 0 || fieldData.length() > 0) {
+							fields.add(fieldData.toString());
+							fieldData.setLength(0);
+							if (expectHeaders) {
+								headers = new CSVRecord(fields);
+								expectHeaders = false;
+							} else {
+								consumer.accept(new CSVRecord(fields));
 							}
+							fields.clear();
 						}
-						fields.add(fieldData.toString());
-						fieldData.setLength(0);
-						records.add(new CSVRecord(fields));
-						fields.clear();
 						if (c == '\n') {
 							break;
 						}
@@ -140,11 +174,10 @@ public class CSVParser {
 							case '\r':
 								state = ParsingState.RECORD_END;
 								break;
-							case '"':
-								state = ParsingState.QUOTED;
-								break;
 							default:
-								if (c == this.separator) {
+								if (c == this.quote) {
+									state = ParsingState.QUOTED;
+								} else if (c == this.separator) {
 									fields.add(fieldData.toString());
 									fieldData.setLength(0);
 								} else {
@@ -155,20 +188,53 @@ public class CSVParser {
 			}
 			buf.clear();
 		}
-		if (fieldData.length() > 0) {
+		if (fieldData.length() > 0 || state == ParsingState.RECORD_END && !fields.isEmpty()) {
 			fields.add(fieldData.toString());
 		}
 		if (!fields.isEmpty()) {
-			records.add(new CSVRecord(fields));
+			if (expectHeaders) {
+				headers = new CSVRecord(fields);
+			} else {
+				consumer.accept(new CSVRecord(fields));
+			}
 		}
 		if (reader instanceof Closeable) {
 			((Closeable) reader).close();
 		}
-		if (this.parseWithHeaders && !records.isEmpty()) {
-			return new CSVTable(null, this.separator, records.get(0), records.subList(1, records.size()).toArray(new CSVRecord[records.size() - 1]));
-		} else {
-			return new CSVTable(null, this.separator, (CSVRecord) null, records.toArray(new CSVRecord[records.size()]));
-		}
+		return headers;
+	}
+
+	/**
+	 * Opens a pull based stream of records on the given input. Records are read on demand so only the record
+	 * currently processed is held in memory. The returned stream must be closed which also closes the reader.
+	 *
+	 * @param reader The input to stream the records from.
+	 *
+	 * @return The record stream with the headers already read if parsing with headers.
+	 *
+	 * @throws IOException If reading the header record fails.
+	 */
+	public CSVRecordStream stream(final Readable reader) throws IOException {
+		return new CSVRecordStream(new CSVRecordReader(reader, this.separator, this.quote, this.skipEmptyLines), null, this.separator, this.parseWithHeaders);
+	}
+
+	public CSVRecordStream stream(final InputStream in, final Charset charset) throws IOException {
+		return new CSVRecordStream(new CSVRecordReader(new InputStreamReader(in, charset), this.separator, this.quote, this.skipEmptyLines), charset,
+				this.separator, this.parseWithHeaders);
+	}
+
+	/**
+	 * Parses the encoded data in parallel on the common {@link ForkJoinPool}. See {@link CSVParallelParser} for the
+	 * requirements on the charset.
+	 *
+	 * @param data    The encoded data to parse.
+	 * @param charset The charset of the data.
+	 *
+	 * @return The parsed table with the records in the order of the data.
+	 */
+	public CSVTable parseParallel(final ByteBuffer data, final Charset charset) {
+		return new CSVParallelParser(this.parseWithHeaders, this.separator, this.quote, this.skipEmptyLines, ForkJoinPool.commonPool(),
+				CSVParallelParser.DEFAULT_MIN_CHUNK_SIZE).parse(data, charset);
 	}
 
 	public CSVTable parse(final String input) {
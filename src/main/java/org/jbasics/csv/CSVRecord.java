@@ -114,28 +114,23 @@ public class CSVRecord implements Iterable<String>, Indexed<String> {
 
 	private Appendable appendValue(final String value, final Appendable appendable, final char separator) throws IOException {
 		if (value != null) {
-			final StringBuilder t = new StringBuilder();
 			boolean quote = false;
-			for (int i = 0; i < value.length(); i++) {
+			for (int i = 0; i < value.length() && !quote; i++) {
 				final char c = value.charAt(i);
-				t.append(c);
-				if (c == separator) {
-					quote = true;
-				} else {
-					switch (c) {
-						case '"':
-							t.append('"');
-						case '\n':
-						case '\r':
-							quote = true;
-							break;
-					}
-				}
+				quote = c == separator || c == '"' || c == '\n' || c == '\r';
 			}
 			if (quote) {
-				appendable.append('"').append(t).append('"');
+				appendable.append('"');
+				for (int i = 0; i < value.length(); i++) {
+					final char c = value.charAt(i);
+					if (c == '"') {
+						appendable.append('"');
+					}
+					appendable.append(c);
+				}
+				appendable.append('"');
 			} else {
-				appendable.append(t);
+				appendable.append(value);
 			}
 		}
 		return appendable;
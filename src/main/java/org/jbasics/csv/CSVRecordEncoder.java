@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.checker.ContractCheck;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writes {@link CSVRecord}s encoded directly to a {@link WritableByteChannel}. Other than the {@link CSVRecordWriter}
+ * the fields are copied into a reusable char buffer and encoded into a reusable byte buffer so writing a record does
+ * not allocate. Each field is scanned once to decide if quoting is required and copied in bulk if not. The buffers
+ * are only written to the channel when full, on {@link #flush()} and on {@link #close()}.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class CSVRecordEncoder implements Closeable, Flushable {
+	public static final int DEFAULT_BUFFER_SIZE = 16384;
+
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder;
+	private final char separator;
+	private final char[] chars;
+	private final CharBuffer charBuffer;
+	private final ByteBuffer byteBuffer;
+	private int position;
+	private boolean closed;
+
+	public CSVRecordEncoder(final WritableByteChannel channel, final Charset charset, final char separator) {
+		this(channel, charset, separator, CSVRecordEncoder.DEFAULT_BUFFER_SIZE);
+	}
+
+	public CSVRecordEncoder(final WritableByteChannel channel, final Charset charset, final char separator, final int bufferSize) {
+		this.channel = ContractCheck.mustNotBeNull(channel, "channel");
+		this.encoder = (charset == null ? Charset.defaultCharset() : charset).newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.separator = separator;
+		this.chars = new char[ContractCheck.mustBeInRange(bufferSize, 16, Integer.MAX_VALUE, "bufferSize")];
+		this.charBuffer = CharBuffer.wrap(this.chars);
+		this.byteBuffer = ByteBuffer.allocate((int) Math.ceil(bufferSize * this.encoder.maxBytesPerChar()));
+	}
+
+	public CSVRecordEncoder write(final CSVRecord record) throws IOException {
+		if (this.closed) {
+			throw new IllegalStateException("Encoder already closed");
+		}
+		final int size = record.size();
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				put(this.separator);
+			}
+			final String value = record.getField(i);
+			if (value != null) {
+				if (needsQuoting(value)) {
+					putQuoted(value);
+				} else {
+					put(value);
+				}
+			}
+		}
+		put('\r');
+		put('\n');
+		return this;
+	}
+
+	public CSVRecordEncoder write(final CSVRecord... records) throws IOException {
+		for (final CSVRecord record : records) {
+			write(record);
+		}
+		return this;
+	}
+
+	public CSVRecordEncoder write(final Iterable<? extends CSVRecord> records) throws IOException {
+		for (final CSVRecord record : records) {
+			write(record);
+		}
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		encode(false);
+		writeBytes();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!this.closed) {
+			this.closed = true;
+			try {
+				encode(true);
+				while (this.encoder.flush(this.byteBuffer).isOverflow()) {
+					writeBytes();
+				}
+				writeBytes();
+			} finally {
+				this.channel.close();
+			}
+		}
+	}
+
+	private boolean needsQuoting(final String value) {
+		final int length = value.length();
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+			if (c == this.separator || c == '"' || c == '\n' || c == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void put(final char c) throws IOException {
+		if (this.position == this.chars.length) {
+			encode(false);
+		}
+		this.chars[this.position++] = c;
+	}
+
+	private void put(final String value) throws IOException {
+		final int length = value.length();
+		int offset = 0;
+		while (offset < length) {
+			if (this.position == this.chars.length) {
+				encode(false);
+			}
+			final int count = Math.min(length - offset, this.chars.length - this.position);
+			value.getChars(offset, offset + count, this.chars, this.position);
+			this.position += count;
+			offset += count;
+		}
+	}
+
+	private void putQuoted(final String value) throws IOException {
+		put('"');
+		final int length = value.length();
+		for (int i = 0; i < length; i++) {
+			final char c = value.charAt(i);
+			if (c == '"') {
+				put('"');
+			}
+			put(c);
+		}
+		put('"');
+	}
+
+	private void encode(final boolean endOfInput) throws IOException {
+		this.charBuffer.limit(this.position).position(0);
+		while (true) {
+			final CoderResult result = this.encoder.encode(this.charBuffer, this.byteBuffer, endOfInput);
+			if (result.isOverflow()) {
+				writeBytes();
+			} else if (result.isUnderflow()) {
+				break;
+			} else {
+				result.throwException();
+			}
+		}
+		// an incomplete surrogate pair can remain which needs to be moved to the front
+		final int remaining = this.charBuffer.remaining();
+		System.arraycopy(this.chars, this.charBuffer.position(), this.chars, 0, remaining);
+		this.position = remaining;
+		this.charBuffer.clear();
+	}
+
+	private void writeBytes() throws IOException {
+		this.byteBuffer.flip();
+		while (this.byteBuffer.hasRemaining()) {
+			this.channel.write(this.byteBuffer);
+		}
+		this.byteBuffer.clear();
+	}
+}
@@ -35,9 +35,9 @@ import org.jbasics.utilities.DataUtilities;
 public class CSVRecordReader implements Closeable {
 	private final Readable in;
 	private final boolean skipEmptyLines;
-	private final CSVSeparator separator;
 	private final CharBuffer buf = CharBuffer.allocate(128);
-	private char separatorChar;
+	private final char separatorChar;
+	private final char quote;
 
 	public CSVRecordReader(final Readable in) {
 		this(in, true);
@@ -48,11 +48,23 @@ public class CSVRecordReader implements Closeable {
 	}
 
 	public CSVRecordReader(final Readable in, final CSVSeparator separator, final boolean skipEmptyLines) {
+		this(in, DataUtilities.coalesce(separator, CSVSeparator.AUTO).asCharacter(), skipEmptyLines);
+	}
+
+	public CSVRecordReader(final Readable in, final char separator, final boolean skipEmptyLines) {
+		this(in, separator, CSVDialect.DEFAULT_QUOTE, skipEmptyLines);
+	}
+
+	public CSVRecordReader(final Readable in, final char separator, final char quote, final boolean skipEmptyLines) {
 		this.in = ContractCheck.mustNotBeNull(in, "in");
-		this.separator = DataUtilities.coalesce(separator, CSVSeparator.AUTO);
 		this.skipEmptyLines = skipEmptyLines;
 		this.buf.flip();
-		this.separatorChar = this.separator.asCharacter();
+		this.separatorChar = separator;
+		this.quote = quote;
+	}
+
+	public CSVRecordReader(final Readable in, final CSVDialect dialect) {
+		this(in, dialect.getSeparator(), dialect.getQuote(), true);
 	}
 
 	public CSVRecordReader(final Readable in, final CSVSeparator separator) {
@@ -61,7 +73,7 @@ public class CSVRecordReader implements Closeable {
 
 	public CSVRecord readNext() throws IOException {
 		final List<String> fields = new ArrayList<String>();
-		final StringBuffer fieldData = new StringBuffer(32);
+		final StringBuilder fieldData = new StringBuilder(32);
 		ParsingState state = ParsingState.NONE;
 		do {
 			while (this.buf.hasRemaining()) {
@@ -69,7 +81,7 @@ public class CSVRecordReader implements Closeable {
 				final char c = this.buf.get();
 				switch (state) {
 					case QUOTED:
-						if (c == '"') {
+						if (c == this.quote) {
 							state = ParsingState.QUOTED_END;
 						} else {
 							fieldData.append(c);
@@ -79,6 +91,9 @@ public class CSVRecordReader implements Closeable {
 						state = ParsingState.NONE;
 						if (this.skipEmptyLines) {
 							if (fields.size() == 0 && fieldData.length() == 0) {
+								if (c != '\n') {
+									this.buf.reset();
+								}
 								break;
 							}
 						}
@@ -88,7 +103,7 @@ public class CSVRecordReader implements Closeable {
 						}
 						return new CSVRecord(fields);
 					case QUOTED_END:
-						if (c == '"') {
+						if (c == this.quote) {
 							fieldData.append(c);
 							state = ParsingState.QUOTED;
 							break;
@@ -101,11 +116,10 @@ public class CSVRecordReader implements Closeable {
 							case '\n':
 								state = ParsingState.RECORD_END;
 								break;
-							case '"':
-								state = ParsingState.QUOTED;
-								break;
 							default:
-								if (c == this.separatorChar) {
+								if (c == this.quote) {
+									state = ParsingState.QUOTED;
+								} else if (c == this.separatorChar) {
 									fields.add(fieldData.toString());
 									fieldData.setLength(0);
 								} else {
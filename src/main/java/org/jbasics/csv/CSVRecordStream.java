@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.exception.DelegatedException;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A forward only stream of {@link CSVRecord}s read on demand from an underlying {@link CSVRecordReader}. Other than
+ * the {@link CSVTable} no record is retained so the memory used stays constant no matter how large the input is. The
+ * records can be pulled with {@link #readNext()}, iterated once or consumed as a {@link Stream}. The stream must be
+ * closed after use which closes the underlying reader.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class CSVRecordStream implements CSVDataConnection, Iterable<CSVRecord> {
+	private final CSVRecordReader reader;
+	private final Charset charset;
+	private final char separator;
+	private final CSVRecord headers;
+
+	public CSVRecordStream(final CSVRecordReader reader, final Charset charset, final char separator, final boolean readHeaders) throws IOException {
+		this.reader = ContractCheck.mustNotBeNull(reader, "reader");
+		this.charset = charset == null ? Charset.defaultCharset() : charset;
+		this.separator = separator;
+		this.headers = readHeaders ? this.reader.readNext() : null;
+	}
+
+	@Override
+	public Charset getCharset() {
+		return this.charset;
+	}
+
+	public char getSeparator() {
+		return this.separator;
+	}
+
+	@Override
+	public boolean hasHeaders() {
+		return this.headers != null;
+	}
+
+	@Override
+	public CSVRecord getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public CSVRecord readNext() throws IOException {
+		return this.reader.readNext();
+	}
+
+	/**
+	 * Returns an iterator over the remaining records. Since the records are read from the underlying reader the
+	 * records can only be iterated once. An {@link IOException} while reading is thrown as {@link DelegatedException}.
+	 *
+	 * @return The iterator over the remaining records.
+	 */
+	@Override
+	public Iterator<CSVRecord> iterator() {
+		return new Iterator<CSVRecord>() {
+			private CSVRecord next;
+
+			@Override
+			public boolean hasNext() {
+				if (this.next == null) {
+					try {
+						this.next = readNext();
+					} catch (final IOException e) {
+						throw DelegatedException.delegate(e);
+					}
+				}
+				return this.next != null;
+			}
+
+			@Override
+			public CSVRecord next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final CSVRecord result = this.next;
+				this.next = null;
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Returns a sequential {@link Stream} over the remaining records. Closing the returned stream closes this record
+	 * stream.
+	 *
+	 * @return The stream of the remaining records.
+	 */
+	public Stream<CSVRecord> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						close();
+					} catch (final IOException e) {
+						throw DelegatedException.delegate(e);
+					}
+				});
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.reader.close();
+	}
+}
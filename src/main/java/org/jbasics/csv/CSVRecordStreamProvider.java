@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Streaming counterpart of the {@link CSVTableProvider}. A resource taking a {@link CSVRecordStream} as entity gets
+ * the records read on demand from the request entity instead of a fully materialized {@link CSVTable}. Charset,
+ * header and separator are determined the same way the {@link CSVTableProvider} does. The resource is responsible to
+ * close the stream once done.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@Provider
+@Consumes({"text/csv","text/plain"})
+public class CSVRecordStreamProvider implements MessageBodyReader<CSVRecordStream> {
+
+	@Override
+	public boolean isReadable(final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+		return CSVRecordStream.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public CSVRecordStream readFrom(final Class<CSVRecordStream> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType, final MultivaluedMap<String, String> httpHeaders, final InputStream entityStream) throws IOException, WebApplicationException {
+		final InputStream in = new BufferedInputStream(entityStream, 16384);
+		final CSVDialect dialect = CSVTableProvider.determineDialect(mediaType, httpHeaders, in);
+		final Reader r = CSVTableProvider.createReader(mediaType, in);
+		return new CSVRecordStream(new CSVRecordReader(r, dialect), CSVTableProvider.getCharset(mediaType), dialect.getSeparator(), dialect.hasHeaders());
+	}
+}
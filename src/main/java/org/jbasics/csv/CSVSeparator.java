@@ -27,7 +27,7 @@ package org.jbasics.csv;
  * Created by schls1 on 25.11.2014.
  */
 public enum CSVSeparator {
-	AUTO('@'), COMMA(','), SEMICOLON(';'), TAB('\t'), COLON(':'), SPACE(' '), ;
+	AUTO('@'), COMMA(','), SEMICOLON(';'), TAB('\t'), COLON(':'), SPACE(' '), PIPE('|'), ;
 
 	private char separatorCharacter;
 
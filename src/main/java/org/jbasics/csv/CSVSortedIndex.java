@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.annotation.ImmutableState;
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A sorted index over one or more columns of a {@link CSVTable}. The index is the array of row numbers ordered by the
+ * values of the indexed columns (compared lexicographically column by column with null and missing values first).
+ * Exact and range lookups are binary searches on that array and return views in key order without copying records.
+ * <p>
+ * An index is built once by {@link CSVTable#sortedIndex(int...)} and kept with the (immutable) table.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+@ImmutableState
+public final class CSVSortedIndex {
+	private final CSVTable table;
+	private final int[] columns;
+	private final int[] order;
+
+	CSVSortedIndex(final CSVTable table, final int... columns) {
+		this.table = ContractCheck.mustNotBeNull(table, "table");
+		this.columns = ContractCheck.mustNotBeNull(columns, "columns").clone();
+		if (this.columns.length == 0) {
+			throw new IllegalArgumentException("At least one column must be indexed");
+		}
+		final Integer[] temp = new Integer[table.size()];
+		for (int i = 0; i < temp.length; i++) {
+			temp[i] = Integer.valueOf(i);
+		}
+		final Comparator<Integer> rowOrder = (left, right) -> compareRows(left.intValue(), right.intValue());
+		Arrays.sort(temp, rowOrder);
+		this.order = new int[temp.length];
+		for (int i = 0; i < temp.length; i++) {
+			this.order[i] = temp[i].intValue();
+		}
+	}
+
+	public CSVTable getTable() {
+		return this.table;
+	}
+
+	public int[] getColumns() {
+		return this.columns.clone();
+	}
+
+	public int size() {
+		return this.order.length;
+	}
+
+	/**
+	 * Returns all records in key order.
+	 *
+	 * @return The records in key order.
+	 */
+	public List<CSVRecord> records() {
+		return view(0, this.order.length);
+	}
+
+	public List<CSVRecord> get(final String... key) {
+		return range(key, true, key, true);
+	}
+
+	/**
+	 * Returns the records with a key between the given bounds in key order. A bound may be shorter than the number
+	 * of indexed columns in which case it is compared as prefix.
+	 *
+	 * @param from          The lower bound or null for no lower bound.
+	 * @param fromInclusive True if keys equal to the lower bound are included.
+	 * @param to            The upper bound or null for no upper bound.
+	 * @param toInclusive   True if keys equal to the upper bound are included.
+	 *
+	 * @return The records in the range in key order.
+	 */
+	public List<CSVRecord> range(final String[] from, final boolean fromInclusive, final String[] to, final boolean toInclusive) {
+		final int start = from == null ? 0 : search(from, !fromInclusive);
+		final int end = to == null ? this.order.length : search(to, toInclusive);
+		return view(start, Math.max(start, end));
+	}
+
+	/**
+	 * Finds the first position in the order which is greater (or greater or equal) than the given key.
+	 */
+	private int search(final String[] key, final boolean afterEqual) {
+		int low = 0;
+		int high = this.order.length;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			final int c = compareToKey(this.order[mid], key);
+			if (c < 0 || afterEqual && c == 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private List<CSVRecord> view(final int start, final int end) {
+		return new AbstractList<CSVRecord>() {
+			@Override
+			public CSVRecord get(final int index) {
+				if (index < 0 || index >= end - start) {
+					throw new IndexOutOfBoundsException("Index " + index + " out of range [0," + (end - start) + ")");
+				}
+				return CSVSortedIndex.this.table.getRecord(CSVSortedIndex.this.order[start + index]);
+			}
+
+			@Override
+			public int size() {
+				return end - start;
+			}
+		};
+	}
+
+	private int compareRows(final int left, final int right) {
+		final CSVRecord l = this.table.getRecord(left);
+		final CSVRecord r = this.table.getRecord(right);
+		for (final int column : this.columns) {
+			final int c = compare(field(l, column), field(r, column));
+			if (c != 0) {
+				return c;
+			}
+		}
+		return Integer.compare(left, right);
+	}
+
+	private int compareToKey(final int row, final String[] key) {
+		final CSVRecord record = this.table.getRecord(row);
+		final int length = Math.min(key.length, this.columns.length);
+		for (int i = 0; i < length; i++) {
+			final int c = compare(field(record, this.columns[i]), key[i]);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return 0;
+	}
+
+	private static String field(final CSVRecord record, final int column) {
+		return column < record.size() ? record.getField(column) : null;
+	}
+
+	private static int compare(final String left, final String right) {
+		if (left == null) {
+			return right == null ? 0 : -1;
+		} else if (right == null) {
+			return 1;
+		}
+		return left.compareTo(right);
+	}
+}
@@ -34,10 +34,14 @@ import org.jbasics.types.tuples.Pair;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * CSVFile is a comma separated values file as defined by RFC4180.
@@ -56,6 +60,8 @@ public class CSVTable implements Iterable<CSVRecord>, Mapable<Sequence<String>,
 	private final CSVRecord[] records;
 	private final char separator;
 	private final int maxColumnSize;
+	private final ConcurrentMap<List<Integer>, CSVHashIndex> hashIndexes = new ConcurrentHashMap<List<Integer>, CSVHashIndex>();
+	private final ConcurrentMap<List<Integer>, CSVSortedIndex> sortedIndexes = new ConcurrentHashMap<List<Integer>, CSVSortedIndex>();
 
 	public CSVTable(final CSVRecord... records) {
 		this(null, ',', (CSVRecord) null, records);
@@ -199,6 +205,70 @@ public class CSVTable implements Iterable<CSVRecord>, Mapable<Sequence<String>,
 		return map(new CSVRecordSequenceTransposer(fields));
 	}
 
+	/**
+	 * Returns the hash index over the given columns. The index is built on first use and kept with the table so
+	 * repeated lookups do not rebuild it.
+	 *
+	 * @param columnNames The header names of the columns to index.
+	 *
+	 * @return The hash index over the columns.
+	 */
+	public CSVHashIndex hashIndex(final String... columnNames) {
+		return hashIndex(columnIndexes(columnNames));
+	}
+
+	public CSVHashIndex hashIndex(final int... columns) {
+		return this.hashIndexes.computeIfAbsent(indexKey(columns), key -> new CSVHashIndex(this, columns));
+	}
+
+	/**
+	 * Returns the sorted index over the given columns. The index is built on first use and kept with the table so
+	 * repeated lookups do not rebuild it.
+	 *
+	 * @param columnNames The header names of the columns to index.
+	 *
+	 * @return The sorted index over the columns.
+	 */
+	public CSVSortedIndex sortedIndex(final String... columnNames) {
+		return sortedIndex(columnIndexes(columnNames));
+	}
+
+	public CSVSortedIndex sortedIndex(final int... columns) {
+		return this.sortedIndexes.computeIfAbsent(indexKey(columns), key -> new CSVSortedIndex(this, columns));
+	}
+
+	private int[] columnIndexes(final String... columnNames) {
+		if (this.headers == null) {
+			throw new IllegalStateException("Columns can only be referenced by name if the table has headers");
+		}
+		final int[] result = new int[columnNames.length];
+		for (int i = 0; i < columnNames.length; i++) {
+			result[i] = -1;
+			for (int j = 0; j < this.headers.size(); j++) {
+				if (columnNames[i].equals(this.headers.getField(j))) {
+					result[i] = j;
+					break;
+				}
+			}
+			if (result[i] < 0) {
+				throw new IllegalArgumentException("No column named " + columnNames[i]);
+			}
+		}
+		return result;
+	}
+
+	private static List<Integer> indexKey(final int... columns) {
+		final List<Integer> result = new ArrayList<Integer>(columns.length);
+		for (final int column : columns) {
+			result.add(Integer.valueOf(column));
+		}
+		return result;
+	}
+
+	public CSVColumnTable toColumnTable(final CSVColumnType... types) {
+		return CSVColumnTable.build(this, types);
+	}
+
 	@Override
 	public CSVDataConnection openConnection() {
 		return new CSVDataConnection() {
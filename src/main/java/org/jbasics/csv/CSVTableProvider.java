@@ -23,15 +23,16 @@
  */
 package org.jbasics.csv;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
 import java.text.DecimalFormatSymbols;
 import java.util.HashMap;
@@ -51,6 +52,7 @@ import javax.ws.rs.ext.Provider;
 
 import org.jbasics.configuration.properties.BooleanValueTypeFactory;
 import org.jbasics.configuration.properties.SystemProperty;
+import org.jbasics.exception.DelegatedException;
 
 import static org.jbasics.utilities.DataUtilities.coalesce;
 
@@ -64,7 +66,8 @@ public class CSVTableProvider implements MessageBodyReader<CSVTable>,MessageBody
 	public static final SystemProperty<Boolean> USE_GERMAN_SEPARATOR_DETECTION = SystemProperty.booleanProperty(CSVTableProvider.GERMAN_GUESS_PROPERTY, Boolean.FALSE);
 	public static final String AUTO_GUESS_PROPERTY = "org.jbasics.csv.CSVTableProvider.separatorAutoGuessing";
 	public static final SystemProperty<Boolean> USE_SEPARATOR_AUTO_GUESS = SystemProperty.booleanProperty(CSVTableProvider.AUTO_GUESS_PROPERTY, Boolean.FALSE);
-	private final Logger logger = Logger.getLogger(CSVTableProvider.class.getName());
+	private static final int SAMPLE_SIZE = 8192;
+	private static final Logger LOGGER = Logger.getLogger(CSVTableProvider.class.getName());
 
 	@Override
 	public boolean isReadable(final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
@@ -73,9 +76,31 @@ public class CSVTableProvider implements MessageBodyReader<CSVTable>,MessageBody
 
 	@Override
 	public CSVTable readFrom(final Class<CSVTable> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType, final MultivaluedMap<String, String> httpHeaders, final InputStream entityStream) throws IOException, WebApplicationException {
-		final Charset charset = Charset.forName(coalesce(mediaType.getParameters().get("charset"), "ISO-8859-15"));
-		final Reader r = new BufferedReader(new InputStreamReader(entityStream, charset), 16384);
-		final boolean headerPresent = CSVTable.HEADER_PRESENT.right().equalsIgnoreCase(mediaType.getParameters().get(CSVTable.HEADER_PRESENT.first()));
+		final InputStream in = new BufferedInputStream(entityStream, 16384);
+		return new CSVParser(determineDialect(mediaType, httpHeaders, in)).parse(createReader(mediaType, in));
+	}
+
+	static Charset getCharset(final MediaType mediaType) {
+		return Charset.forName(coalesce(mediaType.getParameters().get("charset"), "ISO-8859-15"));
+	}
+
+	static Reader createReader(final MediaType mediaType, final InputStream entityStream) {
+		return new BufferedReader(new InputStreamReader(entityStream, getCharset(mediaType)), 16384);
+	}
+
+	static boolean isHeaderPresent(final MediaType mediaType) {
+		return CSVTable.HEADER_PRESENT.right().equalsIgnoreCase(mediaType.getParameters().get(CSVTable.HEADER_PRESENT.first()));
+	}
+
+	/**
+	 * Determines the dialect of the entity. An explicit alternate separator parameter or the german detection select
+	 * the separator directly. Otherwise if auto guessing is enabled the first bytes of the stream are sampled and run
+	 * through the {@link CSVDialectDetector}. The stream needs to support mark and reset for the guessing and is reset
+	 * to the beginning afterwards. An explicit header parameter always overrides the detected header presence.
+	 */
+	static CSVDialect determineDialect(final MediaType mediaType, final MultivaluedMap<String, String> httpHeaders, final InputStream in) {
+		final String headerParameter = mediaType.getParameters().get(CSVTable.HEADER_PRESENT.first());
+		final boolean headerPresent = isHeaderPresent(mediaType);
 		boolean useAlternateSeparator = CSVTableProvider.INVERT_ALTERNATE_SEPARATOR.value().booleanValue();
 		final String temp = mediaType.getParameters().get("use-alternate-separator"); //$NON-NLS-1$
 		if (temp != null) {
@@ -84,50 +109,28 @@ public class CSVTableProvider implements MessageBodyReader<CSVTable>,MessageBody
 			}
 		} else if (CSVTableProvider.USE_GERMAN_SEPARATOR_DETECTION.value().booleanValue() && coalesce(httpHeaders.getFirst("Content-Language"), "en").equals("de")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			useAlternateSeparator = true;
-		} else if (CSVTableProvider.USE_SEPARATOR_AUTO_GUESS.value().booleanValue() && r.markSupported()) {
-			r.mark(8192);
+		} else if (CSVTableProvider.USE_SEPARATOR_AUTO_GUESS.value().booleanValue() && in.markSupported()) {
+			in.mark(CSVTableProvider.SAMPLE_SIZE);
 			try {
-				final int[] commaCount = getRecordsLength(new CSVRecordReader(r, CSVSeparator.SEMICOLON), 2);
-				r.reset();
-				final int[] semicolonCount = getRecordsLength(new CSVRecordReader(r, CSVSeparator.SEMICOLON), 2);
-				// 1. check if both are equal if not use the equal one
-				if (commaCount[0] == commaCount[1]) {
-					if (semicolonCount[0] == semicolonCount[1]) {
-						if (commaCount[0] < semicolonCount[0]) {
-							useAlternateSeparator = true;
-						} else {
-							useAlternateSeparator = false;
-						}
-					} else {
-						useAlternateSeparator = false;
-					}
-				} else if (semicolonCount[0] == semicolonCount[1]) {
-					useAlternateSeparator = true;
-				} else if (headerPresent) {
-					if (commaCount[0] < semicolonCount[0]) {
-						useAlternateSeparator = true;
-					} else {
-						useAlternateSeparator = false;
-					}
+				final byte[] sample = new byte[CSVTableProvider.SAMPLE_SIZE];
+				int length = 0;
+				int read = 0;
+				while (length < sample.length && (read = in.read(sample, length, sample.length - length)) >= 0) {
+					length += read;
 				}
+				final CSVDialect dialect = new CSVDialectDetector().detect(sample, 0, length, read < 0, getCharset(mediaType));
+				return headerParameter == null ? dialect : dialect.withHeaders(headerPresent);
 			} catch (final Exception e) {
-				this.logger.log(Level.WARNING, "Exception thrown in guessing the separator upon reading the first lines", e); //$NON-NLS-1$
+				CSVTableProvider.LOGGER.log(Level.WARNING, "Exception thrown in guessing the dialect upon reading the first lines", e); //$NON-NLS-1$
 			} finally {
-				r.reset();
+				try {
+					in.reset();
+				} catch (final IOException e) {
+					throw DelegatedException.delegate(e);
+				}
 			}
 		}
-		final CSVParser p = new CSVParser(headerPresent, useAlternateSeparator ? ';' : ',', true);
-		return p.parse(r);
-	}
-
-	private int[] getRecordsLength(final CSVRecordReader reader, final int lines) throws IOException {
-		assert lines > 0 && reader != null;
-		final int[] result = new int[lines];
-		for (int i = 0; i < lines; i++) {
-			final CSVRecord temp = reader.readNext();
-			result[i] = temp == null ? -1 : temp.size();
-		}
-		return result;
+		return new CSVDialect(useAlternateSeparator ? ';' : ',', CSVDialect.DEFAULT_QUOTE, headerPresent);
 	}
 
 	@Override public boolean isWriteable(final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
@@ -144,8 +147,11 @@ public class CSVTableProvider implements MessageBodyReader<CSVTable>,MessageBody
 		final Charset charset = mediaType.getParameters().get("charset") == null ? coalesce(csvTable.getCharset(), Charset.forName("windows-1252")) : Charset.forName(mediaType.getParameters().get("charset"));
 		final boolean headerPresent = mediaType.getParameters().get("header") == null ? csvTable.hasHeaders() : mediaType.getParameters().get("header").equals("present");
 		responseHeaders.putSingle(HttpHeaders.CONTENT_TYPE, new MediaType(mediaType.getType(), mediaType.getSubtype(), new HashMap<String,String>(){{put("charset", charset.name()); put("header", headerPresent ? "present" : "absent");}}));
-		try(final OutputStreamWriter ow = new OutputStreamWriter(entityStream, charset)) {
-			csvTable.append(ow, getPreferredSeparator(responseHeaders.getFirst(HttpHeaders.CONTENT_LANGUAGE), mediaType));
+		try(final CSVRecordEncoder encoder = new CSVRecordEncoder(Channels.newChannel(entityStream), charset, getPreferredSeparator(responseHeaders.getFirst(HttpHeaders.CONTENT_LANGUAGE), mediaType))) {
+			if (csvTable.hasHeaders()) {
+				encoder.write(csvTable.getHeaders());
+			}
+			encoder.write(csvTable);
 		}
 	}
 
@@ -29,21 +29,21 @@ import org.jbasics.exception.DelegatedException;
 import org.jbasics.utilities.DataUtilities;
 
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 
 public class CSVFileOutput implements CSVOutput {
 	private final File outputFile;
 	private final CSVSeparator separator;
 	private final boolean hasHeaders;
-	private CSVRecordWriter outWriter;
+	private CSVRecordEncoder outWriter;
 
 	public CSVFileOutput(File outputFile, CSVSeparator separator, CSVRecord headers) {
 		try {
 			this.outputFile = ContractCheck.mustNotBeNull(outputFile, "outputFile");
 			this.separator = DataUtilities.coalesce(separator, CSVSeparator.AUTO);
 			this.hasHeaders = headers != null;
-			this.outWriter = new CSVRecordWriter(new FileWriter(this.outputFile), this.separator);
+			this.outWriter = new CSVRecordEncoder(new FileOutputStream(this.outputFile).getChannel(), null, this.separator.asCharacter());
 			if (headers != null) {
 				outWriter.write(headers);
 			}
@@ -65,6 +65,18 @@ public class CSVFileOutput implements CSVOutput {
 		}
 	}
 
+	@Override
+	public void addRecords(Iterable<? extends CSVRecord> records) {
+		if(this.outWriter == null) {
+			throw new IllegalStateException("Writer already closed");
+		}
+		try {
+			this.outWriter.write(records);
+		} catch(IOException e) {
+			throw DelegatedException.delegate(e);
+		}
+	}
+
 	@Override
 	public CSVDataReference closeAndGetReference() {
 		try {
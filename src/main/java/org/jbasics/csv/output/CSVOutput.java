@@ -28,5 +28,12 @@ import org.jbasics.csv.CSVRecord;
 
 public interface CSVOutput {
 	void addRecord(CSVRecord record);
+
+	default void addRecords(Iterable<? extends CSVRecord> records) {
+		for (CSVRecord record : records) {
+			addRecord(record);
+		}
+	}
+
 	CSVDataReference closeAndGetReference();
 }
@@ -30,21 +30,21 @@ import org.jbasics.utilities.DataUtilities;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.net.URL;
+import java.nio.channels.Channels;
 
 public class CSVStreamOutput implements CSVOutput {
 	private final URL resultURL;
 	private final CSVSeparator separator;
 	private final boolean hasHeaders;
-	private CSVRecordWriter outWriter;
+	private CSVRecordEncoder outWriter;
 
 	public CSVStreamOutput(URL resultURL, OutputStream out, CSVSeparator separator, CSVRecord headers) {
 		try {
 			this.resultURL = ContractCheck.mustNotBeNull(resultURL, "resultURL");
 			this.separator = DataUtilities.coalesce(separator, CSVSeparator.AUTO);
 			this.hasHeaders = headers != null;
-			this.outWriter = new CSVRecordWriter(new OutputStreamWriter(ContractCheck.mustNotBeNull(out, "out")), this.separator);
+			this.outWriter = new CSVRecordEncoder(Channels.newChannel(ContractCheck.mustNotBeNull(out, "out")), null, this.separator.asCharacter());
 			if (headers != null) {
 				outWriter.write(headers);
 			}
@@ -65,6 +65,18 @@ public class CSVStreamOutput implements CSVOutput {
 		}
 	}
 
+	@Override
+	public void addRecords(Iterable<? extends CSVRecord> records) {
+		if(this.outWriter == null) {
+			throw new IllegalStateException("Writer already closed");
+		}
+		try {
+			this.outWriter.write(records);
+		} catch(IOException e) {
+			throw DelegatedException.delegate(e);
+		}
+	}
+
 	@Override
 	public CSVDataReference closeAndGetReference() {
 		try {
@@ -27,13 +27,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
+import java.io.Writer;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.jbasics.checker.ContractCheck;
 import org.jbasics.configuration.properties.SystemProperty;
@@ -42,7 +51,15 @@ import org.jbasics.types.builders.MapBuilder;
 import org.jbasics.types.sequences.Sequence;
 
 /**
- * Helper to discover an concrete class for an abstract one base on the java services concept.
+ * Helper to discover an concrete class for an abstract one base on the java services concept. <p> The providers found
+ * are cached per class loader and service type so the service files are read only once. The cache holds the class
+ * loaders weakly and forgets them once they are released. </p> <p> Instead of scanning the service files a class loader
+ * can offer an index resource ({@link #INDEX_RESOURCE}) listing the providers of the services. The index is usually
+ * written by {@link #writeIndex(Writer, ClassLoader, Class...)} at build time and placed in the jar (or directory) whose
+ * service files it replaces. The service files of a service listed in an index are not read from the class path roots
+ * holding an index, the roots without an index are still scanned and their providers follow the indexed ones. Each
+ * line of the index holds a service type name followed by an equal sign and the comma separated provider class
+ * names. </p>
  *
  * @author Stephan Schloepke
  * @since 1.0
@@ -51,6 +68,8 @@ public class ServiceClassDiscovery {
 	public final static String RESOURCE_BASE = "META-INF/services/"; //$NON-NLS-1$
 	public static final String SERVICE_FILE_ENCODING = "UTF-8"; //$NON-NLS-1$
 	public static final char COMMENT_CHARACTER = '#';
+	public static final String INDEX_RESOURCE = "META-INF/services.index"; //$NON-NLS-1$
+	private static final ServiceDiscoveryCache CACHE = new ServiceDiscoveryCache();
 
 	public static <T> Class<? extends T> discoverImplementation(final Class<T> abstractClass) {
 		return ServiceClassDiscovery.discoverImplementation(abstractClass, null, ServiceClassDiscovery.getClassLoader(abstractClass));
@@ -60,20 +79,16 @@ public class ServiceClassDiscovery {
 																final ClassLoader loader) {
 		Class<?> temp = SystemProperty.classProperty(ContractCheck.mustNotBeNull(abstractClass, "abstractClass").getName(), null).value(); //$NON-NLS-1$
 		if (temp == null) {
-			final String resourceName = ServiceClassDiscovery.RESOURCE_BASE + abstractClass.getName();
-			final URL resource = ContractCheck.mustNotBeNull(loader, "loader").getResource(resourceName); //$NON-NLS-1$
-			if (resource != null) {
-				try {
-					final Set<String> found = ServiceClassDiscovery.parseURL(resource, new LinkedHashSet<String>());
-					if (found.size() > 0) {
-						final String clazzName = found.iterator().next();
-						temp = Class.forName(clazzName, true, loader);
-					}
-				} catch (final IOException e) {
-					throw new RuntimeException(e);
-				} catch (final ClassNotFoundException e) {
-					throw new RuntimeException(e);
+			try {
+				final ServiceDiscoveryCache.Providers providers = ServiceClassDiscovery.CACHE
+						.getProviders(abstractClass.getName(), ContractCheck.mustNotBeNull(loader, "loader")); //$NON-NLS-1$
+				if (!providers.getClassNames().isEmpty()) {
+					temp = providers.getClass(0, abstractClass, loader);
 				}
+			} catch (final IOException e) {
+				throw new RuntimeException(e);
+			} catch (final ClassNotFoundException e) {
+				throw new RuntimeException(e);
 			}
 		}
 		return temp == null ? defaultImplementation : temp.asSubclass(abstractClass);
@@ -100,6 +115,10 @@ public class ServiceClassDiscovery {
 	}
 
 	private static Set<String> parseURL(final URL url, final Set<String> found) throws IOException {
+		return ServiceClassDiscovery.parseURL(url, found, false);
+	}
+
+	private static Set<String> parseURL(final URL url, final Set<String> found, final boolean index) throws IOException {
 		assert found != null;
 		final InputStream in = url.openStream();
 		InputStreamReader inputReader = null;
@@ -111,16 +130,15 @@ public class ServiceClassDiscovery {
 			while ((line = reader.readLine()) != null) {
 				line = ServiceClassDiscovery.stripComment(line);
 				if (!line.trim().isEmpty()) {
-					if (!Character.isJavaIdentifierStart(line.charAt(0))) {
-						throw new RuntimeException("Illegal class name found (" + line + ") at line " + reader.getLineNumber() + " in service file " //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
-								+ url);
-					}
-					for (int i = 1; i < line.length(); i++) {
-						final char c = line.charAt(i);
-						if (c != '.' && !Character.isJavaIdentifierPart(c)) {
-							throw new RuntimeException("Illegal class name found (" + line + ") at line " + reader.getLineNumber() + " in service file " //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+					if (index) {
+						final int separator = line.indexOf('=');
+						if (separator <= 0) {
+							throw new RuntimeException("Illegal index entry found (" + line + ") at line " + reader.getLineNumber() + " in index file " //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
 									+ url);
 						}
+						ServiceClassDiscovery.checkClassName(line.substring(0, separator).trim(), url, reader.getLineNumber());
+					} else {
+						ServiceClassDiscovery.checkClassName(line, url, reader.getLineNumber());
 					}
 					found.add(line);
 				}
@@ -141,6 +159,18 @@ public class ServiceClassDiscovery {
 		return found;
 	}
 
+	private static void checkClassName(final String name, final URL url, final int lineNumber) {
+		boolean valid = name.length() > 0 && Character.isJavaIdentifierStart(name.charAt(0));
+		for (int i = 1; valid && i < name.length(); i++) {
+			final char c = name.charAt(i);
+			valid = c == '.' || Character.isJavaIdentifierPart(c);
+		}
+		if (!valid) {
+			throw new RuntimeException("Illegal class name found (" + name + ")" + (lineNumber > 0 ? " at line " + lineNumber : "") + " in service file " //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$//$NON-NLS-4$//$NON-NLS-5$
+					+ url);
+		}
+	}
+
 	private static String stripComment(String line) {
 		line = line.trim();
 		if (line.length() == 0) {
@@ -222,24 +252,177 @@ interfaceFor:
 
 	public static <T> Set<Class<? extends T>> discoverClasses(final Class<T> abstractClass, final ClassLoader loader) throws IOException,
 			ClassNotFoundException {
-		final Set<String> classNames = ServiceClassDiscovery.discoverClassNames(abstractClass, loader);
+		final ServiceDiscoveryCache.Providers providers = ServiceClassDiscovery.CACHE
+				.getProviders(ContractCheck.mustNotBeNull(abstractClass, "abstractClass").getName(), ContractCheck.mustNotBeNull(loader, "loader")); //$NON-NLS-1$ //$NON-NLS-2$
 		final Set<Class<? extends T>> classes = new LinkedHashSet<Class<? extends T>>();
-		for (final String className : classNames) {
-			classes.add(Class.forName(className, true, loader).asSubclass(abstractClass));
+		for (int i = 0; i < providers.getClassNames().size(); i++) {
+			classes.add(providers.getClass(i, abstractClass, loader));
 		}
 		return classes;
 	}
 
+	/**
+	 * Discovers the provider classes like {@link #discoverClasses(Class, ClassLoader)} but loads and initializes the
+	 * classes in parallel. The order of the returned set is the order of the providers in the service files.
+	 *
+	 * @param abstractClass The service type
+	 * @param loader        The class loader to load the providers with
+	 *
+	 * @return The provider classes
+	 *
+	 * @throws IOException            If reading the service files failed
+	 * @throws ClassNotFoundException If a provider class cannot be found
+	 */
+	public static <T> Set<Class<? extends T>> discoverClassesInParallel(final Class<T> abstractClass, final ClassLoader loader)
+			throws IOException, ClassNotFoundException {
+		final ServiceDiscoveryCache.Providers providers = ServiceClassDiscovery.CACHE
+				.getProviders(ContractCheck.mustNotBeNull(abstractClass, "abstractClass").getName(), ContractCheck.mustNotBeNull(loader, "loader")); //$NON-NLS-1$ //$NON-NLS-2$
+		final List<Class<? extends T>> loaded = new ArrayList<Class<? extends T>>(Collections.<Class<? extends T>>nCopies(providers
+				.getClassNames().size(), null));
+		try {
+			IntStream.range(0, loaded.size()).parallel().forEach(i -> {
+				try {
+					loaded.set(i, providers.getClass(i, abstractClass, loader));
+				} catch (final ClassNotFoundException e) {
+					throw DelegatedException.delegate(e);
+				}
+			});
+		} catch (final DelegatedException e) {
+			if (e.getCause() instanceof ClassNotFoundException) {
+				throw (ClassNotFoundException) e.getCause();
+			}
+			throw e;
+		}
+		return new LinkedHashSet<Class<? extends T>>(loaded);
+	}
+
+	/**
+	 * Discovers and loads the providers of all given service types in parallel so later discoveries are served from
+	 * the cache. This is meant to be called once at startup.
+	 *
+	 * @param loader       The class loader to load the providers with
+	 * @param serviceTypes The service types to preload
+	 */
+	public static void preload(final ClassLoader loader, final Class<?>... serviceTypes) {
+		ContractCheck.mustNotBeNull(loader, "loader"); //$NON-NLS-1$
+		Arrays.stream(ContractCheck.mustNotBeNull(serviceTypes, "serviceTypes")).parallel().forEach(serviceType -> { //$NON-NLS-1$
+			try {
+				ServiceClassDiscovery.discoverClassesInParallel(serviceType, loader);
+			} catch (final IOException | ClassNotFoundException e) {
+				throw DelegatedException.delegate(e);
+			}
+		});
+	}
+
+	/**
+	 * Writes the index of the given service types as found in the service files of the class loader. Any index already
+	 * visible to the class loader is ignored so the written index always reflects the service files. Placing the
+	 * written index as {@link #INDEX_RESOURCE} into the jar scanned saves reading its service files for those services.
+	 *
+	 * @param out          The writer to write the index to (the index must be stored in UTF-8)
+	 * @param loader       The class loader to discover the providers with
+	 * @param serviceTypes The service types to add to the index
+	 *
+	 * @throws IOException If discovering or writing failed
+	 */
+	public static void writeIndex(final Writer out, final ClassLoader loader, final Class<?>... serviceTypes) throws IOException {
+		ContractCheck.mustNotBeNull(out, "out"); //$NON-NLS-1$
+		for (final Class<?> serviceType : ContractCheck.mustNotBeNull(serviceTypes, "serviceTypes")) { //$NON-NLS-1$
+			final Set<String> classNames = ServiceClassDiscovery.scanClassNames(serviceType.getName(), ContractCheck.mustNotBeNull(loader, "loader"), //$NON-NLS-1$
+					Collections.<String>emptySet());
+			out.write(serviceType.getName());
+			out.write('=');
+			out.write(classNames.stream().collect(Collectors.joining(","))); //$NON-NLS-1$
+			out.write('\n');
+		}
+		out.flush();
+	}
+
+	/**
+	 * Clears the cached providers of all class loaders.
+	 */
+	public static void clearCache() {
+		ServiceClassDiscovery.CACHE.clear();
+	}
+
+	/**
+	 * Clears the cached providers of the class loader.
+	 *
+	 * @param loader The class loader
+	 */
+	public static void clearCache(final ClassLoader loader) {
+		ServiceClassDiscovery.CACHE.clear(ContractCheck.mustNotBeNull(loader, "loader")); //$NON-NLS-1$
+	}
+
 	public static Set<String> discoverClassNames(final Class<?> abstractClass, final ClassLoader loader) throws IOException {
-		final String resourceName = ServiceClassDiscovery.RESOURCE_BASE + ContractCheck.mustNotBeNull(abstractClass, "abstractClass").getName(); //$NON-NLS-1$
-		final Enumeration<URL> resources = ContractCheck.mustNotBeNull(loader, "loader").getResources(resourceName); //$NON-NLS-1$
+		return new LinkedHashSet<String>(ServiceClassDiscovery.CACHE.getProviders(ContractCheck.mustNotBeNull(abstractClass, "abstractClass").getName(), //$NON-NLS-1$
+				ContractCheck.mustNotBeNull(loader, "loader")).getClassNames()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Reads the service files of the service skipping those found in the given class path roots.
+	 */
+	static Set<String> scanClassNames(final String serviceName, final ClassLoader loader, final Set<String> skippedRoots) throws IOException {
+		final String resource = ServiceClassDiscovery.RESOURCE_BASE + serviceName;
+		final Enumeration<URL> resources = loader.getResources(resource);
 		final Set<String> classNames = new LinkedHashSet<String>();
 		while (resources.hasMoreElements()) {
-			ServiceClassDiscovery.parseURL(resources.nextElement(), classNames);
+			final URL url = resources.nextElement();
+			if (!skippedRoots.contains(ServiceClassDiscovery.rootOf(url, resource))) {
+				ServiceClassDiscovery.parseURL(url, classNames);
+			}
 		}
 		return classNames;
 	}
 
+	/**
+	 * Reads all index resources of the class loader and records for every indexed service the class path roots whose
+	 * index lists it in the given map.
+	 */
+	static Map<String, List<String>> readIndex(final ClassLoader loader, final Map<String, Set<String>> roots) throws IOException {
+		final Enumeration<URL> resources = loader.getResources(ServiceClassDiscovery.INDEX_RESOURCE);
+		if (!resources.hasMoreElements()) {
+			return Collections.emptyMap();
+		}
+		final Map<String, Set<String>> index = new HashMap<String, Set<String>>();
+		while (resources.hasMoreElements()) {
+			final URL url = resources.nextElement();
+			final String root = ServiceClassDiscovery.rootOf(url, ServiceClassDiscovery.INDEX_RESOURCE);
+			for (final String line : ServiceClassDiscovery.parseURL(url, new LinkedHashSet<String>(), true)) {
+				final int separator = line.indexOf('=');
+				final String serviceName = line.substring(0, separator).trim();
+				Set<String> classNames = index.get(serviceName);
+				if (classNames == null) {
+					classNames = new LinkedHashSet<String>();
+					index.put(serviceName, classNames);
+				}
+				Set<String> serviceRoots = roots.get(serviceName);
+				if (serviceRoots == null) {
+					serviceRoots = new HashSet<String>();
+					roots.put(serviceName, serviceRoots);
+				}
+				serviceRoots.add(root);
+				for (final String className : line.substring(separator + 1).split(",")) { //$NON-NLS-1$
+					final String temp = className.trim();
+					if (!temp.isEmpty()) {
+						ServiceClassDiscovery.checkClassName(temp, url, -1);
+						classNames.add(temp);
+					}
+				}
+			}
+		}
+		final Map<String, List<String>> result = new HashMap<String, List<String>>();
+		for (final Map.Entry<String, Set<String>> entry : index.entrySet()) {
+			result.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+		}
+		return result;
+	}
+
+	private static String rootOf(final URL url, final String resource) {
+		final String temp = url.toExternalForm();
+		return temp.endsWith(resource) ? temp.substring(0, temp.length() - resource.length()) : temp;
+	}
+
 	public static Set<String> discoverClassNames(final Class<?> abstractClass) throws IOException {
 		return ServiceClassDiscovery.discoverClassNames(abstractClass, ServiceClassDiscovery.getClassLoader(abstractClass));
 	}
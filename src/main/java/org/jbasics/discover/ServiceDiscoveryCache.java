@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.discover;
+
+import org.jbasics.annotation.ThreadSafe;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caches the providers found by the {@link ServiceClassDiscovery} per class loader and service type. <p> The class
+ * loaders are held weakly so the cached providers of a class loader vanish once the class loader is released (for
+ * example when an application is undeployed). The cache itself never references a class loader strongly, the loaded
+ * provider classes are held through weak references as well since a class references its class loader. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+final class ServiceDiscoveryCache {
+	private final Map<ClassLoader, LoaderEntry> loaders;
+
+	ServiceDiscoveryCache() {
+		this.loaders = new WeakHashMap<ClassLoader, LoaderEntry>();
+	}
+
+	/**
+	 * Returns the providers of the service for the class loader. The index of the class loader is consulted first. If
+	 * it lists the service only the service files of the class path roots whose index does not list the service are
+	 * scanned, otherwise all service files are scanned.
+	 *
+	 * @param serviceName The name of the service type
+	 * @param loader      The class loader
+	 *
+	 * @return The cached providers
+	 *
+	 * @throws IOException If reading the index or the service files failed
+	 */
+	Providers getProviders(final String serviceName, final ClassLoader loader) throws IOException {
+		LoaderEntry entry;
+		synchronized (this.loaders) {
+			entry = this.loaders.get(loader);
+			if (entry == null) {
+				entry = new LoaderEntry();
+				this.loaders.put(loader, entry);
+			}
+		}
+		Providers result = entry.providers.get(serviceName);
+		if (result == null) {
+			List<String> classNames = entry.getIndex(loader).get(serviceName);
+			if (classNames == null) {
+				classNames = new ArrayList<String>(ServiceClassDiscovery.scanClassNames(serviceName, loader, Collections.<String>emptySet()));
+			} else {
+				final Set<String> merged = new LinkedHashSet<String>(classNames);
+				merged.addAll(ServiceClassDiscovery.scanClassNames(serviceName, loader, entry.indexRoots.get(serviceName)));
+				classNames = new ArrayList<String>(merged);
+			}
+			result = new Providers(classNames);
+			final Providers existing = entry.providers.putIfAbsent(serviceName, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+
+	void clear() {
+		synchronized (this.loaders) {
+			this.loaders.clear();
+		}
+	}
+
+	void clear(final ClassLoader loader) {
+		synchronized (this.loaders) {
+			this.loaders.remove(loader);
+		}
+	}
+
+	private static final class LoaderEntry {
+		private final ConcurrentMap<String, Providers> providers = new ConcurrentHashMap<String, Providers>();
+		private volatile Map<String, Set<String>> indexRoots;
+		private volatile Map<String, List<String>> index;
+
+		private Map<String, List<String>> getIndex(final ClassLoader loader) throws IOException {
+			Map<String, List<String>> result = this.index;
+			if (result == null) {
+				final Map<String, Set<String>> roots = new HashMap<String, Set<String>>();
+				result = ServiceClassDiscovery.readIndex(loader, roots);
+				// the roots are published before the index so they are set once the index is seen
+				this.indexRoots = roots;
+				this.index = result;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The class names of the providers of a service and the lazily loaded classes.
+	 */
+	static final class Providers {
+		private final List<String> classNames;
+		private final AtomicReferenceArray<WeakReference<Class<?>>> classes;
+
+		private Providers(final List<String> classNames) {
+			this.classNames = Collections.unmodifiableList(classNames);
+			this.classes = new AtomicReferenceArray<WeakReference<Class<?>>>(classNames.size());
+		}
+
+		List<String> getClassNames() {
+			return this.classNames;
+		}
+
+		<T> Class<? extends T> getClass(final int index, final Class<T> serviceType, final ClassLoader loader) throws ClassNotFoundException {
+			final WeakReference<Class<?>> reference = this.classes.get(index);
+			Class<?> result = reference != null ? reference.get() : null;
+			if (result == null) {
+				result = Class.forName(this.classNames.get(index), true, loader);
+				this.classes.set(index, new WeakReference<Class<?>>(result));
+			}
+			return result.asSubclass(serviceType);
+		}
+	}
+}
@@ -32,6 +32,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
@@ -43,7 +45,7 @@ import org.jbasics.pattern.delegation.Delegate;
 import org.jbasics.text.StringUtilities;
 import org.jbasics.types.delegates.LazyDelegate;
 import org.jbasics.types.delegates.LazySoftReferenceDelegate;
-import org.jbasics.types.pools.LazyQueuePool;
+import org.jbasics.types.pools.ConcurrentPool;
 import org.jbasics.types.pools.PooledDelegate;
 
 /**
@@ -51,10 +53,10 @@ import org.jbasics.types.pools.PooledDelegate;
  */
 public class JAXBContextRegistry {
 	private final Map<String, String> namespacePackageMapping;
-	private final Map<String, Delegate<JAXBContext>> contexts;
+	private final ConcurrentMap<String, Delegate<JAXBContext>> contexts;
 	private final Delegate<JAXBContext> registryContext;
-	private final LazyQueuePool<Marshaller> marshallerPool;
-	private final LazyQueuePool<Unmarshaller> unmarshallerPool;
+	private final ConcurrentPool<Marshaller> marshallerPool;
+	private final ConcurrentPool<Unmarshaller> unmarshallerPool;
 
 	public static JAXBContextRegistry createFromProperties(final String propertyResourceName) {
 		return createFromProperties(propertyResourceName, null);
@@ -81,10 +83,10 @@ public class JAXBContextRegistry {
 
 	public JAXBContextRegistry(Map<String, String> namespacePackageMapping) {
 		this.namespacePackageMapping = Collections.unmodifiableMap(new HashMap<String, String>(ContractCheck.mustNotBeNullOrEmpty(namespacePackageMapping, "namespacePackageMapping")));
-		this.contexts = new HashMap<>();
+		this.contexts = new ConcurrentHashMap<>();
 		this.registryContext = new LazyDelegate<>(new JAXBContextFactory(StringUtilities.joinToString(":", this.namespacePackageMapping.values())));
-		this.marshallerPool = new LazyQueuePool<Marshaller>(new JAXBMarshallerFactory(this.registryContext, true));
-		this.unmarshallerPool = new LazyQueuePool<Unmarshaller>(new JAXBUnmarshallerFactory(this.registryContext));
+		this.marshallerPool = new ConcurrentPool<Marshaller>(new JAXBMarshallerFactory(this.registryContext, true));
+		this.unmarshallerPool = new ConcurrentPool<Unmarshaller>(new JAXBUnmarshallerFactory(this.registryContext));
 	}
 
 	public Set<String> getRegisteredNamespaces() {
@@ -111,7 +113,10 @@ public class JAXBContextRegistry {
 		Delegate<JAXBContext> contextDelegate = this.contexts.get(ContractCheck.mustNotBeNullOrTrimmedEmpty(packageName, "packageName"));
 		if (contextDelegate == null) {
 			contextDelegate = new LazySoftReferenceDelegate<>(new JAXBContextFactory(packageName));
-			this.contexts.put(packageName, contextDelegate);
+			final Delegate<JAXBContext> temp = this.contexts.putIfAbsent(packageName, contextDelegate);
+			if (temp != null) {
+				contextDelegate = temp;
+			}
 		}
 		return contextDelegate;
 	}
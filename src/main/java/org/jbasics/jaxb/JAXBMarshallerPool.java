@@ -23,40 +23,63 @@
  */
 package org.jbasics.jaxb;
 
+import org.jbasics.pattern.factory.Factory;
+import org.jbasics.pattern.pooling.Pool;
 import org.jbasics.types.delegates.UnmodifiableDelegate;
-import org.jbasics.types.pools.LazyQueuePool;
+import org.jbasics.types.pools.ConcurrentPool;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
 import javax.xml.validation.Schema;
 
-public class JAXBMarshallerPool extends LazyQueuePool<Marshaller> {
+/**
+ * A pool of {@link Marshaller}s of one {@link JAXBContext} backed by a lock free {@link ConcurrentPool}.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class JAXBMarshallerPool implements Pool<Marshaller> {
+	private final ConcurrentPool<Marshaller> delegate;
 
 	public JAXBMarshallerPool(final Class<?>... classes) {
-		super(new JAXBMarshallerFactory(new JAXBContextFactory(classes)));
+		this(new JAXBMarshallerFactory(new JAXBContextFactory(classes)));
 	}
 
 	public JAXBMarshallerPool(final String contextPath) {
-		super(new JAXBMarshallerFactory(new JAXBContextFactory(contextPath)));
+		this(new JAXBMarshallerFactory(new JAXBContextFactory(contextPath)));
 	}
 
 	public JAXBMarshallerPool(final String contextPath, final Schema schema) {
-		super(new JAXBMarshallerFactory(new JAXBContextFactory(contextPath), schema));
+		this(new JAXBMarshallerFactory(new JAXBContextFactory(contextPath), schema));
 	}
 
 	public JAXBMarshallerPool(final JAXBContext context) {
-		super(new JAXBMarshallerFactory(new UnmodifiableDelegate<JAXBContext>(context)));
+		this(new JAXBMarshallerFactory(new UnmodifiableDelegate<JAXBContext>(context)));
 	}
 
 	public JAXBMarshallerPool(final JAXBContext context, final Schema schema) {
-		super(new JAXBMarshallerFactory(new UnmodifiableDelegate<JAXBContext>(context), schema));
+		this(new JAXBMarshallerFactory(new UnmodifiableDelegate<JAXBContext>(context), schema));
 	}
 
 	public JAXBMarshallerPool(final JAXBContextFactory contextFactory) {
-		super(new JAXBMarshallerFactory(contextFactory));
+		this(new JAXBMarshallerFactory(contextFactory));
 	}
 
 	public JAXBMarshallerPool(final JAXBContextFactory contextFactory, final Schema schema) {
-		super(new JAXBMarshallerFactory(contextFactory, schema));
+		this(new JAXBMarshallerFactory(contextFactory, schema));
+	}
+
+	private JAXBMarshallerPool(final Factory<Marshaller> factory) {
+		this.delegate = new ConcurrentPool<Marshaller>(factory);
+	}
+
+	@Override
+	public Marshaller acquire() {
+		return this.delegate.acquire();
+	}
+
+	@Override
+	public boolean release(final Marshaller object) {
+		return this.delegate.release(object);
 	}
 }
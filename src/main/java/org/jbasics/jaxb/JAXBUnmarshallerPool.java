@@ -23,28 +23,50 @@
  */
 package org.jbasics.jaxb;
 
+import org.jbasics.pattern.factory.Factory;
 import org.jbasics.pattern.pooling.Pool;
 import org.jbasics.types.delegates.UnmodifiableDelegate;
-import org.jbasics.types.pools.LazyQueuePool;
+import org.jbasics.types.pools.ConcurrentPool;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Unmarshaller;
 
-public class JAXBUnmarshallerPool extends LazyQueuePool<Unmarshaller> implements Pool<Unmarshaller> {
+/**
+ * A pool of {@link Unmarshaller}s of one {@link JAXBContext} backed by a lock free {@link ConcurrentPool}.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class JAXBUnmarshallerPool implements Pool<Unmarshaller> {
+	private final ConcurrentPool<Unmarshaller> delegate;
 
 	public JAXBUnmarshallerPool(final Class<?>... classes) {
-		super(new JAXBUnmarshallerFactory(new JAXBContextFactory(classes)));
+		this(new JAXBUnmarshallerFactory(new JAXBContextFactory(classes)));
 	}
 
 	public JAXBUnmarshallerPool(final String contextPath) {
-		super(new JAXBUnmarshallerFactory(new JAXBContextFactory(contextPath)));
+		this(new JAXBUnmarshallerFactory(new JAXBContextFactory(contextPath)));
 	}
 
 	public JAXBUnmarshallerPool(final JAXBContext context) {
-		super(new JAXBUnmarshallerFactory(new UnmodifiableDelegate<JAXBContext>(context)));
+		this(new JAXBUnmarshallerFactory(new UnmodifiableDelegate<JAXBContext>(context)));
 	}
 
 	public JAXBUnmarshallerPool(final JAXBContextFactory contextFactory) {
-		super(new JAXBUnmarshallerFactory(contextFactory));
+		this(new JAXBUnmarshallerFactory(contextFactory));
+	}
+
+	private JAXBUnmarshallerPool(final Factory<Unmarshaller> factory) {
+		this.delegate = new ConcurrentPool<Unmarshaller>(factory);
+	}
+
+	@Override
+	public Unmarshaller acquire() {
+		return this.delegate.acquire();
+	}
+
+	@Override
+	public boolean release(final Unmarshaller object) {
+		return this.delegate.release(object);
 	}
 }
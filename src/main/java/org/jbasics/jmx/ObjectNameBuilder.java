@@ -28,22 +28,51 @@ import java.util.List;
 
 import javax.management.ObjectName;
 
+import org.jbasics.checker.ContractCheck;
 import org.jbasics.exception.DelegatedException;
 import org.jbasics.pattern.builder.Builder;
 import org.jbasics.text.StringUtilities;
 
 public class ObjectNameBuilder implements Builder<ObjectName> {
 	private final List<String> elements = new ArrayList<String>();
+	private String domain;
+
+	public ObjectNameBuilder withDomain(final String domain) {
+		this.domain = ContractCheck.mustNotBeNullOrTrimmedEmpty(domain, "domain");
+		return this;
+	}
+
+	/**
+	 * Adds the key property to the name. The value is quoted if it contains characters not allowed in an unquoted
+	 * value.
+	 *
+	 * @param key   The key of the property (must not be null or empty).
+	 * @param value The value of the property (must not be null).
+	 *
+	 * @return This builder.
+	 */
+	public ObjectNameBuilder withProperty(final String key, final String value) {
+		ContractCheck.mustNotBeNullOrTrimmedEmpty(key, "key");
+		ContractCheck.mustNotBeNull(value, "value");
+		boolean quote = value.isEmpty();
+		for (int i = 0; !quote && i < value.length(); i++) {
+			quote = ",=:\"*?\n".indexOf(value.charAt(i)) >= 0;
+		}
+		this.elements.add(key + "=" + (quote ? ObjectName.quote(value) : value));
+		return this;
+	}
 
 	@Override
 	public void reset() {
 		this.elements.clear();
+		this.domain = null;
 	}
 
 	@Override
 	public ObjectName build() {
 		try {
-			return new ObjectName(StringUtilities.joinToString(",", this.elements));
+			final String properties = StringUtilities.joinToString(",", this.elements);
+			return new ObjectName(this.domain == null ? properties : this.domain + ":" + properties);
 		} catch (final Exception e) {
 			throw DelegatedException.delegate(e);
 		}
@@ -30,7 +30,10 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 
 /**
- * Static class holding arbitrary correct decimal functions based on BigDecimal and BigInteger.
+ * Static class holding arbitrary correct decimal functions based on BigDecimal and BigInteger. The results of {@link
+ * #exp(BigDecimal)}, {@link #ln(BigDecimal)}, {@link #sqrt(BigDecimal)}, {@link #sin(BigDecimal)} and {@link
+ * #cos(BigDecimal)} are shared through the {@link BigDecimalIrationalNumberCache#SHARED_INSTANCE} so recurring
+ * arguments are only calculated once per precision.
  *
  * @author Stephan Schloepke
  * @since 1.0
@@ -136,7 +139,7 @@ public final class BigDecimalMathLibrary {
 	 * @since 1.0
 	 */
 	public static IrationalNumber<BigDecimal> exp(final BigDecimal x) {
-		return ExponentialIrationalNumber.valueOf(x);
+		return BigDecimalIrationalNumberCache.SHARED_INSTANCE.get("exp", x, ExponentialIrationalNumber::valueOf);
 	}
 
 	/**
@@ -204,7 +207,7 @@ public final class BigDecimalMathLibrary {
 	 * @since 1.0
 	 */
 	public static IrationalNumber<BigDecimal> sqrt(final BigDecimal x) {
-		return SquareRootIrationalNumber.valueOf(x);
+		return BigDecimalIrationalNumberCache.SHARED_INSTANCE.get("sqrt", x, SquareRootIrationalNumber::valueOf);
 	}
 
 	/**
@@ -231,7 +234,7 @@ public final class BigDecimalMathLibrary {
 	 * @since 1.0
 	 */
 	public static IrationalNumber<BigDecimal> ln(final BigDecimal x) {
-		return LogNaturalFunctionIrationalNumber.valueOf(x);
+		return BigDecimalIrationalNumberCache.SHARED_INSTANCE.get("ln", x, LogNaturalFunctionIrationalNumber::valueOf);
 	}
 
 	/**
@@ -299,7 +302,7 @@ public final class BigDecimalMathLibrary {
 	 * @since 1.0
 	 */
 	public static IrationalNumber<BigDecimal> sin(final BigDecimal x) {
-		return SineIrationalNumber.valueOf(x);
+		return BigDecimalIrationalNumberCache.SHARED_INSTANCE.get("sin", x, SineIrationalNumber::valueOf);
 	}
 
 	/**
@@ -312,7 +315,7 @@ public final class BigDecimalMathLibrary {
 	 * @since 1.0
 	 */
 	public static IrationalNumber<BigDecimal> cos(final BigDecimal x) {
-		return CosineIrationalNumber.valueOf(x);
+		return BigDecimalIrationalNumberCache.SHARED_INSTANCE.get("cos", x, CosineIrationalNumber::valueOf);
 	}
 
 	/**
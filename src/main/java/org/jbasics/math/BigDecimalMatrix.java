@@ -25,6 +25,7 @@ package org.jbasics.math;
 
 import org.jbasics.arrays.unstable.ArrayIterator;
 import org.jbasics.checker.ContractCheck;
+import org.jbasics.math.impl.MathImplConstants;
 import org.jbasics.pattern.container.TabularData;
 
 import java.math.BigDecimal;
@@ -33,8 +34,25 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 public class BigDecimalMatrix implements TabularData<BigDecimal>, Iterable<Collection<BigDecimal>> /* , Comparable<BigDecimalMatrix> */ {
+	/**
+	 * The maximum precision for which {@link #multiplyFast(BigDecimalMatrix, MathContext)} falls back to double
+	 * arithmetic. It is three digits below {@link MathImplConstants#DOUBLE_PRECISION} because the rounding errors of
+	 * the products accumulate over the sum of a row times a column, the three digits are kept as guard digits.
+	 */
+	public static final int MULTIPLY_DOUBLE_MAX_PRECISION = MathImplConstants.DOUBLE_PRECISION - 3;
+	/**
+	 * The amount of value multiplications from which on a matrix multiplication is split into parallel tasks.
+	 */
+	private static final long PARALLEL_THRESHOLD = 1L << 15;
+	/**
+	 * The amount of result columns processed together for a block of rows so the used columns of the factor stay cached.
+	 */
+	private static final int BLOCK_SIZE = 64;
 	private final int rows, columns;
 	private final BigDecimal[][] matrix;
 	private transient Collection<BigDecimal>[] iterables;
@@ -238,18 +256,173 @@ public class BigDecimalMatrix implements TabularData<BigDecimal>, Iterable<Colle
 		return multiply(factor, MathContext.UNLIMITED);
 	}
 
+	/**
+	 * Multiplies this matrix with the factor. Every value of the result is summed up exactly and rounded with the math
+	 * context afterwards. The rows of the result are computed in blocks of columns against the transposed factor and
+	 * split into parallel tasks of the common {@link ForkJoinPool} for larger matrices.
+	 *
+	 * @param factor The matrix to multiply with (the rows must match the columns of this matrix).
+	 * @param mc     The math context to round the result values with.
+	 *
+	 * @return The product of this matrix and the factor.
+	 */
 	public BigDecimalMatrix multiply(final BigDecimalMatrix factor, final MathContext mc) {
-		if (this.columns != factor.rows) {
+		checkMultiplyFactor(factor);
+		final BigDecimal[][] transposed = factor.transpose().matrix;
+		final BigDecimalMatrix result = new BigDecimalMatrix(this.rows, factor.columns);
+		invokeRows(result, (from, to) -> {
+			for (int block = 0; block < result.columns; block += BigDecimalMatrix.BLOCK_SIZE) {
+				final int blockEnd = Math.min(result.columns, block + BigDecimalMatrix.BLOCK_SIZE);
+				for (int i = from; i < to; i++) {
+					final BigDecimal[] row = this.matrix[i];
+					final BigDecimal[] resultRow = result.matrix[i];
+					for (int j = block; j < blockEnd; j++) {
+						final BigDecimal[] column = transposed[j];
+						BigDecimal temp = BigDecimal.ZERO;
+						for (int k = 0; k < row.length; k++) {
+							temp = temp.add(row[k].multiply(column[k]));
+						}
+						resultRow[j] = temp.round(mc);
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Multiplies this matrix with the factor using primitive arithmetic where possible. If all values of both matrices
+	 * can be scaled to long values so that no sum can overflow the result is calculated exactly with long arithmetic.
+	 * Otherwise if the math context has a bounded precision of at most {@link #MULTIPLY_DOUBLE_MAX_PRECISION} digits the
+	 * result is calculated with double arithmetic. In all other cases the result is calculated exactly like {@link
+	 * #multiply(BigDecimalMatrix, MathContext)}.
+	 * <p>
+	 * The long and the BigDecimal paths give values numerically equal to the exact multiplication rounded with the math
+	 * context (the scale can differ). The double path does not. Every value is converted to the nearest double and
+	 * every product and sum is rounded to double precision, so the result is only close to the exact one. The error is
+	 * usually in the last digits of a double which the guard digits below {@link MathImplConstants#DOUBLE_PRECISION}
+	 * absorb, but sums with heavy cancellation can lose significant digits. Use this method only where double accuracy
+	 * is acceptable.
+	 * </p>
+	 *
+	 * @param factor The matrix to multiply with (the rows must match the columns of this matrix).
+	 * @param mc     The math context to round the result values with.
+	 *
+	 * @return The product of this matrix and the factor.
+	 */
+	public BigDecimalMatrix multiplyFast(final BigDecimalMatrix factor, final MathContext mc) {
+		checkMultiplyFactor(factor);
+		final int inner = this.columns;
+		final BigDecimal[][] transposed = factor.transpose().matrix;
+		final int scale = BigDecimalMatrix.maxScale(this.matrix);
+		final int factorScale = BigDecimalMatrix.maxScale(transposed);
+		final long[] left = BigDecimalMatrix.toScaledLongs(this.matrix, scale);
+		final long[] right = left == null ? null : BigDecimalMatrix.toScaledLongs(transposed, factorScale);
+		final BigDecimalMatrix result = new BigDecimalMatrix(this.rows, factor.columns);
+		if (right != null && BigDecimalMatrix.maxBits(left) + BigDecimalMatrix.maxBits(right) + 32 - Integer.numberOfLeadingZeros(inner) <= 63) {
+			final int resultScale = scale + factorScale;
+			invokeRows(result, (from, to) -> {
+				for (int block = 0; block < result.columns; block += BigDecimalMatrix.BLOCK_SIZE) {
+					final int blockEnd = Math.min(result.columns, block + BigDecimalMatrix.BLOCK_SIZE);
+					for (int i = from; i < to; i++) {
+						final int rowOffset = i * inner;
+						for (int j = block; j < blockEnd; j++) {
+							final int columnOffset = j * inner;
+							long temp = 0L;
+							for (int k = 0; k < inner; k++) {
+								temp += left[rowOffset + k] * right[columnOffset + k];
+							}
+							result.matrix[i][j] = BigDecimal.valueOf(temp, resultScale).round(mc);
+						}
+					}
+				}
+			});
+			return result;
+		}
+		final double[] leftDoubles;
+		final double[] rightDoubles;
+		if (mc.getPrecision() == 0 || mc.getPrecision() > BigDecimalMatrix.MULTIPLY_DOUBLE_MAX_PRECISION
+				|| (leftDoubles = BigDecimalMatrix.toDoubles(this.matrix)) == null || (rightDoubles = BigDecimalMatrix.toDoubles(transposed)) == null) {
+			return multiply(factor, mc);
+		}
+		invokeRows(result, (from, to) -> {
+			for (int block = 0; block < result.columns; block += BigDecimalMatrix.BLOCK_SIZE) {
+				final int blockEnd = Math.min(result.columns, block + BigDecimalMatrix.BLOCK_SIZE);
+				for (int i = from; i < to; i++) {
+					final int rowOffset = i * inner;
+					for (int j = block; j < blockEnd; j++) {
+						final int columnOffset = j * inner;
+						double temp = 0.0d;
+						for (int k = 0; k < inner; k++) {
+							temp += leftDoubles[rowOffset + k] * rightDoubles[columnOffset + k];
+						}
+						result.matrix[i][j] = new BigDecimal(temp, mc);
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	private void checkMultiplyFactor(final BigDecimalMatrix factor) {
+		if (this.columns != ContractCheck.mustNotBeNull(factor, "factor").rows) {
 			throw new IllegalArgumentException("The rows of the matrix factor must be equal to the columns of this matrix"); //$NON-NLS-1$
 		}
-		final BigDecimalMatrix result = new BigDecimalMatrix(this.rows, factor.columns);
-		for (int i = 0; i < result.columns; i++) {
-			for (int j = 0; j < result.rows; j++) {
-				BigDecimal temp = BigDecimal.ZERO;
-				for (int k = 0; k < this.columns; k++) {
-					temp = temp.add(this.matrix[j][k].multiply(factor.matrix[k][i]));
+	}
+
+	private void invokeRows(final BigDecimalMatrix result, final RowOperation operation) {
+		final long rowCost = (long) this.columns * result.columns;
+		if (this.rows > 1 && rowCost * this.rows >= BigDecimalMatrix.PARALLEL_THRESHOLD) {
+			ForkJoinPool.commonPool().invoke(new RowTask(operation, 0, this.rows, rowCost));
+		} else {
+			operation.apply(0, this.rows);
+		}
+	}
+
+	private static int maxScale(final BigDecimal[][] values) {
+		int scale = values.length == 0 || values[0].length == 0 ? 0 : Integer.MIN_VALUE;
+		for (final BigDecimal[] row : values) {
+			for (final BigDecimal value : row) {
+				scale = Math.max(scale, value.scale());
+			}
+		}
+		return scale;
+	}
+
+	private static long[] toScaledLongs(final BigDecimal[][] values, final int scale) {
+		final int length = values.length == 0 ? 0 : values[0].length;
+		final long[] result = new long[values.length * length];
+		for (int i = 0; i < values.length; i++) {
+			for (int j = 0; j < length; j++) {
+				final BigDecimal value = values[i][j];
+				// avoid creating huge unscaled values only to find out they do not fit
+				if ((long) value.precision() + scale - value.scale() > 18) {
+					return null;
 				}
-				result.matrix[j][i] = temp.round(mc);
+				result[i * length + j] = value.setScale(scale).unscaledValue().longValue();
+			}
+		}
+		return result;
+	}
+
+	private static int maxBits(final long[] values) {
+		long mask = 0L;
+		for (final long value : values) {
+			mask |= value < 0 ? -value : value;
+		}
+		return 64 - Long.numberOfLeadingZeros(mask);
+	}
+
+	private static double[] toDoubles(final BigDecimal[][] values) {
+		final int length = values.length == 0 ? 0 : values[0].length;
+		final double[] result = new double[values.length * length];
+		for (int i = 0; i < values.length; i++) {
+			for (int j = 0; j < length; j++) {
+				final double value = values[i][j].doubleValue();
+				if (Double.isInfinite(value)) {
+					return null;
+				}
+				result[i * length + j] = value;
 			}
 		}
 		return result;
@@ -329,4 +502,32 @@ public class BigDecimalMatrix implements TabularData<BigDecimal>, Iterable<Colle
 		}
 		return t.append(" ]").toString();
 	}
+
+	private interface RowOperation {
+		void apply(int from, int to);
+	}
+
+	private static final class RowTask extends RecursiveAction {
+		private final RowOperation operation;
+		private final int from;
+		private final int to;
+		private final long rowCost;
+
+		private RowTask(final RowOperation operation, final int from, final int to, final long rowCost) {
+			this.operation = operation;
+			this.from = from;
+			this.to = to;
+			this.rowCost = rowCost;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > 1 && this.rowCost * (this.to - this.from) >= BigDecimalMatrix.PARALLEL_THRESHOLD) {
+				final int middle = (this.from + this.to) >>> 1;
+				ForkJoinTask.invokeAll(new RowTask(this.operation, this.from, middle, this.rowCost), new RowTask(this.operation, middle, this.to, this.rowCost));
+			} else {
+				this.operation.apply(this.from, this.to);
+			}
+		}
+	}
 }
@@ -25,12 +25,15 @@ package org.jbasics.math.impl;
 
 import org.jbasics.math.AlgorithmStrategy;
 import org.jbasics.math.IrationalNumber;
+import org.jbasics.math.strategies.ArcTangentBinarySplittingAlgorithmStrategy;
 import org.jbasics.math.strategies.ArcTangentAlgorithmStrategy;
+import org.jbasics.math.strategies.PrecisionSelectingAlgorithmStrategy;
 
 import java.math.BigDecimal;
 
 public class ArcTangentIrationalNumber extends BigDecimalIrationalNumber {
-	private static final AlgorithmStrategy<BigDecimal> STRATEGY = new ArcTangentAlgorithmStrategy();
+	private static final AlgorithmStrategy<BigDecimal> STRATEGY = new PrecisionSelectingAlgorithmStrategy(MathImplConstants.DOUBLE_PRECISION, new ArcTangentAlgorithmStrategy(),
+			new ArcTangentBinarySplittingAlgorithmStrategy());
 
 	private ArcTangentIrationalNumber(BigDecimal x) {
 		super(STRATEGY, x);
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.impl;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.configuration.properties.SystemProperty;
+import org.jbasics.math.IrationalNumber;
+import org.jbasics.math.MemorizedIrationalNumber;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded least recently used cache of {@link IrationalNumber}s keyed by the function name and the argument. Since
+ * every cached number memorizes its most precise result a request with a lower precision is served by rounding the
+ * memorized value while a higher precision request calculates the value once more and memorizes it for later calls.
+ * <p>
+ * The cache is weighted by the number of memorized digits. Whenever the total weight exceeds the maximum weight the
+ * least recently used numbers are evicted. The {@link #SHARED_INSTANCE} is used by the
+ * {@link org.jbasics.math.BigDecimalMathLibrary} and its maximum weight can be configured with the system property
+ * {@value #MAX_WEIGHT_PROPERTY}.
+ * </p>
+ * <p>
+ * Lookups do not take any lock, a hit only records the time of the access. Only when the total weight exceeds the
+ * maximum weight the eviction takes a lock, sorts the entries by their last access and removes the oldest ones.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public final class BigDecimalIrationalNumberCache {
+	public static final String MAX_WEIGHT_PROPERTY = "org.jbasics.math.impl.BigDecimalIrationalNumberCache.maxWeight";
+	public static final SystemProperty<BigInteger> MAX_WEIGHT = SystemProperty.integerProperty(BigDecimalIrationalNumberCache.MAX_WEIGHT_PROPERTY, BigInteger.valueOf(1L << 20));
+	public static final BigDecimalIrationalNumberCache SHARED_INSTANCE = new BigDecimalIrationalNumberCache(BigDecimalIrationalNumberCache.MAX_WEIGHT.value().longValue());
+
+	/**
+	 * The weight every entry has additionally to its memorized digits to account for the key and the entry itself.
+	 */
+	private static final int ENTRY_WEIGHT = 32;
+
+	private final long maxWeight;
+	private final ConcurrentMap<Key, CachedIrationalNumber> entries;
+	private final AtomicLong weight = new AtomicLong();
+	private final Object evictionLock = new Object();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	public BigDecimalIrationalNumberCache(final long maxWeight) {
+		if (maxWeight <= 0) {
+			throw new IllegalArgumentException("Maximum weight must be positive: " + maxWeight);
+		}
+		this.maxWeight = maxWeight;
+		this.entries = new ConcurrentHashMap<Key, CachedIrationalNumber>(64);
+	}
+
+	/**
+	 * Returns the cached irational number of the function for the argument x or creates and caches a new one with the
+	 * factory. Arguments equal by {@link BigDecimal#compareTo(BigDecimal)} share the same entry.
+	 *
+	 * @param function The name of the function.
+	 * @param x        The argument of the function.
+	 * @param factory  The factory creating the irational number if it is not cached.
+	 *
+	 * @return The cached irational number.
+	 */
+	public IrationalNumber<BigDecimal> get(final String function, final BigDecimal x, final Function<BigDecimal, IrationalNumber<BigDecimal>> factory) {
+		final Key key = new Key(ContractCheck.mustNotBeNull(function, "function"), ContractCheck.mustNotBeNull(x, "x"));
+		final CachedIrationalNumber cached = this.entries.get(key);
+		if (cached != null) {
+			this.hits.incrementAndGet();
+			cached.lastAccess = System.nanoTime();
+			return cached;
+		}
+		this.misses.incrementAndGet();
+		final CachedIrationalNumber created = new CachedIrationalNumber(key, ContractCheck.mustNotBeNull(factory, "factory").apply(x));
+		// Counted before it is published so updateWeight and remove always work on a weight which is part of the total
+		this.weight.addAndGet(created.weight);
+		final CachedIrationalNumber existing = this.entries.putIfAbsent(key, created);
+		if (existing != null) {
+			this.weight.addAndGet(-created.weight);
+			return existing;
+		}
+		if (this.weight.get() > this.maxWeight) {
+			evict();
+		}
+		return created;
+	}
+
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	public long getEvictionCount() {
+		return this.evictions.get();
+	}
+
+	public long getMaxWeight() {
+		return this.maxWeight;
+	}
+
+	public long getWeight() {
+		return this.weight.get();
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	public void clear() {
+		for (final CachedIrationalNumber temp : this.entries.values()) {
+			remove(temp);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BigDecimalIrationalNumberCache[size=" + size() + ", weight=" + getWeight() + "/" + this.maxWeight + ", hits=" + this.hits.get()
+				+ ", misses=" + this.misses.get() + ", evictions=" + this.evictions.get() + "]";
+	}
+
+	private void updateWeight(final CachedIrationalNumber number) {
+		final boolean counted;
+		synchronized (number) {
+			final int newWeight = number.currentWeight();
+			final int delta = newWeight - number.weight;
+			number.weight = newWeight;
+			counted = !number.evicted && delta != 0;
+			if (counted) {
+				this.weight.addAndGet(delta);
+			}
+		}
+		if (counted && this.weight.get() > this.maxWeight) {
+			evict();
+		}
+	}
+
+	private void evict() {
+		synchronized (this.evictionLock) {
+			if (this.weight.get() <= this.maxWeight) {
+				return;
+			}
+			final List<CachedIrationalNumber> candidates = new ArrayList<CachedIrationalNumber>(this.entries.values());
+			candidates.sort(Comparator.comparingLong(temp -> temp.lastAccess));
+			// Always keep the most recent entry even if it exceeds the maximum weight on its own
+			for (int i = 0; i < candidates.size() - 1 && this.weight.get() > this.maxWeight; i++) {
+				if (remove(candidates.get(i))) {
+					this.evictions.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	private boolean remove(final CachedIrationalNumber number) {
+		if (this.entries.remove(number.key, number)) {
+			synchronized (number) {
+				number.evicted = true;
+				this.weight.addAndGet(-number.weight);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private static final class Key {
+		private final String function;
+		private final BigDecimal x;
+		private final int hashCode;
+
+		private Key(final String function, final BigDecimal x) {
+			this.function = function;
+			this.x = x.signum() == 0 ? BigDecimal.ZERO : x.stripTrailingZeros();
+			this.hashCode = function.hashCode() * 31 + this.x.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return this.hashCode == other.hashCode && this.function.equals(other.function) && this.x.equals(other.x);
+		}
+	}
+
+	/**
+	 * Wraps the cached number in order to track the growth of its memorized digits.
+	 */
+	private final class CachedIrationalNumber implements MemorizedIrationalNumber<BigDecimal> {
+		private final Key key;
+		private final IrationalNumber<BigDecimal> delegate;
+		private volatile int weight;
+		private volatile long lastAccess;
+		private boolean evicted;
+
+		private CachedIrationalNumber(final Key key, final IrationalNumber<BigDecimal> delegate) {
+			this.key = key;
+			this.delegate = ContractCheck.mustNotBeNull(delegate, "delegate");
+			this.weight = currentWeight();
+			this.lastAccess = System.nanoTime();
+		}
+
+		@Override
+		public BigDecimal valueToPrecision(final MathContext mc) {
+			final BigDecimal result = this.delegate.valueToPrecision(mc);
+			this.lastAccess = System.nanoTime();
+			if (precision() + BigDecimalIrationalNumberCache.ENTRY_WEIGHT != this.weight) {
+				updateWeight(this);
+			}
+			return result;
+		}
+
+		@Override
+		public int precision() {
+			return this.delegate instanceof MemorizedIrationalNumber ? ((MemorizedIrationalNumber<BigDecimal>) this.delegate).precision() : 0;
+		}
+
+		@Override
+		public boolean isExact() {
+			return this.delegate instanceof MemorizedIrationalNumber && ((MemorizedIrationalNumber<BigDecimal>) this.delegate).isExact();
+		}
+
+		private int currentWeight() {
+			return precision() + BigDecimalIrationalNumberCache.ENTRY_WEIGHT;
+		}
+	}
+}
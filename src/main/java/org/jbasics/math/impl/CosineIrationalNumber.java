@@ -25,12 +25,15 @@ package org.jbasics.math.impl;
 
 import org.jbasics.math.AlgorithmStrategy;
 import org.jbasics.math.IrationalNumber;
+import org.jbasics.math.strategies.CosineBinarySplittingAlgorithmStrategy;
 import org.jbasics.math.strategies.CosineAlgorithmStrategy;
+import org.jbasics.math.strategies.PrecisionSelectingAlgorithmStrategy;
 
 import java.math.BigDecimal;
 
 public class CosineIrationalNumber extends BigDecimalIrationalNumber {
-	private static final AlgorithmStrategy<BigDecimal> STRATEGY = new CosineAlgorithmStrategy();
+	private static final AlgorithmStrategy<BigDecimal> STRATEGY = new PrecisionSelectingAlgorithmStrategy(MathImplConstants.DOUBLE_PRECISION, new CosineAlgorithmStrategy(),
+			new CosineBinarySplittingAlgorithmStrategy());
 
 	private CosineIrationalNumber(BigDecimal x) {
 		super(STRATEGY, x);
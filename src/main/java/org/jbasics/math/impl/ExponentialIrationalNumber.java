@@ -25,16 +25,23 @@ package org.jbasics.math.impl;
 
 import org.jbasics.math.AlgorithmStrategy;
 import org.jbasics.math.IrationalNumber;
+import org.jbasics.math.strategies.ExponentialBinarySplittingAlgorithmStrategy;
 import org.jbasics.math.strategies.ExponentialTaylerAlgorithmStrategy;
+import org.jbasics.math.strategies.PrecisionSelectingAlgorithmStrategy;
 
 import java.math.BigDecimal;
 
 public class ExponentialIrationalNumber extends BigDecimalIrationalNumber {
+	/**
+	 * The precision from which on the binary splitting algorithm is used instead of the tayler series.
+	 */
+	public static final int BINARY_SPLITTING_THRESHOLD = 200;
 	public static final IrationalNumber<BigDecimal> E;
 	private static final AlgorithmStrategy<BigDecimal> STRATEGY;
 
 	static {
-		STRATEGY = new ExponentialTaylerAlgorithmStrategy();
+		STRATEGY = new PrecisionSelectingAlgorithmStrategy(ExponentialIrationalNumber.BINARY_SPLITTING_THRESHOLD, new ExponentialTaylerAlgorithmStrategy(),
+				new ExponentialBinarySplittingAlgorithmStrategy());
 		E = new ExponentialIrationalNumber(BigDecimal.ONE);
 	}
 
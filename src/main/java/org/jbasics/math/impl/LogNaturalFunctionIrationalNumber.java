@@ -26,11 +26,17 @@ package org.jbasics.math.impl;
 import org.jbasics.checker.ContractCheck;
 import org.jbasics.math.AlgorithmStrategy;
 import org.jbasics.math.IrationalNumber;
+import org.jbasics.math.strategies.NaturalLogarithmAGMAlgorithmStrategy;
 import org.jbasics.math.strategies.NaturalLogarithmAlgorithmStrategy;
+import org.jbasics.math.strategies.PrecisionSelectingAlgorithmStrategy;
 
 import java.math.BigDecimal;
 
 public class LogNaturalFunctionIrationalNumber extends BigDecimalIrationalNumber {
+	/**
+	 * The precision from which on the arithmetic geometric mean is used instead of the newton iteration.
+	 */
+	public static final int AGM_THRESHOLD = 50;
 	/**
 	 * The logarithm naturals of two as cached value.
 	 */
@@ -42,7 +48,8 @@ public class LogNaturalFunctionIrationalNumber extends BigDecimalIrationalNumber
 	private static final AlgorithmStrategy<BigDecimal> STRATEGY;
 
 	static {
-		STRATEGY = new NaturalLogarithmAlgorithmStrategy();
+		STRATEGY = new PrecisionSelectingAlgorithmStrategy(LogNaturalFunctionIrationalNumber.AGM_THRESHOLD, new NaturalLogarithmAlgorithmStrategy(),
+				new NaturalLogarithmAGMAlgorithmStrategy());
 		LN2 = new LogNaturalFunctionIrationalNumber(MathImplConstants.TWO);
 		LN10 = new LogNaturalFunctionIrationalNumber(BigDecimal.TEN);
 	}
@@ -60,6 +60,13 @@ public class MathImplConstants {
 	 * @since 1.0
 	 */
 	public static final BigDecimal QUARTER = new BigDecimal("0.25");
+	/**
+	 * The decimal digits a double value can represent. Strategies based on the double functions of {@link Math} are only
+	 * correct below this precision.
+	 *
+	 * @since 1.0
+	 */
+	public static final int DOUBLE_PRECISION = 15;
 	/**
 	 * An initial constant used to initialize the PI irational number. The number is exakt with precision 32.
 	 *
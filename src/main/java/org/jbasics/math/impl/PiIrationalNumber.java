@@ -25,7 +25,7 @@ package org.jbasics.math.impl;
 
 import org.jbasics.math.AlgorithmStrategy;
 import org.jbasics.math.IrationalNumber;
-import org.jbasics.math.strategies.PiAlgorithmStrategy;
+import org.jbasics.math.strategies.PiChudnovskyAlgorithmStrategy;
 
 import java.math.BigDecimal;
 
@@ -33,7 +33,7 @@ public class PiIrationalNumber extends BigDecimalIrationalNumber {
 	/**
 	 * The {@link AlgorithmStrategy} which is used to calculate PI.
 	 */
-	public static final AlgorithmStrategy<BigDecimal> STRATEGY = new PiAlgorithmStrategy();
+	public static final AlgorithmStrategy<BigDecimal> STRATEGY = new PiChudnovskyAlgorithmStrategy();
 
 	/**
 	 * The constant PI.
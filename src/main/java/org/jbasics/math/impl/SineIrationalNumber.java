@@ -25,12 +25,15 @@ package org.jbasics.math.impl;
 
 import org.jbasics.math.AlgorithmStrategy;
 import org.jbasics.math.IrationalNumber;
+import org.jbasics.math.strategies.SineBinarySplittingAlgorithmStrategy;
 import org.jbasics.math.strategies.SineAlgorithmStrategy;
+import org.jbasics.math.strategies.PrecisionSelectingAlgorithmStrategy;
 
 import java.math.BigDecimal;
 
 public class SineIrationalNumber extends BigDecimalIrationalNumber {
-	public static final AlgorithmStrategy<BigDecimal> STRATEGY = new SineAlgorithmStrategy();
+	public static final AlgorithmStrategy<BigDecimal> STRATEGY = new PrecisionSelectingAlgorithmStrategy(MathImplConstants.DOUBLE_PRECISION, new SineAlgorithmStrategy(),
+			new SineBinarySplittingAlgorithmStrategy());
 
 	private SineIrationalNumber(BigDecimal x) {
 		super(STRATEGY, x);
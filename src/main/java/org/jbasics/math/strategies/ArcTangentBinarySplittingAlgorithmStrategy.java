@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.strategies;
+
+import org.jbasics.math.AlgorithmStrategy;
+import org.jbasics.math.impl.PiIrationalNumber;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Calculates atan(x) to an arbitrary precision with the binary splitting evaluation of the series of Euler. Arguments
+ * with an absolute value greater than one are mapped by atan(x) = sign(x) * pi/2 - atan(1/x).
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class ArcTangentBinarySplittingAlgorithmStrategy implements AlgorithmStrategy<BigDecimal> {
+
+	@Override
+	public BigDecimal calculate(final MathContext mc, final BigDecimal guess, final BigDecimal... xn) {
+		if (xn == null || xn.length != 1) {
+			throw new IllegalArgumentException("arc tan requires exactly one argument arctan(x) but supplied was " + (xn == null ? 0 : xn.length));
+		}
+		final BigDecimal x = xn[0];
+		if (x.abs().compareTo(BigDecimal.ONE) <= 0) {
+			return BinarySplitting.atan(x, mc);
+		}
+		final MathContext work = new MathContext(mc.getPrecision() + 5, RoundingMode.HALF_EVEN);
+		final BigDecimal halfPi = PiIrationalNumber.PI.valueToPrecision(work).divide(BigDecimal.valueOf(x.signum() * 2), work);
+		return halfPi.subtract(BinarySplitting.atan(BigDecimal.ONE.divide(x, work), work), mc);
+	}
+}
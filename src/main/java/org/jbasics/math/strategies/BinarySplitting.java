@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.strategies;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.function.IntFunction;
+
+/**
+ * Helper to evaluate hypergeometric like series with the binary splitting algorithm. A series in the form of
+ * sum<sub>n</sub>(prod<sub>k=0..n</sub>(p(k)/q(k))) with small integer p(k) and q(k) is evaluated by recursively
+ * splitting the range of terms and combining the integer products. Only one final division is required so the cost is
+ * dominated by a few multiplications of large integers instead of one full precision multiplication and division per
+ * term.
+ * <p>
+ * Arguments with many digits are handled with the bit-burst technique. The argument is split in chunks of doubling
+ * length where every chunk is a short rational so each partial series stays cheap.
+ * </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+final class BinarySplitting {
+	static final double LOG10_2 = Math.log10(2);
+	private static final int FIRST_CHUNK_DIGITS = 8;
+	private static final BigDecimal ATAN_REDUCED = new BigDecimal("0.01");
+
+	private BinarySplitting() {
+		// no instances
+	}
+
+	/**
+	 * Splits the range [a, b) and returns the array {P, Q, T} with P and Q being the products of p(k) and q(k) and
+	 * T/Q being the sum of the terms of the range.
+	 */
+	static BigInteger[] split(final IntFunction<BigInteger> p, final IntFunction<BigInteger> q, final int a, final int b) {
+		if (b - a == 1) {
+			final BigInteger pa = p.apply(a);
+			return new BigInteger[]{pa, q.apply(a), pa};
+		}
+		final int m = (a + b) >>> 1;
+		final BigInteger[] left = split(p, q, a, m);
+		final BigInteger[] right = split(p, q, m, b);
+		return new BigInteger[]{left[0].multiply(right[0]), left[1].multiply(right[1]), left[2].multiply(right[1]).add(left[0].multiply(right[2]))};
+	}
+
+	/**
+	 * Returns the sum of the first terms of the series. The first term is given by p(0)/q(0).
+	 */
+	static BigDecimal sum(final IntFunction<BigInteger> p, final IntFunction<BigInteger> q, final int terms, final MathContext mc) {
+		final BigInteger[] temp = split(p, q, 0, terms);
+		return new BigDecimal(temp[2]).divide(new BigDecimal(temp[1]), mc);
+	}
+
+	/**
+	 * Returns the approximated decimal logarithm of the absolute value of x which must not be zero.
+	 */
+	static double log10(final BigDecimal x) {
+		final int exponent = x.precision() - x.scale();
+		return exponent + Math.log10(Math.abs(x.movePointLeft(exponent).doubleValue()));
+	}
+
+	/**
+	 * Calculates the square root of the positive x with an integer newton iteration which always terminates (unlike a
+	 * decimal newton iteration which can oscillate in the last digit).
+	 */
+	static BigDecimal sqrt(final BigDecimal x, final MathContext mc) {
+		if (x.signum() == 0) {
+			return BigDecimal.ZERO;
+		}
+		final int shift = (int) Math.ceil((2.0 * mc.getPrecision() + 4 - (x.precision() - x.scale())) / 2.0);
+		return new BigDecimal(sqrt(x.movePointRight(2 * shift).toBigInteger()), shift).round(mc);
+	}
+
+	/**
+	 * Returns floor(sqrt(n)). The start value is the root of the upper half of the bits so only a few newton steps on
+	 * the full number are required.
+	 */
+	static BigInteger sqrt(final BigInteger n) {
+		final int bits = n.bitLength();
+		BigInteger root;
+		if (bits <= 104) {
+			final int shift = Math.max(0, bits - 52) & ~1;
+			root = new BigDecimal(Math.sqrt(n.shiftRight(shift).doubleValue())).toBigInteger().add(BigInteger.ONE).shiftLeft(shift >> 1);
+		} else {
+			final int shift = bits >> 2;
+			root = sqrt(n.shiftRight(shift << 1)).add(BigInteger.ONE).shiftLeft(shift);
+		}
+		// after the first step the value is never below the root so the iteration ends once it stops decreasing
+		root = root.add(n.divide(root)).shiftRight(1);
+		while (true) {
+			final BigInteger next = root.add(n.divide(root)).shiftRight(1);
+			if (next.compareTo(root) >= 0) {
+				return root;
+			}
+			root = next;
+		}
+	}
+
+	static boolean isNegligible(final BigDecimal x, final int digits) {
+		return x.signum() == 0 || log10(x) < -digits;
+	}
+
+	/**
+	 * Calculates e^x for any x by halving the argument until it is below one half and squaring the result afterwards.
+	 */
+	static BigDecimal exp(final BigDecimal x, final MathContext mc) {
+		if (x.signum() == 0) {
+			return BigDecimal.ONE;
+		}
+		final int halvings = Math.max(0, (int) Math.ceil((log10(x) + BinarySplitting.LOG10_2) / BinarySplitting.LOG10_2));
+		final MathContext work = new MathContext(mc.getPrecision() + (int) Math.ceil(halvings * BinarySplitting.LOG10_2) + 10, RoundingMode.HALF_EVEN);
+		BigDecimal remaining = x.multiply(new BigDecimal(BigInteger.valueOf(5).pow(halvings))).movePointLeft(halvings).round(work);
+		BigDecimal result = BigDecimal.ONE;
+		for (int digits = BinarySplitting.FIRST_CHUNK_DIGITS; remaining.signum() != 0; digits <<= 1) {
+			final BigDecimal chunk = remaining.setScale(digits, RoundingMode.DOWN);
+			if (chunk.signum() != 0) {
+				remaining = remaining.subtract(chunk);
+				result = result.multiply(expSeries(chunk, work), work);
+			}
+		}
+		for (int i = 0; i < halvings; i++) {
+			result = result.multiply(result, work);
+		}
+		return result.round(mc);
+	}
+
+	private static BigDecimal expSeries(final BigDecimal chunk, final MathContext mc) {
+		final BigInteger p = chunk.unscaledValue();
+		final BigInteger q = BigInteger.TEN.pow(chunk.scale());
+		final double l = log10(chunk);
+		int terms = 1;
+		for (double magnitude = 0.0; magnitude > -mc.getPrecision(); terms++) {
+			magnitude += l - Math.log10(terms);
+		}
+		return sum(k -> k == 0 ? BigInteger.ONE : p, k -> k == 0 ? BigInteger.ONE : q.multiply(BigInteger.valueOf(k)), terms, mc);
+	}
+
+	/**
+	 * Calculates {sin(x), cos(x)} for a reduced argument |x| &lt;= pi. The result is accurate to the absolute
+	 * precision of the math context.
+	 */
+	static BigDecimal[] sinCos(final BigDecimal x, final MathContext mc) {
+		final MathContext work = new MathContext(mc.getPrecision() + 10, RoundingMode.HALF_EVEN);
+		BigDecimal remaining = x.round(work);
+		BigDecimal sin = BigDecimal.ZERO;
+		BigDecimal cos = BigDecimal.ONE;
+		for (int digits = BinarySplitting.FIRST_CHUNK_DIGITS; remaining.signum() != 0; digits <<= 1) {
+			final BigDecimal chunk = remaining.setScale(digits, RoundingMode.DOWN);
+			if (chunk.signum() != 0) {
+				remaining = remaining.subtract(chunk);
+				final BigInteger p = chunk.unscaledValue();
+				final BigInteger q = BigInteger.TEN.pow(chunk.scale());
+				final BigInteger p2 = p.multiply(p).negate();
+				final BigInteger q2 = q.multiply(q);
+				final double l = 2 * log10(chunk);
+				int terms = 1;
+				for (double magnitude = 0.0; magnitude > -work.getPrecision(); terms++) {
+					magnitude += l - Math.log10(2.0 * terms * (2.0 * terms + 1.0));
+				}
+				final BigDecimal chunkSin = chunk.multiply(sum(k -> k == 0 ? BigInteger.ONE : p2, k -> k == 0 ? BigInteger.ONE : q2.multiply(BigInteger.valueOf(2L * k * (2L * k + 1))), terms, work), work);
+				final BigDecimal chunkCos = sum(k -> k == 0 ? BigInteger.ONE : p2, k -> k == 0 ? BigInteger.ONE : q2.multiply(BigInteger.valueOf((2L * k - 1) * 2L * k)), terms + 1, work);
+				final BigDecimal temp = sin.multiply(chunkCos, work).add(cos.multiply(chunkSin, work), work);
+				cos = cos.multiply(chunkCos, work).subtract(sin.multiply(chunkSin, work), work);
+				sin = temp;
+			}
+		}
+		return new BigDecimal[]{sin, cos};
+	}
+
+	/**
+	 * Calculates atan(x) for |x| &lt;= 1 using the series of Euler atan(x) = sum(2<sup>2n</sup>(n!)<sup>2</sup> /
+	 * (2n+1)! * x<sup>2n+1</sup> / (1+x<sup>2</sup>)<sup>n+1</sup>) on each chunk of the argument with
+	 * atan(x) = atan(x<sub>0</sub>) + atan((x - x<sub>0</sub>) / (1 + x * x<sub>0</sub>)).
+	 */
+	static BigDecimal atan(final BigDecimal x, final MathContext mc) {
+		final MathContext work = new MathContext(mc.getPrecision() + 10, RoundingMode.HALF_EVEN);
+		BigDecimal remaining = x.round(work);
+		if (remaining.signum() == 0) {
+			return BigDecimal.ZERO;
+		}
+		// Halve the angle with atan(x) = 2 * atan(x / (1 + sqrt(1 + x^2))) so the series converges fast
+		int halvings = 0;
+		while (remaining.abs().compareTo(BinarySplitting.ATAN_REDUCED) > 0) {
+			remaining = remaining.divide(BigDecimal.ONE.add(sqrt(BigDecimal.ONE.add(remaining.multiply(remaining, work)), work)), work);
+			halvings++;
+		}
+		// atan(x) is about x for small x so the remaining argument is negligible relative to x
+		final int negligible = work.getPrecision() - (int) Math.floor(log10(remaining));
+		BigDecimal result = BigDecimal.ZERO;
+		for (int digits = BinarySplitting.FIRST_CHUNK_DIGITS; !isNegligible(remaining, negligible); digits <<= 1) {
+			final BigDecimal chunk = remaining.setScale(digits, RoundingMode.DOWN);
+			if (chunk.signum() != 0) {
+				final BigInteger p = chunk.unscaledValue();
+				final BigInteger q = BigInteger.TEN.pow(chunk.scale());
+				final BigInteger p2 = p.multiply(p);
+				final BigInteger s2 = p2.add(q.multiply(q));
+				final double l = 2 * log10(chunk) - Math.log10(1.0 + Math.pow(chunk.doubleValue(), 2.0));
+				final int terms = (int) Math.ceil(work.getPrecision() / -l) + 2;
+				final BigInteger[] temp = split(k -> k == 0 ? BigInteger.ONE : p2.shiftLeft(1).multiply(BigInteger.valueOf(k)), k -> k == 0 ? BigInteger.ONE : s2.multiply(BigInteger.valueOf(2L * k + 1)), 0, terms);
+				result = result.add(new BigDecimal(p.multiply(q).multiply(temp[2])).divide(new BigDecimal(s2.multiply(temp[1])), work), work);
+				remaining = remaining.subtract(chunk).divide(BigDecimal.ONE.add(remaining.multiply(chunk, work)), work);
+			}
+		}
+		return result.multiply(BigDecimal.valueOf(1L << halvings), mc);
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.strategies;
+
+import org.jbasics.math.AlgorithmStrategy;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Calculates e^x with the binary splitting evaluation of the tayler series. The argument is halved until it is below
+ * one half and split in chunks of doubling length (bit-burst) so every partial series only works on a short rational.
+ * Compared to the {@link ExponentialTaylerAlgorithmStrategy} this is considerably faster for a precision of several
+ * hundred digits and more.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class ExponentialBinarySplittingAlgorithmStrategy implements AlgorithmStrategy<BigDecimal> {
+	public static final AlgorithmStrategy<BigDecimal> STRATEGY = new ExponentialBinarySplittingAlgorithmStrategy();
+
+	@Override
+	public BigDecimal calculate(final MathContext mc, final BigDecimal guess, final BigDecimal... xn) {
+		if (xn == null || xn.length == 0) {
+			throw new IllegalArgumentException("must supply x as input (the xn array must contain one x)");
+		}
+		return BinarySplitting.exp(xn[0], mc);
+	}
+}
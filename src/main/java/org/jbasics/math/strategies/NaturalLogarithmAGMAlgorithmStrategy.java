@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.strategies;
+
+import org.jbasics.math.AlgorithmStrategy;
+import org.jbasics.math.impl.MathImplConstants;
+import org.jbasics.math.impl.PiIrationalNumber;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Calculates the natural logarithm with the arithmetic geometric mean. For a large s the approximation ln(s) = pi / (2
+ * * agm(1, 4/s)) is exact to about 2*log<sub>10</sub>(s) digits. With s = x * 2<sup>m</sup> the logarithm is
+ * ln(x) = pi/2 * (1/agm(1, 4/(x*2<sup>m</sup>)) - 1/agm(1, 4/2<sup>m</sup>)) which only requires the constant pi and
+ * a logarithmic count of square roots instead of one exponential function per newton step.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class NaturalLogarithmAGMAlgorithmStrategy implements AlgorithmStrategy<BigDecimal> {
+	public static final AlgorithmStrategy<BigDecimal> STRATEGY = new NaturalLogarithmAGMAlgorithmStrategy();
+
+	@Override
+	public BigDecimal calculate(final MathContext mc, final BigDecimal guess, final BigDecimal... xn) {
+		if (xn == null || xn.length != 1) {
+			throw new IllegalArgumentException("Illegal amount of arguments supplied (required 1, got " + (xn == null ? 0 : xn.length) + ")");
+		}
+		final BigDecimal x = xn[0];
+		if (x.signum() <= 0) {
+			throw new ArithmeticException("Logarithm of zero or negative number cannot be calculated"); //$NON-NLS-1$
+		}
+		if (BigDecimal.ONE.compareTo(x) == 0) {
+			return BigDecimal.ZERO;
+		}
+		// Both agm terms are about the size of ln(s) so the difference loses digits, more so if x is close to one
+		final BigDecimal distance = x.subtract(BigDecimal.ONE);
+		final int cancellation = (int) Math.ceil(Math.log10(mc.getPrecision() + 10)) + Math.max(0, -(int) Math.floor(BinarySplitting.log10(distance)));
+		final MathContext work = new MathContext(mc.getPrecision() + cancellation + 10, RoundingMode.HALF_EVEN);
+		final int m = (int) Math.ceil((work.getPrecision() / 2.0 + 1.0 + Math.max(0.0, -BinarySplitting.log10(x))) / BinarySplitting.LOG10_2);
+		final BigDecimal powerOfTwo = new BigDecimal(BigInteger.ONE.shiftLeft(m));
+		final BigDecimal four = BigDecimal.valueOf(4);
+		final BigDecimal agmX = agm(four.divide(x.multiply(powerOfTwo), work), work);
+		final BigDecimal agmTwo = agm(four.divide(powerOfTwo, work), work);
+		final BigDecimal halfPi = PiIrationalNumber.PI.valueToPrecision(work).multiply(MathImplConstants.HALF);
+		return halfPi.multiply(BigDecimal.ONE.divide(agmX, work).subtract(BigDecimal.ONE.divide(agmTwo, work)), mc);
+	}
+
+	private static BigDecimal agm(final BigDecimal b0, final MathContext mc) {
+		final BigDecimal epsilon = BigDecimal.ONE.movePointLeft(mc.getPrecision() - 2);
+		BigDecimal a = BigDecimal.ONE;
+		BigDecimal b = b0;
+		while (a.subtract(b).abs().compareTo(a.multiply(epsilon)) > 0) {
+			final BigDecimal t = a.add(b).multiply(MathImplConstants.HALF, mc);
+			b = BinarySplitting.sqrt(a.multiply(b, mc), mc);
+			a = t;
+		}
+		return a;
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.strategies;
+
+import org.jbasics.math.AlgorithmStrategy;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Calculates pi (optionally multiplied with x) with the series of the Chudnovsky brothers evaluated by binary
+ * splitting. Every term adds about 14 digits and only a single division and square root are required at the end.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class PiChudnovskyAlgorithmStrategy implements AlgorithmStrategy<BigDecimal> {
+	public static final AlgorithmStrategy<BigDecimal> STRATEGY = new PiChudnovskyAlgorithmStrategy();
+
+	private static final double DIGITS_PER_TERM = 14.181647462725477;
+	private static final BigInteger A = BigInteger.valueOf(13591409);
+	private static final BigInteger B = BigInteger.valueOf(545140134);
+	/**
+	 * The constant 640320<sup>3</sup> / 24.
+	 */
+	private static final BigInteger C3_OVER_24 = BigInteger.valueOf(10939058860032000L);
+	private static final BigDecimal FACTOR = BigDecimal.valueOf(426880);
+	private static final BigDecimal SQRT_ARGUMENT = BigDecimal.valueOf(10005);
+
+	@Override
+	public BigDecimal calculate(final MathContext mc, final BigDecimal guess, final BigDecimal... xn) {
+		final MathContext calcMC = new MathContext(mc.getPrecision() + 5, RoundingMode.HALF_EVEN);
+		final int terms = (int) (mc.getPrecision() / PiChudnovskyAlgorithmStrategy.DIGITS_PER_TERM) + 2;
+		final BigInteger[] pqt = split(0, terms);
+		final BigDecimal sqrt = BinarySplitting.sqrt(PiChudnovskyAlgorithmStrategy.SQRT_ARGUMENT, calcMC);
+		final BigDecimal pi = new BigDecimal(pqt[1]).multiply(PiChudnovskyAlgorithmStrategy.FACTOR).multiply(sqrt, calcMC).divide(new BigDecimal(pqt[2]), calcMC);
+		if (xn == null || xn.length == 0) {
+			return pi.round(mc);
+		} else {
+			return pi.multiply(xn[0], mc);
+		}
+	}
+
+	private static BigInteger[] split(final int a, final int b) {
+		if (b - a == 1) {
+			final BigInteger p;
+			final BigInteger q;
+			if (a == 0) {
+				p = BigInteger.ONE;
+				q = BigInteger.ONE;
+			} else {
+				p = BigInteger.valueOf(6L * a - 5).multiply(BigInteger.valueOf(2L * a - 1)).multiply(BigInteger.valueOf(6L * a - 1));
+				q = BigInteger.valueOf(a).pow(3).multiply(PiChudnovskyAlgorithmStrategy.C3_OVER_24);
+			}
+			final BigInteger t = p.multiply(PiChudnovskyAlgorithmStrategy.A.add(PiChudnovskyAlgorithmStrategy.B.multiply(BigInteger.valueOf(a))));
+			return new BigInteger[]{p, q, (a & 1) == 0 ? t : t.negate()};
+		}
+		final int m = (a + b) >>> 1;
+		final BigInteger[] left = split(a, m);
+		final BigInteger[] right = split(m, b);
+		return new BigInteger[]{left[0].multiply(right[0]), left[1].multiply(right[1]), right[1].multiply(left[2]).add(left[0].multiply(right[2]))};
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.strategies;
+
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.math.AlgorithmStrategy;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Selects one of two {@link AlgorithmStrategy}s by the precision of the requested {@link MathContext}. Typically the
+ * low precision strategy is a simple series with little overhead while the high precision strategy is asymptotically
+ * faster (like binary splitting) but has a higher constant cost.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public class PrecisionSelectingAlgorithmStrategy implements AlgorithmStrategy<BigDecimal> {
+	private final int threshold;
+	private final AlgorithmStrategy<BigDecimal> lowPrecision;
+	private final AlgorithmStrategy<BigDecimal> highPrecision;
+
+	/**
+	 * Creates the strategy using the high precision strategy if the precision is at least the given threshold.
+	 *
+	 * @param threshold     The precision from which on the high precision strategy is used.
+	 * @param lowPrecision  The strategy used below the threshold.
+	 * @param highPrecision The strategy used at or above the threshold.
+	 */
+	public PrecisionSelectingAlgorithmStrategy(final int threshold, final AlgorithmStrategy<BigDecimal> lowPrecision, final AlgorithmStrategy<BigDecimal> highPrecision) {
+		this.threshold = threshold;
+		this.lowPrecision = ContractCheck.mustNotBeNull(lowPrecision, "lowPrecision");
+		this.highPrecision = ContractCheck.mustNotBeNull(highPrecision, "highPrecision");
+	}
+
+	@Override
+	public BigDecimal calculate(final MathContext mc, final BigDecimal guess, final BigDecimal... xn) {
+		return (mc.getPrecision() < this.threshold ? this.lowPrecision : this.highPrecision).calculate(mc, guess, xn);
+	}
+
+	public int getThreshold() {
+		return this.threshold;
+	}
+}
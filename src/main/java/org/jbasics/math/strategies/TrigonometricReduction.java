@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.strategies;
+
+import org.jbasics.math.impl.PiIrationalNumber;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Reduces the argument of the trigonometric functions to [-pi, pi] and evaluates them with {@link BinarySplitting}.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+final class TrigonometricReduction {
+
+	private TrigonometricReduction() {
+		// no instances
+	}
+
+	/**
+	 * Returns sin(x) for index 0 or cos(x) for index 1 to the relative precision of the math context.
+	 */
+	static BigDecimal sinCos(final BigDecimal x, final MathContext mc, final int index) {
+		if (x.signum() == 0) {
+			return index == 0 ? BigDecimal.ZERO : BigDecimal.ONE;
+		}
+		int guard = 10;
+		while (true) {
+			final MathContext work = new MathContext(mc.getPrecision() + guard, RoundingMode.HALF_EVEN);
+			final BigDecimal result = BinarySplitting.sinCos(reduce(x, work), work)[index];
+			// Close to a root the result loses the leading digits, so calculate again with enough additional digits
+			final int lost = result.signum() == 0 ? guard * 2 : Math.max(0, -(int) Math.floor(BinarySplitting.log10(result)));
+			if (lost + 5 <= guard || guard > 4 * mc.getPrecision() + 100) {
+				return result.round(mc);
+			}
+			guard = lost + 10;
+		}
+	}
+
+	private static BigDecimal reduce(final BigDecimal x, final MathContext mc) {
+		final double magnitude = BinarySplitting.log10(x);
+		if (magnitude < 0.5) {
+			return x;
+		}
+		final MathContext work = new MathContext(mc.getPrecision() + (int) Math.ceil(magnitude) + 5, RoundingMode.HALF_EVEN);
+		final BigDecimal twoPi = PiIrationalNumber.PI2.valueToPrecision(work);
+		final BigDecimal periods = x.divide(twoPi, work).setScale(0, RoundingMode.HALF_EVEN);
+		return x.subtract(twoPi.multiply(periods, work), work);
+	}
+}
@@ -0,0 +1,813 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.http;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.pattern.builder.Builder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link HttpAccessor} decorator caching the responses of GET requests. <p> A response is cached if it carries an
+ * ETag, a Last-Modified date or a freshness lifetime (Cache-Control max-age or an Expires date in the future) unless
+ * its Cache-Control forbids it (no-store or private) or it varies on anything (Vary: *). As long as the lifetime of a
+ * cached response is not over the response is served from the cache without contacting the server, a response with
+ * Cache-Control no-cache is always revalidated. A stale response is revalidated with a conditional GET (If-None-Match
+ * / If-Modified-Since) and served from the cache if the server answers with 304 (Not Modified). </p> <p> Cached bodies are kept in a memory tier and optionally in a disk tier. Both tiers are limited by
+ * the total size of the bodies they hold and evict the least recently used responses first. Responses evicted from the
+ * memory tier move to the disk tier and small responses found on disk move back into memory. </p> <p> The cache key
+ * is the absolute URI together with all request headers (the accept headers including Accept-Encoding, From and every
+ * extension header) so different representations of the same resource are cached separately and any header named by
+ * Vary is part of the key. Requests which are conditional already, carry credentials (an Authorization header or user
+ * info in the URI) or forbid caching with Cache-Control no-store are passed to the delegate unchanged. Credentials a
+ * delegate adds on its own are not visible here so such a delegate should not be wrapped with a cache. PUT, POST and
+ * DELETE requests invalidate the cached responses of their URI. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public class CachingHttpAccessor implements HttpAccessor {
+	public static final long DEFAULT_MAX_MEMORY_SIZE = 8L * 1024L * 1024L;
+	public static final int DEFAULT_MAX_MEMORY_ENTRY_SIZE = 256 * 1024;
+	public static final long DEFAULT_MAX_DISK_SIZE = 256L * 1024L * 1024L;
+	private static final int HTTP_OK = 200;
+	private static final int HTTP_NOT_MODIFIED = 304;
+	private static final int HTTP_NOT_FOUND = 404;
+	private static final int HTTP_GONE = 410;
+	private static final int BUFFER_SIZE = 8192;
+
+	private final HttpAccessor delegate;
+	private final int maxMemoryEntrySize;
+	private final File diskDirectory;
+	private final CacheTier memory;
+	private final CacheTier disk;
+	private volatile URI baseURL;
+
+	protected CachingHttpAccessor(final CachingHttpAccessorBuilder builder) {
+		this.delegate = ContractCheck.mustNotBeNull(builder.delegate, "delegate"); //$NON-NLS-1$
+		this.maxMemoryEntrySize = builder.maxMemoryEntrySize;
+		this.memory = new CacheTier(builder.maxMemorySize);
+		this.diskDirectory = builder.diskDirectory;
+		if (this.diskDirectory != null) {
+			if (!this.diskDirectory.isDirectory() && !this.diskDirectory.mkdirs()) {
+				throw new IllegalArgumentException("Cannot create cache directory " + this.diskDirectory); //$NON-NLS-1$
+			}
+			purge(this.diskDirectory);
+			this.disk = new CacheTier(builder.maxDiskSize);
+		} else {
+			this.disk = null;
+		}
+		this.baseURL = builder.base;
+	}
+
+	public static CachingHttpAccessorBuilder newBuilder() {
+		return new CachingHttpAccessorBuilder();
+	}
+
+	public URI setBase(final URI uri) {
+		if (uri != null && !uri.isAbsolute()) {
+			throw new RuntimeException("Base URI must be absolute " + uri); //$NON-NLS-1$
+		}
+		final URI temp = this.baseURL;
+		this.baseURL = uri;
+		return temp;
+	}
+
+	public int get(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		ContractCheck.mustNotBeNull(headers, "headers"); //$NON-NLS-1$
+		ContractCheck.mustNotBeNull(handler, "handler"); //$NON-NLS-1$
+		final URI target = resolve(uri);
+		if (headers.getIfModifiedSince() != null || isConditional(headers) || !isCacheable(target, headers)) {
+			return this.delegate.get(target, headers, handler);
+		}
+		final String key = cacheKey(target, headers);
+		CacheEntry cached = lookup(key);
+		if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+			final InputStream in = open(cached);
+			if (in != null) {
+				deliver(cached.meta, in, handler);
+				return CachingHttpAccessor.HTTP_OK;
+			}
+			cached = null;
+		}
+		final ResponseCapture capture = new ResponseCapture(handler, cached == null);
+		try {
+			final int status = this.delegate.get(target, cached != null ? conditionalHeaders(headers, cached.meta) : headers, capture);
+			if (capture.isDelivered()) {
+				return status;
+			}
+			if (status == CachingHttpAccessor.HTTP_NOT_MODIFIED && cached != null) {
+				cached.refresh(capture.meta, System.currentTimeMillis());
+				final InputStream in = open(cached);
+				if (in != null) {
+					deliver(cached.meta, in, handler);
+					return CachingHttpAccessor.HTTP_OK;
+				}
+				// the cached body vanished meanwhile so the not modified response cannot be answered from the cache
+				return this.delegate.get(target, headers, handler);
+			}
+			if (cached != null && (status == CachingHttpAccessor.HTTP_OK || status == CachingHttpAccessor.HTTP_NOT_FOUND || status == CachingHttpAccessor.HTTP_GONE)) {
+				remove(key);
+			}
+			if (status == CachingHttpAccessor.HTTP_OK && capture.meta != null && isCacheable(capture.meta)) {
+				final CacheEntry entry = capture.toEntry(key);
+				if (entry != null) {
+					// opened before storing so a concurrent eviction cannot remove the body before it is delivered
+					final InputStream in = entry.open();
+					store(entry);
+					deliver(entry.meta, in, handler);
+					return status;
+				}
+			}
+			deliver(capture.meta, capture.openBuffer(), handler);
+			return status;
+		} finally {
+			capture.discard();
+		}
+	}
+
+	public int post(final URI uri, final RequestEntity<?> entity, final RequestHandler handler) throws IOException {
+		final URI target = resolve(uri);
+		try {
+			return this.delegate.post(target, entity, handler);
+		} finally {
+			invalidate(target);
+		}
+	}
+
+	public int put(final URI uri, final RequestEntity<?> entity, final RequestHandler handler) throws IOException {
+		final URI target = resolve(uri);
+		try {
+			return this.delegate.put(target, entity, handler);
+		} finally {
+			invalidate(target);
+		}
+	}
+
+	public int delete(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		final URI target = resolve(uri);
+		try {
+			return this.delegate.delete(target, headers, handler);
+		} finally {
+			invalidate(target);
+		}
+	}
+
+	public int head(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		return this.delegate.head(resolve(uri), headers, handler);
+	}
+
+	public int options(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		return this.delegate.options(resolve(uri), headers, handler);
+	}
+
+	public int trace(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		return this.delegate.trace(resolve(uri), headers, handler);
+	}
+
+	/**
+	 * Removes all cached responses of the given URI.
+	 *
+	 * @param uri The URI (if relative the base must be set already).
+	 *
+	 * @throws RelativeURIException If the URI is relative and no base is set.
+	 */
+	public void invalidate(final URI uri) throws RelativeURIException {
+		final String prefix = resolve(uri).toString() + '\n';
+		discardAll(this.memory.removeByPrefix(prefix));
+		if (this.disk != null) {
+			discardAll(this.disk.removeByPrefix(prefix));
+		}
+	}
+
+	/**
+	 * Removes all cached responses.
+	 */
+	public void clear() {
+		discardAll(this.memory.removeByPrefix("")); //$NON-NLS-1$
+		if (this.disk != null) {
+			discardAll(this.disk.removeByPrefix("")); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Returns the size of the bodies currently held in memory.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long getMemorySize() {
+		return this.memory.getSize();
+	}
+
+	/**
+	 * Returns the size of the bodies currently held on disk.
+	 *
+	 * @return The size in bytes (zero if no disk tier is configured).
+	 */
+	public long getDiskSize() {
+		return this.disk != null ? this.disk.getSize() : 0L;
+	}
+
+	private URI resolve(final URI uri) throws RelativeURIException {
+		ContractCheck.mustNotBeNull(uri, "uri"); //$NON-NLS-1$
+		if (uri.isAbsolute()) {
+			return uri.normalize();
+		}
+		final URI base = this.baseURL;
+		if (base == null) {
+			throw new RelativeURIException("URI is relative but no base URI is set. Cannot resolve URL from given URI"); //$NON-NLS-1$
+		}
+		return base.resolve(uri).normalize();
+	}
+
+	private CacheEntry lookup(final String key) {
+		final CacheEntry cached = this.memory.get(key);
+		if (cached != null || this.disk == null) {
+			return cached;
+		}
+		final CacheEntry stored = this.disk.get(key);
+		if (stored != null && stored.size <= this.maxMemoryEntrySize && this.disk.remove(key, stored)) {
+			// move small entries back to memory since they are obviously used again
+			final byte[] data;
+			try {
+				data = Files.readAllBytes(stored.file.toPath());
+			} catch (IOException e) {
+				stored.discard();
+				return null;
+			}
+			stored.discard();
+			final CacheEntry promoted = new CacheEntry(key, stored.meta, stored.freshUntil, data, null);
+			store(promoted);
+			return promoted;
+		}
+		return stored;
+	}
+
+	private void store(final CacheEntry entry) {
+		if (entry.data != null) {
+			if (this.disk != null) {
+				discard(this.disk.remove(entry.key));
+			}
+			for (final CacheEntry evicted : this.memory.put(entry)) {
+				demote(evicted);
+			}
+		} else if (this.disk != null) {
+			discard(this.memory.remove(entry.key));
+			discardAll(this.disk.put(entry));
+		} else {
+			entry.discard();
+		}
+	}
+
+	private void demote(final CacheEntry evicted) {
+		if (this.disk == null || evicted.data == null || evicted.size > this.disk.maxSize) {
+			evicted.discard();
+			return;
+		}
+		File file = null;
+		try {
+			file = File.createTempFile("entry", ".cache", this.diskDirectory); //$NON-NLS-1$ //$NON-NLS-2$
+			try (OutputStream out = new FileOutputStream(file)) {
+				out.write(evicted.data);
+			}
+		} catch (IOException e) {
+			// a full or broken disk tier only means the response is not cached any longer
+			CachingHttpAccessor.delete(file);
+			return;
+		}
+		discardAll(this.disk.put(new CacheEntry(evicted.key, evicted.meta, evicted.freshUntil, null, file)));
+	}
+
+	private void remove(final String key) {
+		discard(this.memory.remove(key));
+		if (this.disk != null) {
+			discard(this.disk.remove(key));
+		}
+	}
+
+	private InputStream open(final CacheEntry entry) {
+		try {
+			return entry.open();
+		} catch (IOException e) {
+			// the file got evicted by another thread or deleted externally
+			remove(entry.key);
+			return null;
+		}
+	}
+
+	/*
+	 * The handler gets a copy of the meta data so it cannot change the cached response.
+	 */
+	private void deliver(final ResponseMeta meta, final InputStream in, final RequestHandler handler) throws IOException {
+		try (InputStream body = in) {
+			handler.processInput(CachingHttpAccessor.copyOf(meta), body);
+		}
+	}
+
+	private static ResponseMeta copyOf(final ResponseMeta meta) {
+		final ResponseMeta result = new ResponseMeta();
+		result.setMediaType(meta.getMediaType());
+		result.setCharset(meta.getCharset());
+		result.setEncoding(meta.getEncoding());
+		result.setLanguage(meta.getLanguage());
+		result.setETag(meta.getETag());
+		result.setContentLength(meta.getContentLength());
+		result.setContentMD5(meta.getContentMD5());
+		result.setFromEmail(meta.getFromEmail());
+		result.setDate(CachingHttpAccessor.copyOf(meta.getDate()));
+		result.setLastModified(CachingHttpAccessor.copyOf(meta.getLastModified()));
+		result.setExpires(CachingHttpAccessor.copyOf(meta.getExpires()));
+		result.setCacheControl(meta.getCacheControl());
+		result.setVary(meta.getVary());
+		return result;
+	}
+
+	private static Date copyOf(final Date date) {
+		return date == null ? null : (Date) date.clone();
+	}
+
+	/*
+	 * The disk tier is not persistent, so the entry files left by an earlier instance using the directory are deleted.
+	 */
+	private static void purge(final File directory) {
+		final File[] files = directory.listFiles((dir, name) -> name.startsWith("entry") && name.endsWith(".cache")); //$NON-NLS-1$ //$NON-NLS-2$
+		if (files != null) {
+			for (final File file : files) {
+				CachingHttpAccessor.delete(file);
+			}
+		}
+	}
+
+	private static void discard(final CacheEntry entry) {
+		if (entry != null) {
+			entry.discard();
+		}
+	}
+
+	private static void discardAll(final List<CacheEntry> entries) {
+		for (final CacheEntry entry : entries) {
+			entry.discard();
+		}
+	}
+
+	private static void delete(final File file) {
+		if (file != null && !file.delete() && file.exists()) {
+			file.deleteOnExit();
+		}
+	}
+
+	/*
+	 * The key starts with the URI followed by a line feed (see invalidate) and contains every header of the request.
+	 * Extension headers are ordered by their lower case name so the order they were added in does not matter.
+	 */
+	private static String cacheKey(final URI target, final RequestHeaders headers) {
+		final StringBuilder key = new StringBuilder(target.toString()).append('\n');
+		key.append(Arrays.toString(headers.getAcceptMediaTypes())).append('\n');
+		key.append(Arrays.toString(headers.getAcceptLanguages())).append('\n');
+		key.append(Arrays.toString(headers.getAcceptCharsets())).append('\n');
+		key.append(Arrays.toString(headers.getAcceptEncodings())).append('\n');
+		key.append(headers.getFromEmail());
+		if (headers.hasExtensionHeaders()) {
+			final Map<String, String> extensions = new TreeMap<String, String>();
+			for (final Map.Entry<String, Object[]> temp : headers.getExtensionHeaders().entrySet()) {
+				extensions.put(temp.getKey().toLowerCase(Locale.ENGLISH), Arrays.toString(temp.getValue()));
+			}
+			for (final Map.Entry<String, String> temp : extensions.entrySet()) {
+				key.append('\n').append(temp.getKey()).append(": ").append(temp.getValue()); //$NON-NLS-1$
+			}
+		}
+		return key.toString();
+	}
+
+	/*
+	 * A shared cache must not answer a request carrying credentials with the response of another one (RFC 7234 section
+	 * 3.2) and the client may forbid storing the response.
+	 */
+	private static boolean isCacheable(final URI target, final RequestHeaders headers) {
+		if (target.getRawUserInfo() != null) {
+			return false;
+		}
+		if (headers.hasExtensionHeaders()) {
+			for (final Map.Entry<String, Object[]> temp : headers.getExtensionHeaders().entrySet()) {
+				if (HTTPHeaderConstants.AUTHORIZATION_HEADER.equalsIgnoreCase(temp.getKey())) {
+					return false;
+				} else if (HTTPHeaderConstants.CACHE_CONTROL_HEADER.equalsIgnoreCase(temp.getKey()) && temp.getValue() != null) {
+					for (final Object value : temp.getValue()) {
+						if (value != null && CachingHttpAccessor.cacheDirective(value.toString(), "no-store") != null) { //$NON-NLS-1$
+							return false;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isConditional(final RequestHeaders headers) {
+		if (headers.hasExtensionHeaders()) {
+			for (final String name : headers.getExtensionHeaders().keySet()) {
+				if (HTTPHeaderConstants.IF_NONE_MATCH_HEADER.equalsIgnoreCase(name) || HTTPHeaderConstants.IF_MATCH_HEADER.equalsIgnoreCase(name)
+						|| HTTPHeaderConstants.IF_MODIFIED_SINCE_HEADER.equalsIgnoreCase(name)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static RequestHeaders conditionalHeaders(final RequestHeaders headers, final ResponseMeta cached) {
+		final RequestHeaders result = new RequestHeaders();
+		result.setAcceptMediaTypes(headers.getAcceptMediaTypes());
+		result.setAcceptCharsets(headers.getAcceptCharsets());
+		result.setAcceptEncodings(headers.getAcceptEncodings());
+		result.setAcceptLanguages(headers.getAcceptLanguages());
+		result.setFromEmail(headers.getFromEmail());
+		if (headers.hasExtensionHeaders()) {
+			result.getExtensionHeaders().putAll(headers.getExtensionHeaders());
+		}
+		if (CachingHttpAccessor.isValid(cached.getLastModified())) {
+			result.setIfModifiedSince(cached.getLastModified());
+		}
+		if (cached.getETag() != null) {
+			result.getExtensionHeaders().put(HTTPHeaderConstants.IF_NONE_MATCH_HEADER, new Object[]{cached.getETag()});
+		}
+		return result;
+	}
+
+	private static boolean isCacheable(final ResponseMeta meta) {
+		final String cacheControl = meta.getCacheControl();
+		if (CachingHttpAccessor.cacheDirective(cacheControl, "no-store") != null //$NON-NLS-1$
+				|| CachingHttpAccessor.cacheDirective(cacheControl, "private") != null //$NON-NLS-1$
+				|| CachingHttpAccessor.cacheDirective(meta.getVary(), "*") != null) { //$NON-NLS-1$
+			return false;
+		}
+		return meta.getETag() != null || CachingHttpAccessor.isValid(meta.getLastModified())
+				|| CachingHttpAccessor.freshUntil(meta, System.currentTimeMillis()) > System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns the time the response is fresh until. A response with Cache-Control no-cache is never fresh and max-age
+	 * takes precedence over Expires (RFC 7234 section 4.2.1). Otherwise the lifetime is the difference between the
+	 * Expires and the Date of the response so a clock difference between client and server does not matter.
+	 */
+	private static long freshUntil(final ResponseMeta meta, final long now) {
+		final String cacheControl = meta.getCacheControl();
+		if (CachingHttpAccessor.cacheDirective(cacheControl, "no-cache") != null) { //$NON-NLS-1$
+			return now;
+		}
+		final String maxAge = CachingHttpAccessor.cacheDirective(cacheControl, "max-age"); //$NON-NLS-1$
+		if (maxAge != null) {
+			try {
+				return now + TimeUnit.SECONDS.toMillis(Math.max(0L, Long.parseLong(maxAge)));
+			} catch (NumberFormatException e) {
+				// an invalid max-age means the response is stale already (RFC 7234 section 4.2.1)
+				return now;
+			}
+		}
+		final Date expires = meta.getExpires();
+		if (!CachingHttpAccessor.isValid(expires)) {
+			return now;
+		}
+		final Date date = meta.getDate();
+		return now + Math.max(0L, expires.getTime() - (CachingHttpAccessor.isValid(date) ? date.getTime() : now));
+	}
+
+	/**
+	 * Returns the value of the directive in a comma separated header like Cache-Control or Vary, an empty string if the
+	 * directive has no value or null if the header does not contain the directive.
+	 */
+	private static String cacheDirective(final String header, final String name) {
+		if (header == null) {
+			return null;
+		}
+		for (final String directive : header.split(",")) { //$NON-NLS-1$
+			final int assign = directive.indexOf('=');
+			if ((assign < 0 ? directive : directive.substring(0, assign)).trim().equalsIgnoreCase(name)) {
+				if (assign < 0) {
+					return ""; //$NON-NLS-1$
+				}
+				final String value = directive.substring(assign + 1).trim();
+				return value.length() > 1 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"' ? value.substring(1, value.length() - 1) : value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Accessors report missing date header fields either as null or as the epoch.
+	 */
+	private static boolean isValid(final Date date) {
+		return date != null && date.getTime() > 0L;
+	}
+
+	/**
+	 * A cached response. The body is either held in memory or in a file of the disk tier.
+	 */
+	private static final class CacheEntry {
+		private final String key;
+		private final ResponseMeta meta;
+		private final byte[] data;
+		private final File file;
+		private final long size;
+		private volatile long freshUntil;
+
+		private CacheEntry(final String key, final ResponseMeta meta, final long freshUntil, final byte[] data, final File file) {
+			this.key = key;
+			this.meta = meta;
+			this.freshUntil = freshUntil;
+			this.data = data;
+			this.file = file;
+			this.size = data != null ? data.length : file.length();
+		}
+
+		private boolean isFresh(final long now) {
+			return now < this.freshUntil;
+		}
+
+		private void refresh(final ResponseMeta notModified, final long now) {
+			if (notModified != null) {
+				this.freshUntil = CachingHttpAccessor.freshUntil(notModified, now);
+			}
+		}
+
+		private InputStream open() throws IOException {
+			if (this.data != null) {
+				return new ByteArrayInputStream(this.data);
+			}
+			return new BufferedInputStream(new FileInputStream(this.file), CachingHttpAccessor.BUFFER_SIZE);
+		}
+
+		private void discard() {
+			CachingHttpAccessor.delete(this.file);
+		}
+	}
+
+	/**
+	 * One tier of the cache holding the entries in least recently used order.
+	 */
+	private static final class CacheTier {
+		private final long maxSize;
+		private final LinkedHashMap<String, CacheEntry> entries;
+		private long size;
+
+		private CacheTier(final long maxSize) {
+			this.maxSize = maxSize;
+			this.entries = new LinkedHashMap<String, CacheEntry>(64, 0.75f, true);
+		}
+
+		private synchronized long getSize() {
+			return this.size;
+		}
+
+		private synchronized CacheEntry get(final String key) {
+			return this.entries.get(key);
+		}
+
+		/**
+		 * Adds the entry and returns the entries evicted to make room for it (including the replaced entry and the
+		 * entry itself if it is larger than the tier).
+		 */
+		private synchronized List<CacheEntry> put(final CacheEntry entry) {
+			final List<CacheEntry> evicted = new ArrayList<CacheEntry>(2);
+			if (entry.size > this.maxSize) {
+				evicted.add(entry);
+				final CacheEntry replaced = remove(entry.key);
+				if (replaced != null) {
+					evicted.add(replaced);
+				}
+				return evicted;
+			}
+			final CacheEntry replaced = this.entries.put(entry.key, entry);
+			this.size += entry.size;
+			if (replaced != null) {
+				this.size -= replaced.size;
+				evicted.add(replaced);
+			}
+			final Iterator<CacheEntry> it = this.entries.values().iterator();
+			while (this.size > this.maxSize && it.hasNext()) {
+				final CacheEntry eldest = it.next();
+				it.remove();
+				this.size -= eldest.size;
+				evicted.add(eldest);
+			}
+			return evicted;
+		}
+
+		private synchronized CacheEntry remove(final String key) {
+			final CacheEntry removed = this.entries.remove(key);
+			if (removed != null) {
+				this.size -= removed.size;
+			}
+			return removed;
+		}
+
+		private synchronized boolean remove(final String key, final CacheEntry entry) {
+			if (this.entries.remove(key, entry)) {
+				this.size -= entry.size;
+				return true;
+			}
+			return false;
+		}
+
+		private synchronized List<CacheEntry> removeByPrefix(final String prefix) {
+			final List<CacheEntry> removed = new ArrayList<CacheEntry>();
+			final Iterator<Map.Entry<String, CacheEntry>> it = this.entries.entrySet().iterator();
+			while (it.hasNext()) {
+				final Map.Entry<String, CacheEntry> temp = it.next();
+				if (temp.getKey().startsWith(prefix)) {
+					it.remove();
+					this.size -= temp.getValue().size;
+					removed.add(temp.getValue());
+				}
+			}
+			return removed;
+		}
+	}
+
+	/**
+	 * Handler given to the delegate. Since the status code of the response is only known after the handler returns the
+	 * body is buffered (in memory up to the maximum memory entry size and in a file beyond) unless it is a plain
+	 * request without a cached entry and the response cannot be cached anyway. In that case the body is streamed to the
+	 * handler of the caller directly.
+	 */
+	private final class ResponseCapture implements RequestHandler {
+		private final RequestHandler handler;
+		private final boolean passThrough;
+		private ResponseMeta meta;
+		private boolean delivered;
+		private byte[] data;
+		private File file;
+
+		private ResponseCapture(final RequestHandler handler, final boolean passThrough) {
+			this.handler = handler;
+			this.passThrough = passThrough;
+		}
+
+		public void processInput(final ResponseMeta metaData, final InputStream in) throws IOException {
+			this.meta = metaData;
+			if (this.passThrough && (metaData == null || !CachingHttpAccessor.isCacheable(metaData))) {
+				this.delivered = true;
+				this.handler.processInput(metaData, in);
+				return;
+			}
+			final byte[] buffer = new byte[CachingHttpAccessor.BUFFER_SIZE];
+			final ByteArrayOutputStream memoryBuffer = new ByteArrayOutputStream(CachingHttpAccessor.BUFFER_SIZE);
+			int count;
+			while ((count = in.read(buffer)) >= 0) {
+				memoryBuffer.write(buffer, 0, count);
+				if (memoryBuffer.size() > CachingHttpAccessor.this.maxMemoryEntrySize) {
+					this.file = File.createTempFile("entry", ".cache", CachingHttpAccessor.this.diskDirectory); //$NON-NLS-1$ //$NON-NLS-2$
+					try (OutputStream out = new BufferedOutputStream(new FileOutputStream(this.file), CachingHttpAccessor.BUFFER_SIZE)) {
+						memoryBuffer.writeTo(out);
+						while ((count = in.read(buffer)) >= 0) {
+							out.write(buffer, 0, count);
+						}
+					}
+					return;
+				}
+			}
+			this.data = memoryBuffer.toByteArray();
+		}
+
+		private boolean isDelivered() {
+			return this.delivered;
+		}
+
+		private InputStream openBuffer() throws IOException {
+			if (this.file != null) {
+				return new BufferedInputStream(new FileInputStream(this.file), CachingHttpAccessor.BUFFER_SIZE);
+			}
+			return new ByteArrayInputStream(this.data != null ? this.data : new byte[0]);
+		}
+
+		/**
+		 * Hands over the buffered body to a cache entry. A body spilled to a temporary file outside of the disk tier
+		 * cannot be cached.
+		 */
+		private CacheEntry toEntry(final String key) {
+			final long freshUntil = CachingHttpAccessor.freshUntil(this.meta, System.currentTimeMillis());
+			if (this.file != null) {
+				if (CachingHttpAccessor.this.disk == null) {
+					return null;
+				}
+				final CacheEntry entry = new CacheEntry(key, this.meta, freshUntil, null, this.file);
+				this.file = null;
+				return entry;
+			}
+			return new CacheEntry(key, this.meta, freshUntil, this.data != null ? this.data : new byte[0], null);
+		}
+
+		private void discard() {
+			CachingHttpAccessor.delete(this.file);
+			this.file = null;
+		}
+	}
+
+	public static class CachingHttpAccessorBuilder implements Builder<CachingHttpAccessor> {
+		private HttpAccessor delegate;
+		private long maxMemorySize;
+		private int maxMemoryEntrySize;
+		private File diskDirectory;
+		private long maxDiskSize;
+		private URI base;
+
+		protected CachingHttpAccessorBuilder() {
+			reset();
+		}
+
+		public CachingHttpAccessorBuilder withDelegate(final HttpAccessor delegate) {
+			this.delegate = delegate;
+			return this;
+		}
+
+		public CachingHttpAccessorBuilder withMaxMemorySize(final long maxMemorySize) {
+			this.maxMemorySize = ContractCheck.mustBeInRange(maxMemorySize, 0L, Long.MAX_VALUE, "maxMemorySize"); //$NON-NLS-1$
+			return this;
+		}
+
+		public CachingHttpAccessorBuilder withMaxMemoryEntrySize(final int maxMemoryEntrySize) {
+			this.maxMemoryEntrySize = ContractCheck.mustBeInRange(maxMemoryEntrySize, 0, Integer.MAX_VALUE - 1, "maxMemoryEntrySize"); //$NON-NLS-1$
+			return this;
+		}
+
+		/**
+		 * Enables the disk tier storing the cached bodies in the given directory. The disk tier does not survive a
+		 * restart, entry files left in the directory by an earlier instance are deleted when the accessor is built.
+		 *
+		 * @param diskDirectory The directory (created if it does not exist) or null to disable the disk tier.
+		 *
+		 * @return The builder
+		 */
+		public CachingHttpAccessorBuilder withDiskDirectory(final File diskDirectory) {
+			this.diskDirectory = diskDirectory;
+			return this;
+		}
+
+		public CachingHttpAccessorBuilder withMaxDiskSize(final long maxDiskSize) {
+			this.maxDiskSize = ContractCheck.mustBeInRange(maxDiskSize, 0L, Long.MAX_VALUE, "maxDiskSize"); //$NON-NLS-1$
+			return this;
+		}
+
+		public CachingHttpAccessorBuilder withBase(final URI base) {
+			this.base = base;
+			return this;
+		}
+
+		public CachingHttpAccessor build() {
+			return new CachingHttpAccessor(this);
+		}
+
+		public void reset() {
+			this.delegate = null;
+			this.maxMemorySize = CachingHttpAccessor.DEFAULT_MAX_MEMORY_SIZE;
+			this.maxMemoryEntrySize = CachingHttpAccessor.DEFAULT_MAX_MEMORY_ENTRY_SIZE;
+			this.diskDirectory = null;
+			this.maxDiskSize = CachingHttpAccessor.DEFAULT_MAX_DISK_SIZE;
+			this.base = null;
+		}
+	}
+}
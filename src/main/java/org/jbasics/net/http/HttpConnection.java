@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.http;
+
+import org.jbasics.pattern.delegation.LifecycleDelegate;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A persistent HTTP/1.1 connection to one host used by the {@link PooledHttpAccessor}. The connection is its own
+ * {@link LifecycleDelegate} so it can be kept in a keyed pool. Once a connection is invalidated (the server closes it,
+ * an error occurs or the response body was not consumed completely) it refuses to be passivated and the pool destroys
+ * it instead of keeping it idle.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+final class HttpConnection implements LifecycleDelegate<HttpConnection> {
+	private static final int BUFFER_SIZE = 8192;
+	private static final int MAX_LINE_LENGTH = 16384;
+	private static final long MAX_DRAIN = 65536L;
+
+	private final Socket socket;
+	private final InputStream in;
+	private final OutputStream out;
+	private long lastUsed;
+	private int exchanges;
+	private boolean reusable;
+
+	private HttpConnection(final Socket socket) throws IOException {
+		this.socket = socket;
+		this.in = new BufferedInputStream(socket.getInputStream(), HttpConnection.BUFFER_SIZE);
+		this.out = new BufferedOutputStream(socket.getOutputStream(), HttpConnection.BUFFER_SIZE);
+		this.lastUsed = System.nanoTime();
+		this.reusable = true;
+	}
+
+	/**
+	 * Opens a connection to the host of the key. For https the handshake is done right away and the certificate of
+	 * the server must match the host name like required by RFC 2818.
+	 *
+	 * @param key              The key holding scheme, host and port of the connection
+	 * @param connectTimeout   The connect timeout in milliseconds (zero for infinite)
+	 * @param readTimeout      The read timeout in milliseconds (zero for infinite)
+	 * @param sslSocketFactory The factory to layer TLS over the socket of an https connection
+	 *
+	 * @return The opened connection
+	 *
+	 * @throws IOException If the connection could not be opened or the server certificate does not match the host
+	 */
+	static HttpConnection open(final URI key, final int connectTimeout, final int readTimeout, final SSLSocketFactory sslSocketFactory)
+			throws IOException {
+		final String host = HttpConnection.hostName(key);
+		final Socket socket = new Socket();
+		try {
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(readTimeout);
+			socket.connect(new InetSocketAddress(host, key.getPort()), connectTimeout);
+			if ("https".equalsIgnoreCase(key.getScheme())) { //$NON-NLS-1$
+				final SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket, host, key.getPort(), true);
+				try {
+					final SSLParameters parameters = sslSocket.getSSLParameters();
+					parameters.setEndpointIdentificationAlgorithm("HTTPS"); //$NON-NLS-1$
+					sslSocket.setSSLParameters(parameters);
+					sslSocket.startHandshake();
+				} catch (IOException e) {
+					sslSocket.close();
+					throw e;
+				}
+				return new HttpConnection(sslSocket);
+			}
+			return new HttpConnection(socket);
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the host of the URI without the brackets of an IPv6 literal.
+	 */
+	static String hostName(final URI uri) {
+		final String host = uri.getHost();
+		if (host != null && host.length() > 1 && host.charAt(0) == '[' && host.charAt(host.length() - 1) == ']') {
+			return host.substring(1, host.length() - 1);
+		}
+		return host;
+	}
+
+	@Override
+	public HttpConnection delegate() {
+		return this;
+	}
+
+	@Override
+	public void activate() {
+		// nothing to do, staleness is checked by the accessor so it can retry with another connection
+	}
+
+	@Override
+	public void passivate() {
+		if (!this.reusable || this.socket.isClosed()) {
+			throw new IllegalStateException("Connection cannot be reused"); //$NON-NLS-1$
+		}
+		this.lastUsed = System.nanoTime();
+	}
+
+	@Override
+	public boolean release() {
+		this.reusable = false;
+		try {
+			this.socket.close();
+		} catch (IOException e) {
+			// the connection is gone anyway
+		}
+		return true;
+	}
+
+	OutputStream getOutputStream() {
+		return this.out;
+	}
+
+	InputStream getInputStream() {
+		return this.in;
+	}
+
+	/**
+	 * Returns true if the connection already completed an exchange. A failure before the first response byte on such
+	 * a connection usually means the server closed it while it was idle.
+	 */
+	boolean isReused() {
+		return this.exchanges > 0;
+	}
+
+	boolean isIdleLongerThan(final long millis) {
+		return System.nanoTime() - this.lastUsed > TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	void completed() {
+		this.exchanges++;
+	}
+
+	void invalidate() {
+		this.reusable = false;
+	}
+
+	/**
+	 * Reads a header line without the line terminator.
+	 *
+	 * @return The line or null if the stream ended before any character was read
+	 *
+	 * @throws IOException If reading fails, the stream ends within the line or the line is too long
+	 */
+	String readLine() throws IOException {
+		final StringBuilder line = new StringBuilder(64);
+		int c = this.in.read();
+		if (c < 0) {
+			return null;
+		}
+		while (c != '\n') {
+			if (c < 0) {
+				throw new EOFException("Connection closed within header line"); //$NON-NLS-1$
+			} else if (c != '\r') {
+				if (line.length() >= HttpConnection.MAX_LINE_LENGTH) {
+					throw new IOException("Header line exceeds " + HttpConnection.MAX_LINE_LENGTH + " characters"); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				line.append((char) c);
+			}
+			c = this.in.read();
+		}
+		return line.toString();
+	}
+
+	InputStream fixedLengthBody(final long length) {
+		return new FixedLengthInputStream(length);
+	}
+
+	InputStream chunkedBody() {
+		return new ChunkedInputStream();
+	}
+
+	InputStream untilCloseBody() {
+		invalidate();
+		return new UntilCloseInputStream();
+	}
+
+	OutputStream fixedLengthEntity(final long length) {
+		return new FixedLengthOutputStream(length);
+	}
+
+	OutputStream chunkedEntity() {
+		return new ChunkedOutputStream();
+	}
+
+	/**
+	 * Base of the response body streams. Closing the body skips the rest of it so the connection can be reused. If
+	 * more than a small amount of data would need to be skipped the connection is invalidated instead.
+	 */
+	private abstract class BodyInputStream extends InputStream {
+		private boolean closed;
+
+		@Override
+		public int read() throws IOException {
+			final byte[] temp = new byte[1];
+			return read(temp, 0, 1) < 0 ? -1 : temp[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (this.closed) {
+				throw new IOException("Response body already closed"); //$NON-NLS-1$
+			}
+			return len == 0 ? 0 : readBody(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.closed) {
+				final byte[] skip = new byte[HttpConnection.BUFFER_SIZE];
+				long drained = 0;
+				try {
+					int count;
+					while (drained <= HttpConnection.MAX_DRAIN && (count = readBody(skip, 0, skip.length)) >= 0) {
+						drained += count;
+					}
+					if (drained > HttpConnection.MAX_DRAIN) {
+						invalidate();
+					}
+				} catch (IOException e) {
+					invalidate();
+				} finally {
+					this.closed = true;
+				}
+			}
+		}
+
+		protected abstract int readBody(byte[] b, int off, int len) throws IOException;
+	}
+
+	private final class FixedLengthInputStream extends BodyInputStream {
+		private long remaining;
+
+		private FixedLengthInputStream(final long length) {
+			this.remaining = length;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(this.remaining, HttpConnection.this.in.available());
+		}
+
+		@Override
+		protected int readBody(final byte[] b, final int off, final int len) throws IOException {
+			if (this.remaining <= 0) {
+				return -1;
+			}
+			final int count = HttpConnection.this.in.read(b, off, (int) Math.min(len, this.remaining));
+			if (count < 0) {
+				invalidate();
+				throw new EOFException("Connection closed with " + this.remaining + " bytes of the response body missing"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			this.remaining -= count;
+			return count;
+		}
+	}
+
+	private final class ChunkedInputStream extends BodyInputStream {
+		private long remaining;
+		private boolean finished;
+
+		@Override
+		protected int readBody(final byte[] b, final int off, final int len) throws IOException {
+			if (this.finished) {
+				return -1;
+			}
+			if (this.remaining == 0) {
+				this.remaining = readChunkSize();
+				if (this.remaining == 0) {
+					// skip the trailer headers
+					String line;
+					do {
+						line = readLine();
+					} while (line != null && line.length() > 0);
+					this.finished = true;
+					return -1;
+				}
+			}
+			final int count = HttpConnection.this.in.read(b, off, (int) Math.min(len, this.remaining));
+			if (count < 0) {
+				invalidate();
+				throw new EOFException("Connection closed within a response chunk"); //$NON-NLS-1$
+			}
+			this.remaining -= count;
+			if (this.remaining == 0 && !"".equals(readLine())) { //$NON-NLS-1$
+				invalidate();
+				throw new IOException("Missing line terminator after response chunk"); //$NON-NLS-1$
+			}
+			return count;
+		}
+
+		private long readChunkSize() throws IOException {
+			final String line = readLine();
+			if (line == null) {
+				invalidate();
+				throw new EOFException("Connection closed before the next response chunk"); //$NON-NLS-1$
+			}
+			int end = line.indexOf(';');
+			if (end < 0) {
+				end = line.length();
+			}
+			try {
+				return Long.parseLong(line.substring(0, end).trim(), 16);
+			} catch (NumberFormatException e) {
+				invalidate();
+				throw new IOException("Illegal chunk size " + line, e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private final class UntilCloseInputStream extends BodyInputStream {
+
+		@Override
+		protected int readBody(final byte[] b, final int off, final int len) throws IOException {
+			return HttpConnection.this.in.read(b, off, len);
+		}
+	}
+
+	private final class FixedLengthOutputStream extends FilterOutputStream {
+		private long remaining;
+
+		private FixedLengthOutputStream(final long length) {
+			super(HttpConnection.this.out);
+			this.remaining = length;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			if (len > this.remaining) {
+				invalidate();
+				throw new IOException("Request entity exceeds the announced content length"); //$NON-NLS-1$
+			}
+			this.out.write(b, off, len);
+			this.remaining -= len;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (this.remaining != 0) {
+				invalidate();
+				throw new IOException("Request entity is " + this.remaining + " bytes shorter than the announced content length"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			flush();
+		}
+	}
+
+	private final class ChunkedOutputStream extends FilterOutputStream {
+		private boolean closed;
+
+		private ChunkedOutputStream() {
+			super(HttpConnection.this.out);
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			if (len > 0) {
+				this.out.write((Integer.toHexString(len) + "\r\n").getBytes(StandardCharsets.ISO_8859_1)); //$NON-NLS-1$
+				this.out.write(b, off, len);
+				this.out.write('\r');
+				this.out.write('\n');
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.closed) {
+				this.closed = true;
+				this.out.write("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1)); //$NON-NLS-1$
+				flush();
+			}
+		}
+	}
+}
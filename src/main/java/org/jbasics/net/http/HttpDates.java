@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.http;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Formats and parses the dates used in HTTP header fields. Dates are always formatted as IMF-fixdate (the fixed length
+ * RFC 1123 form) while the obsolete RFC 850 and ANSI C asctime forms are accepted when parsing (RFC 7231 section
+ * 7.1.1.1).
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+final class HttpDates {
+	private static final DateTimeFormatter IMF_FIXDATE = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US) //$NON-NLS-1$
+			.withZone(ZoneOffset.UTC);
+	// two digit years more than 50 years in the future are in the past
+	private static final DateTimeFormatter RFC_850 = new DateTimeFormatterBuilder().appendPattern("EEEE, dd-MMM-") //$NON-NLS-1$
+			.appendValueReduced(ChronoField.YEAR, 2, 2, LocalDate.now(ZoneOffset.UTC).minusYears(49))
+			.appendPattern(" HH:mm:ss 'GMT'").toFormatter(Locale.US).withZone(ZoneOffset.UTC); //$NON-NLS-1$
+	private static final DateTimeFormatter ASCTIME = DateTimeFormatter.ofPattern("EEE MMM ppd HH:mm:ss yyyy", Locale.US) //$NON-NLS-1$
+			.withZone(ZoneOffset.UTC);
+
+	private HttpDates() {
+		// no instances
+	}
+
+	/**
+	 * Formats the date as IMF-fixdate as required for HTTP header fields (like "Sun, 06 Nov 1994 08:49:37 GMT").
+	 *
+	 * @param date The date to format (must not be null)
+	 *
+	 * @return The formatted date
+	 */
+	static String format(final Date date) {
+		return HttpDates.IMF_FIXDATE.format(date.toInstant());
+	}
+
+	/**
+	 * Parses a date of a header field in the RFC 1123, RFC 850 or asctime format.
+	 *
+	 * @param value The value of the header field (can be null)
+	 *
+	 * @return The parsed date or null if the value is null or not a valid date
+	 */
+	static Date parse(final String value) {
+		if (value == null) {
+			return null;
+		}
+		final String temp = value.trim();
+		for (final DateTimeFormatter format : new DateTimeFormatter[]{DateTimeFormatter.RFC_1123_DATE_TIME, HttpDates.RFC_850, HttpDates.ASCTIME}) {
+			try {
+				return Date.from(Instant.from(format.parse(temp)));
+			} catch (DateTimeParseException e) {
+				// try the next format
+			}
+		}
+		return null;
+	}
+}
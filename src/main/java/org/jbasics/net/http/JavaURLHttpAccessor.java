@@ -254,6 +254,9 @@ public class JavaURLHttpAccessor implements HttpAccessor {
 			responseMeta.setDate(new Date(connection.getDate()));
 			responseMeta.setLastModified(new Date(connection.getLastModified()));
 			responseMeta.setExpires(new Date(connection.getExpiration()));
+			responseMeta.setETag(connection.getHeaderField(HTTPHeaderConstants.ETAG_HEADER));
+			responseMeta.setCacheControl(connection.getHeaderField(HTTPHeaderConstants.CACHE_CONTROL_HEADER));
+			responseMeta.setVary(connection.getHeaderField(HTTPHeaderConstants.VARY_HEADER));
 			handler.processInput(responseMeta, in);
 			return connection.getResponseCode();
 		} finally {
@@ -0,0 +1,649 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.http;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.codec.RFC3548Base64Codec;
+import org.jbasics.exception.DelegatedException;
+import org.jbasics.net.mediatype.MediaType;
+import org.jbasics.pattern.builder.Builder;
+import org.jbasics.pattern.delegation.LifecycleDelegate;
+import org.jbasics.pattern.factory.ParameterFactory;
+import org.jbasics.pattern.pooling.PooledInstance;
+import org.jbasics.types.pools.ConcurrentKeyedPool;
+import org.jbasics.types.tuples.Pair;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of {@link HttpAccessor} speaking HTTP/1.1 over persistent connections. Connections are kept per host
+ * in a {@link ConcurrentKeyedPool} and reused for following requests as long as the server keeps them open. <p> Besides
+ * the blocking methods of the {@link HttpAccessor} each method is available as an asynchronous variant returning a
+ * {@link CompletableFuture} of the status code. The exchange itself runs on the executor of the accessor and feeds the
+ * {@link RequestHandler} from there. </p> <p> Unlike the {@link JavaURLHttpAccessor} the handler receives the entity of
+ * every response including error responses and the caller tells them apart by the returned status code. A request
+ * failing on a reused connection before any response arrived is repeated once on a new connection unless it is a POST.
+ * The accessor must be closed to release the pooled connections. </p> <p> The certificate of an https server must match
+ * the host of the request. The time waited for a free connection once all connections are in use is set with {@link
+ * PooledHttpAccessorBuilder#withPoolWait(long)} independent of the connect timeout. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public class PooledHttpAccessor implements HttpAccessor, Closeable {
+	public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+	public static final int DEFAULT_READ_TIMEOUT = 30000;
+	public static final long DEFAULT_KEEP_ALIVE = 30000L;
+	public static final long DEFAULT_POOL_WAIT = 30000L;
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 8;
+	private static final String HTTP_TRACE_VERB = "TRACE"; //$NON-NLS-1$
+	private static final String HTTP_OPTIONS_VERB = "OPTIONS"; //$NON-NLS-1$
+	private static final String HTTP_HEAD_VERB = "HEAD"; //$NON-NLS-1$
+	private static final String HTTP_DELETE_VERB = "DELETE"; //$NON-NLS-1$
+	private static final String HTTP_PUT_VERB = "PUT"; //$NON-NLS-1$
+	private static final String HTTP_POST_VERB = "POST"; //$NON-NLS-1$
+	private static final String HTTP_GET_VERB = "GET"; //$NON-NLS-1$
+	private static final String CRLF = "\r\n"; //$NON-NLS-1$
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private final ConcurrentKeyedPool<URI, HttpConnection> connections;
+	private final long keepAlive;
+	private final Executor executor;
+	private final ExecutorService ownedExecutor;
+	private final String defaultUserInfo;
+	private volatile URI baseURL;
+
+	protected PooledHttpAccessor(final PooledHttpAccessorBuilder builder) {
+		final int connectTimeout = builder.connectTimeout;
+		final int readTimeout = builder.readTimeout;
+		final SSLSocketFactory sslSocketFactory = builder.sslSocketFactory != null ? builder.sslSocketFactory
+				: (SSLSocketFactory) SSLSocketFactory.getDefault();
+		this.connections = new ConcurrentKeyedPool<URI, HttpConnection>(new ParameterFactory<LifecycleDelegate<HttpConnection>, URI>() {
+			@Override
+			public LifecycleDelegate<HttpConnection> create(final URI key) {
+				try {
+					return HttpConnection.open(key, connectTimeout, readTimeout, sslSocketFactory);
+				} catch (IOException e) {
+					throw DelegatedException.delegate(e);
+				}
+			}
+		}, builder.maxConnectionsPerHost, builder.maxConnectionsPerHost, builder.maxConnections, builder.poolWait, builder.keepAlive);
+		this.keepAlive = builder.keepAlive;
+		if (builder.executor != null) {
+			this.executor = builder.executor;
+			this.ownedExecutor = null;
+		} else {
+			this.ownedExecutor = Executors.newCachedThreadPool(runnable -> {
+				final Thread thread = new Thread(runnable, "PooledHttpAccessor-" + PooledHttpAccessor.THREAD_COUNT.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.executor = this.ownedExecutor;
+		}
+		this.defaultUserInfo = builder.defaultUserInfo;
+		setBase(builder.base);
+	}
+
+	public static PooledHttpAccessorBuilder newBuilder() {
+		return new PooledHttpAccessorBuilder();
+	}
+
+	public URI setBase(final URI uri) {
+		if (uri != null && !uri.isAbsolute()) {
+			throw new RuntimeException("Base URI must be absolute " + uri); //$NON-NLS-1$
+		}
+		final URI temp = this.baseURL;
+		this.baseURL = uri;
+		return temp;
+	}
+
+	public int get(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		return execute(PooledHttpAccessor.HTTP_GET_VERB, uri, headers, handler);
+	}
+
+	public int post(final URI uri, final RequestEntity<?> entity, final RequestHandler handler) throws IOException {
+		return execute(PooledHttpAccessor.HTTP_POST_VERB, uri, entity, handler);
+	}
+
+	public int put(final URI uri, final RequestEntity<?> entity, final RequestHandler handler) throws IOException {
+		return execute(PooledHttpAccessor.HTTP_PUT_VERB, uri, entity, handler);
+	}
+
+	public int delete(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		return execute(PooledHttpAccessor.HTTP_DELETE_VERB, uri, headers, handler);
+	}
+
+	public int head(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		return execute(PooledHttpAccessor.HTTP_HEAD_VERB, uri, headers, handler);
+	}
+
+	public int options(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		return execute(PooledHttpAccessor.HTTP_OPTIONS_VERB, uri, headers, handler);
+	}
+
+	public int trace(final URI uri, final RequestHeaders headers, final RequestHandler handler) throws IOException {
+		return execute(PooledHttpAccessor.HTTP_TRACE_VERB, uri, headers, handler);
+	}
+
+	public CompletableFuture<Integer> getAsync(final URI uri, final RequestHeaders headers, final RequestHandler handler) {
+		return executeAsync(PooledHttpAccessor.HTTP_GET_VERB, uri, headers, handler);
+	}
+
+	public CompletableFuture<Integer> postAsync(final URI uri, final RequestEntity<?> entity, final RequestHandler handler) {
+		return executeAsync(PooledHttpAccessor.HTTP_POST_VERB, uri, entity, handler);
+	}
+
+	public CompletableFuture<Integer> putAsync(final URI uri, final RequestEntity<?> entity, final RequestHandler handler) {
+		return executeAsync(PooledHttpAccessor.HTTP_PUT_VERB, uri, entity, handler);
+	}
+
+	public CompletableFuture<Integer> deleteAsync(final URI uri, final RequestHeaders headers, final RequestHandler handler) {
+		return executeAsync(PooledHttpAccessor.HTTP_DELETE_VERB, uri, headers, handler);
+	}
+
+	public CompletableFuture<Integer> headAsync(final URI uri, final RequestHeaders headers, final RequestHandler handler) {
+		return executeAsync(PooledHttpAccessor.HTTP_HEAD_VERB, uri, headers, handler);
+	}
+
+	/**
+	 * Executes the method asynchronously on the executor of this accessor.
+	 *
+	 * @param method  The method to execute (Usually this is GET, PUT, POST or DELETE).
+	 * @param uri     The URI to execute the method on (if relative the base must be set already).
+	 * @param headers The headers or the entity of the request.
+	 * @param handler The handler to handle the request result. It is called on a thread of the executor.
+	 *
+	 * @return The future completed with the HTTP status code or exceptionally with the failure of the request.
+	 */
+	public CompletableFuture<Integer> executeAsync(final String method, final URI uri, final RequestHeaders headers, final RequestHandler handler) {
+		final CompletableFuture<Integer> result = new CompletableFuture<Integer>();
+		try {
+			this.executor.execute(() -> {
+				try {
+					result.complete(Integer.valueOf(execute(method, uri, headers, handler)));
+				} catch (Throwable e) {
+					result.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	/**
+	 * Executes the given method against the given URI. If the URI is relative the base must be set already.
+	 *
+	 * @param method  The method to execute (Usually this is GET, PUT, POST or DELETE).
+	 * @param uri     The URI to execute the method on (if relative the base must be set already).
+	 * @param meta    The headers or the entity of the request.
+	 * @param handler The handler to handle the request result.
+	 *
+	 * @return The HTTP status code of the request.
+	 *
+	 * @throws IOException If an error reading or writing occurred.
+	 */
+	public int execute(final String method, final URI uri, final RequestHeaders meta, final RequestHandler handler) throws IOException {
+		ContractCheck.mustNotBeNullOrEmpty(method, "method"); //$NON-NLS-1$
+		ContractCheck.mustNotBeNull(uri, "uri"); //$NON-NLS-1$
+		ContractCheck.mustNotBeNull(meta, "meta"); //$NON-NLS-1$
+		ContractCheck.mustNotBeNull(handler, "handler"); //$NON-NLS-1$
+		final URI target = resolve(uri);
+		final URI key = connectionKey(target);
+		boolean retried = false;
+		while (true) {
+			final PooledInstance<HttpConnection> pooled = aquire(key);
+			final HttpConnection connection = pooled.delegate();
+			try {
+				return exchange(connection, method, target, meta, handler);
+			} catch (StaleConnectionException e) {
+				connection.invalidate();
+				if (retried || PooledHttpAccessor.HTTP_POST_VERB.equals(method)) {
+					throw (IOException) e.getCause();
+				}
+				retried = true;
+			} catch (IOException | RuntimeException e) {
+				connection.invalidate();
+				throw e;
+			} finally {
+				pooled.release();
+			}
+		}
+	}
+
+	/**
+	 * Closes all idle connections and refuses new requests. If the accessor created its own executor it is shut down.
+	 */
+	@Override
+	public void close() {
+		this.connections.close();
+		if (this.ownedExecutor != null) {
+			this.ownedExecutor.shutdown();
+		}
+	}
+
+	private PooledInstance<HttpConnection> aquire(final URI key) throws IOException {
+		while (true) {
+			final PooledInstance<HttpConnection> result;
+			try {
+				result = this.connections.aquire(key);
+			} catch (DelegatedException e) {
+				if (e.delegate() instanceof IOException) {
+					throw (IOException) e.delegate();
+				}
+				throw e;
+			} catch (IllegalStateException e) {
+				throw new IOException("No connection to " + key + " available", e); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			if (!result.delegate().isIdleLongerThan(this.keepAlive)) {
+				return result;
+			}
+			// the server most likely closed the connection already
+			result.delegate().invalidate();
+			result.release();
+		}
+	}
+
+	private int exchange(final HttpConnection connection, final String method, final URI target, final RequestHeaders meta,
+						 final RequestHandler handler) throws IOException {
+		final boolean reused = connection.isReused();
+		String statusLine;
+		try {
+			writeRequest(connection, method, target, meta);
+			statusLine = connection.readLine();
+			if (statusLine == null) {
+				throw new IOException("Connection closed by server before the response"); //$NON-NLS-1$
+			}
+		} catch (IOException e) {
+			if (reused) {
+				throw new StaleConnectionException(e);
+			}
+			throw e;
+		}
+		int status = parseStatus(statusLine);
+		Map<String, String> headers = readHeaders(connection);
+		while (status >= 100 && status < 200 && status != 101) {
+			// interim response, the final one follows
+			statusLine = connection.readLine();
+			if (statusLine == null) {
+				throw new IOException("Connection closed by server before the final response"); //$NON-NLS-1$
+			}
+			status = parseStatus(statusLine);
+			headers = readHeaders(connection);
+		}
+		final String connectionHeader = headers.get("connection"); //$NON-NLS-1$
+		if (statusLine.startsWith("HTTP/1.0") ? !"keep-alive".equalsIgnoreCase(connectionHeader) //$NON-NLS-1$ //$NON-NLS-2$
+				: "close".equalsIgnoreCase(connectionHeader)) { //$NON-NLS-1$
+			connection.invalidate();
+		}
+		final InputStream body = createBody(connection, method, status, headers);
+		try {
+			handler.processInput(createResponseMeta(headers), body);
+		} finally {
+			body.close();
+		}
+		connection.completed();
+		return status;
+	}
+
+	private void writeRequest(final HttpConnection connection, final String method, final URI target, final RequestHeaders meta)
+			throws IOException {
+		final RequestEntity<?> entity = meta instanceof RequestEntity<?> ? (RequestEntity<?>) meta : null;
+		final StringBuilder request = new StringBuilder(256);
+		request.append(method).append(' ').append(target.getRawPath() == null || target.getRawPath().isEmpty() ? "/" : target.getRawPath()); //$NON-NLS-1$
+		if (target.getRawQuery() != null) {
+			request.append('?').append(target.getRawQuery());
+		}
+		request.append(" HTTP/1.1").append(PooledHttpAccessor.CRLF); //$NON-NLS-1$
+		final String host = HttpConnection.hostName(target);
+		request.append(HTTPHeaderConstants.HOST_HEADER).append(": "); //$NON-NLS-1$
+		if (host.indexOf(':') >= 0) {
+			// an IPv6 literal needs the brackets like in the URI (RFC 7230 section 5.4)
+			request.append('[').append(host).append(']');
+		} else {
+			request.append(host);
+		}
+		if (target.getPort() >= 0) {
+			request.append(':').append(target.getPort());
+		}
+		request.append(PooledHttpAccessor.CRLF);
+		appendHeaders(request, meta);
+		String userInfo = target.getRawUserInfo();
+		if (userInfo == null) {
+			userInfo = this.defaultUserInfo;
+		}
+		if (userInfo != null) {
+			final Pair<String, String> authHeader = HttpHeaderCreator.createBasicAuthorization(userInfo);
+			appendHeader(request, authHeader.left(), false, authHeader.right());
+		}
+		long contentLength = 0;
+		if (entity != null) {
+			appendHeader(request, HTTPHeaderConstants.CONTENT_TYPE_HEADER, false, entity.getContentType());
+			appendHeader(request, HTTPHeaderConstants.CONTENT_LANGUAGE_HEADER, false, entity.getContentLanguage());
+			appendHeader(request, HTTPHeaderConstants.CONTENT_ENCODING_HEADER, false, entity.getContentEncoding());
+			final byte[] md5 = entity.getContentMD5();
+			if (md5 != null) {
+				appendHeader(request, HTTPHeaderConstants.CONTENT_MD5_HEADER, false, RFC3548Base64Codec.INSTANCE.encode(md5));
+			}
+			contentLength = entity.getContentLength();
+			if (contentLength > 0) {
+				appendHeader(request, HTTPHeaderConstants.CONTENT_LENGTH_HEADER, false, Long.valueOf(contentLength));
+			} else {
+				appendHeader(request, HTTPHeaderConstants.TRANSFER_ENCODING_HEADER, false, "chunked"); //$NON-NLS-1$
+			}
+		}
+		request.append(PooledHttpAccessor.CRLF);
+		final OutputStream out = connection.getOutputStream();
+		out.write(request.toString().getBytes(StandardCharsets.ISO_8859_1));
+		if (entity != null) {
+			final OutputStream entityOut = contentLength > 0 ? connection.fixedLengthEntity(contentLength) : connection.chunkedEntity();
+			entity.serializeEntity(entityOut);
+			entityOut.close();
+		}
+		out.flush();
+	}
+
+	private void appendHeaders(final StringBuilder request, final RequestHeaders headers) {
+		appendHeader(request, HTTPHeaderConstants.ACCEPT_HEADER, false, (Object[]) headers.getAcceptMediaTypes());
+		appendHeader(request, HTTPHeaderConstants.ACCEPT_CHARSET_HEADER, false, (Object[]) headers.getAcceptCharsets());
+		appendHeader(request, HTTPHeaderConstants.ACCEPT_ENCODING_HEADER, false, (Object[]) headers.getAcceptEncodings());
+		appendHeader(request, HTTPHeaderConstants.ACCEPT_LANGUAGE_HEADER, false, (Object[]) headers.getAcceptLanguages());
+		if (headers.getIfModifiedSince() != null) {
+			appendHeader(request, HTTPHeaderConstants.IF_MODIFIED_SINCE_HEADER, false, HttpDates.format(headers.getIfModifiedSince()));
+		}
+		appendHeader(request, HTTPHeaderConstants.FROM_HEADER, false, headers.getFromEmail());
+		if (headers.hasExtensionHeaders()) {
+			for (final Map.Entry<String, Object[]> temp : headers.getExtensionHeaders().entrySet()) {
+				appendHeader(request, temp.getKey(), false, temp.getValue());
+			}
+		}
+	}
+
+	private void appendHeader(final StringBuilder request, final String headerName, final boolean quoted, final Object... headers) {
+		if (headers != null && headers.length > 0) {
+			final int start = request.length();
+			request.append(headerName).append(": "); //$NON-NLS-1$
+			final int valueStart = request.length();
+			for (final Object header : headers) {
+				if (header == null) {
+					continue;
+				}
+				if (request.length() > valueStart) {
+					request.append(", "); //$NON-NLS-1$
+				}
+				if (quoted) {
+					request.append('"').append(header.toString()).append('"');
+				} else {
+					request.append(header.toString());
+				}
+			}
+			if (request.length() > valueStart) {
+				request.append(PooledHttpAccessor.CRLF);
+			} else {
+				request.setLength(start);
+			}
+		}
+	}
+
+	private int parseStatus(final String statusLine) throws IOException {
+		final int start = statusLine.indexOf(' ');
+		if (!statusLine.startsWith("HTTP/") || start < 0 || statusLine.length() < start + 4) { //$NON-NLS-1$
+			throw new IOException("Illegal status line " + statusLine); //$NON-NLS-1$
+		}
+		try {
+			return Integer.parseInt(statusLine.substring(start + 1, start + 4));
+		} catch (NumberFormatException e) {
+			throw new IOException("Illegal status line " + statusLine, e); //$NON-NLS-1$
+		}
+	}
+
+	/*
+	 * Reads the header fields into a map with the lower case field name as key. Repeated fields are joined with a comma
+	 * as allowed by RFC 2616 section 4.2.
+	 */
+	private Map<String, String> readHeaders(final HttpConnection connection) throws IOException {
+		final Map<String, String> result = new HashMap<String, String>();
+		String line;
+		while ((line = connection.readLine()) != null && line.length() > 0) {
+			final int colon = line.indexOf(':');
+			if (colon > 0) {
+				final String name = line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH);
+				final String value = line.substring(colon + 1).trim();
+				final String previous = result.get(name);
+				result.put(name, previous == null ? value : previous + ", " + value); //$NON-NLS-1$
+			}
+		}
+		if (line == null) {
+			throw new IOException("Connection closed within the response header"); //$NON-NLS-1$
+		}
+		return result;
+	}
+
+	private InputStream createBody(final HttpConnection connection, final String method, final int status, final Map<String, String> headers)
+			throws IOException {
+		if (PooledHttpAccessor.HTTP_HEAD_VERB.equals(method) || status == 204 || status == 304) {
+			return connection.fixedLengthBody(0);
+		}
+		final String transferEncoding = headers.get("transfer-encoding"); //$NON-NLS-1$
+		if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ENGLISH).contains("chunked")) { //$NON-NLS-1$
+			return connection.chunkedBody();
+		}
+		final String contentLength = headers.get("content-length"); //$NON-NLS-1$
+		if (contentLength != null) {
+			try {
+				return connection.fixedLengthBody(Long.parseLong(contentLength));
+			} catch (NumberFormatException e) {
+				connection.invalidate();
+				throw new IOException("Illegal content length " + contentLength, e); //$NON-NLS-1$
+			}
+		}
+		return connection.untilCloseBody();
+	}
+
+	private ResponseMeta createResponseMeta(final Map<String, String> headers) {
+		final ResponseMeta result = new ResponseMeta();
+		final String contentType = headers.get("content-type"); //$NON-NLS-1$
+		if (contentType != null) {
+			result.setMediaType(MediaType.valueOf(contentType));
+		}
+		final String contentLength = headers.get("content-length"); //$NON-NLS-1$
+		result.setContentLength(contentLength != null ? Long.parseLong(contentLength) : -1L);
+		result.setEncoding(headers.get("content-encoding")); //$NON-NLS-1$
+		result.setLanguage(headers.get("content-language")); //$NON-NLS-1$
+		result.setContentMD5(headers.get("content-md5")); //$NON-NLS-1$
+		result.setETag(headers.get("etag")); //$NON-NLS-1$
+		result.setCacheControl(headers.get("cache-control")); //$NON-NLS-1$
+		result.setVary(headers.get("vary")); //$NON-NLS-1$
+		result.setDate(HttpDates.parse(headers.get("date"))); //$NON-NLS-1$
+		result.setLastModified(HttpDates.parse(headers.get("last-modified"))); //$NON-NLS-1$
+		final String expires = headers.get("expires"); //$NON-NLS-1$
+		if (expires != null) {
+			final Date temp = HttpDates.parse(expires);
+			// RFC 2616 section 14.21 treats an invalid date (like 0) as already expired
+			result.setExpires(temp != null ? temp : new Date(0L));
+		}
+		return result;
+	}
+
+	private URI resolve(final URI uri) throws RelativeURIException {
+		final URI base = this.baseURL;
+		if (uri.isAbsolute()) {
+			return uri.normalize();
+		} else if (base != null) {
+			return base.resolve(uri).normalize();
+		} else {
+			throw new RelativeURIException("URI is relative but no base URI is set. Cannot resolve URL from given URI"); //$NON-NLS-1$
+		}
+	}
+
+	private URI connectionKey(final URI target) throws IOException {
+		final String scheme = target.getScheme().toLowerCase(Locale.ENGLISH);
+		int port = target.getPort();
+		if ("http".equals(scheme)) { //$NON-NLS-1$
+			port = port < 0 ? 80 : port;
+		} else if ("https".equals(scheme)) { //$NON-NLS-1$
+			port = port < 0 ? 443 : port;
+		} else {
+			throw new IOException("Unsupported scheme " + scheme); //$NON-NLS-1$
+		}
+		try {
+			return new URI(scheme, null, target.getHost().toLowerCase(Locale.ENGLISH), port, null, null, null);
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Signals that a reused connection failed before any response was received.
+	 */
+	private static final class StaleConnectionException extends IOException {
+		private static final long serialVersionUID = -4526190213093625931L;
+
+		private StaleConnectionException(final IOException cause) {
+			super(cause);
+		}
+	}
+
+	public static class PooledHttpAccessorBuilder implements Builder<PooledHttpAccessor> {
+		private int connectTimeout;
+		private int readTimeout;
+		private long keepAlive;
+		private long poolWait;
+		private int maxConnectionsPerHost;
+		private int maxConnections;
+		private Executor executor;
+		private String defaultUserInfo;
+		private URI base;
+		private SSLSocketFactory sslSocketFactory;
+
+		protected PooledHttpAccessorBuilder() {
+			reset();
+		}
+
+		public PooledHttpAccessorBuilder withConnectTimeout(final int connectTimeout) {
+			this.connectTimeout = ContractCheck.mustBeInRange(connectTimeout, 0, Integer.MAX_VALUE, "connectTimeout"); //$NON-NLS-1$
+			return this;
+		}
+
+		public PooledHttpAccessorBuilder withReadTimeout(final int readTimeout) {
+			this.readTimeout = ContractCheck.mustBeInRange(readTimeout, 0, Integer.MAX_VALUE, "readTimeout"); //$NON-NLS-1$
+			return this;
+		}
+
+		/**
+		 * Sets the time in milliseconds an idle connection is considered alive. Connections idle for a longer time are
+		 * closed instead of reused.
+		 */
+		public PooledHttpAccessorBuilder withKeepAlive(final long keepAlive) {
+			this.keepAlive = ContractCheck.mustBeInRange(keepAlive, 0L, Long.MAX_VALUE, "keepAlive"); //$NON-NLS-1$
+			return this;
+		}
+
+		/**
+		 * Sets the time in milliseconds a request waits for a connection if all connections to the host or in total
+		 * are in use. Zero waits without limit.
+		 */
+		public PooledHttpAccessorBuilder withPoolWait(final long poolWait) {
+			this.poolWait = ContractCheck.mustBeInRange(poolWait, 0L, Long.MAX_VALUE, "poolWait"); //$NON-NLS-1$
+			return this;
+		}
+
+		public PooledHttpAccessorBuilder withMaxConnectionsPerHost(final int maxConnectionsPerHost) {
+			this.maxConnectionsPerHost = ContractCheck.mustBeInRange(maxConnectionsPerHost, 1, Integer.MAX_VALUE, "maxConnectionsPerHost"); //$NON-NLS-1$
+			return this;
+		}
+
+		public PooledHttpAccessorBuilder withMaxConnections(final int maxConnections) {
+			this.maxConnections = ContractCheck.mustBeInRange(maxConnections, 1, Integer.MAX_VALUE, "maxConnections"); //$NON-NLS-1$
+			return this;
+		}
+
+		/**
+		 * Sets the executor running the asynchronous requests. If none is set the accessor creates a cached thread pool
+		 * of daemon threads which is shut down when the accessor is closed.
+		 */
+		public PooledHttpAccessorBuilder withExecutor(final Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+
+		public PooledHttpAccessorBuilder withCredentials(final String username, final String password) {
+			ContractCheck.mustNotBeNull(username, "username"); //$NON-NLS-1$
+			this.defaultUserInfo = username + ":" + (password != null ? password : ""); //$NON-NLS-1$ //$NON-NLS-2$
+			return this;
+		}
+
+		public PooledHttpAccessorBuilder withBase(final URI base) {
+			this.base = base;
+			return this;
+		}
+
+		/**
+		 * Sets the factory creating the TLS sockets of https connections. If none is set the default factory of the
+		 * runtime is used.
+		 */
+		public PooledHttpAccessorBuilder withSSLSocketFactory(final SSLSocketFactory sslSocketFactory) {
+			this.sslSocketFactory = sslSocketFactory;
+			return this;
+		}
+
+		@Override
+		public PooledHttpAccessor build() {
+			return new PooledHttpAccessor(this);
+		}
+
+		@Override
+		public void reset() {
+			this.connectTimeout = PooledHttpAccessor.DEFAULT_CONNECT_TIMEOUT;
+			this.readTimeout = PooledHttpAccessor.DEFAULT_READ_TIMEOUT;
+			this.keepAlive = PooledHttpAccessor.DEFAULT_KEEP_ALIVE;
+			this.poolWait = PooledHttpAccessor.DEFAULT_POOL_WAIT;
+			this.maxConnectionsPerHost = PooledHttpAccessor.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+			this.maxConnections = Integer.MAX_VALUE;
+			this.executor = null;
+			this.defaultUserInfo = null;
+			this.base = null;
+			this.sslSocketFactory = null;
+		}
+	}
+}
@@ -44,6 +44,8 @@ public class ResponseMeta {
 	private Date date;
 	private Date lastModified;
 	private Date expires;
+	private String cacheControl;
+	private String vary;
 
 	/**
 	 * Returns the media type.
@@ -245,4 +247,40 @@ public class ResponseMeta {
 	protected void setExpires(final Date expires) {
 		this.expires = expires;
 	}
+
+	/**
+	 * Returns the Cache-Control header of the response.
+	 *
+	 * @return the cacheControl
+	 */
+	public String getCacheControl() {
+		return this.cacheControl;
+	}
+
+	/**
+	 * Set the Cache-Control header.
+	 *
+	 * @param cacheControl the cacheControl to set
+	 */
+	protected void setCacheControl(final String cacheControl) {
+		this.cacheControl = cacheControl;
+	}
+
+	/**
+	 * Returns the Vary header of the response.
+	 *
+	 * @return the vary
+	 */
+	public String getVary() {
+		return this.vary;
+	}
+
+	/**
+	 * Set the Vary header.
+	 *
+	 * @param vary the vary to set
+	 */
+	protected void setVary(final String vary) {
+		this.vary = vary;
+	}
 }
@@ -27,11 +27,14 @@ import org.jbasics.checker.ContractCheck;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Container to hold {@link AcceptMediaTypeRange} instances to match against them in order importance. <p>
@@ -40,12 +43,21 @@ import java.util.TreeSet;
  * request or a head request you can use {@link #matchClosest(MediaType, MediaType...)} in order to match the closest
  * media type of those given. If multiple media types would match with the same qualify factor there is no guarantee
  * which is returned. In case that media types are preferred the best way is to first try to match the closest of the
- * preferred media types and if non matches than match with all available. </p>
+ * preferred media types and if non matches than match with all available. </p> <p> Sets returned by {@link
+ * #valueOf(String)} are shared between all callers parsing the same header field value and are therefore unmodifiable.
+ * </p>
  *
  * @author Stephan Schloepke
  * @since 1.0
  */
 public class AcceptMediaTypeSet implements SortedSet<AcceptMediaTypeRange>, Serializable {
+	/**
+	 * The maximum amount of parsed header field values kept by {@link #valueOf(String)}. Once reached the cache is
+	 * cleared so header fields seen regularly are cached again while rare ones drop out.
+	 */
+	public static final int MAX_CACHED_HEADERS = 1024;
+	private static final ConcurrentMap<String, AcceptMediaTypeSet> PARSED_HEADERS = new ConcurrentHashMap<String, AcceptMediaTypeSet>();
+
 	private final SortedSet<AcceptMediaTypeRange> acceptMediaTypes;
 
 	/**
@@ -55,6 +67,37 @@ public class AcceptMediaTypeSet implements SortedSet<AcceptMediaTypeRange>, Seri
 		this.acceptMediaTypes = new TreeSet<AcceptMediaTypeRange>();
 	}
 
+	private AcceptMediaTypeSet(final String acceptHeader) {
+		final SortedSet<AcceptMediaTypeRange> temp = new TreeSet<AcceptMediaTypeRange>();
+		RFC2616MediaTypeParser.parseAcceptMediaTypes(acceptHeader, temp);
+		this.acceptMediaTypes = Collections.unmodifiableSortedSet(temp);
+	}
+
+	/**
+	 * Returns the unmodifiable set of the parsed accept header field value. The parsed sets are cached so a header field
+	 * value sent over and over again by the clients is parsed only once.
+	 *
+	 * @param acceptHeader The value of the accept header field.
+	 *
+	 * @return The unmodifiable shared set.
+	 *
+	 * @throws IllegalArgumentException If the header field value does not comply to RFC2616.
+	 */
+	public static AcceptMediaTypeSet valueOf(final String acceptHeader) {
+		AcceptMediaTypeSet result = AcceptMediaTypeSet.PARSED_HEADERS.get(ContractCheck.mustNotBeNullOrEmpty(acceptHeader, "acceptHeader"));
+		if (result == null) {
+			result = new AcceptMediaTypeSet(acceptHeader);
+			if (AcceptMediaTypeSet.PARSED_HEADERS.size() >= AcceptMediaTypeSet.MAX_CACHED_HEADERS) {
+				AcceptMediaTypeSet.PARSED_HEADERS.clear();
+			}
+			final AcceptMediaTypeSet existing = AcceptMediaTypeSet.PARSED_HEADERS.putIfAbsent(acceptHeader, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Add the accept media type string to the accepted media types.
 	 *
@@ -75,13 +118,8 @@ public class AcceptMediaTypeSet implements SortedSet<AcceptMediaTypeRange>, Seri
 	 * @param acceptMediaTypeString The string to add.
 	 */
 	public void add(final String acceptMediaTypeString) {
-		String[] splits = ContractCheck.mustNotBeNullOrEmpty(acceptMediaTypeString, "acceptMediaTypeString").split(",");
-		for (String split : splits) {
-			String typeString = split.trim();
-			if (typeString.length() > 0) {
-				this.acceptMediaTypes.add(AcceptMediaTypeRange.valueOf(typeString));
-			}
-		}
+		RFC2616MediaTypeParser.parseAcceptMediaTypes(ContractCheck.mustNotBeNullOrEmpty(acceptMediaTypeString, "acceptMediaTypeString"),
+				this.acceptMediaTypes);
 	}
 
 	/**
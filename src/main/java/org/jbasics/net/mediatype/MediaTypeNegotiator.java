@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.mediatype;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Negotiates the media type to produce out of a fixed list of produced media types. <p> A resource usually produces the
+ * same few media types for every request. Instead of matching every accepted range against every produced type as
+ * {@link AcceptMediaTypeSet#matchClosest(MediaType, MediaType...)} does the negotiator remembers for each accepted
+ * {@link MediaTypeRange} the best produced type and for each raw accept header field value the negotiated result. A
+ * negotiation of a known header field value therefore is a single hash lookup. </p> <p> The result is always the same
+ * as {@link AcceptMediaTypeSet#matchClosest(MediaType, MediaType...)} with the produced types in the order given. Both
+ * caches are bounded by {@link #MAX_CACHED_ENTRIES} and cleared once they reach the bound. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public final class MediaTypeNegotiator {
+	public static final int MAX_CACHED_ENTRIES = 1024;
+	private static final Integer NO_MATCH = Integer.valueOf(-1);
+
+	private final MediaType[] produced;
+	private final ConcurrentMap<MediaTypeRange, Integer> rangeMatches;
+	private final ConcurrentMap<String, Integer> headerMatches;
+
+	/**
+	 * Creates a negotiator for the given produced media types.
+	 *
+	 * @param produced The produced media types in order of preference (must not be null or empty).
+	 */
+	public MediaTypeNegotiator(final MediaType... produced) {
+		this.produced = ContractCheck.mustNotBeNullOrEmpty(produced, "produced").clone(); //$NON-NLS-1$
+		this.rangeMatches = new ConcurrentHashMap<MediaTypeRange, Integer>();
+		this.headerMatches = new ConcurrentHashMap<String, Integer>();
+	}
+
+	/**
+	 * Returns the produced media types in order of preference.
+	 *
+	 * @return A copy of the produced media types.
+	 */
+	public MediaType[] getProduced() {
+		return this.produced.clone();
+	}
+
+	/**
+	 * Returns the closest produced media type accepted by the given set or the default if non is accepted.
+	 *
+	 * @param accepted    The accepted media types (must not be null).
+	 * @param defaultType The default type returned if none of the produced types is accepted (can be null).
+	 *
+	 * @return The best accepted produced media type or the default.
+	 */
+	public MediaType matchClosest(final AcceptMediaTypeSet accepted, final MediaType defaultType) {
+		final int index = match(ContractCheck.mustNotBeNull(accepted, "accepted")); //$NON-NLS-1$
+		return index < 0 ? defaultType : this.produced[index];
+	}
+
+	/**
+	 * Returns the closest produced media type accepted by the given accept header field value or the default if non is
+	 * accepted. A missing header field means every media type is accepted so the first produced type is returned.
+	 *
+	 * @param acceptHeader The value of the accept header field (can be null or empty).
+	 * @param defaultType  The default type returned if none of the produced types is accepted (can be null).
+	 *
+	 * @return The best accepted produced media type or the default.
+	 *
+	 * @throws IllegalArgumentException If the header field value does not comply to RFC2616.
+	 */
+	public MediaType matchClosest(final String acceptHeader, final MediaType defaultType) {
+		if (acceptHeader == null || acceptHeader.length() == 0) {
+			return this.produced[0];
+		}
+		Integer index = this.headerMatches.get(acceptHeader);
+		if (index == null) {
+			index = Integer.valueOf(match(AcceptMediaTypeSet.valueOf(acceptHeader)));
+			MediaTypeNegotiator.cache(this.headerMatches, acceptHeader, index);
+		}
+		return index.intValue() < 0 ? defaultType : this.produced[index.intValue()];
+	}
+
+	private int match(final AcceptMediaTypeSet accepted) {
+		for (final AcceptMediaTypeRange acceptType : accepted) {
+			final int index = match(acceptType.getMediaTypeRange());
+			if (index >= 0) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private int match(final MediaTypeRange range) {
+		Integer index = this.rangeMatches.get(range);
+		if (index == null) {
+			index = MediaTypeNegotiator.NO_MATCH;
+			for (int i = 0; i < this.produced.length; i++) {
+				if (range.isMediaTypeMatching(this.produced[i])) {
+					index = Integer.valueOf(i);
+					break;
+				}
+			}
+			MediaTypeNegotiator.cache(this.rangeMatches, range, index);
+		}
+		return index.intValue();
+	}
+
+	private static <K> void cache(final ConcurrentMap<K, Integer> cache, final K key, final Integer value) {
+		if (cache.size() >= MediaTypeNegotiator.MAX_CACHED_ENTRIES) {
+			cache.clear();
+		}
+		cache.put(key, value);
+	}
+}
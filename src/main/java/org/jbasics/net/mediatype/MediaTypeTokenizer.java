@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.mediatype;
+
+import org.jbasics.types.tuples.Pair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hand written tokenizer for media types, media type ranges and accept header fields as of RFC2616. <p> The tokenizer
+ * walks the string once without any regular expression or split and only creates the strings and pairs which end up in
+ * the parsed instances. It accepts the same syntax as the patterns of {@link RFC2616MediaTypeParser} with the addition
+ * of quoted parameter values (which are kept including their quotes) and dots in the type of a {@link MediaType} as
+ * allowed by {@link MediaType#TYPE_SUBTYPE_REGEX}. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+final class MediaTypeTokenizer {
+	private static final String QUALITY_PARAMETER = "q"; //$NON-NLS-1$
+
+	private final String input;
+	private final int length;
+	private int position;
+
+	MediaTypeTokenizer(final String input) {
+		this.input = input;
+		this.length = input.length();
+	}
+
+	/**
+	 * Reads a media type range.
+	 *
+	 * @return The media type range
+	 *
+	 * @throws IllegalArgumentException If the input is not a media type range
+	 */
+	MediaTypeRange readMediaTypeRange() {
+		skipWhitespace();
+		final String type = readType(true);
+		final String subType = readSubType(true);
+		return new MediaTypeRange(type, subType, readParameters(null));
+	}
+
+	/**
+	 * Reads a media type.
+	 *
+	 * @return The media type
+	 *
+	 * @throws IllegalArgumentException If the input is not a media type
+	 */
+	MediaType readMediaType() {
+		skipWhitespace();
+		final String type = readType(false);
+		final String subType = readSubType(false);
+		return new MediaType(type, subType, readParameters(null));
+	}
+
+	/**
+	 * Reads one entry of an accept header field.
+	 *
+	 * @return The accept media type range
+	 *
+	 * @throws IllegalArgumentException If the input is not an accept media type range
+	 */
+	AcceptMediaTypeRange readAcceptMediaTypeRange() {
+		skipWhitespace();
+		final String type = readType(true);
+		final String subType = readSubType(true);
+		final QualityHandler accept = new QualityHandler();
+		final Pair<String, String>[] parameters = readParameters(accept);
+		return new AcceptMediaTypeRange(new MediaTypeRange(type, subType, parameters), accept.quality,
+				MediaTypeTokenizer.toArray(accept.acceptParameters));
+	}
+
+	/**
+	 * Reads all comma separated entries of an accept header field. Empty entries are skipped.
+	 *
+	 * @param target The collection to add the entries to
+	 *
+	 * @throws IllegalArgumentException If an entry is not an accept media type range
+	 */
+	void readAcceptMediaTypeRanges(final Collection<AcceptMediaTypeRange> target) {
+		while (true) {
+			skipWhitespace();
+			if (this.position >= this.length) {
+				return;
+			}
+			if (this.input.charAt(this.position) != ',') {
+				target.add(readAcceptMediaTypeRange());
+				skipWhitespace();
+				if (this.position >= this.length) {
+					return;
+				}
+				if (this.input.charAt(this.position) != ',') {
+					throw new IllegalArgumentException(
+							"Accept media type " + this.input + " does not comply to RFC2616 at position " + this.position); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+			this.position++;
+		}
+	}
+
+	/**
+	 * Returns true if the whole input was consumed (trailing whitespace is skipped).
+	 */
+	boolean isAtEnd() {
+		skipWhitespace();
+		return this.position >= this.length;
+	}
+
+	private String readType(final boolean wildcard) {
+		final int start = this.position;
+		if (wildcard && start < this.length && this.input.charAt(start) == '*') {
+			this.position++;
+			return MediaTypeRange.WILDCARD;
+		}
+		if (start >= this.length || !MediaTypeTokenizer.isLetter(this.input.charAt(start))) {
+			throw syntaxError();
+		}
+		boolean upperCase = false;
+		char c;
+		while (this.position < this.length && MediaTypeTokenizer.isTypeChar(c = this.input.charAt(this.position), !wildcard)) {
+			upperCase |= c >= 'A' && c <= 'Z';
+			this.position++;
+		}
+		final String result = this.input.substring(start, this.position);
+		return upperCase ? result.toLowerCase() : result;
+	}
+
+	private String readSubType(final boolean wildcard) {
+		if (this.position < this.length && this.input.charAt(this.position) == '/') {
+			this.position++;
+			return readType(wildcard);
+		}
+		return null;
+	}
+
+	private Pair<String, String>[] readParameters(final QualityHandler qualityHandler) {
+		List<Pair<String, String>> parameters = null;
+		while (true) {
+			skipWhitespace();
+			if (this.position >= this.length || this.input.charAt(this.position) != ';') {
+				break;
+			}
+			this.position++;
+			skipWhitespace();
+			if (this.position >= this.length) {
+				break;
+			}
+			final char c = this.input.charAt(this.position);
+			if (c == ';' || c == ',') {
+				continue;
+			}
+			final String name = readParameterName();
+			skipWhitespace();
+			if (this.position >= this.length || this.input.charAt(this.position) != '=') {
+				throw syntaxError();
+			}
+			this.position++;
+			skipWhitespace();
+			final String value = readParameterValue();
+			if (qualityHandler == null || !qualityHandler.handle(name, value)) {
+				if (parameters == null) {
+					parameters = new ArrayList<Pair<String, String>>(2);
+				}
+				parameters.add(new Pair<String, String>(name, value));
+			}
+		}
+		return MediaTypeTokenizer.toArray(parameters);
+	}
+
+	private String readParameterName() {
+		final int start = this.position;
+		char c;
+		while (this.position < this.length && (c = this.input.charAt(this.position)) != '=' && c != ';' && c != ',' && !MediaTypeTokenizer
+				.isWhitespace(c)) {
+			this.position++;
+		}
+		if (start == this.position) {
+			throw syntaxError();
+		}
+		return this.input.substring(start, this.position);
+	}
+
+	private String readParameterValue() {
+		final int start = this.position;
+		if (this.position < this.length && this.input.charAt(this.position) == '"') {
+			this.position++;
+			while (this.position < this.length && this.input.charAt(this.position) != '"') {
+				if (this.input.charAt(this.position) == '\\') {
+					this.position++;
+				}
+				this.position++;
+			}
+			if (this.position >= this.length) {
+				throw syntaxError();
+			}
+			this.position++;
+			return this.input.substring(start, this.position);
+		}
+		char c;
+		while (this.position < this.length && (c = this.input.charAt(this.position)) != ';' && c != ',' && !MediaTypeTokenizer.isWhitespace(c)) {
+			this.position++;
+		}
+		return this.input.substring(start, this.position);
+	}
+
+	private void skipWhitespace() {
+		while (this.position < this.length && MediaTypeTokenizer.isWhitespace(this.input.charAt(this.position))) {
+			this.position++;
+		}
+	}
+
+	private IllegalArgumentException syntaxError() {
+		return new IllegalArgumentException("Media type " + this.input + " does not comply to RFC2616 at position " + this.position); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static Pair<String, String>[] toArray(final List<Pair<String, String>> parameters) {
+		if (parameters == null || parameters.isEmpty()) {
+			return RFC2616MediaTypeParser.EMPTY_KEY_VALUE_ARRAY;
+		}
+		// the typed empty array lets toArray create the result array without a raw generic array creation
+		return parameters.toArray(RFC2616MediaTypeParser.EMPTY_KEY_VALUE_ARRAY);
+	}
+
+	private static boolean isWhitespace(final char c) {
+		return c == ' ' || c == '\t';
+	}
+
+	private static boolean isLetter(final char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+	}
+
+	private static boolean isTypeChar(final char c, final boolean dots) {
+		return MediaTypeTokenizer.isLetter(c) || c >= '0' && c <= '9' || c == '+' || c == '-' || dots && c == '.';
+	}
+
+	/**
+	 * Separates the quality factor and the accept parameters following it from the media type range parameters.
+	 */
+	private static final class QualityHandler {
+		private Double quality;
+		private List<Pair<String, String>> acceptParameters;
+		private boolean qualityFound;
+
+		private boolean handle(final String name, final String value) {
+			if (this.qualityFound) {
+				if (this.acceptParameters == null) {
+					this.acceptParameters = new ArrayList<Pair<String, String>>(2);
+				}
+				this.acceptParameters.add(new Pair<String, String>(name, value));
+				return true;
+			} else if (MediaTypeTokenizer.QUALITY_PARAMETER.equals(name)) {
+				this.qualityFound = true;
+				this.quality = value.length() == 0 ? null : MediaTypeTokenizer.parseQuality(value);
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Parses a quality value which must match [0-1]?(\.[0-9]*)?.
+	 */
+	private static Double parseQuality(final String value) {
+		int i = 0;
+		final int length = value.length();
+		if (value.charAt(0) == '0' || value.charAt(0) == '1') {
+			i++;
+		}
+		if (i < length) {
+			if (value.charAt(i) != '.') {
+				throw new IllegalArgumentException("Illegal quality factor " + value); //$NON-NLS-1$
+			}
+			while (++i < length) {
+				final char c = value.charAt(i);
+				if (c < '0' || c > '9') {
+					throw new IllegalArgumentException("Illegal quality factor " + value); //$NON-NLS-1$
+				}
+			}
+		}
+		return Double.valueOf(value);
+	}
+}
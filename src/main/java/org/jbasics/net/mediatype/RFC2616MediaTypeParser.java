@@ -27,13 +27,15 @@ import org.jbasics.checker.ContractCheck;
 import org.jbasics.types.tuples.Pair;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Functions to parse media types, media type ranges and accept media types as defined in RFC2616. <p> Typically this is
- * not used directly but instead the {@code valueOf(String)} methods of the corresponding type. </p>
+ * not used directly but instead the {@code valueOf(String)} methods of the corresponding type. </p> <p> Parsing is done
+ * by a hand written tokenizer in a single pass over the string. The patterns are kept as the formal description of the
+ * accepted syntax. </p>
  *
  * @author Stephan Schloepke
  * @since 1.0
@@ -69,17 +71,12 @@ public final class RFC2616MediaTypeParser {
 	 */
 	public static MediaTypeRange parseMediaTypeRange(final String mediaTypeRange) {
 		ContractCheck.mustNotBeNullOrEmpty(mediaTypeRange, "mediaTypeRange");
-		Matcher m = MEDIA_TYPE_RANGE_PATTERN.matcher(mediaTypeRange);
-		if (m.matches()) {
-			String type = m.group(1).toLowerCase();
-			String subtype = m.group(2);
-			if (subtype != null) {
-				subtype = subtype.toLowerCase();
-			}
-			return new MediaTypeRange(type, subtype, parseParameterList(m.group(3)));
-		} else {
+		MediaTypeTokenizer tokenizer = new MediaTypeTokenizer(mediaTypeRange);
+		MediaTypeRange result = tokenizer.readMediaTypeRange();
+		if (!tokenizer.isAtEnd()) {
 			throw new IllegalArgumentException("Media type range " + mediaTypeRange + " does not comply to RFC2616");
 		}
+		return result;
 	}
 
 	/**
@@ -93,17 +90,12 @@ public final class RFC2616MediaTypeParser {
 	 */
 	public static MediaType parseMediaType(final String mediaTypeString) {
 		ContractCheck.mustNotBeNullOrEmpty(mediaTypeString, "mediaTypeString");
-		Matcher m = MEDIA_TYPE_PATTERN.matcher(mediaTypeString);
-		if (m.matches()) {
-			String type = m.group(1).toLowerCase();
-			String subtype = m.group(2);
-			if (subtype != null) {
-				subtype = subtype.toLowerCase();
-			}
-			return new MediaType(type, subtype, parseParameterList(m.group(3)));
-		} else {
+		MediaTypeTokenizer tokenizer = new MediaTypeTokenizer(mediaTypeString);
+		MediaType result = tokenizer.readMediaType();
+		if (!tokenizer.isAtEnd()) {
 			throw new IllegalArgumentException("Media type " + mediaTypeString + " does not comply to RFC2616");
 		}
+		return result;
 	}
 
 	/**
@@ -120,15 +112,23 @@ public final class RFC2616MediaTypeParser {
 	@SuppressWarnings({"SuspiciousToArrayCall", "unchecked"})
 	public static Pair<String, String>[] parseParameterList(final String parameterListString) {
 		if (parameterListString != null) {
-			List<Pair<String, String>> temp = new ArrayList<>();
-			String[] paramSplit = parameterListString.split(";");
-			for (String paramPart : paramSplit) {
-				String paramTemp = paramPart.trim();
+			List<Pair<String, String>> temp = null;
+			int start = 0;
+			while (start <= parameterListString.length()) {
+				int end = parameterListString.indexOf(';', start);
+				if (end < 0) {
+					end = parameterListString.length();
+				}
+				String paramTemp = parameterListString.substring(start, end).trim();
 				if (paramTemp.length() > 0) {
+					if (temp == null) {
+						temp = new ArrayList<>();
+					}
 					temp.add(parseParameter(paramTemp));
 				}
+				start = end + 1;
 			}
-			if (temp.size() > 0) {
+			if (temp != null) {
 				return (Pair<String, String>[]) temp.toArray(new Pair[temp.size()]);
 			}
 		}
@@ -144,13 +144,13 @@ public final class RFC2616MediaTypeParser {
 	 */
 	public static Pair<String, String> parseParameter(final String parameterString) {
 		ContractCheck.mustNotBeNullOrEmpty(parameterString, "parameterString");
-		String[] temp = parameterString.split("=", 2);
-		if (temp.length == 2) {
-			String key = temp[0].trim();
+		int separator = parameterString.indexOf('=');
+		if (separator >= 0) {
+			String key = parameterString.substring(0, separator).trim();
 			if (key.length() == 0) {
 				throw new IllegalArgumentException("Key name of parameter is empty " + parameterString);
 			}
-			String value = temp[1].trim();
+			String value = parameterString.substring(separator + 1).trim();
 			return new Pair<>(key, value);
 		} else {
 			throw new IllegalArgumentException("Key value parameter not in the right format (key=value) " + parameterString);
@@ -167,30 +167,30 @@ public final class RFC2616MediaTypeParser {
 	@SuppressWarnings("unchecked")
 	public static AcceptMediaTypeRange parseAcceptMediaTypeEntry(final String acceptString) {
 		ContractCheck.mustNotBeNullOrEmpty(acceptString, "acceptString");
-		Matcher m = ACCEPT_TYPE_PATTERN.matcher(acceptString);
-		if (m.matches()) {
-			MediaTypeRange mediaTypeRange = parseMediaTypeRange(m.group(1));
-			String temp = m.group(2);
-			Double qualifyFactor = temp != null && temp.trim().length() > 0 ? Double.valueOf(temp) : null;
-			Pair<String, String>[] acceptParameter = parseParameterList(m.group(3));
-			return new AcceptMediaTypeRange(mediaTypeRange, qualifyFactor, acceptParameter);
-		} else {
+		MediaTypeTokenizer tokenizer = new MediaTypeTokenizer(acceptString);
+		AcceptMediaTypeRange result = tokenizer.readAcceptMediaTypeRange();
+		if (!tokenizer.isAtEnd()) {
 			throw new IllegalArgumentException("Accept media type " + acceptString + " does not comply to RFC2616");
 		}
+		return result;
 	}
 
 	public static AcceptMediaTypeSet parseAcceptMediaTypes(String... acceptMediaTypeStrings) {
 		AcceptMediaTypeSet result = new AcceptMediaTypeSet();
 		for (String temp : ContractCheck.mustNotBeNullOrEmpty(acceptMediaTypeStrings, "acceptMediaTypeStrings")) {
-			String[] splits = temp.split(",");
-			for (String split : splits) {
-				String typeString = split.trim();
-				if (typeString.length() > 0) {
-					result.add(parseAcceptMediaTypeEntry(typeString));
-				}
-			}
+			parseAcceptMediaTypes(temp, result);
 		}
 		return result;
 	}
 
+	/**
+	 * Parses all comma separated entries of an accept header field into the given collection.
+	 *
+	 * @param acceptHeader The accept header field value.
+	 * @param target       The collection to add the parsed entries to.
+	 */
+	static void parseAcceptMediaTypes(final String acceptHeader, final Collection<AcceptMediaTypeRange> target) {
+		new MediaTypeTokenizer(acceptHeader).readAcceptMediaTypeRanges(target);
+	}
+
 }
@@ -35,6 +35,18 @@ public interface BuildHandler {
 
 	void addText(String text);
 
+	/**
+	 * Adds the text held in the character array. Implementations may use the characters directly instead of creating
+	 * a string first. The characters must not be retained since the caller reuses the array.
+	 *
+	 * @param ch     The character array holding the text
+	 * @param start  The offset of the text in the array
+	 * @param length The length of the text
+	 */
+	default void addText(char[] ch, int start, int length) {
+		addText(new String(ch, start, length));
+	}
+
 	void addComment(String comment);
 
 	Object getResult();
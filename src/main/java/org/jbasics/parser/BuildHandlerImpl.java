@@ -79,6 +79,15 @@ public class BuildHandlerImpl implements BuildHandler {
 		}
 	}
 
+	@Override
+	public void addText(char[] ch, int start, int length) {
+		if (this.builder.getClass() == SimpleTypeBuilder.class) {
+			((SimpleTypeBuilder<?>) this.builder).setText(ch, start, length);
+		} else if (this.parsingInfo.getContentInvoker() != null || !isWhitespace(ch, start, length)) {
+			addText(new String(ch, start, length));
+		}
+	}
+
 	public void addComment(String comment) {
 		Invoker<Builder<?>, String> temp = (Invoker<Builder<?>, String>) this.parsingInfo.getCommentInvoker();
 		if (temp != null) {
@@ -89,4 +98,13 @@ public class BuildHandlerImpl implements BuildHandler {
 	public Object getResult() {
 		return this.builder.build();
 	}
+
+	private boolean isWhitespace(char[] ch, int start, int length) {
+		for (int i = start, end = start + length; i < end; i++) {
+			if (ch[i] > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
 }
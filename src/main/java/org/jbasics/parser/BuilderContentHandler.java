@@ -23,7 +23,6 @@
  */
 package org.jbasics.parser;
 
-import org.jbasics.parser.invoker.Invoker;
 import org.jbasics.types.tuples.Pair;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
@@ -34,6 +33,7 @@ import org.xml.sax.ext.DefaultHandler2;
 
 import javax.xml.namespace.QName;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -41,10 +41,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @SuppressWarnings("unchecked")
 public class BuilderContentHandler<T> extends DefaultHandler2 {
 	private final BuilderParserContext<T> context;
+	private final NameCache names;
 	private final AtomicBoolean parsing;
 	private StateStack<BuildHandler> states;
 	private T result;
-	private StringBuilder characterBuffer;
+	private char[] characterBuffer;
+	private int characterLength;
 	private StringBuilder commentBuffer;
 	private Locator locator;
 	private NamespacePrefixStack prefixes;
@@ -55,6 +57,7 @@ public class BuilderContentHandler<T> extends DefaultHandler2 {
 
 	public BuilderContentHandler(final BuilderParserContext<T> context) {
 		this.context = context;
+		this.names = context.getNames();
 		this.parsing = new AtomicBoolean(false);
 	}
 
@@ -72,7 +75,8 @@ public class BuilderContentHandler<T> extends DefaultHandler2 {
 	public void startDocument() throws SAXException {
 		if (this.parsing.compareAndSet(false, true)) {
 			this.states = new StateStack<BuildHandler>();
-			this.characterBuffer = new StringBuilder();
+			this.characterBuffer = new char[256];
+			this.characterLength = 0;
 			this.commentBuffer = new StringBuilder();
 			this.prefixes = new NamespacePrefixStack();
 			this.result = null;
@@ -97,7 +101,7 @@ public class BuilderContentHandler<T> extends DefaultHandler2 {
 		if (this.activeCustomParserContentHandler != null) {
 			this.activeCustomParserContentHandler.startPrefixMapping(prefix, uri);
 		} else {
-			this.prefixes.pushMapping(prefix, URI.create(uri));
+			this.prefixes.pushMapping(prefix, this.names.namespace(uri));
 		}
 	}
 
@@ -131,10 +135,7 @@ public class BuilderContentHandler<T> extends DefaultHandler2 {
 				}
 			} else {
 				BuildHandler current = this.states.peek();
-				if (this.characterBuffer.length() > 0) {
-					current.addText(this.characterBuffer.toString());
-					this.characterBuffer.setLength(0);
-				}
+				flushText(current);
 				if (this.commentBuffer.length() > 0) {
 					current.addComment(this.commentBuffer.toString());
 					this.commentBuffer.setLength(0);
@@ -159,12 +160,7 @@ public class BuilderContentHandler<T> extends DefaultHandler2 {
 				}
 				parseInfo = current.getParsingInfo();
 				if (parseInfo != null) {
-					Pair<ParsingInfo, Invoker<?, ?>> x = parseInfo.getElementInvoker(name);
-					if (x != null) {
-						parseInfo = x.first();
-					} else {
-						parseInfo = null;
-					}
+					parseInfo = parseInfo.getElementParsingInfo(name);
 				}
 			}
 			if (parseInfo == null) {
@@ -207,10 +203,7 @@ public class BuilderContentHandler<T> extends DefaultHandler2 {
 				} else {
 					QName name = createQualifiedName(uri, localName, qName);
 					BuildHandler current = this.states.pop();
-					if (this.characterBuffer.length() > 0) {
-						current.addText(this.characterBuffer.toString());
-						this.characterBuffer.setLength(0);
-					}
+					flushText(current);
 					if (this.commentBuffer.length() > 0) {
 						current.addComment(this.commentBuffer.toString());
 						this.commentBuffer.setLength(0);
@@ -240,7 +233,12 @@ public class BuilderContentHandler<T> extends DefaultHandler2 {
 				current.addComment(this.commentBuffer.toString());
 				this.commentBuffer.setLength(0);
 			}
-			this.characterBuffer.append(ch, start, length);
+			if (this.characterLength + length > this.characterBuffer.length) {
+				this.characterBuffer = Arrays.copyOf(this.characterBuffer, Math.max(this.characterBuffer.length * 2,
+						this.characterLength + length));
+			}
+			System.arraycopy(ch, start, this.characterBuffer, this.characterLength, length);
+			this.characterLength += length;
 		}
 	}
 
@@ -253,21 +251,27 @@ public class BuilderContentHandler<T> extends DefaultHandler2 {
 		}
 	}
 
-	private QName createQualifiedName(String namespace, final String localname, final String qName) {
-		String prefix = null;
-		if (qName != null) {
-			int temp = qName.indexOf(':');
-			if (temp > 0) {
-				prefix = qName.substring(0, temp);
-			}
+	private QName createQualifiedName(final String namespace, final String localname, final String qName) {
+		return this.names.qualifiedName(namespace, localname, qName);
+	}
+
+	private void flushText(final BuildHandler current) {
+		if (this.characterLength > 0) {
+			current.addText(this.characterBuffer, 0, this.characterLength);
+			this.characterLength = 0;
 		}
+	}
+
+	static QName qualifiedName(String namespace, final String localname, final String prefix) {
 		// Some people append a / at the end of the namespace. However this is quite problematic really so we remove it
 		// in general.
 		// FIXME: We need to check that with the xml spec!!
-		if (namespace.endsWith("/")) {
+		if (namespace == null) {
+			namespace = "";
+		} else if (namespace.endsWith("/")) {
 			namespace = namespace.substring(0, namespace.length() - 1);
 		}
-		if (prefix != null) {
+		if (prefix != null && prefix.length() > 0) {
 			return new QName(namespace, localname, prefix);
 		} else {
 			return new QName(namespace, localname);
@@ -297,10 +301,8 @@ public class BuilderContentHandler<T> extends DefaultHandler2 {
 	public void comment(final char[] ch, final int start, final int length) throws SAXException {
 		// Ok we need to hand over the comment since in some cases we actually want to receive comments (JavaScript in
 		// HTML for example)
-		if (this.characterBuffer.length() > 0) {
-			BuildHandler current = this.states.peek();
-			current.addText(this.characterBuffer.toString());
-			this.characterBuffer.setLength(0);
+		if (this.characterLength > 0) {
+			flushText(this.states.peek());
 		}
 		this.commentBuffer.append(ch, start, length);
 	}
@@ -33,6 +33,7 @@ import java.util.concurrent.ConcurrentMap;
 public class BuilderParserContext<T> {
 	private static final ConcurrentMap<Class<?>, BuilderParserContext<?>> CONTEXT_CACHE;
 	private final Map<QName, ParsingInfo> parsingInformation;
+	private final NameCache names;
 
 	static {
 		CONTEXT_CACHE = new ConcurrentHashMap<Class<?>, BuilderParserContext<?>>();
@@ -41,6 +42,7 @@ public class BuilderParserContext<T> {
 	public BuilderParserContext(Class<? extends T> documentType) {
 		this.parsingInformation = new AnnotationScanner().scan(ContractCheck
 				.mustNotBeNull(documentType, "documentType"));
+		this.names = new NameCache();
 	}
 
 	public static <T> BuilderParserContext<T> getOrCreateContext(Class<? extends T> documentType) {
@@ -59,7 +61,15 @@ public class BuilderParserContext<T> {
 		return new BuilderContentHandler<T>(this);
 	}
 
+	public BuilderStreamParser<T> createStreamParser() {
+		return new BuilderStreamParser<T>(this);
+	}
+
 	public ParsingInfo getParsingInfo(QName name) {
 		return this.parsingInformation.get(name);
 	}
+
+	NameCache getNames() {
+		return this.names;
+	}
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.parser;
+
+import org.jbasics.checker.ContractCheck;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.function.Consumer;
+
+/**
+ * Pull based parser driving the builders described by the {@link ParsingInfo} of a {@link BuilderParserContext} from an
+ * {@link XMLStreamReader}. <p> Besides parsing a whole document into one result the parser offers a record mode. In
+ * record mode every completed child of a chosen record container element is handed to a consumer instead of being
+ * added to the builder of the container. The record is not referenced by the parser afterwards so documents with a
+ * huge amount of repeated elements can be processed in bounded memory. </p> <p> The parser reads the root element
+ * starting at the current position of the reader and stops at the end of the root element. The reader is not closed.
+ * Custom parsers registered with a {@link CustomParserRegistry} are only supported by the SAX based {@link
+ * BuilderContentHandler}. </p>
+ *
+ * @param <T> The type of the document
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@SuppressWarnings("unchecked")
+public class BuilderStreamParser<T> {
+	private final BuilderParserContext<T> context;
+
+	public BuilderStreamParser(final BuilderParserContext<T> context) {
+		this.context = ContractCheck.mustNotBeNull(context, "context"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Parses the next root element of the reader into the document result.
+	 *
+	 * @param reader The reader positioned before or at the root element (must not be null)
+	 *
+	 * @return The result of the root builder or null if the reader does not contain any element
+	 *
+	 * @throws XMLStreamException If the reader fails or the document does not match the builders
+	 */
+	public T parse(final XMLStreamReader reader) throws XMLStreamException {
+		return (T) process(ContractCheck.mustNotBeNull(reader, "reader"), null, null); //$NON-NLS-1$
+	}
+
+	/**
+	 * Parses the next root element of the reader in record mode. Every child completed inside an element with the name
+	 * of the record container is handed to the consumer and then discarded. This applies to every record container of
+	 * the document, only a container nested inside a record is part of that record. All other elements are added to
+	 * their parent builder as usual so the returned result contains everything except the records.
+	 *
+	 * @param reader          The reader positioned before or at the root element (must not be null)
+	 * @param recordContainer The name of the element which children are the records (must not be null)
+	 * @param consumer        The consumer receiving each record in document order (must not be null)
+	 *
+	 * @return The result of the root builder without the records or null if the reader does not contain any element
+	 *
+	 * @throws XMLStreamException If the reader fails or the document does not match the builders
+	 */
+	public T parseRecords(final XMLStreamReader reader, final QName recordContainer, final Consumer<Object> consumer)
+			throws XMLStreamException {
+		return (T) process(ContractCheck.mustNotBeNull(reader, "reader"), //$NON-NLS-1$
+				ContractCheck.mustNotBeNull(recordContainer, "recordContainer"), //$NON-NLS-1$
+				ContractCheck.mustNotBeNull(consumer, "consumer")); //$NON-NLS-1$
+	}
+
+	private Object process(final XMLStreamReader reader, final QName recordContainer, final Consumer<Object> consumer)
+			throws XMLStreamException {
+		final StateStack<BuildHandler> states = new StateStack<BuildHandler>();
+		final StringBuilder characterBuffer = new StringBuilder();
+		final StringBuilder commentBuffer = new StringBuilder();
+		int recordDepth = -1;
+		int event = reader.getEventType();
+		try {
+			while (true) {
+				switch (event) {
+					case XMLStreamConstants.START_ELEMENT: {
+						final QName name = BuilderContentHandler.qualifiedName(reader.getNamespaceURI(),
+								reader.getLocalName(), reader.getPrefix());
+						final BuildHandler handler = new BuildHandlerImpl(name, parsingInfo(reader, states, name,
+								characterBuffer, commentBuffer));
+						for (int i = 0; i < reader.getAttributeCount(); i++) {
+							handler.setAttribute(BuilderContentHandler.qualifiedName(reader.getAttributeNamespace(i),
+									reader.getAttributeLocalName(i), reader.getAttributePrefix(i)), reader.getAttributeValue(i));
+						}
+						states.push(handler);
+						if (recordDepth < 0 && name.equals(recordContainer)) {
+							recordDepth = states.size();
+						}
+						break;
+					}
+					case XMLStreamConstants.END_ELEMENT: {
+						final BuildHandler current = states.pop();
+						flush(current, characterBuffer, commentBuffer);
+						final Object value = current.getResult();
+						if (states.isEmpty()) {
+							return value;
+						} else if (states.size() == recordDepth) {
+							consumer.accept(value);
+						} else {
+							states.peek().addElement(BuilderContentHandler.qualifiedName(reader.getNamespaceURI(),
+									reader.getLocalName(), reader.getPrefix()), value);
+							if (states.size() < recordDepth) {
+								recordDepth = -1;
+							}
+						}
+						break;
+					}
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+						if (!states.isEmpty()) {
+							if (commentBuffer.length() > 0) {
+								states.peek().addComment(commentBuffer.toString());
+								commentBuffer.setLength(0);
+							}
+							characterBuffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						}
+						break;
+					case XMLStreamConstants.COMMENT:
+						if (!states.isEmpty()) {
+							if (characterBuffer.length() > 0) {
+								states.peek().addText(characterBuffer.toString());
+								characterBuffer.setLength(0);
+							}
+							commentBuffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						}
+						break;
+					default:
+						// Ignorable whitespace, processing instructions and document events carry nothing for the builders
+						break;
+				}
+				if (!reader.hasNext()) {
+					return null;
+				}
+				event = reader.next();
+			}
+		} catch (RuntimeException e) {
+			throw createParsingException(reader, e);
+		}
+	}
+
+	private ParsingInfo parsingInfo(final XMLStreamReader reader, final StateStack<BuildHandler> states, final QName name,
+									final StringBuilder characterBuffer, final StringBuilder commentBuffer) throws XMLStreamException {
+		ParsingInfo parseInfo;
+		if (states.isEmpty()) {
+			parseInfo = this.context.getParsingInfo(name);
+			if (parseInfo == null) {
+				throw new XMLStreamException("Unknown root element " + name, reader.getLocation()); //$NON-NLS-1$
+			}
+		} else {
+			final BuildHandler current = states.peek();
+			flush(current, characterBuffer, commentBuffer);
+			parseInfo = current.getParsingInfo().getElementParsingInfo(name);
+			if (parseInfo == null) {
+				throw new XMLStreamException("Unrecognized element " + name, reader.getLocation()); //$NON-NLS-1$
+			}
+		}
+		return parseInfo;
+	}
+
+	private void flush(final BuildHandler current, final StringBuilder characterBuffer, final StringBuilder commentBuffer) {
+		if (characterBuffer.length() > 0) {
+			current.addText(characterBuffer.toString());
+			characterBuffer.setLength(0);
+		}
+		if (commentBuffer.length() > 0) {
+			current.addComment(commentBuffer.toString());
+			commentBuffer.setLength(0);
+		}
+	}
+
+	private XMLStreamException createParsingException(final XMLStreamReader reader, final RuntimeException eo) {
+		Throwable e = eo;
+		while (e.getCause() != null && e.getCause() != e) {
+			e = e.getCause();
+		}
+		final StringBuilder message = new StringBuilder();
+		message.append("[").append(e.getClass().getSimpleName()).append("] ").append(e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		return new XMLStreamException(message.toString(), reader.getLocation(), e);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.parser;
+
+import org.jbasics.annotation.ThreadSafe;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns the qualified names and namespace URIs a {@link BuilderParserContext} sees while parsing. The SAX parser
+ * hands over the same namespace and qualified name strings for every occurrence of an element so the lookup is keyed
+ * on those strings and a hit does not allocate anything. <p> The amount of cached entries is limited so documents with
+ * arbitrary names (any element or any attribute content) cannot grow the cache without bounds. Once the limit is reached
+ * new names are created for every occurrence again. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+final class NameCache {
+	static final int MAX_ENTRIES = 4096;
+
+	private final ConcurrentMap<String, ConcurrentMap<String, QName>> names;
+	private final ConcurrentMap<String, URI> namespaces;
+	private final AtomicInteger size;
+
+	NameCache() {
+		this.names = new ConcurrentHashMap<String, ConcurrentMap<String, QName>>();
+		this.namespaces = new ConcurrentHashMap<String, URI>();
+		this.size = new AtomicInteger();
+	}
+
+	/**
+	 * Returns the qualified name for the SAX name triple.
+	 *
+	 * @param namespaceURI The namespace URI or empty (or null) if the name has no namespace
+	 * @param localName    The local name
+	 * @param qName        The prefixed name or empty if not available
+	 *
+	 * @return The interned qualified name
+	 */
+	QName qualifiedName(final String namespaceURI, final String localName, final String qName) {
+		// the concurrent maps do not accept null keys
+		final String namespace = namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI;
+		final String key = qName == null || qName.length() == 0 ? localName : qName;
+		ConcurrentMap<String, QName> local = this.names.get(namespace);
+		QName result = local != null ? local.get(key) : null;
+		if (result == null) {
+			String prefix = null;
+			final int temp = key.indexOf(':');
+			if (temp > 0) {
+				prefix = key.substring(0, temp);
+			}
+			result = BuilderContentHandler.qualifiedName(namespace, localName, prefix);
+			if (reserve()) {
+				if (local == null) {
+					local = new ConcurrentHashMap<String, QName>();
+					final ConcurrentMap<String, QName> existing = this.names.putIfAbsent(namespace, local);
+					if (existing != null) {
+						local = existing;
+					}
+				}
+				final QName existing = local.putIfAbsent(key, result);
+				if (existing != null) {
+					result = existing;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the URI of a namespace mapping.
+	 *
+	 * @param namespace The namespace
+	 *
+	 * @return The interned URI
+	 */
+	URI namespace(final String namespace) {
+		URI result = this.namespaces.get(namespace);
+		if (result == null) {
+			result = URI.create(namespace);
+			if (reserve()) {
+				final URI existing = this.namespaces.putIfAbsent(namespace, result);
+				if (existing != null) {
+					result = existing;
+				}
+			}
+		}
+		return result;
+	}
+
+	private boolean reserve() {
+		int current;
+		do {
+			current = this.size.get();
+			if (current >= NameCache.MAX_ENTRIES) {
+				return false;
+			}
+		} while (!this.size.compareAndSet(current, current + 1));
+		return true;
+	}
+}
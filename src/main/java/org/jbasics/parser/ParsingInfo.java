@@ -30,6 +30,8 @@ import org.jbasics.pattern.factory.Factory;
 import org.jbasics.types.tuples.Pair;
 
 import javax.xml.namespace.QName;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 @SuppressWarnings("unchecked")
@@ -65,8 +67,8 @@ public class ParsingInfo {
 		this.qualifiedNameInvoker = qualifiedNameInvoker;
 		this.attributeInvokers = attributeInvokers;
 		this.defaultAttributeInvoker = defaultAttributeInvoker;
-		this.elementInvokers = elementInvokers;
-		this.defaultElementInvoker = defaultElementInvoker;
+		this.elementInvokers = resolveSelf(elementInvokers);
+		this.defaultElementInvoker = resolveSelf(defaultElementInvoker);
 		this.contentInvoker = contentInvoker;
 		this.commentInvoker = commentInvoker;
 	}
@@ -98,12 +100,21 @@ public class ParsingInfo {
 		if (temp == null) {
 			temp = this.defaultElementInvoker;
 		}
-		if (temp != null && temp.first() == SELF) {
-			temp = new Pair<ParsingInfo, Invoker<?, ?>>(this, temp.second());
-		}
 		return temp;
 	}
 
+	/**
+	 * Returns the parsing info of the child element with the given name.
+	 *
+	 * @param name The name of the child element
+	 *
+	 * @return The parsing info of the element or null if this builder does not accept the element
+	 */
+	public ParsingInfo getElementParsingInfo(QName name) {
+		Pair<ParsingInfo, Invoker<?, ?>> temp = getElementInvoker(name);
+		return temp != null ? temp.first() : null;
+	}
+
 	public Invoker<?, String> getContentInvoker() {
 		return this.contentInvoker;
 	}
@@ -111,4 +122,26 @@ public class ParsingInfo {
 	public Invoker<?, String> getCommentInvoker() {
 		return this.commentInvoker;
 	}
+
+	/**
+	 * Element invokers referring to {@link #SELF} are resolved to this instance once so looking up an element does not
+	 * need to create a new pair for every occurrence of a recursive element.
+	 */
+	private Map<QName, Pair<ParsingInfo, Invoker<?, ?>>> resolveSelf(Map<QName, Pair<ParsingInfo, Invoker<?, ?>>> elements) {
+		if (elements == null || elements.isEmpty()) {
+			return elements;
+		}
+		Map<QName, Pair<ParsingInfo, Invoker<?, ?>>> result = new HashMap<QName, Pair<ParsingInfo, Invoker<?, ?>>>(elements.size() * 2);
+		for (Map.Entry<QName, Pair<ParsingInfo, Invoker<?, ?>>> entry : elements.entrySet()) {
+			result.put(entry.getKey(), resolveSelf(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	private Pair<ParsingInfo, Invoker<?, ?>> resolveSelf(Pair<ParsingInfo, Invoker<?, ?>> element) {
+		if (element != null && element.first() == SELF) {
+			return new Pair<ParsingInfo, Invoker<?, ?>>(this, element.second());
+		}
+		return element;
+	}
 }
@@ -37,6 +37,8 @@ import java.util.Map;
 public class SimpleTypeBuilder<T> implements Builder<T> {
 	private final ParameterFactory<T, String> typeFactory;
 	private String text;
+	private T value;
+	private boolean valueCreated;
 	private Map<QName, String> attributes;
 
 	protected SimpleTypeBuilder(ParameterFactory<T, String> typeFactory) {
@@ -45,18 +47,46 @@ public class SimpleTypeBuilder<T> implements Builder<T> {
 
 	public void reset() {
 		this.text = null;
+		this.value = null;
+		this.valueCreated = false;
 	}
 
 	public T build() {
+		if (this.valueCreated) {
+			return this.value;
+		}
 		return this.typeFactory.create(this.text);
 	}
 
 	@Content
 	public SimpleTypeBuilder<T> setText(String text) {
 		this.text = text;
+		this.value = null;
+		this.valueCreated = false;
 		return this;
 	}
 
+	/**
+	 * Sets the text from a character array. If the type factory can create the value from the characters the value is
+	 * created right away without creating the text as string first.
+	 *
+	 * @param ch     The character array holding the text
+	 * @param start  The offset of the text in the array
+	 * @param length The length of the text
+	 *
+	 * @return This builder for chaining
+	 */
+	@SuppressWarnings("unchecked")
+	public SimpleTypeBuilder<T> setText(char[] ch, int start, int length) {
+		if (this.typeFactory instanceof ValueOfStringTypeFactory) {
+			this.text = null;
+			this.value = ((ValueOfStringTypeFactory<T>) this.typeFactory).create(ch, start, length);
+			this.valueCreated = true;
+			return this;
+		}
+		return setText(new String(ch, start, length));
+	}
+
 	@AnyAttribute
 	public SimpleTypeBuilder<T> setAttribute(QName name, String value) {
 		if (this.attributes != null) {
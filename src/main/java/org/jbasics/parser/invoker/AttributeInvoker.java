@@ -28,27 +28,29 @@ import org.jbasics.pattern.factory.ParameterFactory;
 import org.jbasics.types.factories.ValueOfStringTypeFactory;
 
 import javax.xml.namespace.QName;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
 
 public class AttributeInvoker<T> implements Invoker<T, String> {
-	private final boolean useExtendedForm;
-	private final Method method;
+	private final BiConsumer<Object, Object> binding;
+	private final MethodBinding.QualifiedBinding qualifiedBinding;
 	private final ParameterFactory<?, String> factory;
 
 	private AttributeInvoker(Method method) {
-		this.method = ContractCheck.mustNotBeNull(method, "method");
+		ContractCheck.mustNotBeNull(method, "method");
 		Class<?>[] params = method.getParameterTypes();
 		Class<?> type = null;
 		if (params.length == 1) {
-			this.useExtendedForm = false;
+			this.binding = MethodBinding.bind(method);
+			this.qualifiedBinding = null;
 			type = params[0];
 		} else if (params.length == 2) {
-			this.useExtendedForm = true;
 			if (params[0] != QName.class) {
 				throw new IllegalArgumentException(
 						"Supplied method has not the right signature. Must be either method(type) or method(QName, type)");
 			}
+			this.binding = null;
+			this.qualifiedBinding = MethodBinding.bindQualified(method);
 			type = params[1];
 		} else {
 			throw new IllegalArgumentException(
@@ -71,17 +73,14 @@ public class AttributeInvoker<T> implements Invoker<T, String> {
 			temp = this.factory.create(data);
 		}
 		try {
-			if (this.useExtendedForm) {
-				this.method.invoke(instance, name, temp);
+			if (this.binding == null) {
+				this.qualifiedBinding.accept(instance, name, temp);
 			} else {
-				this.method.invoke(instance, temp);
+				this.binding.accept(instance, temp);
 			}
-		} catch (InvocationTargetException e) {
-			if (e.getCause() instanceof RuntimeException) {
-				throw (RuntimeException) e.getCause();
-			}
-			throw new RuntimeException(e);
-		} catch (IllegalAccessException e) {
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
@@ -26,21 +26,17 @@ package org.jbasics.parser.invoker;
 import org.jbasics.checker.ContractCheck;
 
 import javax.xml.namespace.QName;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
 
-@SuppressWarnings("unchecked")
 public class ElementInvoker<T, E> implements Invoker<T, E> {
-	private final Method method;
-	private final Class<E> dataClass;
+	private final BiConsumer<Object, Object> binding;
 
 	private ElementInvoker(Method method) {
-		this.method = ContractCheck.mustNotBeNull(method, "method");
-		Class<?>[] params = method.getParameterTypes();
-		if (params.length != 1) {
+		if (ContractCheck.mustNotBeNull(method, "method").getParameterTypes().length != 1) {
 			throw new IllegalArgumentException("Method signature does not fit");
 		}
-		this.dataClass = (Class<E>) params[0];
+		this.binding = MethodBinding.bind(method);
 	}
 
 	public static <T, E> ElementInvoker<T, E> createInvoker(Class<T> instanceType, Class<E> dataType, Method method) {
@@ -49,10 +45,10 @@ public class ElementInvoker<T, E> implements Invoker<T, E> {
 
 	public void invoke(T instance, QName name, E data) {
 		try {
-			this.method.invoke(instance, this.dataClass.cast(data));
-		} catch (InvocationTargetException e) {
-			throw new RuntimeException(e);
-		} catch (IllegalAccessException e) {
+			this.binding.accept(instance, data);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.parser.invoker;
+
+import org.jbasics.checker.ContractCheck;
+
+import javax.xml.namespace.QName;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Binds builder methods to direct call sites once so the parser does not need to go through {@link Method#invoke}
+ * for every element, attribute or text node. <p> Public methods of public types visible to this class loader are
+ * bound with the {@link LambdaMetafactory} which results in a generated class calling the method directly. All other
+ * methods are bound to an exact {@link MethodHandle}. Bindings are cached per method and therefore shared between all
+ * parsing contexts using the same builder. The cache is a {@link ClassValue} of the declaring class so it does not keep
+ * the builder classes or their class loader reachable. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+final class MethodBinding {
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final ClassValue<ConcurrentMap<Method, Object>> BINDINGS = new ClassValue<ConcurrentMap<Method, Object>>() {
+		@Override
+		protected ConcurrentMap<Method, Object> computeValue(final Class<?> type) {
+			return new ConcurrentHashMap<Method, Object>();
+		}
+	};
+
+	private MethodBinding() {
+		// no instances
+	}
+
+	/**
+	 * Returns the binding of a method with the signature method(type).
+	 *
+	 * @param method The method to bind (must not be null)
+	 *
+	 * @return The binding calling the method with the instance and the data
+	 */
+	@SuppressWarnings("unchecked")
+	static BiConsumer<Object, Object> bind(final Method method) {
+		if (ContractCheck.mustNotBeNull(method, "method").getParameterTypes().length != 1) {
+			throw new IllegalArgumentException("Method " + method.getName() + " must have exactly one parameter");
+		}
+		final ConcurrentMap<Method, Object> bindings = MethodBinding.BINDINGS.get(method.getDeclaringClass());
+		Object result = bindings.get(method);
+		if (result == null) {
+			result = MethodBinding.generate(method, BiConsumer.class, "accept", //$NON-NLS-1$
+					MethodType.methodType(void.class, Object.class, Object.class));
+			if (result == null) {
+				result = new HandleBinding(MethodBinding.unreflect(method,
+						MethodType.methodType(void.class, Object.class, Object.class)));
+			}
+			final Object temp = bindings.putIfAbsent(method, result);
+			if (temp != null) {
+				result = temp;
+			}
+		}
+		return (BiConsumer<Object, Object>) result;
+	}
+
+	/**
+	 * Returns the binding of a method with the signature method(QName, type).
+	 *
+	 * @param method The method to bind (must not be null)
+	 *
+	 * @return The binding calling the method with the instance, the qualified name and the data
+	 */
+	static QualifiedBinding bindQualified(final Method method) {
+		final Class<?>[] params = ContractCheck.mustNotBeNull(method, "method").getParameterTypes();
+		if (params.length != 2 || params[0] != QName.class) {
+			throw new IllegalArgumentException("Method " + method.getName() + " must have the signature method(QName, type)");
+		}
+		final ConcurrentMap<Method, Object> bindings = MethodBinding.BINDINGS.get(method.getDeclaringClass());
+		Object result = bindings.get(method);
+		if (result == null) {
+			result = MethodBinding.generate(method, QualifiedBinding.class, "accept", //$NON-NLS-1$
+					MethodType.methodType(void.class, Object.class, QName.class, Object.class));
+			if (result == null) {
+				result = new QualifiedHandleBinding(MethodBinding.unreflect(method,
+						MethodType.methodType(void.class, Object.class, QName.class, Object.class)));
+			}
+			final Object temp = bindings.putIfAbsent(method, result);
+			if (temp != null) {
+				result = temp;
+			}
+		}
+		return (QualifiedBinding) result;
+	}
+
+	private static Object generate(final Method method, final Class<?> functionalType, final String name,
+								   final MethodType erasedType) {
+		if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())
+				|| !Modifier.isPublic(method.getDeclaringClass().getModifiers()) || !MethodBinding.isVisible(method)) {
+			return null;
+		}
+		try {
+			final MethodHandle target = MethodBinding.LOOKUP.unreflect(method);
+			final CallSite site = LambdaMetafactory.metafactory(MethodBinding.LOOKUP, name,
+					MethodType.methodType(functionalType), erasedType, target,
+					target.type().wrap().changeReturnType(void.class));
+			return site.getTarget().invoke();
+		} catch (final Throwable e) {
+			// The generated class could not be linked so the method handle is used instead
+			return null;
+		}
+	}
+
+	private static MethodHandle unreflect(final Method method, final MethodType erasedType) {
+		try {
+			if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+				method.setAccessible(true);
+			}
+			MethodHandle handle = MethodBinding.LOOKUP.unreflect(method);
+			if (Modifier.isStatic(method.getModifiers())) {
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			}
+			return handle.asType(erasedType);
+		} catch (final IllegalAccessException e) {
+			throw new IllegalArgumentException("Cannot access method " + method.getName(), e);
+		}
+	}
+
+	/**
+	 * The generated class is linked against the class loader of this class so every type in the signature of the
+	 * method needs to resolve to the very same type from there.
+	 */
+	private static boolean isVisible(final Method method) {
+		if (!MethodBinding.isVisible(method.getDeclaringClass()) || !MethodBinding.isVisible(method.getReturnType())) {
+			return false;
+		}
+		for (final Class<?> param : method.getParameterTypes()) {
+			if (!MethodBinding.isVisible(param)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isVisible(final Class<?> type) {
+		if (type.isPrimitive()) {
+			return true;
+		}
+		try {
+			return Class.forName(type.getName(), false, MethodBinding.class.getClassLoader()) == type;
+		} catch (final ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * The binding of a method with the signature method(QName, type).
+	 */
+	interface QualifiedBinding {
+
+		void accept(Object instance, QName name, Object data);
+	}
+
+	private static final class HandleBinding implements BiConsumer<Object, Object> {
+		private final MethodHandle handle;
+
+		HandleBinding(final MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public void accept(final Object instance, final Object data) {
+			try {
+				this.handle.invokeExact(instance, data);
+			} catch (final RuntimeException e) {
+				throw e;
+			} catch (final Error e) {
+				throw e;
+			} catch (final Throwable e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	private static final class QualifiedHandleBinding implements QualifiedBinding {
+		private final MethodHandle handle;
+
+		QualifiedHandleBinding(final MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public void accept(final Object instance, final QName name, final Object data) {
+			try {
+				this.handle.invokeExact(instance, name, data);
+			} catch (final RuntimeException e) {
+				throw e;
+			} catch (final Error e) {
+				throw e;
+			} catch (final Throwable e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+}
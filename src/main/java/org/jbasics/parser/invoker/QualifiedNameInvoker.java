@@ -26,15 +26,14 @@ package org.jbasics.parser.invoker;
 import org.jbasics.checker.ContractCheck;
 
 import javax.xml.namespace.QName;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
 
 public class QualifiedNameInvoker<T> implements Invoker<T, QName> {
-	private final Method method;
+	private final BiConsumer<Object, Object> binding;
 
 	private QualifiedNameInvoker(Method method) {
-		this.method = ContractCheck.mustNotBeNull(method, "method");
-		Class<?>[] params = method.getParameterTypes();
+		Class<?>[] params = ContractCheck.mustNotBeNull(method, "method").getParameterTypes();
 		if (params.length == 1) {
 			if (params[0] != QName.class) {
 				throw new IllegalArgumentException(
@@ -44,6 +43,7 @@ public class QualifiedNameInvoker<T> implements Invoker<T, QName> {
 			throw new IllegalArgumentException(
 					"Supplied method has not the right signature. must be setQualifiedName(QName name)");
 		}
+		this.binding = MethodBinding.bind(method);
 	}
 
 	public static <T> QualifiedNameInvoker<T> createInvoker(Class<T> type, Method m) {
@@ -52,10 +52,10 @@ public class QualifiedNameInvoker<T> implements Invoker<T, QName> {
 
 	public void invoke(T instance, QName name, QName data) {
 		try {
-			this.method.invoke(instance, data);
-		} catch (InvocationTargetException e) {
-			throw new RuntimeException(e);
-		} catch (IllegalAccessException e) {
+			this.binding.accept(instance, data);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.stream;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pipe connecting a writing and a reading thread through a bounded ring buffer. Unlike the {@link
+ * java.io.PipedInputStream} the pipe does not poll, does not bind to the writing thread and signals failures of either
+ * side to the other side by {@link #fail(Throwable)}. A writer blocks while the buffer is full, a reader while the
+ * buffer is empty. Closing the sink marks the end of the data, closing the source lets the writer fail instead of
+ * blocking forever.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public final class BoundedPipe {
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = this.lock.newCondition();
+	private final Condition notFull = this.lock.newCondition();
+	private final byte[] buffer;
+	private final OutputStream sink = new Sink();
+	private final InputStream source = new Source();
+	private int readPosition;
+	private int count;
+	private boolean sinkClosed;
+	private boolean sourceClosed;
+	private Throwable failure;
+
+	/**
+	 * Creates a pipe buffering up to the given amount of bytes.
+	 *
+	 * @param capacity The capacity of the buffer (must be greater than zero).
+	 */
+	public BoundedPipe(final int capacity) {
+		this.buffer = new byte[ContractCheck.mustBeInRange(capacity, 1, Integer.MAX_VALUE, "capacity")];
+	}
+
+	/**
+	 * Returns the stream the writing side writes to.
+	 *
+	 * @return The sink of the pipe.
+	 */
+	public OutputStream getSink() {
+		return this.sink;
+	}
+
+	/**
+	 * Returns the stream the reading side reads from.
+	 *
+	 * @return The source of the pipe.
+	 */
+	public InputStream getSource() {
+		return this.source;
+	}
+
+	/**
+	 * Marks the pipe as failed. Any blocked or following read or write fails with an {@link IOException} caused by
+	 * the given failure.
+	 *
+	 * @param cause The cause of the failure.
+	 */
+	public void fail(final Throwable cause) {
+		this.lock.lock();
+		try {
+			if (this.failure == null) {
+				this.failure = cause != null ? cause : new IOException("Pipe failed");
+			}
+			this.notEmpty.signalAll();
+			this.notFull.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void checkFailure() throws IOException {
+		if (this.failure != null) {
+			throw new IOException("Other side of the pipe failed", this.failure);
+		}
+	}
+
+	private static InterruptedIOException interrupted(final InterruptedException e) {
+		Thread.currentThread().interrupt();
+		final InterruptedIOException result = new InterruptedIOException("Interrupted while waiting on pipe");
+		result.initCause(e);
+		return result;
+	}
+
+	private final class Sink extends OutputStream {
+		private final byte[] single = new byte[1];
+
+		@Override
+		public void write(final int b) throws IOException {
+			this.single[0] = (byte) b;
+			write(this.single, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			int offset = off;
+			int remaining = len;
+			final byte[] temp = BoundedPipe.this.buffer;
+			BoundedPipe.this.lock.lock();
+			try {
+				while (remaining > 0) {
+					while (BoundedPipe.this.count == temp.length && !BoundedPipe.this.sourceClosed && BoundedPipe.this.failure == null) {
+						BoundedPipe.this.notFull.await();
+					}
+					checkFailure();
+					if (BoundedPipe.this.sinkClosed || BoundedPipe.this.sourceClosed) {
+						throw new IOException("Pipe closed");
+					}
+					final int writePosition = (BoundedPipe.this.readPosition + BoundedPipe.this.count) % temp.length;
+					final int length = Math.min(remaining, Math.min(temp.length - BoundedPipe.this.count, temp.length - writePosition));
+					System.arraycopy(b, offset, temp, writePosition, length);
+					BoundedPipe.this.count += length;
+					offset += length;
+					remaining -= length;
+					BoundedPipe.this.notEmpty.signal();
+				}
+			} catch (InterruptedException e) {
+				throw BoundedPipe.interrupted(e);
+			} finally {
+				BoundedPipe.this.lock.unlock();
+			}
+		}
+
+		@Override
+		public void close() {
+			BoundedPipe.this.lock.lock();
+			try {
+				BoundedPipe.this.sinkClosed = true;
+				BoundedPipe.this.notEmpty.signalAll();
+			} finally {
+				BoundedPipe.this.lock.unlock();
+			}
+		}
+	}
+
+	private final class Source extends InputStream {
+		private final byte[] single = new byte[1];
+
+		@Override
+		public int read() throws IOException {
+			return read(this.single, 0, 1) < 0 ? -1 : this.single[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			final byte[] temp = BoundedPipe.this.buffer;
+			BoundedPipe.this.lock.lock();
+			try {
+				while (BoundedPipe.this.count == 0 && !BoundedPipe.this.sinkClosed && !BoundedPipe.this.sourceClosed && BoundedPipe.this.failure == null) {
+					BoundedPipe.this.notEmpty.await();
+				}
+				checkFailure();
+				if (BoundedPipe.this.sourceClosed) {
+					throw new IOException("Pipe closed");
+				}
+				if (BoundedPipe.this.count == 0) {
+					return -1;
+				}
+				final int length = Math.min(len, Math.min(BoundedPipe.this.count, temp.length - BoundedPipe.this.readPosition));
+				System.arraycopy(temp, BoundedPipe.this.readPosition, b, off, length);
+				BoundedPipe.this.readPosition = (BoundedPipe.this.readPosition + length) % temp.length;
+				BoundedPipe.this.count -= length;
+				BoundedPipe.this.notFull.signal();
+				return length;
+			} catch (InterruptedException e) {
+				throw BoundedPipe.interrupted(e);
+			} finally {
+				BoundedPipe.this.lock.unlock();
+			}
+		}
+
+		@Override
+		public int available() {
+			BoundedPipe.this.lock.lock();
+			try {
+				return BoundedPipe.this.count;
+			} finally {
+				BoundedPipe.this.lock.unlock();
+			}
+		}
+
+		@Override
+		public void close() {
+			BoundedPipe.this.lock.lock();
+			try {
+				BoundedPipe.this.sourceClosed = true;
+				BoundedPipe.this.count = 0;
+				BoundedPipe.this.notFull.signalAll();
+				BoundedPipe.this.notEmpty.signalAll();
+			} finally {
+				BoundedPipe.this.lock.unlock();
+			}
+		}
+	}
+}
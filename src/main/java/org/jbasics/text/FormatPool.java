@@ -26,7 +26,7 @@ package org.jbasics.text;
 import org.jbasics.checker.ContractCheck;
 import org.jbasics.pattern.factory.Factory;
 import org.jbasics.pattern.pooling.Pool;
-import org.jbasics.types.pools.LazyQueuePool;
+import org.jbasics.types.pools.ConcurrentPool;
 import org.jbasics.types.pools.PooledDelegate;
 
 import java.text.FieldPosition;
@@ -38,7 +38,7 @@ public class FormatPool<T extends Format> extends Format implements Pool<T> {
 	private final Pool<T> formatPool;
 
 	public FormatPool(final Factory<T> formatFactory) {
-		this.formatPool = new LazyQueuePool<T>(ContractCheck.mustNotBeNull(formatFactory, "formatFactory"));
+		this.formatPool = new ConcurrentPool<T>(ContractCheck.mustNotBeNull(formatFactory, "formatFactory"));
 	}
 
 	@Override
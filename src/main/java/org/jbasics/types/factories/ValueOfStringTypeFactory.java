@@ -31,6 +31,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -43,11 +44,15 @@ public class ValueOfStringTypeFactory<InstanceType> implements ParameterFactory<
 	private static Reference<Map<Class<?>, ValueOfStringTypeFactory<?>>> factoryCache;
 	private final Method valueOfMethod;
 	private final Constructor<InstanceType> stringConstructor;
+	private final boolean stringType;
+	private final boolean decimalType;
 
 	private ValueOfStringTypeFactory(Class<InstanceType> type) {
 		if (type == null) {
 			throw new IllegalArgumentException("Null parameter: type");
 		}
+		this.stringType = type == String.class;
+		this.decimalType = type == BigDecimal.class;
 		this.valueOfMethod = getStaticValueOfStringMethod(type);
 		if (this.valueOfMethod == null) {
 			this.stringConstructor = getStringConstructor(type);
@@ -110,6 +115,9 @@ public class ValueOfStringTypeFactory<InstanceType> implements ParameterFactory<
 	@SuppressWarnings("unchecked")
 	public InstanceType create(String value) {
 		if (value != null) {
+			if (this.stringType) {
+				return (InstanceType) value;
+			}
 			try {
 				if (this.valueOfMethod != null) {
 					return (InstanceType) this.valueOfMethod.invoke(null, value);
@@ -126,4 +134,25 @@ public class ValueOfStringTypeFactory<InstanceType> implements ParameterFactory<
 		}
 		return null;
 	}
+
+	/**
+	 * Creates the instance from the characters of the array. Strings and decimals are created directly from the
+	 * characters while all other types are created from a string of the characters.
+	 *
+	 * @param ch     The character array holding the value (null results in null)
+	 * @param start  The offset of the value in the array
+	 * @param length The length of the value
+	 *
+	 * @return The created instance or null if the array is null
+	 */
+	@SuppressWarnings("unchecked")
+	public InstanceType create(char[] ch, int start, int length) {
+		if (ch == null) {
+			return null;
+		} else if (this.decimalType) {
+			return (InstanceType) new BigDecimal(ch, start, length);
+		} else {
+			return create(new String(ch, start, length));
+		}
+	}
 }
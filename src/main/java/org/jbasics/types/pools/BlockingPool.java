@@ -25,11 +25,15 @@ package org.jbasics.types.pools;
 
 import org.jbasics.checker.ContractCheck;
 import org.jbasics.exception.DelegatedException;
+import org.jbasics.jmx.ObjectNameBuilder;
 import org.jbasics.pattern.delegation.LifecycleDelegate;
 import org.jbasics.pattern.factory.Factory;
 import org.jbasics.pattern.pooling.NewPool;
 import org.jbasics.pattern.pooling.PooledInstance;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -49,10 +53,28 @@ public class BlockingPool<T> implements NewPool<T> {
 	protected final Factory<LifecycleDelegate<T>> instanceFactory;
 	protected final BlockingQueue<LifecycleDelegate<T>> passiveInstances;
 	protected final List<LifecycleDelegate<T>> managedInstances;
+	protected final BlockingPoolMetrics metrics;
 	private final Logger logger = Logger.getLogger(BlockingQueue.class.getName());
 	protected boolean closed = false;
+	private volatile ObjectName registeredName;
 
 	public BlockingPool(final Factory<LifecycleDelegate<T>> instanceFactory, final int maxIdle, final int maxActive, final long maxWait) {
+		this(instanceFactory, maxIdle, maxActive, maxWait, 0L);
+	}
+
+	/**
+	 * Creates a blocking pool with leak detection. Each borrower's stack is recorded so instances borrowed for longer
+	 * than the leak threshold can be reported with the place they were acquired.
+	 *
+	 * @param instanceFactory The factory to create the instances (must not be null).
+	 * @param maxIdle         The maximum amount of idle instances.
+	 * @param maxActive       The maximum amount of managed instances.
+	 * @param maxWait         The default time in milliseconds to wait for an instance.
+	 * @param leakThreshold   The time in milliseconds after which a borrowed instance is a leak suspect (zero or less
+	 *                        to disable leak detection).
+	 */
+	public BlockingPool(final Factory<LifecycleDelegate<T>> instanceFactory, final int maxIdle, final int maxActive, final long maxWait,
+			final long leakThreshold) {
 		this.instanceFactory = ContractCheck.mustNotBeNull(instanceFactory, "instanceFactory"); //$NON-NLS-1$
 		this.maxIdle = maxIdle <= 0 ? BlockingPool.DEFAULT_MAX_IDLE : maxIdle;
 		final int maxActiveTemp = maxActive <= 0 ? BlockingPool.DEFAULT_MAX_ACTIVE : maxActive;
@@ -60,6 +82,30 @@ public class BlockingPool<T> implements NewPool<T> {
 		this.maxWait = maxWait < 0 ? BlockingPool.DEFAULT_MAX_WAIT : maxWait;
 		this.passiveInstances = new ArrayBlockingQueue<LifecycleDelegate<T>>(this.maxIdle);
 		this.managedInstances = new ArrayList<LifecycleDelegate<T>>();
+		this.metrics = new BlockingPoolMetrics(this, leakThreshold);
+	}
+
+	public BlockingPoolMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Registers the metrics of this pool at the platform MBean server with the name
+	 * org.jbasics:type=BlockingPool,name=&lt;name&gt;. The registration is removed when the pool is closed.
+	 *
+	 * @param name The name of the pool (must not be null).
+	 *
+	 * @return The object name registered.
+	 */
+	public ObjectName registerMBean(final String name) {
+		final ObjectName objectName = new ObjectNameBuilder().withDomain("org.jbasics").withProperty("type", "BlockingPool").withProperty("name", name).build(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this.metrics, objectName);
+		} catch (final JMException e) {
+			throw DelegatedException.delegate(e);
+		}
+		this.registeredName = objectName;
+		return objectName;
 	}
 
 	@Override
@@ -70,6 +116,13 @@ public class BlockingPool<T> implements NewPool<T> {
 		return new PooledDelegate(-1);
 	}
 
+	/**
+	 * Returns a pooled instance which acquires the underlying instance on first use.
+	 *
+	 * @param timeout The time in milliseconds to wait at most for an instance (zero or less to wait without limit).
+	 *
+	 * @return The pooled instance which must be released after use.
+	 */
 	@Override
 	public PooledInstance<T> aquire(final long timeout) {
 		if (this.closed) {
@@ -81,7 +134,23 @@ public class BlockingPool<T> implements NewPool<T> {
 	@Override
 	public void close() {
 		this.closed = true;
-		for (final LifecycleDelegate<T> pooled : this.managedInstances) {
+		final ObjectName objectName = this.registeredName;
+		if (objectName != null) {
+			this.registeredName = null;
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (final JMException e) {
+				if (this.logger.isLoggable(Level.WARNING)) {
+					this.logger.log(Level.WARNING, "Could not unregister pool metrics " + objectName, e); //$NON-NLS-1$
+				}
+			}
+		}
+		final List<LifecycleDelegate<T>> instances;
+		synchronized (this.managedInstances) {
+			instances = new ArrayList<LifecycleDelegate<T>>(this.managedInstances);
+			this.managedInstances.clear();
+		}
+		for (final LifecycleDelegate<T> pooled : instances) {
 			try {
 				pooled.passivate();
 			} catch (final RuntimeException e) {
@@ -91,6 +160,7 @@ public class BlockingPool<T> implements NewPool<T> {
 			}
 			try {
 				pooled.release();
+				this.metrics.destroyed();
 			} catch (final RuntimeException e) {
 				if (this.logger.isLoggable(Level.SEVERE)) {
 					this.logger.log(Level.SEVERE, "Could not release pool instance", e); //$NON-NLS-1$
@@ -110,21 +180,19 @@ public class BlockingPool<T> implements NewPool<T> {
 		@Override
 		public boolean release() {
 			if (this.instance != null) {
-				this.instance.passivate();
-				if (!BlockingPool.this.passiveInstances.offer(this.instance)) {
-					this.instance.release();
-					synchronized (BlockingPool.this.managedInstances) {
-						final Iterator<LifecycleDelegate<T>> i = BlockingPool.this.managedInstances.iterator();
-						while (i.hasNext()) {
-							// we want to remove the exact instance NOT the equals checked instance
-							if (this.instance == i.next()) {
-								i.remove();
-								break;
-							}
-						}
+				final LifecycleDelegate<T> pooled = this.instance;
+				this.instance = null;
+				boolean passivated = false;
+				try {
+					pooled.passivate();
+					passivated = true;
+				} finally {
+					// every acquired instance is released in the metrics even if it could not be passivated
+					BlockingPool.this.metrics.released(this);
+					if (!passivated || !BlockingPool.this.passiveInstances.offer(pooled)) {
+						discard(pooled);
 					}
 				}
-				this.instance = null;
 			}
 			return true;
 		}
@@ -135,17 +203,20 @@ public class BlockingPool<T> implements NewPool<T> {
 				throw new IllegalStateException("Pool already closed and therefor all pooled instance are freed"); //$NON-NLS-1$
 			}
 			if (this.instance == null) {
+				final long start = System.nanoTime();
 				this.instance = BlockingPool.this.passiveInstances.poll();
 				if (this.instance == null) {
 					synchronized (BlockingPool.this.managedInstances) {
 						final int currentActive = BlockingPool.this.managedInstances.size();
 						if (currentActive < BlockingPool.this.maxActive) {
 							BlockingPool.this.managedInstances.add(this.instance = BlockingPool.this.instanceFactory.newInstance());
+							BlockingPool.this.metrics.created();
 						}
 					}
 				}
 				if (this.instance == null) {
 					// we did not create one so we must already be at the limit. Go and take rather than poll.
+					BlockingPool.this.metrics.waiting(true);
 					try {
 						if (this.timeout > 0) {
 							this.instance = BlockingPool.this.passiveInstances.poll(this.timeout, TimeUnit.MILLISECONDS);
@@ -154,14 +225,48 @@ public class BlockingPool<T> implements NewPool<T> {
 						}
 					} catch (final InterruptedException e) {
 						throw DelegatedException.delegate(e);
+					} finally {
+						BlockingPool.this.metrics.waiting(false);
 					}
 					if (this.instance == null) {
+						BlockingPool.this.metrics.timedOut();
 						throw new RuntimeException("Pool did not provide an instance to be used within the given time out"); //$NON-NLS-1$
 					}
 				}
-				this.instance.activate();
+				BlockingPool.this.metrics.acquired(this, System.nanoTime() - start);
+				boolean activated = false;
+				try {
+					this.instance.activate();
+					activated = true;
+				} finally {
+					if (!activated) {
+						// an instance failing to activate is not handed out so it is released and dropped right away
+						final LifecycleDelegate<T> pooled = this.instance;
+						this.instance = null;
+						BlockingPool.this.metrics.released(this);
+						discard(pooled);
+					}
+				}
 			}
 			return this.instance.delegate();
 		}
+
+		private void discard(final LifecycleDelegate<T> pooled) {
+			synchronized (BlockingPool.this.managedInstances) {
+				final Iterator<LifecycleDelegate<T>> i = BlockingPool.this.managedInstances.iterator();
+				while (i.hasNext()) {
+					// we want to remove the exact instance NOT the equals checked instance
+					if (pooled == i.next()) {
+						i.remove();
+						break;
+					}
+				}
+			}
+			try {
+				pooled.release();
+			} finally {
+				BlockingPool.this.metrics.destroyed();
+			}
+		}
 	}
 }
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.types.pools;
+
+import org.jbasics.annotation.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runtime metrics of a {@link BlockingPool}. Counters are kept in {@link LongAdder}s and the acquire latency in a
+ * histogram with buckets doubling in size starting at one microsecond so recording never contends. Leak detection keeps
+ * the stack of each borrower if a leak threshold is set and reports instances borrowed for longer than the threshold.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public class BlockingPoolMetrics implements BlockingPoolMetricsMBean {
+	private static final int BUCKETS = 32;
+
+	private final BlockingPool<?> pool;
+	private final Logger logger = Logger.getLogger(BlockingPoolMetrics.class.getName());
+	private final LongAdder acquires = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder created = new LongAdder();
+	private final LongAdder destroyed = new LongAdder();
+	private final LongAdder latencySum = new LongAdder();
+	private final AtomicLong latencyMax = new AtomicLong();
+	private final AtomicLongArray histogram = new AtomicLongArray(BlockingPoolMetrics.BUCKETS);
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final Map<Object, Borrow> borrows = new ConcurrentHashMap<Object, Borrow>();
+	private volatile long startNanos = System.nanoTime();
+	private volatile long leakThreshold;
+
+	BlockingPoolMetrics(final BlockingPool<?> pool, final long leakThreshold) {
+		this.pool = pool;
+		this.leakThreshold = leakThreshold;
+	}
+
+	void acquired(final Object borrower, final long waitNanos) {
+		this.acquires.increment();
+		this.active.incrementAndGet();
+		final long micros = TimeUnit.NANOSECONDS.toMicros(waitNanos);
+		this.latencySum.add(micros);
+		long max;
+		while (micros > (max = this.latencyMax.get()) && !this.latencyMax.compareAndSet(max, micros)) {
+			// retry until the maximum is set
+		}
+		this.histogram.incrementAndGet(Math.min(BlockingPoolMetrics.BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+		if (this.leakThreshold > 0) {
+			this.borrows.put(borrower, new Borrow(Thread.currentThread().getName(), new Throwable("Borrowed here")));
+		}
+	}
+
+	void released(final Object borrower) {
+		this.active.decrementAndGet();
+		this.borrows.remove(borrower);
+	}
+
+	void timedOut() {
+		this.timeouts.increment();
+	}
+
+	void created() {
+		this.created.increment();
+	}
+
+	void destroyed() {
+		this.destroyed.increment();
+	}
+
+	void waiting(final boolean waiting) {
+		if (waiting) {
+			this.waiting.incrementAndGet();
+		} else {
+			this.waiting.decrementAndGet();
+		}
+	}
+
+	@Override
+	public int getActiveCount() {
+		return this.active.get();
+	}
+
+	@Override
+	public int getIdleCount() {
+		return this.pool.passiveInstances.size();
+	}
+
+	@Override
+	public int getManagedCount() {
+		synchronized (this.pool.managedInstances) {
+			return this.pool.managedInstances.size();
+		}
+	}
+
+	@Override
+	public int getMaxActive() {
+		return this.pool.maxActive;
+	}
+
+	@Override
+	public int getMaxIdle() {
+		return this.pool.maxIdle;
+	}
+
+	@Override
+	public int getWaitingCount() {
+		return this.waiting.get();
+	}
+
+	@Override
+	public long getAcquireCount() {
+		return this.acquires.sum();
+	}
+
+	@Override
+	public long getTimeoutCount() {
+		return this.timeouts.sum();
+	}
+
+	@Override
+	public long getCreatedCount() {
+		return this.created.sum();
+	}
+
+	@Override
+	public long getDestroyedCount() {
+		return this.destroyed.sum();
+	}
+
+	@Override
+	public double getCreatedPerSecond() {
+		return perSecond(this.created.sum());
+	}
+
+	@Override
+	public double getDestroyedPerSecond() {
+		return perSecond(this.destroyed.sum());
+	}
+
+	@Override
+	public double getMeanAcquireLatency() {
+		final long count = this.acquires.sum();
+		return count == 0 ? 0.0 : (double) this.latencySum.sum() / count;
+	}
+
+	@Override
+	public long getMaxAcquireLatency() {
+		return this.latencyMax.get();
+	}
+
+	@Override
+	public long getAcquireLatencyPercentile50() {
+		return percentile(0.5);
+	}
+
+	@Override
+	public long getAcquireLatencyPercentile99() {
+		return percentile(0.99);
+	}
+
+	@Override
+	public long[] getAcquireLatencyBuckets() {
+		final long[] result = new long[BlockingPoolMetrics.BUCKETS];
+		for (int i = 0; i < result.length - 1; i++) {
+			result[i] = (1L << i) - 1;
+		}
+		result[result.length - 1] = Long.MAX_VALUE;
+		return result;
+	}
+
+	@Override
+	public long[] getAcquireLatencyHistogram() {
+		final long[] result = new long[BlockingPoolMetrics.BUCKETS];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = this.histogram.get(i);
+		}
+		return result;
+	}
+
+	@Override
+	public long getLeakThreshold() {
+		return this.leakThreshold;
+	}
+
+	@Override
+	public void setLeakThreshold(final long leakThreshold) {
+		this.leakThreshold = leakThreshold;
+		if (leakThreshold <= 0) {
+			this.borrows.clear();
+		}
+	}
+
+	@Override
+	public String[] getLeakSuspects() {
+		final List<String> result = new ArrayList<String>();
+		for (final Borrow borrow : leakSuspects()) {
+			result.add(borrow.describe());
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	/**
+	 * Logs all leak suspects not yet reported as warning.
+	 *
+	 * @return The amount of new leak suspects.
+	 */
+	public int reportLeaks() {
+		int result = 0;
+		for (final Borrow borrow : leakSuspects()) {
+			if (!borrow.reported) {
+				borrow.reported = true;
+				result++;
+				if (this.logger.isLoggable(Level.WARNING)) {
+					this.logger.log(Level.WARNING, "Pool instance borrowed by " + borrow.thread + " for " + borrow.borrowedMillis() + "ms", borrow.stack); //$NON-NLS-1$
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void reset() {
+		this.acquires.reset();
+		this.timeouts.reset();
+		this.created.reset();
+		this.destroyed.reset();
+		this.latencySum.reset();
+		this.latencyMax.set(0);
+		for (int i = 0; i < BlockingPoolMetrics.BUCKETS; i++) {
+			this.histogram.set(i, 0);
+		}
+		this.startNanos = System.nanoTime();
+	}
+
+	private List<Borrow> leakSuspects() {
+		final List<Borrow> result = new ArrayList<Borrow>();
+		final long threshold = this.leakThreshold;
+		if (threshold > 0) {
+			for (final Borrow borrow : this.borrows.values()) {
+				if (borrow.borrowedMillis() > threshold) {
+					result.add(borrow);
+				}
+			}
+		}
+		return result;
+	}
+
+	private double perSecond(final long count) {
+		final double seconds = (System.nanoTime() - this.startNanos) / 1e9;
+		return seconds <= 0.0 ? 0.0 : count / seconds;
+	}
+
+	private long percentile(final double fraction) {
+		final long[] counts = getAcquireLatencyHistogram();
+		long total = 0;
+		for (final long count : counts) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		final long rank = (long) Math.ceil(total * fraction);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return i == counts.length - 1 ? this.latencyMax.get() : (1L << i) - 1;
+			}
+		}
+		return this.latencyMax.get();
+	}
+
+	private static final class Borrow {
+		private final String thread;
+		private final Throwable stack;
+		private final long since = System.nanoTime();
+		private volatile boolean reported;
+
+		private Borrow(final String thread, final Throwable stack) {
+			this.thread = thread;
+			this.stack = stack;
+		}
+
+		private long borrowedMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.since);
+		}
+
+		private String describe() {
+			final StringBuilder result = new StringBuilder("Borrowed by ").append(this.thread).append(" for ").append(borrowedMillis()).append("ms");
+			for (final StackTraceElement element : this.stack.getStackTrace()) {
+				result.append("\n\tat ").append(element);
+			}
+			return result.toString();
+		}
+	}
+}
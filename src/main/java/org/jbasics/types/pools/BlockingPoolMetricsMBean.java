@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.types.pools;
+
+/**
+ * The management interface of the {@link BlockingPoolMetrics} published by {@link BlockingPool#registerMBean(String)}.
+ * Latencies are in microseconds, rates in events per second since the pool was created.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+public interface BlockingPoolMetricsMBean {
+
+	int getActiveCount();
+
+	int getIdleCount();
+
+	int getManagedCount();
+
+	int getMaxActive();
+
+	int getMaxIdle();
+
+	int getWaitingCount();
+
+	long getAcquireCount();
+
+	long getTimeoutCount();
+
+	long getCreatedCount();
+
+	long getDestroyedCount();
+
+	double getCreatedPerSecond();
+
+	double getDestroyedPerSecond();
+
+	double getMeanAcquireLatency();
+
+	long getMaxAcquireLatency();
+
+	long getAcquireLatencyPercentile50();
+
+	long getAcquireLatencyPercentile99();
+
+	/**
+	 * Returns the upper bounds in microseconds of the buckets of the acquire latency histogram.
+	 *
+	 * @return The upper bounds of the buckets.
+	 */
+	long[] getAcquireLatencyBuckets();
+
+	/**
+	 * Returns the amount of acquires per bucket of the acquire latency histogram.
+	 *
+	 * @return The counts per bucket.
+	 */
+	long[] getAcquireLatencyHistogram();
+
+	long getLeakThreshold();
+
+	void setLeakThreshold(long leakThreshold);
+
+	/**
+	 * Returns a description of all instances borrowed for longer than the leak threshold including the stack of the
+	 * borrower at the time the instance was acquired.
+	 *
+	 * @return The descriptions of the leak suspects.
+	 */
+	String[] getLeakSuspects();
+
+	void reset();
+}
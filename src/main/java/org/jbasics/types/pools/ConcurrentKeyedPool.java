@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.types.pools;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.exception.DelegatedException;
+import org.jbasics.pattern.delegation.LifecycleDelegate;
+import org.jbasics.pattern.factory.ParameterFactory;
+import org.jbasics.pattern.pooling.KeyedPool;
+import org.jbasics.pattern.pooling.PooledInstance;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link KeyedPool} holding a concurrent sub pool per key. Each key is limited in the amount of instances active
+ * and idle and all keys together share a global limit of managed instances. If the global limit is reached the idle
+ * instances of the least recently used other key are destroyed to make room, keys without any use for longer than the
+ * key idle time lose their idle instances and are removed. <p> Acquiring and releasing with idle instances available
+ * does not take any lock. Only callers which need to wait for an instance (the limits are reached) wait on a shared
+ * condition for at most the given timeout. Unlike the {@link BlockingPool} the instance is acquired by the call to
+ * {@link #aquire(Object, long)} so a timeout is reported there. </p>
+ *
+ * @param <K> The type of the key.
+ * @param <T> The type of the pooled instances.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public class ConcurrentKeyedPool<K, T> implements KeyedPool<K, T> {
+	public static final long DEFAULT_KEY_IDLE_TIME = 300000L;
+	private static final int RETIRED = -1;
+
+	private final Logger logger = Logger.getLogger(ConcurrentKeyedPool.class.getName());
+	private final ParameterFactory<LifecycleDelegate<T>, K> instanceFactory;
+	private final int maxIdlePerKey;
+	private final int maxActivePerKey;
+	private final int maxTotal;
+	private final long maxWait;
+	private final long keyIdleNanos;
+	private final ConcurrentMap<K, SubPool> pools = new ConcurrentHashMap<K, SubPool>();
+	private final AtomicInteger totalManaged = new AtomicInteger();
+	private final AtomicInteger waiters = new AtomicInteger();
+	private final AtomicLong signals = new AtomicLong();
+	private final ReentrantLock waitLock = new ReentrantLock();
+	private final Condition available = this.waitLock.newCondition();
+	private final AtomicLong nextSweep;
+	private volatile boolean closed;
+
+	public ConcurrentKeyedPool(final ParameterFactory<LifecycleDelegate<T>, K> instanceFactory) {
+		this(instanceFactory, BlockingPool.DEFAULT_MAX_IDLE, BlockingPool.DEFAULT_MAX_ACTIVE, Integer.MAX_VALUE, BlockingPool.DEFAULT_MAX_WAIT,
+				ConcurrentKeyedPool.DEFAULT_KEY_IDLE_TIME);
+	}
+
+	/**
+	 * Creates a keyed pool.
+	 *
+	 * @param instanceFactory The factory creating an instance for a key (must not be null).
+	 * @param maxIdlePerKey   The maximum amount of idle instances per key.
+	 * @param maxActivePerKey The maximum amount of managed (active and idle) instances per key.
+	 * @param maxTotal        The maximum amount of managed instances over all keys.
+	 * @param maxWait         The time in milliseconds {@link #aquire(Object)} waits for an instance (zero to wait
+	 *                        without limit, less than zero for the {@link BlockingPool#DEFAULT_MAX_WAIT default}).
+	 * @param keyIdleTime     The time in milliseconds after which an unused key is evicted (zero or less to never
+	 *                        evict keys).
+	 */
+	public ConcurrentKeyedPool(final ParameterFactory<LifecycleDelegate<T>, K> instanceFactory, final int maxIdlePerKey, final int maxActivePerKey,
+			final int maxTotal, final long maxWait, final long keyIdleTime) {
+		this.instanceFactory = ContractCheck.mustNotBeNull(instanceFactory, "instanceFactory"); //$NON-NLS-1$
+		this.maxActivePerKey = ContractCheck.mustBeInRange(maxActivePerKey, 1, Integer.MAX_VALUE, "maxActivePerKey"); //$NON-NLS-1$
+		this.maxIdlePerKey = ContractCheck.mustBeInRange(maxIdlePerKey, 0, maxActivePerKey, "maxIdlePerKey"); //$NON-NLS-1$
+		this.maxTotal = ContractCheck.mustBeInRange(maxTotal, 1, Integer.MAX_VALUE, "maxTotal"); //$NON-NLS-1$
+		this.maxWait = maxWait < 0 ? BlockingPool.DEFAULT_MAX_WAIT : maxWait;
+		this.keyIdleNanos = keyIdleTime > 0 ? TimeUnit.MILLISECONDS.toNanos(keyIdleTime) : Long.MAX_VALUE >> 2;
+		this.nextSweep = new AtomicLong(System.nanoTime() + this.keyIdleNanos);
+	}
+
+	@Override
+	public PooledInstance<T> aquire(final K key) {
+		return aquire(key, this.maxWait);
+	}
+
+	/**
+	 * Acquires an instance for the key waiting at most the given time if the limits are reached.
+	 *
+	 * @param key     The key (must not be null).
+	 * @param timeout The time in milliseconds to wait at most (zero or less to wait without limit like the {@link
+	 *                BlockingPool}).
+	 *
+	 * @return The pooled instance which must be released after use.
+	 *
+	 * @throws IllegalStateException If the pool is closed or no instance became available within the timeout.
+	 */
+	@Override
+	public PooledInstance<T> aquire(final K key, final long timeout) {
+		ContractCheck.mustNotBeNull(key, "key"); //$NON-NLS-1$
+		checkOpen();
+		sweepIfDue(System.nanoTime());
+		Borrowed result = tryAquire(key);
+		if (result == null) {
+			result = awaitAquire(key, timeout);
+		}
+		try {
+			result.instance.activate();
+		} catch (final RuntimeException e) {
+			result.subPool.destroy(result.instance);
+			throw e;
+		}
+		return result;
+	}
+
+	@Override
+	public void close() {
+		if (!this.closed) {
+			this.closed = true;
+			for (final SubPool subPool : this.pools.values()) {
+				subPool.destroyIdle();
+			}
+			signalAvailable();
+		}
+	}
+
+	/**
+	 * Destroys the idle instances of all keys not used for longer than the key idle time and removes the keys without
+	 * any managed instance left.
+	 *
+	 * @return The amount of keys removed.
+	 */
+	public int evictIdleKeys() {
+		final long now = System.nanoTime();
+		int result = 0;
+		for (final Map.Entry<K, SubPool> entry : this.pools.entrySet()) {
+			final SubPool subPool = entry.getValue();
+			if (now - subPool.lastUsed > this.keyIdleNanos) {
+				subPool.destroyIdle();
+				if (subPool.managed.compareAndSet(0, ConcurrentKeyedPool.RETIRED) && this.pools.remove(entry.getKey(), subPool)) {
+					result++;
+				}
+			}
+		}
+		return result;
+	}
+
+	public int getKeyCount() {
+		return this.pools.size();
+	}
+
+	public int getManagedCount() {
+		return this.totalManaged.get();
+	}
+
+	public int getManagedCount(final K key) {
+		final SubPool subPool = this.pools.get(key);
+		return subPool == null ? 0 : Math.max(0, subPool.managed.get());
+	}
+
+	public int getIdleCount(final K key) {
+		final SubPool subPool = this.pools.get(key);
+		return subPool == null ? 0 : subPool.idleCount.get();
+	}
+
+	private Borrowed tryAquire(final K key) {
+		while (true) {
+			SubPool subPool = this.pools.get(key);
+			if (subPool == null) {
+				final SubPool temp = new SubPool(key);
+				subPool = this.pools.putIfAbsent(key, temp);
+				if (subPool == null) {
+					subPool = temp;
+				}
+			}
+			subPool.lastUsed = System.nanoTime();
+			final LifecycleDelegate<T> idle = subPool.pollIdle();
+			if (idle != null) {
+				return new Borrowed(subPool, idle);
+			}
+			final int reserved = ConcurrentKeyedPool.reserve(subPool.managed, this.maxActivePerKey);
+			if (reserved == ConcurrentKeyedPool.RETIRED) {
+				// the sub pool got evicted in the meantime, take the new one
+				continue;
+			} else if (reserved == 0) {
+				return null;
+			}
+			if (ConcurrentKeyedPool.reserve(this.totalManaged, this.maxTotal) == 0
+					&& !(evictLeastRecentlyUsed(subPool) && ConcurrentKeyedPool.reserve(this.totalManaged, this.maxTotal) != 0)) {
+				subPool.managed.decrementAndGet();
+				return null;
+			}
+			try {
+				final LifecycleDelegate<T> created = this.instanceFactory.create(key);
+				if (created == null) {
+					throw new IllegalStateException("Factory returned null instance for key " + key); //$NON-NLS-1$
+				}
+				return new Borrowed(subPool, created);
+			} catch (final RuntimeException e) {
+				subPool.managed.decrementAndGet();
+				this.totalManaged.decrementAndGet();
+				signalAvailable();
+				throw e;
+			}
+		}
+	}
+
+	/*
+	 * Waits until an instance is released or destroyed and tries again. The wait lock is only held while waiting so the
+	 * factory creating an instance never runs under the lock. The signal counter detects any signal sent between the
+	 * failed try and acquiring the lock which would otherwise be lost.
+	 */
+	private Borrowed awaitAquire(final K key, final long timeout) {
+		final boolean timed = timeout > 0;
+		final long deadline = timed ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0L;
+		this.waiters.incrementAndGet();
+		try {
+			while (true) {
+				checkOpen();
+				final long signal = this.signals.get();
+				final Borrowed result = tryAquire(key);
+				if (result != null) {
+					return result;
+				}
+				final long remaining = deadline - System.nanoTime();
+				if (timed && remaining <= 0) {
+					throw new IllegalStateException("Pool did not provide an instance for key " + key + " within the given time out"); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				this.waitLock.lock();
+				try {
+					if (signal == this.signals.get()) {
+						if (timed) {
+							this.available.awaitNanos(remaining);
+						} else {
+							this.available.await();
+						}
+					}
+				} finally {
+					this.waitLock.unlock();
+				}
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw DelegatedException.delegate(e);
+		} finally {
+			this.waiters.decrementAndGet();
+		}
+	}
+
+	/*
+	 * Destroys the oldest idle instance of the least recently used key (other than the given one) to free a slot of
+	 * the global limit.
+	 */
+	private boolean evictLeastRecentlyUsed(final SubPool exclude) {
+		SubPool candidate = null;
+		for (final SubPool subPool : this.pools.values()) {
+			if (subPool != exclude && subPool.idleCount.get() > 0 && (candidate == null || subPool.lastUsed - candidate.lastUsed < 0)) {
+				candidate = subPool;
+			}
+		}
+		if (candidate != null) {
+			final LifecycleDelegate<T> idle = candidate.pollOldestIdle();
+			if (idle != null) {
+				candidate.destroy(idle);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void sweepIfDue(final long now) {
+		final long due = this.nextSweep.get();
+		if (now - due >= 0 && this.nextSweep.compareAndSet(due, now + this.keyIdleNanos)) {
+			evictIdleKeys();
+		}
+	}
+
+	private void signalAvailable() {
+		this.signals.incrementAndGet();
+		if (this.waiters.get() > 0) {
+			this.waitLock.lock();
+			try {
+				this.available.signalAll();
+			} finally {
+				this.waitLock.unlock();
+			}
+		}
+	}
+
+	private void checkOpen() {
+		if (this.closed) {
+			throw new IllegalStateException("Pool already closed"); //$NON-NLS-1$
+		}
+	}
+
+	/*
+	 * Increments the counter if it is below the limit. Returns 0 if the limit is reached, RETIRED if the counter is
+	 * retired and 1 otherwise.
+	 */
+	private static int reserve(final AtomicInteger counter, final int limit) {
+		while (true) {
+			final int current = counter.get();
+			if (current < 0) {
+				return ConcurrentKeyedPool.RETIRED;
+			} else if (current >= limit) {
+				return 0;
+			} else if (counter.compareAndSet(current, current + 1)) {
+				return 1;
+			}
+		}
+	}
+
+	private final class SubPool {
+		private final K key;
+		private final ConcurrentLinkedDeque<LifecycleDelegate<T>> idle = new ConcurrentLinkedDeque<LifecycleDelegate<T>>();
+		private final AtomicInteger idleCount = new AtomicInteger();
+		private final AtomicInteger managed = new AtomicInteger();
+		private volatile long lastUsed = System.nanoTime();
+
+		private SubPool(final K key) {
+			this.key = key;
+		}
+
+		private LifecycleDelegate<T> pollIdle() {
+			final LifecycleDelegate<T> result = this.idle.pollFirst();
+			if (result != null) {
+				this.idleCount.decrementAndGet();
+			}
+			return result;
+		}
+
+		private LifecycleDelegate<T> pollOldestIdle() {
+			final LifecycleDelegate<T> result = this.idle.pollLast();
+			if (result != null) {
+				this.idleCount.decrementAndGet();
+			}
+			return result;
+		}
+
+		private void release(final LifecycleDelegate<T> instance) {
+			try {
+				instance.passivate();
+			} catch (final RuntimeException e) {
+				destroy(instance);
+				return;
+			}
+			if (!ConcurrentKeyedPool.this.closed && ConcurrentKeyedPool.reserve(this.idleCount, ConcurrentKeyedPool.this.maxIdlePerKey) == 1) {
+				this.idle.offerFirst(instance);
+				signalAvailable();
+				if (ConcurrentKeyedPool.this.closed) {
+					destroyIdle();
+				}
+			} else {
+				destroy(instance);
+			}
+		}
+
+		private void destroyIdle() {
+			LifecycleDelegate<T> instance;
+			while ((instance = pollIdle()) != null) {
+				destroy(instance);
+			}
+		}
+
+		private void destroy(final LifecycleDelegate<T> instance) {
+			try {
+				instance.release();
+			} catch (final RuntimeException e) {
+				if (ConcurrentKeyedPool.this.logger.isLoggable(Level.SEVERE)) {
+					ConcurrentKeyedPool.this.logger.log(Level.SEVERE, "Could not release pool instance of key " + this.key, e); //$NON-NLS-1$
+				}
+			} finally {
+				this.managed.decrementAndGet();
+				ConcurrentKeyedPool.this.totalManaged.decrementAndGet();
+				signalAvailable();
+			}
+		}
+	}
+
+	private final class Borrowed implements PooledInstance<T> {
+		private final SubPool subPool;
+		private LifecycleDelegate<T> instance;
+
+		private Borrowed(final SubPool subPool, final LifecycleDelegate<T> instance) {
+			this.subPool = subPool;
+			this.instance = instance;
+		}
+
+		@Override
+		public T delegate() {
+			if (this.instance == null) {
+				throw new IllegalStateException("Pooled instance already released"); //$NON-NLS-1$
+			}
+			return this.instance.delegate();
+		}
+
+		@Override
+		public boolean release() {
+			final LifecycleDelegate<T> temp = this.instance;
+			if (temp != null) {
+				this.instance = null;
+				this.subPool.release(temp);
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.types.pools;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.pattern.factory.Factory;
+import org.jbasics.pattern.pooling.Pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link Pool} for high concurrency without any lock. Released instances are first kept in a striped cache where each
+ * thread has its preferred slot so threads usually do not contend with each other. If the slot is taken the instance
+ * goes to a bounded lock free ring shared by all threads. <p> The pool keeps at most the maximum pool size of idle
+ * instances (strictly, release returns false once the limit is reached). Instances idle for longer than the maximum
+ * idle time are dropped when found and by a sweep running at most once per idle time as part of acquire or release.
+ * Like the {@link LazyQueuePool} acquire never blocks but creates a new instance if no idle one is available. </p>
+ *
+ * @param <T> The type of the pooled instances.
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public class ConcurrentPool<T> implements Pool<T> {
+	public static final int DEFAULT_MAX_POOL_SIZE = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+	public static final long DEFAULT_MAX_IDLE_TIME = 60000L;
+	private static final int MAX_STRIPES = 64;
+
+	private final Factory<T> factory;
+	private final int maxPoolSize;
+	private final long maxIdleNanos;
+	private final long sweepInterval;
+	private final AtomicReferenceArray<Idle<T>> stripes;
+	private final int stripeMask;
+	private final Ring<Idle<T>> overflow;
+	private final AtomicInteger idleCount = new AtomicInteger();
+	private final AtomicLong nextSweep;
+
+	public ConcurrentPool(final Factory<T> factory) {
+		this(factory, ConcurrentPool.DEFAULT_MAX_POOL_SIZE, ConcurrentPool.DEFAULT_MAX_IDLE_TIME);
+	}
+
+	public ConcurrentPool(final Factory<T> factory, final int maxPoolSize) {
+		this(factory, maxPoolSize, ConcurrentPool.DEFAULT_MAX_IDLE_TIME);
+	}
+
+	/**
+	 * Creates a pool for the given factory.
+	 *
+	 * @param factory     The factory to create new instances (must not be null).
+	 * @param maxPoolSize The maximum amount of idle instances kept (zero keeps no instance at all).
+	 * @param maxIdleTime The time in milliseconds an instance is kept idle before it is dropped (zero or less to keep
+	 *                    idle instances forever).
+	 */
+	public ConcurrentPool(final Factory<T> factory, final int maxPoolSize, final long maxIdleTime) {
+		this.factory = ContractCheck.mustNotBeNull(factory, "factory"); //$NON-NLS-1$
+		this.maxPoolSize = ContractCheck.mustBeInRange(maxPoolSize, 0, Integer.MAX_VALUE >> 2, "maxPoolSize"); //$NON-NLS-1$
+		this.maxIdleNanos = maxIdleTime > 0 ? TimeUnit.MILLISECONDS.toNanos(maxIdleTime) : Long.MAX_VALUE;
+		final int stripeCount = Math.min(ConcurrentPool.MAX_STRIPES,
+				Math.min(ConcurrentPool.powerOfTwo(Runtime.getRuntime().availableProcessors() * 2), ConcurrentPool.powerOfTwo(Math.max(1, maxPoolSize))));
+		this.stripes = new AtomicReferenceArray<Idle<T>>(stripeCount);
+		this.stripeMask = stripeCount - 1;
+		this.overflow = new Ring<Idle<T>>(ConcurrentPool.powerOfTwo(Math.max(2, maxPoolSize)));
+		this.sweepInterval = Math.min(this.maxIdleNanos, Long.MAX_VALUE >> 2);
+		this.nextSweep = new AtomicLong(System.nanoTime() + this.sweepInterval);
+	}
+
+	@Override
+	public T acquire() {
+		final long now = System.nanoTime();
+		sweepIfDue(now);
+		final int home = stripe();
+		Idle<T> idle = this.stripes.getAndSet(home, null);
+		if (idle == null) {
+			idle = this.overflow.poll();
+		}
+		for (int i = 1; idle == null && i <= this.stripeMask; i++) {
+			if (this.stripes.get(home + i & this.stripeMask) != null) {
+				idle = this.stripes.getAndSet(home + i & this.stripeMask, null);
+			}
+		}
+		while (idle != null) {
+			this.idleCount.decrementAndGet();
+			if (!idle.isExpired(now, this.maxIdleNanos)) {
+				return idle.instance;
+			}
+			idle = this.overflow.poll();
+		}
+		final T result = this.factory.newInstance();
+		if (result == null) {
+			throw new IllegalStateException("Factory returned null instance"); //$NON-NLS-1$
+		}
+		return result;
+	}
+
+	@Override
+	public boolean release(final T object) {
+		if (object == null) {
+			return false;
+		}
+		final long now = System.nanoTime();
+		sweepIfDue(now);
+		int current;
+		do {
+			current = this.idleCount.get();
+			if (current >= this.maxPoolSize) {
+				return false;
+			}
+		} while (!this.idleCount.compareAndSet(current, current + 1));
+		final Idle<T> idle = new Idle<T>(object, now);
+		if (this.stripes.compareAndSet(stripe(), null, idle) || this.overflow.offer(idle)) {
+			return true;
+		}
+		this.idleCount.decrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Returns the current amount of idle instances in the pool.
+	 *
+	 * @return The amount of idle instances.
+	 */
+	public int getIdleCount() {
+		return this.idleCount.get();
+	}
+
+	public int getMaxPoolSize() {
+		return this.maxPoolSize;
+	}
+
+	/**
+	 * Drops all instances idle for longer than the maximum idle time.
+	 *
+	 * @return The amount of instances dropped.
+	 */
+	public int evictIdle() {
+		final long now = System.nanoTime();
+		int result = 0;
+		for (int i = 0; i <= this.stripeMask; i++) {
+			final Idle<T> idle = this.stripes.get(i);
+			if (idle != null && idle.isExpired(now, this.maxIdleNanos) && this.stripes.compareAndSet(i, idle, null)) {
+				this.idleCount.decrementAndGet();
+				result++;
+			}
+		}
+		// The ring is ordered by release time so only the head can be expired first
+		Idle<T> idle;
+		while ((idle = this.overflow.peek()) != null && idle.isExpired(now, this.maxIdleNanos)) {
+			if (this.overflow.poll(idle)) {
+				this.idleCount.decrementAndGet();
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Drops all idle instances.
+	 */
+	public void clear() {
+		for (int i = 0; i <= this.stripeMask; i++) {
+			if (this.stripes.getAndSet(i, null) != null) {
+				this.idleCount.decrementAndGet();
+			}
+		}
+		while (this.overflow.poll() != null) {
+			this.idleCount.decrementAndGet();
+		}
+	}
+
+	private void sweepIfDue(final long now) {
+		final long due = this.nextSweep.get();
+		if (now - due >= 0 && this.nextSweep.compareAndSet(due, now + this.sweepInterval)) {
+			evictIdle();
+		}
+	}
+
+	private int stripe() {
+		final long id = Thread.currentThread().getId();
+		return (int) (id * 0x9E3779B97F4A7C15L >>> 40) & this.stripeMask;
+	}
+
+	private static int powerOfTwo(final int value) {
+		return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+	}
+
+	private static final class Idle<T> {
+		private final T instance;
+		private final long since;
+
+		private Idle(final T instance, final long since) {
+			this.instance = instance;
+			this.since = since;
+		}
+
+		private boolean isExpired(final long now, final long maxIdleNanos) {
+			return now - this.since > maxIdleNanos;
+		}
+	}
+
+	/*
+	 * Bounded multi producer multi consumer ring where each slot carries a sequence telling producers and consumers
+	 * whose turn it is. No lock is taken, a full or empty ring is reported immediately.
+	 */
+	private static final class Ring<E> {
+		private final AtomicReferenceArray<E> elements;
+		private final AtomicLongArray sequences;
+		private final int mask;
+		private final AtomicLong head = new AtomicLong();
+		private final AtomicLong tail = new AtomicLong();
+
+		private Ring(final int capacity) {
+			this.elements = new AtomicReferenceArray<E>(capacity);
+			this.sequences = new AtomicLongArray(capacity);
+			this.mask = capacity - 1;
+			for (int i = 0; i < capacity; i++) {
+				this.sequences.set(i, i);
+			}
+		}
+
+		private boolean offer(final E element) {
+			long position = this.tail.get();
+			while (true) {
+				final int index = (int) position & this.mask;
+				final long difference = this.sequences.get(index) - position;
+				if (difference == 0) {
+					if (this.tail.compareAndSet(position, position + 1)) {
+						this.elements.lazySet(index, element);
+						this.sequences.set(index, position + 1);
+						return true;
+					}
+					position = this.tail.get();
+				} else if (difference < 0) {
+					return false;
+				} else {
+					position = this.tail.get();
+				}
+			}
+		}
+
+		private E peek() {
+			final long position = this.head.get();
+			final int index = (int) position & this.mask;
+			return this.sequences.get(index) == position + 1 ? this.elements.get(index) : null;
+		}
+
+		private E poll() {
+			long position = this.head.get();
+			while (true) {
+				final int index = (int) position & this.mask;
+				final long difference = this.sequences.get(index) - (position + 1);
+				if (difference == 0) {
+					if (this.head.compareAndSet(position, position + 1)) {
+						final E result = this.elements.get(index);
+						this.elements.lazySet(index, null);
+						this.sequences.set(index, position + this.mask + 1);
+						return result;
+					}
+					position = this.head.get();
+				} else if (difference < 0) {
+					return null;
+				} else {
+					position = this.head.get();
+				}
+			}
+		}
+
+		/*
+		 * Removes the head only if it is still the given element.
+		 */
+		private boolean poll(final E expected) {
+			final long position = this.head.get();
+			final int index = (int) position & this.mask;
+			if (this.sequences.get(index) == position + 1 && this.elements.get(index) == expected && this.head.compareAndSet(position, position + 1)) {
+				this.elements.lazySet(index, null);
+				this.sequences.set(index, position + this.mask + 1);
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -28,10 +28,11 @@ import org.jbasics.pattern.delegation.MutableDelegate;
 import org.jbasics.pattern.delegation.ReleasableDelegate;
 import org.jbasics.pattern.factory.ParameterFactory;
 import org.jbasics.pattern.pooling.Pool;
-import org.jbasics.types.delegates.LazySoftReferenceDelegate;
-import org.jbasics.types.factories.MapFactory;
+import org.jbasics.types.delegates.ModifiableDelegate;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A MultiPool holds a map with pools handing out PooledDelegates to access those pools. <p> The pooled delegates are
@@ -50,12 +51,13 @@ public class MultiPool<K, T> {
 	private final ParameterFactory<Pool<T>, K> poolFactory;
 
 	/**
-	 * Creates a {@link MultiPool} with a {@link LazySoftReferenceDelegate} delegated map.
+	 * Creates a {@link MultiPool} with a strongly held {@link ConcurrentHashMap} so pools are never lost to the garbage
+	 * collector and looking up a pool does not lock.
 	 *
 	 * @param poolFactory The factory to create a pool for a given key (must not be null).
 	 */
 	public MultiPool(final ParameterFactory<Pool<T>, K> poolFactory) {
-		this(poolFactory, new LazySoftReferenceDelegate<Map<K, Pool<T>>>(new MapFactory<K, Pool<T>>()));
+		this(poolFactory, new ModifiableDelegate<Map<K, Pool<T>>>(new ConcurrentHashMap<K, Pool<T>>()));
 	}
 
 	/**
@@ -75,6 +77,17 @@ public class MultiPool<K, T> {
 
 	protected Pool<T> getOrCreatePool(final K key) {
 		Map<K, Pool<T>> temp = this.poolMapDelegate.delegate();
+		if (temp instanceof ConcurrentMap) {
+			Pool<T> result = temp.get(key);
+			if (result == null) {
+				final Pool<T> created = this.poolFactory.create(key);
+				result = ((ConcurrentMap<K, Pool<T>>) temp).putIfAbsent(key, created);
+				if (result == null) {
+					result = created;
+				}
+			}
+			return result;
+		}
 		synchronized (temp) {
 			Pool<T> result = temp.get(key);
 			if (result == null) {
@@ -23,11 +23,11 @@
  */
 package org.jbasics.xml;
 
+import org.jbasics.function.ThrowableFunction;
 import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
@@ -38,63 +38,67 @@ import static org.jbasics.enviroment.JVMEnviroment.getNotNullResource;
 import static org.jbasics.exception.DelegatedException.callDelegated;
 
 public final class DOMDocumentParser {
+    // both method families resolve XInclude as the builders always were XInclude aware
+    private static final DocumentBuilderPool BUILDERS = new DocumentBuilderPool(true);
 
     private DOMDocumentParser() {
         // do not instanciate
     }
 
     public static Document xmlDocumentFrom(String resource) {
-        return callDelegated(() -> createBuilder(false).parse(getNotNullResource(mustNotBeNull(resource, "resource")).openStream()));
+        return parse(builder -> builder.parse(getNotNullResource(mustNotBeNull(resource, "resource")).openStream()));
     }
 
     public static Document xmlDocumentFrom(File file) {
-        return callDelegated(() -> createBuilder(false).parse(mustNotBeNull(file, "file")));
+        return parse(builder -> builder.parse(mustNotBeNull(file, "file")));
     }
 
     public static Document xmlDocumentFrom(URI uri) {
-        return callDelegated(() -> createBuilder(false).parse(mustNotBeNull(uri, "uri").toASCIIString()));
+        return parse(builder -> builder.parse(mustNotBeNull(uri, "uri").toASCIIString()));
     }
 
     public static Document xmlDocumentFrom(URL url) {
-        return callDelegated(() -> createBuilder(false).parse(mustNotBeNull(url, "uri").toExternalForm()));
+        return parse(builder -> builder.parse(mustNotBeNull(url, "uri").toExternalForm()));
     }
 
     public static Document xmlDocumentFrom(InputStream input) {
-        return callDelegated(() -> createBuilder(false).parse(mustNotBeNull(input, "input")));
+        return parse(builder -> builder.parse(mustNotBeNull(input, "input")));
     }
 
     public static Document xmlDocumentFrom(InputSource input) {
-        return callDelegated(() -> createBuilder(false).parse(mustNotBeNull(input, "input")));
+        return parse(builder -> builder.parse(mustNotBeNull(input, "input")));
     }
 
     public static Document xmlXIncludeAwareDocumentFrom(String resource) {
-        return callDelegated(() -> createBuilder(true).parse(getNotNullResource(mustNotBeNull(resource, "resource")).openStream()));
+        return parse(builder -> builder.parse(getNotNullResource(mustNotBeNull(resource, "resource")).openStream()));
     }
 
     public static Document xmlXIncludeAwareDocumentFrom(File file) {
-        return callDelegated(() -> createBuilder(true).parse(mustNotBeNull(file, "file")));
+        return parse(builder -> builder.parse(mustNotBeNull(file, "file")));
     }
 
     public static Document xmlXIncludeAwareDocumentFrom(URI uri) {
-        return callDelegated(() -> createBuilder(true).parse(mustNotBeNull(uri, "uri").toASCIIString()));
+        return parse(builder -> builder.parse(mustNotBeNull(uri, "uri").toASCIIString()));
     }
 
     public static Document xmlXIncludeAwareDocumentFrom(URL url) {
-        return callDelegated(() -> createBuilder(true).parse(mustNotBeNull(url, "url").toExternalForm()));
+        return parse(builder -> builder.parse(mustNotBeNull(url, "url").toExternalForm()));
     }
 
     public static Document xmlXIncludeAwareDocumentFrom(InputStream input) {
-        return callDelegated(() -> createBuilder(true).parse(mustNotBeNull(input, "input")));
+        return parse(builder -> builder.parse(mustNotBeNull(input, "input")));
     }
 
     public static Document xmlXIncludeAwareDocumentFrom(InputSource input) {
-        return callDelegated(() -> createBuilder(true).parse(mustNotBeNull(input, "input")));
+        return parse(builder -> builder.parse(mustNotBeNull(input, "input")));
     }
 
-    private static DocumentBuilder createBuilder(boolean xIncludeAware) {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        factory.setXIncludeAware(true);
-        return callDelegated(factory::newDocumentBuilder);
+    private static Document parse(ThrowableFunction<DocumentBuilder, Document> parser) {
+        final DocumentBuilder builder = BUILDERS.acquire();
+        try {
+            return callDelegated(() -> parser.applyThrows(builder));
+        } finally {
+            BUILDERS.release(builder);
+        }
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.xml;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.exception.DelegatedException;
+import org.jbasics.pattern.factory.Factory;
+import org.jbasics.types.pools.ConcurrentPool;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * A {@link ConcurrentPool} of {@link DocumentBuilder}s created by one {@link DocumentBuilderFactory}. <p> Looking up
+ * the factory and creating a builder is expensive compared to parsing a small document, so the builders are recycled.
+ * A released builder is {@link DocumentBuilder#reset() reset} to the state it was created with, builders not
+ * supporting the reset are dropped. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public class DocumentBuilderPool extends ConcurrentPool<DocumentBuilder> {
+
+	/**
+	 * Creates a pool of namespace aware builders.
+	 *
+	 * @param xIncludeAware True if the builders should process XInclude elements.
+	 */
+	public DocumentBuilderPool(final boolean xIncludeAware) {
+		this(DocumentBuilderPool.createFactory(xIncludeAware));
+	}
+
+	/**
+	 * Creates a pool of builders created by the given factory. The factory must not be changed afterwards.
+	 *
+	 * @param factory The factory creating the builders (must not be null).
+	 */
+	public DocumentBuilderPool(final DocumentBuilderFactory factory) {
+		super(new BuilderFactory(ContractCheck.mustNotBeNull(factory, "factory"))); //$NON-NLS-1$
+	}
+
+	@Override
+	public boolean release(final DocumentBuilder builder) {
+		if (builder == null) {
+			return false;
+		}
+		try {
+			builder.reset();
+		} catch (final UnsupportedOperationException e) {
+			return false;
+		}
+		return super.release(builder);
+	}
+
+	private static DocumentBuilderFactory createFactory(final boolean xIncludeAware) {
+		final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		factory.setXIncludeAware(xIncludeAware);
+		return factory;
+	}
+
+	private static final class BuilderFactory implements Factory<DocumentBuilder> {
+		private final DocumentBuilderFactory factory;
+
+		private BuilderFactory(final DocumentBuilderFactory factory) {
+			this.factory = factory;
+		}
+
+		@Override
+		public DocumentBuilder newInstance() {
+			// The factory is not required to be thread safe
+			synchronized (this.factory) {
+				try {
+					return this.factory.newDocumentBuilder();
+				} catch (final ParserConfigurationException e) {
+					throw DelegatedException.delegate(e);
+				}
+			}
+		}
+	}
+}
@@ -24,27 +24,35 @@
 package org.jbasics.xml;
 
 import org.jbasics.function.ThrowableConsumer;
+import org.jbasics.function.ThrowableFunction;
 import org.w3c.dom.Node;
 
 import javax.xml.namespace.QName;
 import javax.xml.xpath.*;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import static java.util.Optional.ofNullable;
 import static org.jbasics.checker.ContractCheck.mustNotBeNull;
 import static org.jbasics.checker.ContractCheck.mustNotBeNullOrTrimmedEmpty;
 import static org.jbasics.exception.DelegatedException.callDelegated;
-import static org.jbasics.function.ThrowableFunction.wrap;
 import static org.jbasics.text.StringUtilities.defaultIfNullOrEmpty;
 
+/**
+ * Evaluates XPath expressions against a base node. <p> The compiled expressions are shared by all evaluators through a
+ * process wide cache keyed by the expression and the namespace URIs of the prefixes it uses, so evaluating the same
+ * expressions against every new document does not compile them again. Once the namespace prefixes and variables are
+ * registered an evaluator can be used by several threads at the same time. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
 public class XPathEvaluator implements XPathFunctionResolver, XPathVariableResolver {
     private final NamespacePrefixResolver namespaceContext;
     private final Node baseNode;
-    private final XPath xPath;
-    private final Map<String, XPathExpression> xpathExpressionCache;
     private final Map<QName, Supplier<Object>> variableSuppliers;
     private final Object variableNotDefinedValue = "";
 
@@ -54,13 +62,8 @@ public class XPathEvaluator implements XPathFunctionResolver, XPathVariableResol
 
     public XPathEvaluator(Node baseNode, NamespacePrefixResolver parentResolver) {
         this.baseNode = mustNotBeNull(baseNode, "baseNode");
-        this.xPath = XPathFactory.newInstance().newXPath();
         this.namespaceContext = new NamespacePrefixResolver(parentResolver);
-        this.xpathExpressionCache = new HashMap<>();
-        this.variableSuppliers = new HashMap<>();
-        xPath.setNamespaceContext(this.namespaceContext);
-        xPath.setXPathFunctionResolver(this);
-        xPath.setXPathVariableResolver(this);
+        this.variableSuppliers = new ConcurrentHashMap<>();
     }
 
     public XPathEvaluator evaluate(String expression, ThrowableConsumer<String> consumer) {
@@ -74,11 +77,11 @@ public class XPathEvaluator implements XPathFunctionResolver, XPathVariableResol
     }
 
     public Optional<String> evaluate(String expression) {
-        return ofNullable(callDelegated(() -> defaultIfNullOrEmpty(getOrCompileExpression(expression).evaluate(this.baseNode), null)));
+        return evaluate(expression, this.baseNode);
     }
 
     public Optional<String> evaluate(String expression, Node input) {
-        return ofNullable(callDelegated(() -> defaultIfNullOrEmpty(getOrCompileExpression(expression).evaluate(input), null)));
+        return ofNullable(callDelegated(() -> evaluateCompiled(expression, x -> defaultIfNullOrEmpty(x.evaluate(input), null))));
     }
 
     public XPathEvaluator evaluate(String expression, QName resultType, ThrowableConsumer<Object> consumer) {
@@ -92,11 +95,58 @@ public class XPathEvaluator implements XPathFunctionResolver, XPathVariableResol
     }
 
     public Optional<Object> evaluate(String expression, QName resultType) {
-        return ofNullable(callDelegated(() -> getOrCompileExpression(expression).evaluate(this.baseNode, resultType)));
+        return evaluate(expression, this.baseNode, resultType);
     }
 
     public Optional<Object> evaluate(String expression, Node input, QName resultType) {
-        return ofNullable(callDelegated(() -> getOrCompileExpression(expression).evaluate(input, resultType)));
+        return ofNullable(callDelegated(() -> evaluateCompiled(expression, x -> x.evaluate(input, resultType))));
+    }
+
+    /**
+     * Evaluates all expressions of the map against the base node.
+     *
+     * @param expressions The expressions by key (must not be null)
+     * @param <K>         The type of the keys
+     *
+     * @return The non empty results by key in the iteration order of the given map
+     */
+    public <K> Map<K, String> evaluateAll(Map<K, String> expressions) {
+        return evaluateAll(expressions, this.baseNode);
+    }
+
+    /**
+     * Evaluates all expressions of the map against the given node.
+     *
+     * @param expressions The expressions by key (must not be null)
+     * @param input       The node to evaluate the expressions against
+     * @param <K>         The type of the keys
+     *
+     * @return The non empty results by key in the iteration order of the given map
+     */
+    public <K> Map<K, String> evaluateAll(Map<K, String> expressions, Node input) {
+        final Map<K, String> result = new LinkedHashMap<>();
+        for (Map.Entry<K, String> entry : mustNotBeNull(expressions, "expressions").entrySet()) {
+            evaluate(entry.getValue(), input).ifPresent(value -> result.put(entry.getKey(), value));
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates all expressions of the map against the given node returning the given result type.
+     *
+     * @param expressions The expressions by key (must not be null)
+     * @param input       The node to evaluate the expressions against
+     * @param resultType  The result type as of {@link XPathConstants}
+     * @param <K>         The type of the keys
+     *
+     * @return The non null results by key in the iteration order of the given map
+     */
+    public <K> Map<K, Object> evaluateAll(Map<K, String> expressions, Node input, QName resultType) {
+        final Map<K, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<K, String> entry : mustNotBeNull(expressions, "expressions").entrySet()) {
+            evaluate(entry.getValue(), input, resultType).ifPresent(value -> result.put(entry.getKey(), value));
+        }
+        return result;
     }
 
     public XPathEvaluator withVariable(QName name, Object value) {
@@ -131,8 +181,8 @@ public class XPathEvaluator implements XPathFunctionResolver, XPathVariableResol
         return null;
     }
 
-    private XPathExpression getOrCompileExpression(String expression) {
-        return this.xpathExpressionCache.computeIfAbsent(mustNotBeNullOrTrimmedEmpty(expression, "expression"), wrap(this.xPath::compile));
+    private <R> R evaluateCompiled(String expression, ThrowableFunction<XPathExpression, R> evaluation) throws Exception {
+        return XPathExpressionCache.evaluate(this, mustNotBeNullOrTrimmedEmpty(expression, "expression"), evaluation);
     }
 
 }
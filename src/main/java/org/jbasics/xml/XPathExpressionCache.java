@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.xml;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.function.ThrowableFunction;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFunction;
+import javax.xml.xpath.XPathFunctionResolver;
+import javax.xml.xpath.XPathVariableResolver;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process wide cache of compiled XPath expressions shared by all {@link XPathEvaluator}s. <p> A compiled expression
+ * depends on the expression and the namespace URIs of the prefixes it uses. When an expression is compiled the first
+ * time the prefixes looked up by the compiler are recorded, later lookups build the key out of the expression and the
+ * URIs the evaluators namespace context maps those prefixes to. Evaluators with a different namespace context therefore
+ * share the compiled expression as long as the used prefixes map to the same URIs. </p> <p> Compiled expressions are
+ * not thread safe so each cache entry holds a small queue of idle compiled instances. An evaluation takes one out (or
+ * compiles a new one with an XPath taken from a small pool) and puts it back afterwards. Variables and functions are
+ * resolved by the evaluator bound to the current thread during the evaluation only, so no thread local outlives an
+ * evaluation and long living threads (like those of a container) do not keep this class loader reachable. Both maps
+ * are bounded by {@link #MAX_CACHED_EXPRESSIONS} and cleared once they reach the bound. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+final class XPathExpressionCache {
+    static final int MAX_CACHED_EXPRESSIONS = 1024;
+    static final int MAX_IDLE_PER_EXPRESSION = 16;
+    static final int MAX_IDLE_XPATHS = 16;
+
+    private static final ThreadLocal<XPathEvaluator> CURRENT = new ThreadLocal<>();
+    private static final BlockingQueue<XPath> XPATHS = new ArrayBlockingQueue<>(MAX_IDLE_XPATHS);
+    private static final ConcurrentMap<String, String[]> PREFIXES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Key, BlockingQueue<XPathExpression>> EXPRESSIONS = new ConcurrentHashMap<>();
+
+    private XPathExpressionCache() {
+        // do not instanciate
+    }
+
+    /**
+     * Evaluates the expression with a cached compiled expression. The evaluator is bound to the current thread while the
+     * evaluation runs so variables and functions are resolved by it.
+     */
+    static <R> R evaluate(XPathEvaluator evaluator, String expression, ThrowableFunction<XPathExpression, R> evaluation) throws Exception {
+        final XPathEvaluator previous = CURRENT.get();
+        CURRENT.set(evaluator);
+        Key key = null;
+        XPathExpression compiled = null;
+        try {
+            final String[] prefixes = PREFIXES.get(expression);
+            if (prefixes != null) {
+                key = new Key(expression, resolve(prefixes, evaluator.getNamespaceContext()));
+                final BlockingQueue<XPathExpression> idle = EXPRESSIONS.get(key);
+                compiled = idle != null ? idle.poll() : null;
+            }
+            if (compiled == null) {
+                final RecordingNamespaceContext recorder = new RecordingNamespaceContext(evaluator.getNamespaceContext());
+                final XPath idle = XPATHS.poll();
+                final XPath xPath = idle != null ? idle : createXPath();
+                try {
+                    xPath.setNamespaceContext(recorder);
+                    compiled = xPath.compile(expression);
+                } finally {
+                    // frozen before the XPath goes back to the pool so it does not keep the evaluators context alive
+                    recorder.freeze();
+                    XPATHS.offer(xPath);
+                }
+                if (key == null) {
+                    final String[] recorded = recorder.getPrefixes();
+                    cache(PREFIXES, expression, recorded);
+                    key = new Key(expression, resolve(recorded, recorder));
+                }
+            }
+            return evaluation.applyThrows(compiled);
+        } finally {
+            if (compiled != null) {
+                release(key, compiled);
+            }
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    static int size() {
+        return EXPRESSIONS.size();
+    }
+
+    static void clear() {
+        PREFIXES.clear();
+        EXPRESSIONS.clear();
+    }
+
+    private static void release(Key key, XPathExpression compiled) {
+        BlockingQueue<XPathExpression> idle = EXPRESSIONS.get(key);
+        if (idle == null) {
+            idle = new ArrayBlockingQueue<>(MAX_IDLE_PER_EXPRESSION);
+            final BlockingQueue<XPathExpression> existing = cache(EXPRESSIONS, key, idle);
+            if (existing != null) {
+                idle = existing;
+            }
+        }
+        idle.offer(compiled);
+    }
+
+    private static <K, V> V cache(ConcurrentMap<K, V> cache, K key, V value) {
+        if (cache.size() >= MAX_CACHED_EXPRESSIONS) {
+            cache.clear();
+        }
+        return cache.putIfAbsent(key, value);
+    }
+
+    private static String[] resolve(String[] prefixes, NamespaceContext context) {
+        final String[] result = new String[prefixes.length];
+        for (int i = 0; i < prefixes.length; i++) {
+            result[i] = context.getNamespaceURI(prefixes[i]);
+        }
+        return result;
+    }
+
+    private static XPath createXPath() {
+        final XPath result = XPathFactory.newInstance().newXPath();
+        result.setXPathVariableResolver(CurrentEvaluatorResolver.INSTANCE);
+        result.setXPathFunctionResolver(CurrentEvaluatorResolver.INSTANCE);
+        return result;
+    }
+
+    /**
+     * Resolves variables and functions with the evaluator currently bound to the thread.
+     */
+    private enum CurrentEvaluatorResolver implements XPathVariableResolver, XPathFunctionResolver {
+        INSTANCE;
+
+        @Override
+        public Object resolveVariable(QName variableName) {
+            final XPathEvaluator evaluator = CURRENT.get();
+            return evaluator != null ? evaluator.resolveVariable(variableName) : null;
+        }
+
+        @Override
+        public XPathFunction resolveFunction(QName functionName, int arity) {
+            final XPathEvaluator evaluator = CURRENT.get();
+            return evaluator != null ? evaluator.resolveFunction(functionName, arity) : null;
+        }
+    }
+
+    /**
+     * Records the prefixes the compiler looks up. Once frozen it only answers the recorded prefixes so the compiled
+     * expression does not keep the namespace context of the evaluator alive.
+     */
+    private static final class RecordingNamespaceContext implements NamespaceContext {
+        private final Map<String, String> recorded = new LinkedHashMap<>();
+        private NamespaceContext delegate;
+
+        private RecordingNamespaceContext(NamespaceContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getNamespaceURI(String prefix) {
+            if (this.delegate == null) {
+                return this.recorded.get(prefix);
+            }
+            final String uri = this.delegate.getNamespaceURI(prefix);
+            this.recorded.put(prefix, uri);
+            return uri;
+        }
+
+        @Override
+        public String getPrefix(String namespaceURI) {
+            return this.delegate != null ? this.delegate.getPrefix(namespaceURI) : null;
+        }
+
+        @Override
+        public Iterator<String> getPrefixes(String namespaceURI) {
+            if (this.delegate == null) {
+                return Collections.emptyIterator();
+            }
+            // the namespace context of Java 8 returns a raw iterator which is specified to iterate prefix strings
+            @SuppressWarnings("unchecked")
+            final Iterator<String> result = this.delegate.getPrefixes(namespaceURI);
+            return result;
+        }
+
+        private void freeze() {
+            this.delegate = null;
+        }
+
+        private String[] getPrefixes() {
+            return this.recorded.keySet().toArray(new String[this.recorded.size()]);
+        }
+    }
+
+    private static final class Key {
+        private final String expression;
+        private final String[] namespaceURIs;
+        private final int hashCode;
+
+        private Key(String expression, String[] namespaceURIs) {
+            this.expression = expression;
+            this.namespaceURIs = namespaceURIs;
+            this.hashCode = 31 * expression.hashCode() + Arrays.hashCode(namespaceURIs);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return this.hashCode == other.hashCode && this.expression.equals(other.expression) && Arrays.equals(this.namespaceURIs, other.namespaceURIs);
+        }
+    }
+}
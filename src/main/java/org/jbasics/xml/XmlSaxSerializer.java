@@ -24,34 +24,37 @@
 package org.jbasics.xml;
 
 import org.jbasics.checker.ContractCheck;
+import org.jbasics.xml.transform.TransformerHandlerPool;
 import org.jbasics.xml.types.XmlStylesheetProcessInstruction;
 import org.xml.sax.SAXException;
 
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Result;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 
 public class XmlSaxSerializer {
 	private final String encoding;
+	private final TransformerHandlerPool handlerPool;
 
 	public XmlSaxSerializer() {
 		this("UTF-8");
 	}
 
 	public XmlSaxSerializer(String encoding) {
+		this(encoding, TransformerHandlerPool.SHARED_INSTANCE);
+	}
+
+	public XmlSaxSerializer(String encoding, TransformerHandlerPool handlerPool) {
 		this.encoding = ContractCheck.mustNotBeNullOrEmpty(encoding, "encoding");
+		this.handlerPool = ContractCheck.mustNotBeNull(handlerPool, "handlerPool");
 	}
 
 	public void serialize(XmlSerializable document, Result result) {
 		ContractCheck.mustNotBeNull(document, "document");
 		ContractCheck.mustNotBeNull(result, "result");
+		TransformerHandler handler = this.handlerPool.acquire();
 		try {
-			SAXTransformerFactory factory = (SAXTransformerFactory) TransformerFactory.newInstance();
-			TransformerHandler handler = factory.newTransformerHandler();
 			Transformer serializer = handler.getTransformer();
 			serializer.setOutputProperty(OutputKeys.METHOD, "xml");
 			serializer.setOutputProperty(OutputKeys.ENCODING, this.encoding);
@@ -67,14 +70,12 @@ public class XmlSaxSerializer {
 			handler.startDocument();
 			document.serialize(handler, null);
 			handler.endDocument();
+			// Only a handler which finished the document is in a state to be reused
+			this.handlerPool.release(handler);
 		} catch (SAXException e) {
 			RuntimeException er = new RuntimeException("[" + e.getClass().getSimpleName() + "] " + e.getMessage(), e);
 			er.setStackTrace(e.getStackTrace());
 			throw er;
-		} catch (TransformerConfigurationException e) {
-			RuntimeException er = new RuntimeException("[" + e.getClass().getSimpleName() + "] " + e.getMessage(), e);
-			er.setStackTrace(e.getStackTrace());
-			throw er;
 		}
 	}
 }
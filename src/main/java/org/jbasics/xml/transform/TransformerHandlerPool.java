@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.xml.transform;
+
+import org.jbasics.annotation.ThreadSafe;
+import org.jbasics.checker.ContractCheck;
+import org.jbasics.exception.DelegatedException;
+import org.jbasics.pattern.factory.Factory;
+import org.jbasics.types.pools.ConcurrentPool;
+
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import java.io.Writer;
+
+/**
+ * A {@link ConcurrentPool} of identity {@link TransformerHandler}s used to serialize SAX events. <p> The {@link
+ * SAXTransformerFactory} is looked up once per pool. A released handler has its transformer {@link
+ * javax.xml.transform.Transformer#reset() reset} so the output properties have to be set again after acquiring it.
+ * The result of a released handler is replaced by one discarding the output so the pool does not keep the writer or
+ * stream of the last serialization reachable.
+ * Handlers which failed during a serialization should not be released since their state is unknown. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
+@ThreadSafe
+public class TransformerHandlerPool extends ConcurrentPool<TransformerHandler> {
+	public static final TransformerHandlerPool SHARED_INSTANCE = new TransformerHandlerPool();
+
+	public TransformerHandlerPool() {
+		this((SAXTransformerFactory) TransformerFactory.newInstance());
+	}
+
+	/**
+	 * Creates a pool of handlers created by the given factory. The factory must not be changed afterwards.
+	 *
+	 * @param factory The factory creating the handlers (must not be null).
+	 */
+	public TransformerHandlerPool(final SAXTransformerFactory factory) {
+		super(new HandlerFactory(ContractCheck.mustNotBeNull(factory, "factory"))); //$NON-NLS-1$
+	}
+
+	@Override
+	public boolean release(final TransformerHandler handler) {
+		if (handler == null) {
+			return false;
+		}
+		handler.getTransformer().reset();
+		handler.setResult(new StreamResult(NullWriter.INSTANCE));
+		return super.release(handler);
+	}
+
+	private static final class NullWriter extends Writer {
+		private static final NullWriter INSTANCE = new NullWriter();
+
+		@Override
+		public void write(final char[] cbuf, final int off, final int len) {
+			// discard
+		}
+
+		@Override
+		public void flush() {
+			// nothing to flush
+		}
+
+		@Override
+		public void close() {
+			// nothing to close
+		}
+	}
+
+	private static final class HandlerFactory implements Factory<TransformerHandler> {
+		private final SAXTransformerFactory factory;
+
+		private HandlerFactory(final SAXTransformerFactory factory) {
+			this.factory = factory;
+		}
+
+		@Override
+		public TransformerHandler newInstance() {
+			// The factory is not required to be thread safe
+			synchronized (this.factory) {
+				try {
+					return this.factory.newTransformerHandler();
+				} catch (final TransformerConfigurationException e) {
+					throw DelegatedException.delegate(e);
+				}
+			}
+		}
+	}
+}
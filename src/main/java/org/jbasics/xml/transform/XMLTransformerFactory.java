@@ -23,19 +23,38 @@
  */
 package org.jbasics.xml.transform;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
 
+import org.jbasics.checker.ContractCheck;
 import org.jbasics.exception.DelegatedException;
 import org.jbasics.pattern.delegation.Delegate;
 import org.jbasics.pattern.factory.Factory;
 import org.jbasics.pattern.factory.ParameterFactory;
 import org.jbasics.types.delegates.LazySoftReferenceDelegate;
 
+/**
+ * Creates {@link Transformer}s either as identity transformer or out of a stylesheet. <p> The {@link Templates}
+ * compiled out of a {@link StreamSource} read from its system id (no input stream or reader set) are cached by the
+ * system id, so creating a transformer for the same stylesheet again does not compile it again. Any other source only
+ * names the base of relative references with its system id and not the content, it is compiled every time unless the
+ * caller names the content with an explicit key ({@link #getTemplates(String, Source)}). Changes to a cached
+ * stylesheet are not noticed until {@link #clearTemplates()} is called. The cache is bounded by {@link
+ * #MAX_CACHED_TEMPLATES} and cleared once it reaches the bound. </p>
+ *
+ * @author Stephan Schloepke
+ * @since 1.0
+ */
 public class XMLTransformerFactory implements Factory<Transformer>, ParameterFactory<Transformer, Source> {
 	public final static XMLTransformerFactory SHARED_INSTANCE;
+	public static final int MAX_CACHED_TEMPLATES = 256;
 
 	private static final LazySoftReferenceDelegate<TransformerFactory> DEFAULT_TRANSFORMER_FACTORY_DELEGATE;
 
@@ -45,6 +64,7 @@ public class XMLTransformerFactory implements Factory<Transformer>, ParameterFac
 	}
 
 	private final Delegate<TransformerFactory> transformerFactoryDelegate;
+	private final ConcurrentMap<String, Templates> templatesCache = new ConcurrentHashMap<String, Templates>();
 
 	public XMLTransformerFactory() {
 		this(null);
@@ -61,11 +81,75 @@ public class XMLTransformerFactory implements Factory<Transformer>, ParameterFac
 			return newInstance();
 		} else {
 			try {
-				return this.transformerFactoryDelegate.delegate().newTransformer(templateSource);
+				return getTemplates(templateSource).newTransformer();
+			} catch (final TransformerConfigurationException e) {
+				throw DelegatedException.delegate(e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the compiled templates of the stylesheet source. If the source is a {@link StreamSource} read from its
+	 * system id the templates are cached by the system id.
+	 *
+	 * @param templateSource The stylesheet source (must not be null).
+	 *
+	 * @return The compiled templates which are thread safe.
+	 */
+	public Templates getTemplates(final Source templateSource) {
+		ContractCheck.mustNotBeNull(templateSource, "templateSource"); //$NON-NLS-1$
+		return getTemplates(XMLTransformerFactory.isReadFromSystemId(templateSource) ? templateSource.getSystemId() : null, templateSource);
+	}
+
+	/**
+	 * Returns the compiled templates of the stylesheet source cached by the given key. The caller guarantees that the
+	 * key identifies the content of the stylesheet.
+	 *
+	 * @param key            The key the templates are cached by (null to not cache the templates).
+	 * @param templateSource The stylesheet source (must not be null).
+	 *
+	 * @return The compiled templates which are thread safe.
+	 */
+	public Templates getTemplates(final String key, final Source templateSource) {
+		ContractCheck.mustNotBeNull(templateSource, "templateSource"); //$NON-NLS-1$
+		Templates result = key == null ? null : this.templatesCache.get(key);
+		if (result == null) {
+			final TransformerFactory factory = this.transformerFactoryDelegate.delegate();
+			try {
+				// The factory is not required to be thread safe
+				synchronized (factory) {
+					result = factory.newTemplates(templateSource);
+				}
 			} catch (final TransformerConfigurationException e) {
 				throw DelegatedException.delegate(e);
 			}
+			if (key != null) {
+				if (this.templatesCache.size() >= XMLTransformerFactory.MAX_CACHED_TEMPLATES) {
+					this.templatesCache.clear();
+				}
+				this.templatesCache.put(key, result);
+			}
 		}
+		return result;
+	}
+
+	/**
+	 * Only a stream source without an input stream or reader is read from its system id, for any other source the
+	 * system id does not identify the content.
+	 */
+	private static boolean isReadFromSystemId(final Source source) {
+		if (source.getSystemId() == null || !(source instanceof StreamSource)) {
+			return false;
+		}
+		final StreamSource streamSource = (StreamSource) source;
+		return streamSource.getInputStream() == null && streamSource.getReader() == null;
+	}
+
+	/**
+	 * Removes all cached templates so changed stylesheets are compiled again.
+	 */
+	public void clearTemplates() {
+		this.templatesCache.clear();
 	}
 
 	@Override
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import org.jbasics.pattern.coder.Decoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class CodecPipelineTest {
+
+	@Test
+	public void testSameResultAsChain() {
+		final XOrCryptCodec crypterCodec = new XOrCryptCodec("Protecting the secret is take care by hal", StandardCharsets.ISO_8859_1);
+		final ChunkedEncoder chunkedEncoder = new ChunkedEncoder(76, "\n");
+		final CodecPipeline pipeline = CodecPipeline.newBuilder().withXOrCrypt(crypterCodec).withCodec(CompressCodec.SHARED_INSTANCE)
+				.withTextCodec(RFC3548Base64Codec.INSTANCE).withChunks(chunkedEncoder).build();
+		final StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			input.append("http://test.webservices.space.lan/credit-portfolio-model/matrices/PD").append(i);
+		}
+		final byte[] encoded = pipeline.encode(input.toString().getBytes(StandardCharsets.ISO_8859_1));
+		final String text = new String(encoded, StandardCharsets.US_ASCII);
+		Assert.assertTrue(text.indexOf('\n') == 76);
+		final Decoder<CharSequence, CharSequence> decoder = new DecoderChain<CharSequence, CharSequence>(RFC3548Base64Codec.INSTANCE,
+				new DecoderChain<CharSequence, byte[]>(CompressCodec.SHARED_INSTANCE, crypterCodec));
+		Assert.assertEquals(input.toString(), decoder.decode(text).toString());
+		Assert.assertEquals(input.toString(), new String(pipeline.decode(encoded), StandardCharsets.ISO_8859_1));
+	}
+
+	@Test
+	public void testStandaloneChunkStage() throws Exception {
+		final CodecPipeline pipeline = CodecPipeline.newBuilder().withChunks(new ChunkedEncoder(3, "--")).build();
+		final byte[] encoded = pipeline.encode("abcdefgh".getBytes(StandardCharsets.US_ASCII));
+		Assert.assertEquals(new ChunkedEncoder(3, "--").encode("abcdefgh").toString(), new String(encoded, StandardCharsets.US_ASCII));
+		Assert.assertEquals("abcdefgh", new String(pipeline.decode(encoded), StandardCharsets.US_ASCII));
+	}
+
+	@Test
+	public void testOverlappingStages() throws Exception {
+		final byte[] data = new byte[1 << 20];
+		new Random(13).nextBytes(data);
+		final ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			for (final boolean threaded : new boolean[]{false, true}) {
+				final CodecPipeline pipeline = CodecPipeline.newBuilder().withXOrCrypt(new XOrCryptCodec()).withStage(CodecStages.of(RFC3548StreamCodec.BASE32))
+						.withTextCodec(RFC3548Base64Codec.INSTANCE).withChunks(new ChunkedEncoder(64, "\r\n")).withBufferSize(1024)
+						.withExecutor(threaded ? executor : null).build();
+				final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+				Assert.assertEquals(data.length, pipeline.encode(new ByteArrayInputStream(data), encoded));
+				final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+				Assert.assertEquals(data.length, pipeline.decode(new ByteArrayInputStream(encoded.toByteArray()), decoded));
+				Assert.assertArrayEquals(data, decoded.toByteArray());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testFailingStage() throws Exception {
+		final CodecStage failing = new CodecStage() {
+			@Override
+			public OutputStream encoding(final OutputStream out) {
+				return new OutputStream() {
+					@Override
+					public void write(final int b) throws IOException {
+						throw new IOException("broken");
+					}
+				};
+			}
+
+			@Override
+			public InputStream decoding(final InputStream in) throws IOException {
+				throw new IOException("broken");
+			}
+		};
+		final ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			final CodecPipeline pipeline = CodecPipeline.newBuilder().withStage(CodecStages.of(RFC3548StreamCodec.BASE16)).withStage(failing)
+					.withExecutor(executor).withBufferSize(16).build();
+			try {
+				pipeline.encode(new ByteArrayInputStream(new byte[10000]), new ByteArrayOutputStream());
+				Assert.fail("Failure of a stage must be reported");
+			} catch (IOException e) {
+				// expected
+			}
+			try {
+				pipeline.decode(new ByteArrayInputStream(new byte[10000]), new ByteArrayOutputStream());
+				Assert.fail("Failure of a stage must be reported");
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testFailingStageCreationStopsStartedTasks() throws Exception {
+		final CodecStage failing = new CodecStage() {
+			@Override
+			public OutputStream encoding(final OutputStream out) throws IOException {
+				throw new IOException("broken");
+			}
+
+			@Override
+			public InputStream decoding(final InputStream in) {
+				return in;
+			}
+		};
+		final ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			final CodecPipeline pipeline = CodecPipeline.newBuilder().withStage(failing).withStage(CodecStages.of(RFC3548StreamCodec.BASE16))
+					.withExecutor(executor).build();
+			try {
+				pipeline.encoding(new ByteArrayOutputStream());
+				Assert.fail("Failure of a stage must be reported");
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class RFC3548StreamCodecTest {
+	private static final RFC3548StreamCodec[] CODECS = {RFC3548StreamCodec.BASE64, RFC3548StreamCodec.BASE64_ALT, RFC3548StreamCodec.BASE32,
+			RFC3548StreamCodec.BASE16, RFC3548StreamCodec.BASE64.withPadding(false), RFC3548StreamCodec.BASE32.withPadding(false)};
+
+	@Test
+	public void testSameResultAsArrayCodecs() {
+		final Random random = new Random(4711);
+		for (int length = 0; length < 64; length++) {
+			final byte[] data = new byte[length];
+			random.nextBytes(data);
+			Assert.assertEquals(RFC3548Base16Codec.INSTANCE.encode(data).toString(), RFC3548StreamCodec.BASE16.encode(data));
+			Assert.assertEquals(RFC3548Base32Codec.INSTANCE.encode(data), RFC3548StreamCodec.BASE32.encode(data));
+			Assert.assertEquals(RFC3548Base64Codec.INSTANCE.encode(data), RFC3548StreamCodec.BASE64.encode(data));
+			Assert.assertEquals(RFC3548Base64Codec.INSTANCE_ALT.encode(data), RFC3548StreamCodec.BASE64_ALT.encode(data));
+			for (final RFC3548StreamCodec codec : RFC3548StreamCodecTest.CODECS) {
+				final CharSequence encoded = codec.encode(data);
+				Assert.assertEquals(codec.encodedLength(length), encoded.length());
+				Assert.assertArrayEquals(data, codec.decode(encoded));
+			}
+		}
+		Assert.assertEquals("SGVsbG8gV29ybGQ", RFC3548StreamCodec.BASE64.withPadding(false).encode("Hello World".getBytes(StandardCharsets.US_ASCII)));
+		Assert.assertArrayEquals(new byte[]{(byte) 0xab, (byte) 0xcd}, RFC3548StreamCodec.BASE16.decode("ab\r\nCd"));
+	}
+
+	@Test
+	public void testIncrementalWithSmallBuffers() {
+		final byte[] data = new byte[1000];
+		new Random(42).nextBytes(data);
+		for (final RFC3548StreamCodec temp : RFC3548StreamCodecTest.CODECS) {
+			final RFC3548StreamCodec codec = temp.withChunks(76, "\r\n");
+			final String expected = codec.encode(data).toString();
+			final RFC3548StreamEncoder encoder = codec.newEncoder();
+			final StringBuilder encoded = new StringBuilder();
+			final CharBuffer chars = CharBuffer.allocate(11);
+			final ByteBuffer in = ByteBuffer.wrap(data);
+			for (int i = 0; i <= data.length; i += 7) {
+				final ByteBuffer slice = (ByteBuffer) in.duplicate().position(i).limit(Math.min(i + 7, data.length));
+				final boolean end = i + 7 > data.length;
+				while (encoder.encode(slice, chars, end) == CoderResult.OVERFLOW) {
+					encoded.append(((CharBuffer) chars.flip()));
+					chars.clear();
+				}
+				Assert.assertFalse(slice.hasRemaining());
+			}
+			encoded.append(((CharBuffer) chars.flip()));
+			Assert.assertEquals(expected, encoded.toString());
+			Assert.assertFalse(expected.endsWith("\r\n"));
+
+			final RFC3548StreamDecoder decoder = codec.newDecoder();
+			final ByteBuffer decoded = ByteBuffer.allocate(data.length);
+			final ByteBuffer bytes = ByteBuffer.allocate(5);
+			for (int i = 0; i <= expected.length(); i += 3) {
+				final CharBuffer slice = CharBuffer.wrap(expected, i, Math.min(i + 3, expected.length()));
+				final boolean end = i + 3 > expected.length();
+				while (decoder.decode(slice, bytes, end) == CoderResult.OVERFLOW) {
+					decoded.put((ByteBuffer) bytes.flip());
+					bytes.clear();
+				}
+			}
+			decoded.put((ByteBuffer) bytes.flip());
+			Assert.assertArrayEquals(data, decoded.array());
+		}
+	}
+
+	@Test
+	public void testChunksLikeChunkedEncoder() {
+		final byte[] data = "A brown fox jumps over the yellow fence".getBytes(StandardCharsets.US_ASCII);
+		final ChunkedEncoder chunked = new ChunkedEncoder(8, "\n");
+		Assert.assertEquals(chunked.encode(RFC3548Base64Codec.INSTANCE.encode(data)).toString(),
+				RFC3548StreamCodec.BASE64.withChunks(chunked).encode(data));
+		Assert.assertEquals(chunked.encode(RFC3548Base32Codec.INSTANCE.encode(data)).toString(),
+				RFC3548StreamCodec.BASE32.withChunks(chunked).encode(data));
+	}
+
+	@Test
+	public void testStreams() throws Exception {
+		final byte[] data = new byte[100000];
+		new Random(7).nextBytes(data);
+		for (final RFC3548StreamCodec temp : RFC3548StreamCodecTest.CODECS) {
+			final RFC3548StreamCodec codec = temp.withChunks(64, "\n");
+			final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+			try (OutputStream out = codec.wrap(encoded)) {
+				out.write(data, 0, 1);
+				out.write(data[1]);
+				out.write(data, 2, data.length - 2);
+			}
+			Assert.assertEquals(codec.encode(data), new String(encoded.toByteArray(), StandardCharsets.US_ASCII));
+
+			final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+			try (InputStream in = codec.wrap(new ByteArrayInputStream(encoded.toByteArray()))) {
+				Assert.assertEquals(data[0] & 0xff, in.read());
+				final byte[] small = new byte[2];
+				Assert.assertEquals(2, in.read(small));
+				decoded.write(data[0]);
+				decoded.write(small);
+				final byte[] buffer = new byte[1000];
+				int read;
+				while ((read = in.read(buffer)) >= 0) {
+					decoded.write(buffer, 0, read);
+				}
+			}
+			Assert.assertArrayEquals(data, decoded.toByteArray());
+		}
+	}
+}
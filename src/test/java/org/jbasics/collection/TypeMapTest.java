@@ -27,7 +27,10 @@ import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -78,4 +81,32 @@ public class TypeMapTest {
 		Assert.assertEquals("Exception", typeMap.get(Exception.class));
 		Assert.assertNull(typeMap.get(TypeMapTest.class));
 	}
+
+	@Test
+	public void testResolvedCacheInvalidation() {
+		final TypeMap<String> typeMap = new TypeMap<>(Variance.CONTRAVARIANT);
+		typeMap.put(Object.class, "Object");
+		Assert.assertEquals("Object", typeMap.get(Integer.class));
+		typeMap.put(Number.class, "Number");
+		Assert.assertEquals("Number", typeMap.get(Integer.class));
+		typeMap.put(Number.class, "Number2");
+		Assert.assertEquals("Number2", typeMap.get(Integer.class));
+		typeMap.keySet().remove(Number.class);
+		Assert.assertEquals("Object", typeMap.get(Integer.class));
+		typeMap.remove(Object.class);
+		Assert.assertNull(typeMap.get(Integer.class));
+		Assert.assertFalse(typeMap.containsKey(Integer.class));
+	}
+
+	@Test
+	public void testHierarchy() {
+		final Map<Class<?>, Integer> hierarchy = TypeMap.getHierarchy(ArrayList.class);
+		Assert.assertEquals(Integer.valueOf(0), hierarchy.get(ArrayList.class));
+		Assert.assertEquals(Integer.valueOf(1), hierarchy.get(AbstractList.class));
+		Assert.assertEquals(Integer.valueOf(1), hierarchy.get(List.class));
+		Assert.assertEquals(Integer.valueOf(2), hierarchy.get(Collection.class));
+		Assert.assertNull(hierarchy.get(Number.class));
+		Assert.assertEquals(2, TypeMap.getRank(Variance.CONTRAVARIANT, Collection.class, ArrayList.class));
+		Assert.assertEquals(TypeMap.MAX_RANK, TypeMap.getRank(Variance.COVARIANT, Collection.class, ArrayList.class));
+	}
 }
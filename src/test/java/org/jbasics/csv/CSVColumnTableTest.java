@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.TimeZone;
+
+public class CSVColumnTableTest {
+	private static final String csvFileData =
+			"ID,Amount,Price,Booked,Name\n" +
+			"1,10,1.5,2014-11-25T10:00:00Z,One\n" + // Dont break;
+			"2,,2.25,2014-11-26T10:00:00Z,Two\n" + // Dont break;
+			"3,5000000000,0.25,,Three\n";
+
+	@Test
+	public void testInferredTypes() throws IOException {
+		final CSVColumnTable table;
+		try (CSVRecordStream stream = new CSVParser().stream(new StringReader(CSVColumnTableTest.csvFileData))) {
+			table = CSVColumnTable.read(stream);
+		}
+		Assert.assertEquals(5, table.columnSize());
+		Assert.assertEquals(3, table.rowSize());
+		Assert.assertEquals(CSVColumnType.INT, table.getColumn("ID").getType());
+		Assert.assertEquals(CSVColumnType.LONG, table.getColumn("Amount").getType());
+		Assert.assertEquals(CSVColumnType.DOUBLE, table.getColumn("Price").getType());
+		Assert.assertEquals(CSVColumnType.DATE, table.getColumn("Booked").getType());
+		Assert.assertEquals(CSVColumnType.STRING, table.getColumn("Name").getType());
+		Assert.assertTrue(table.getColumn("Amount").isNull(1));
+		Assert.assertEquals(1, table.getColumn("Amount").nullCount());
+		Assert.assertEquals(5000000010L, table.getColumn("Amount").longs().sum());
+		Assert.assertEquals(4.0d, table.getColumn("Price").sum(), 0d);
+		Assert.assertEquals(6, table.getColumn(0).ints().sum());
+		final BitSet expensive = table.getColumn("Price").filterDoubles(price -> price > 1d);
+		Assert.assertEquals(2, expensive.cardinality());
+		Assert.assertFalse(expensive.get(2));
+		Assert.assertEquals("Three", table.getValueAtRowAndColumn(2, 4));
+	}
+
+	@Test
+	public void testGivenTypesAndWidening() {
+		final CSVTable source = new CSVParser().parse("A,B\n1,1.10\n2,2.20\n");
+		final CSVColumnTable table = source.toColumnTable(CSVColumnType.LONG, CSVColumnType.DECIMAL);
+		Assert.assertEquals(CSVColumnType.DECIMAL, table.getColumn("B").getType());
+		Assert.assertEquals(new BigDecimal("3.30"), table.getColumn("B").sumDecimal());
+		Assert.assertEquals(3L, table.getColumn("A").longs().sum());
+		final StringBuilder t = new StringBuilder("A\n");
+		for (int i = 0; i < CSVColumnTable.DEFAULT_SAMPLE_SIZE; i++) {
+			t.append(i % 2).append('\n');
+		}
+		t.append("5000000000\n0.5\n");
+		final CSVColumn widened = CSVColumnTable.build(new CSVParser().parse(t.toString())).getColumn("A");
+		Assert.assertEquals(CSVColumnType.DECIMAL, widened.getType());
+		Assert.assertEquals(new BigDecimal("5000000500.5"), widened.sumDecimal());
+		try {
+			new CSVParser().parse("A\n1\nx\n").toColumnTable(CSVColumnType.INT);
+			Assert.fail("Value x must not be accepted as INT");
+		} catch (final IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testInferenceKeepsNonPlainNumbersAsText() {
+		Assert.assertEquals(CSVColumnType.STRING, CSVColumnType.infer("007"));
+		Assert.assertEquals(CSVColumnType.STRING, CSVColumnType.infer("0x1F"));
+		Assert.assertEquals(CSVColumnType.STRING, CSVColumnType.infer("-0"));
+		Assert.assertEquals(CSVColumnType.STRING, CSVColumnType.infer(" 12"));
+		Assert.assertEquals(CSVColumnType.STRING, CSVColumnType.infer("1."));
+		Assert.assertEquals(CSVColumnType.INT, CSVColumnType.infer("0"));
+		Assert.assertEquals(CSVColumnType.INT, CSVColumnType.infer("-12"));
+		Assert.assertEquals(CSVColumnType.DOUBLE, CSVColumnType.infer("-0.5"));
+		Assert.assertEquals(CSVColumnType.DOUBLE, CSVColumnType.infer("1.5e-3"));
+		final StringBuilder t = new StringBuilder("Code\n");
+		for (int i = 1; i <= CSVColumnTable.DEFAULT_SAMPLE_SIZE; i++) {
+			t.append(i).append('\n');
+		}
+		t.append("007\n");
+		final CSVColumn widened = CSVColumnTable.build(new CSVParser().parse(t.toString())).getColumn("Code");
+		Assert.assertEquals(CSVColumnType.STRING, widened.getType());
+		Assert.assertEquals("007", widened.getString(CSVColumnTable.DEFAULT_SAMPLE_SIZE));
+		Assert.assertEquals("1", widened.getString(0));
+	}
+
+	@Test
+	public void testWideningKeepsOriginalText() {
+		final StringBuilder t = new StringBuilder("Price,Booked,Big\n");
+		for (int i = 0; i < CSVColumnTable.DEFAULT_SAMPLE_SIZE; i++) {
+			t.append(i % 2 == 0 ? "1.50" : "1e3").append(",2014-11-25T10:00:00+02:00,").append(i == 0 ? "9007199254740993" : Integer.toString(i)).append('\n');
+		}
+		t.append("n/a,unknown,0.5\n");
+		final CSVColumnTable table = CSVColumnTable.build(new CSVParser().parse(t.toString()));
+		final CSVColumn price = table.getColumn("Price");
+		Assert.assertEquals(CSVColumnType.STRING, price.getType());
+		Assert.assertEquals("1.50", price.getString(0));
+		Assert.assertEquals("1e3", price.getString(1));
+		Assert.assertEquals("n/a", price.getString(CSVColumnTable.DEFAULT_SAMPLE_SIZE));
+		final CSVColumn booked = table.getColumn("Booked");
+		Assert.assertEquals(CSVColumnType.STRING, booked.getType());
+		Assert.assertEquals("2014-11-25T10:00:00+02:00", booked.getString(0));
+		final CSVColumn big = table.getColumn("Big");
+		Assert.assertEquals(CSVColumnType.DECIMAL, big.getType());
+		Assert.assertEquals(new BigDecimal("9007199254740993"), big.getDecimal(0));
+		Assert.assertEquals(new BigDecimal("0.5"), big.getDecimal(CSVColumnTable.DEFAULT_SAMPLE_SIZE));
+		Assert.assertEquals(new BigDecimal("1"), big.getDecimal(1));
+	}
+
+	@Test
+	public void testDateWithoutZoneIsUTC() {
+		final TimeZone zone = TimeZone.getDefault();
+		TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+		try {
+			final CSVColumn booked = new CSVParser().parse("Booked\n2014-11-25T10:00:00\n2014-11-25\n").toColumnTable(CSVColumnType.DATE).getColumn(0);
+			Assert.assertEquals(Instant.parse("2014-11-25T10:00:00Z"), booked.getValue(0));
+			Assert.assertEquals(Instant.parse("2014-11-25T00:00:00Z"), booked.getValue(1));
+		} finally {
+			TimeZone.setDefault(zone);
+		}
+	}
+}
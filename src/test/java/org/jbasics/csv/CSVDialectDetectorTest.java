@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+public class CSVDialectDetectorTest {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Test
+	public void testSeparators() {
+		final CSVDialectDetector detector = new CSVDialectDetector();
+		Assert.assertEquals(new CSVDialect(',', '"', true), detector.detect("ID,Name,Value\r\n1,\"A; B\",12\r\n2,C,13\r\n", true));
+		Assert.assertEquals(new CSVDialect(';', '"', true), detector.detect("ID;Name;Value\n1;\"A, B, C\";12,5\n2;D;13,75\n", true));
+		Assert.assertEquals(new CSVDialect('\t', '"', false), detector.detect("1\tA,B\t12\n2\tC;D\t13\n", true));
+		Assert.assertEquals(new CSVDialect('|', '"', true), detector.detect("ID|Name\n1|A\n2|B\n3|C", true));
+	}
+
+	@Test
+	public void testQuote() {
+		final CSVDialect dialect = new CSVDialectDetector().detect("1,'Schloepke, Stephan',12\n2,'Multi\nLine',13\n3,'It''s',14\n", true);
+		Assert.assertEquals(',', dialect.getSeparator());
+		Assert.assertEquals('\'', dialect.getQuote());
+		Assert.assertFalse(dialect.hasHeaders());
+	}
+
+	@Test
+	public void testIncompleteSample() {
+		final byte[] data = "Name;Value\n\u00c4pfel;1\nBirnen;2\nKirschen;3\nPflau".getBytes(CSVDialectDetectorTest.UTF_8);
+		final CSVDialect dialect = new CSVDialectDetector().detect(data, 0, data.length, false, CSVDialectDetectorTest.UTF_8);
+		Assert.assertEquals(new CSVDialect(';', '"', true), dialect);
+		final byte[] utf16 = "Name;Value\nA;1\nB;2\n".getBytes(Charset.forName("UTF-16"));
+		Assert.assertEquals(dialect, new CSVDialectDetector().detect(utf16, 0, utf16.length, true, Charset.forName("UTF-16")));
+	}
+}
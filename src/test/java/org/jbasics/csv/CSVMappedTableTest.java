@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.jbasics.pattern.container.Indexed;
+import org.jbasics.types.sequences.Sequence;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+public class CSVMappedTableTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String csvFileData =
+			"ID,Name,Value\r\n" +
+			"1,\"Schl\u00f6pke, Stephan\",12\r\n" + // Dont break;
+			"\n" + // Dont break;
+			"2,\"Say \"\"Multi\nLine\"\"\",13\n" + // Dont break;
+			"3,Last";
+
+	@Test
+	public void testLazyFields() {
+		final CSVMappedTable table = new CSVMappedTable(ByteBuffer.wrap(CSVMappedTableTest.csvFileData.getBytes(CSVMappedTableTest.UTF8)),
+				CSVMappedTableTest.UTF8, ',', true);
+		Assert.assertEquals(new CSVRecord("ID", "Name", "Value"), table.getHeaders());
+		Assert.assertEquals(3, table.size());
+		Assert.assertEquals(3, table.columnSize());
+		Assert.assertEquals("Schl\u00f6pke, Stephan", table.getValueAtRowAndColumn(0, 1));
+		Assert.assertEquals("Say \"Multi\nLine\"", table.getRecord(1).getField(1));
+		Assert.assertEquals("13", table.getValueAtRowAndColumn(1, 2));
+		Assert.assertNull(table.getValueAtRowAndColumn(2, 2));
+		Assert.assertEquals(new CSVRecord("3", "Last"), table.getRecord(2).toRecord());
+		final CSVRecord converted = new CSVRecordConverter((Indexed<String>) new CSVRecord("Value", "ID"), table.getHeaders()).transpose(table.getRecord(0));
+		Assert.assertEquals(new CSVRecord("12", "1"), converted);
+		Assert.assertEquals("13", table.map(0).get(Sequence.<String>emptySequence().cons("2")).getField(2));
+	}
+
+	@Test
+	public void testMappedFile() throws IOException {
+		final File temp = File.createTempFile("jbasics-csv", ".csv");
+		temp.deleteOnExit();
+		try (FileOutputStream out = new FileOutputStream(temp)) {
+			out.write(CSVMappedTableTest.csvFileData.getBytes(CSVMappedTableTest.UTF8));
+		}
+		final CSVMappedTable table = CSVMappedTable.open(temp, CSVMappedTableTest.UTF8, ',', true);
+		final CSVTable parsed = new CSVParser().parse(CSVMappedTableTest.csvFileData);
+		Assert.assertEquals(parsed.getHeaders(), table.getHeaders());
+		Assert.assertEquals(parsed.size(), table.size());
+		for (int i = 0; i < parsed.size(); i++) {
+			Assert.assertEquals(parsed.getRecord(i), table.getRecord(i).toRecord());
+		}
+	}
+
+	@Test
+	public void testCustomQuote() {
+		final String data = "ID;Name\n1;'Say ''Hi''; \"there\"\nnow'\n2;\"Plain";
+		final CSVDialect dialect = new CSVDialect(';', '\'', true);
+		final CSVMappedTable table = new CSVMappedTable(ByteBuffer.wrap(data.getBytes(CSVMappedTableTest.UTF8)), CSVMappedTableTest.UTF8, dialect);
+		final CSVTable parsed = new CSVParser(dialect).parse(data);
+		Assert.assertEquals('\'', table.getQuote());
+		Assert.assertEquals(2, table.size());
+		Assert.assertEquals("Say 'Hi'; \"there\"\nnow", table.getValueAtRowAndColumn(0, 1));
+		for (int i = 0; i < parsed.size(); i++) {
+			Assert.assertEquals(parsed.getRecord(i), table.getRecord(i).toRecord());
+		}
+	}
+}
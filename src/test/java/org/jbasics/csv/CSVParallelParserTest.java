@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ForkJoinPool;
+
+public class CSVParallelParserTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Test
+	public void testParseKeepsOrderAndQuotedLineBreaks() {
+		final StringBuilder t = new StringBuilder("ID;Text;Value\r\n");
+		for (int i = 0; i < 2000; i++) {
+			t.append(i).append(';');
+			if (i % 3 == 0) {
+				t.append("\"Line\nbreak; \"\"quoted\"\"\r\n").append(i).append('"');
+			} else {
+				t.append("plain").append(i);
+			}
+			t.append(';').append(i % 7 == 0 ? "" : Integer.toString(i * 2)).append(i % 5 == 0 ? "\n\n" : "\r\n");
+		}
+		final String input = t.toString();
+		final CSVTable expected = new CSVParser(';').parse(input);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final CSVTable parsed = new CSVParallelParser(true, ';', true, pool, 64).parse(ByteBuffer.wrap(input.getBytes(CSVParallelParserTest.UTF8)),
+					CSVParallelParserTest.UTF8);
+			Assert.assertEquals(expected.getHeaders(), parsed.getHeaders());
+			Assert.assertEquals(2000, parsed.size());
+			for (int i = 0; i < expected.size(); i++) {
+				Assert.assertEquals(expected.getRecord(i), parsed.getRecord(i));
+			}
+			Assert.assertEquals("Line\nbreak; \"quoted\"\r\n3", parsed.getField(3, 1));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testParseWithCustomQuote() {
+		final StringBuilder t = new StringBuilder("ID,Text\n");
+		for (int i = 0; i < 500; i++) {
+			t.append(i).append(',');
+			if (i % 2 == 0) {
+				t.append("'Line\nbreak, \"not quoted'' ").append(i).append('\'');
+			} else {
+				t.append("\"plain").append(i);
+			}
+			t.append('\n');
+		}
+		final String input = t.toString();
+		final CSVParser parser = new CSVParser(true, ',', '\'', true);
+		final CSVTable expected = parser.parse(input);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final CSVTable parsed = new CSVParallelParser(true, ',', '\'', true, pool, 64).parse(ByteBuffer.wrap(input.getBytes(CSVParallelParserTest.UTF8)),
+					CSVParallelParserTest.UTF8);
+			Assert.assertEquals(500, expected.size());
+			Assert.assertEquals(expected.size(), parsed.size());
+			for (int i = 0; i < expected.size(); i++) {
+				Assert.assertEquals(expected.getRecord(i), parsed.getRecord(i));
+			}
+			Assert.assertEquals("Line\nbreak, \"not quoted' 4", parsed.getField(4, 1));
+			Assert.assertEquals(expected.size(), parser.parseParallel(ByteBuffer.wrap(input.getBytes(CSVParallelParserTest.UTF8)), CSVParallelParserTest.UTF8).size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
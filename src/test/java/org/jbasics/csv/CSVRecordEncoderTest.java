@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CSVRecordEncoderTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Test
+	public void testEncode() throws IOException {
+		final List<CSVRecord> records = new ArrayList<CSVRecord>();
+		for (int i = 0; i < 100; i++) {
+			records.add(new CSVRecord("Line" + i, "Two;Two", "Schl\u00f6pke \"quoted\"", "", "Multi\nLine \ud83d\ude00 " + i));
+		}
+		final StringBuilder expected = new StringBuilder();
+		new CSVRecordWriter(expected, CSVSeparator.SEMICOLON).write(records.toArray(new CSVRecord[records.size()]));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (CSVRecordEncoder encoder = new CSVRecordEncoder(Channels.newChannel(out), CSVRecordEncoderTest.UTF8, ';', 16)) {
+			encoder.write(records.subList(0, 50)).write(records.subList(50, 100));
+		}
+		Assert.assertEquals(expected.toString(), new String(out.toByteArray(), CSVRecordEncoderTest.UTF8));
+		Assert.assertEquals(records, toList(new CSVParser(false, ';', true).parse(new String(out.toByteArray(), CSVRecordEncoderTest.UTF8))));
+	}
+
+	private List<CSVRecord> toList(final Iterable<CSVRecord> records) {
+		final List<CSVRecord> result = new ArrayList<CSVRecord>();
+		for (final CSVRecord record : records) {
+			result.add(record);
+		}
+		return result;
+	}
+}
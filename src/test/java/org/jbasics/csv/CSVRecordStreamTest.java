@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CSVRecordStreamTest {
+	private static final String csvFileData =
+			"ID,Name,Value\r\n" +
+			"1,\"Schloepke, Stephan\",12\r\n" + // Dont break;
+			"\n\n" + // Dont break;
+			"2,\"Multi\nLine\",13\n" + // Dont break;
+			"3,Last,14";
+
+	@Test
+	public void testPushParse() throws IOException {
+		final List<CSVRecord> records = new ArrayList<CSVRecord>();
+		final CSVRecord headers = new CSVParser().parse(new StringReader(CSVRecordStreamTest.csvFileData), records::add);
+		Assert.assertEquals(new CSVRecord("ID", "Name", "Value"), headers);
+		Assert.assertEquals(3, records.size());
+		Assert.assertEquals("Schloepke, Stephan", records.get(0).getField(1));
+		Assert.assertEquals("Multi\nLine", records.get(1).getField(1));
+		Assert.assertEquals(new CSVRecord("3", "Last", "14"), records.get(2));
+		Assert.assertEquals(records, toList(new CSVParser().parse(CSVRecordStreamTest.csvFileData)));
+	}
+
+	@Test
+	public void testStream() throws IOException {
+		try (CSVRecordStream stream = new CSVParser().stream(new StringReader(CSVRecordStreamTest.csvFileData))) {
+			Assert.assertTrue(stream.hasHeaders());
+			Assert.assertEquals(new CSVRecord("ID", "Name", "Value"), stream.getHeaders());
+			try (Stream<CSVRecord> records = stream.stream()) {
+				Assert.assertEquals(toList(new CSVParser().parse(CSVRecordStreamTest.csvFileData)), records.collect(Collectors.toList()));
+			}
+		}
+	}
+
+	private List<CSVRecord> toList(final Iterable<CSVRecord> records) {
+		final List<CSVRecord> result = new ArrayList<CSVRecord>();
+		for (final CSVRecord record : records) {
+			result.add(record);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class CSVTableIndexTest {
+	private final CSVTable customers = new CSVParser().parse("ID,Country,Name\n" +
+			"7,DE,Schloepke\n" + // Dont break;
+			"3,US,Tilkov\n" + // Dont break;
+			"5,DE,Ghadir\n" + // Dont break;
+			"1,FR,Klemm\n" + // Dont break;
+			"9,DE,Last");
+	private final CSVTable orders = new CSVParser().parse("Order,Customer\nA,5\nB,9\nC,4");
+
+	@Test
+	public void testHashIndex() {
+		final CSVHashIndex byCountry = this.customers.hashIndex("Country");
+		Assert.assertSame(byCountry, this.customers.hashIndex(1));
+		final List<CSVRecord> germans = byCountry.get("DE");
+		Assert.assertEquals(3, germans.size());
+		Assert.assertEquals("Schloepke", germans.get(0).getField(2));
+		Assert.assertEquals("Last", germans.get(2).getField(2));
+		Assert.assertTrue(byCountry.get("IT").isEmpty());
+		Assert.assertEquals("Tilkov", this.customers.hashIndex("Country", "ID").first("US", "3").getField(2));
+		Assert.assertNull(this.customers.hashIndex("Country", "ID").first("US", "7"));
+		final CSVHashIndex byId = this.customers.hashIndex("ID");
+		Assert.assertEquals("Ghadir", byId.first(this.orders.getRecord(0), 1).getField(2));
+		Assert.assertEquals("Last", byId.first(this.orders.getRecord(1), 1).getField(2));
+		Assert.assertNull(byId.first(this.orders.getRecord(2), 1));
+	}
+
+	@Test
+	public void testSortedIndex() {
+		final CSVSortedIndex byId = this.customers.sortedIndex("ID");
+		Assert.assertSame(byId, this.customers.sortedIndex(0));
+		Assert.assertEquals("Klemm", byId.records().get(0).getField(2));
+		Assert.assertEquals("Last", byId.records().get(4).getField(2));
+		final List<CSVRecord> range = byId.range(new String[]{"3"}, true, new String[]{"7"}, false);
+		Assert.assertEquals(2, range.size());
+		Assert.assertEquals("Tilkov", range.get(0).getField(2));
+		Assert.assertEquals("Ghadir", range.get(1).getField(2));
+		Assert.assertEquals(3, this.customers.sortedIndex("Country", "ID").get("DE").size());
+		Assert.assertEquals("Ghadir", this.customers.sortedIndex("Country", "ID").get("DE").get(0).getField(2));
+		Assert.assertTrue(byId.get("4").isEmpty());
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.discover;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.FutureTask;
+
+public class ServiceClassDiscoveryTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testDiscoveryIsCached() throws Exception {
+		final File root = this.folder.newFolder();
+		final File serviceFile = writeFile(root, ServiceClassDiscovery.RESOURCE_BASE + List.class.getName(),
+				"# providers\n" + ArrayList.class.getName() + "\n" + LinkedList.class.getName() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null)) {
+			Assert.assertEquals(Arrays.asList(ArrayList.class, LinkedList.class),
+					new ArrayList<Class<?>>(ServiceClassDiscovery.discoverClasses(List.class, loader)));
+			Assert.assertEquals(ArrayList.class, ServiceClassDiscovery.discoverImplementation(List.class, null, loader));
+			Assert.assertTrue(serviceFile.delete());
+			Assert.assertEquals(2, ServiceClassDiscovery.discoverClassNames(List.class, loader).size());
+			ServiceClassDiscovery.clearCache(loader);
+			Assert.assertTrue(ServiceClassDiscovery.discoverClassNames(List.class, loader).isEmpty());
+		}
+	}
+
+	@Test
+	public void testParallelLoading() throws Exception {
+		final File root = this.folder.newFolder();
+		writeFile(root, ServiceClassDiscovery.RESOURCE_BASE + AbstractList.class.getName(),
+				ArrayList.class.getName() + "\n" + LinkedList.class.getName() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null)) {
+			final Set<Class<? extends AbstractList>> classes = ServiceClassDiscovery.discoverClassesInParallel(AbstractList.class, loader);
+			Assert.assertEquals(Arrays.asList(ArrayList.class, LinkedList.class), new ArrayList<Class<?>>(classes));
+			ServiceClassDiscovery.preload(loader, AbstractList.class, List.class);
+		}
+	}
+
+	@Test
+	public void testIndex() throws Exception {
+		final File scanned = this.folder.newFolder();
+		writeFile(scanned, ServiceClassDiscovery.RESOURCE_BASE + List.class.getName(), LinkedList.class.getName() + "\n"); //$NON-NLS-1$
+		final StringWriter index = new StringWriter();
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{scanned.toURI().toURL()}, null)) {
+			ServiceClassDiscovery.writeIndex(index, loader, List.class);
+		}
+		Assert.assertEquals(List.class.getName() + "=" + LinkedList.class.getName() + "\n", index.toString()); //$NON-NLS-1$ //$NON-NLS-2$
+		final File indexed = this.folder.newFolder();
+		writeFile(indexed, ServiceClassDiscovery.INDEX_RESOURCE, "# generated\n" + List.class.getName() + "=" + ArrayList.class.getName() + ", " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ LinkedList.class.getName() + "\n"); //$NON-NLS-1$
+		writeFile(indexed, ServiceClassDiscovery.RESOURCE_BASE + List.class.getName(), "not scanned since the index lists the service\n"); //$NON-NLS-1$
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{indexed.toURI().toURL()}, null)) {
+			Assert.assertEquals(Arrays.asList(ArrayList.class.getName(), LinkedList.class.getName()),
+					new ArrayList<String>(ServiceClassDiscovery.discoverClassNames(List.class, loader)));
+		}
+	}
+
+	@Test
+	public void testIndexDoesNotHideOtherRoots() throws Exception {
+		final File indexed = this.folder.newFolder();
+		writeFile(indexed, ServiceClassDiscovery.INDEX_RESOURCE, List.class.getName() + "=" + ArrayList.class.getName() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		writeFile(indexed, ServiceClassDiscovery.RESOURCE_BASE + List.class.getName(), Vector.class.getName() + "\n"); //$NON-NLS-1$
+		final File scanned = this.folder.newFolder();
+		writeFile(scanned, ServiceClassDiscovery.RESOURCE_BASE + List.class.getName(), LinkedList.class.getName() + "\n"); //$NON-NLS-1$
+		final StringWriter index = new StringWriter();
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{indexed.toURI().toURL(), scanned.toURI().toURL()}, null)) {
+			Assert.assertEquals(Arrays.asList(ArrayList.class.getName(), LinkedList.class.getName()),
+					new ArrayList<String>(ServiceClassDiscovery.discoverClassNames(List.class, loader)));
+			ServiceClassDiscovery.writeIndex(index, loader, List.class);
+		}
+		Assert.assertEquals(List.class.getName() + "=" + Vector.class.getName() + "," + LinkedList.class.getName() + "\n", index.toString()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	@Test
+	public void testIndexOfOtherServiceDoesNotHideRoot() throws Exception {
+		final File first = this.folder.newFolder();
+		writeFile(first, ServiceClassDiscovery.INDEX_RESOURCE, Runnable.class.getName() + "=" + Thread.class.getName() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		final File second = this.folder.newFolder();
+		writeFile(second, ServiceClassDiscovery.INDEX_RESOURCE, Comparable.class.getName() + "=" + String.class.getName() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		writeFile(second, ServiceClassDiscovery.RESOURCE_BASE + Runnable.class.getName(), FutureTask.class.getName() + "\n"); //$NON-NLS-1$
+		try (URLClassLoader loader = new URLClassLoader(new URL[]{first.toURI().toURL(), second.toURI().toURL()}, null)) {
+			Assert.assertEquals(Arrays.asList(Thread.class.getName(), FutureTask.class.getName()),
+					new ArrayList<String>(ServiceClassDiscovery.discoverClassNames(Runnable.class, loader)));
+			Assert.assertEquals(Arrays.asList(String.class.getName()),
+					new ArrayList<String>(ServiceClassDiscovery.discoverClassNames(Comparable.class, loader)));
+		}
+	}
+
+	private static File writeFile(final File root, final String name, final String content) throws IOException {
+		final File file = new File(root, name);
+		Assert.assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
@@ -26,6 +26,10 @@ package org.jbasics.math;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
 public class BigDecimalMatrixTest {
 
 	@Test
@@ -93,4 +97,25 @@ public class BigDecimalMatrixTest {
 		BigDecimalMatrix C = BigDecimalMatrix.create().withRowFromLongs(12, -6).withRowFromLongs(39, -12).build();
 		Assert.assertEquals(A.add(B).multiply(C), A.multiply(C).add(B.multiply(C)));
 	}
+
+	@Test
+	public void testLargeMatrixMultiply() {
+		final Random random = new Random(4711);
+		final BigDecimalMatrix input = BigDecimalMatrix.createRandomMatrix(70, 90, () -> BigDecimal.valueOf(random.nextInt(2000000) - 1000000, 3));
+		final BigDecimalMatrix factor = BigDecimalMatrix.createRandomMatrix(90, 80, () -> BigDecimal.valueOf(random.nextInt(2000) - 1000, 1));
+		final BigDecimalMatrix calculated = input.multiply(factor);
+		final BigDecimalMatrix fast = input.multiplyFast(factor, MathContext.UNLIMITED);
+		final BigDecimalMatrix approximated = input.multiplyFast(factor.multiply(new BigDecimal("1.0000000000000000001")), MathContext.DECIMAL32);
+		for (int i = 0; i < 70; i++) {
+			for (int j = 0; j < 80; j++) {
+				BigDecimal expected = BigDecimal.ZERO;
+				for (int k = 0; k < 90; k++) {
+					expected = expected.add(input.get(i, k).multiply(factor.get(k, j)));
+				}
+				Assert.assertEquals(expected, calculated.get(i, j));
+				Assert.assertEquals(0, expected.compareTo(fast.get(i, j)));
+				Assert.assertEquals(expected.doubleValue(), approximated.get(i, j).doubleValue(), Math.abs(expected.doubleValue()) * 1e-5 + 1e-6);
+			}
+		}
+	}
 }
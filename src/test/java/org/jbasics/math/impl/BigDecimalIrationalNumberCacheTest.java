@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.impl;
+
+import org.jbasics.math.IrationalNumber;
+import org.jbasics.math.MemorizedIrationalNumber;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class BigDecimalIrationalNumberCacheTest {
+
+	@Test
+	public void testHitsAndPrecisionReuse() {
+		final BigDecimalIrationalNumberCache cache = new BigDecimalIrationalNumberCache(10000);
+		final IrationalNumber<BigDecimal> first = cache.get("ln", new BigDecimal("1.5"), LogNaturalFunctionIrationalNumber::valueOf);
+		final BigDecimal precise = first.valueToPrecision(new MathContext(100));
+		final IrationalNumber<BigDecimal> second = cache.get("ln", new BigDecimal("1.50"), LogNaturalFunctionIrationalNumber::valueOf);
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(1, cache.getHitCount());
+		final int memorized = ((MemorizedIrationalNumber<BigDecimal>) second).precision();
+		Assert.assertEquals(precise.round(MathContext.DECIMAL64), second.valueToPrecision(MathContext.DECIMAL64));
+		Assert.assertEquals(memorized, ((MemorizedIrationalNumber<BigDecimal>) second).precision());
+		Assert.assertTrue(cache.getWeight() >= memorized);
+		Assert.assertNotSame(first, cache.get("exp", new BigDecimal("1.5"), ExponentialIrationalNumber::valueOf));
+	}
+
+	@Test
+	public void testEviction() {
+		final BigDecimalIrationalNumberCache cache = new BigDecimalIrationalNumberCache(500);
+		for (int i = 1; i <= 10; i++) {
+			cache.get("sqrt", BigDecimal.valueOf(i + 2), SquareRootIrationalNumber::valueOf).valueToPrecision(new MathContext(100));
+		}
+		Assert.assertTrue(cache.getWeight() <= 500);
+		Assert.assertTrue(cache.getEvictionCount() > 0);
+		Assert.assertEquals(10 - cache.getEvictionCount(), cache.size());
+		cache.get("sqrt", BigDecimal.valueOf(3), SquareRootIrationalNumber::valueOf);
+		Assert.assertEquals(11, cache.getMissCount());
+	}
+
+	@Test
+	public void testConcurrentWeightMatchesEntries() throws Exception {
+		final BigDecimalIrationalNumberCache cache = new BigDecimalIrationalNumberCache(2000);
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < 8; t++) {
+				final int seed = t;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 200; i++) {
+						final BigDecimal x = BigDecimal.valueOf((i * 7 + seed) % 20 + 2);
+						cache.get("sqrt", x, SquareRootIrationalNumber::valueOf).valueToPrecision(new MathContext(10 + (i + seed) % 60));
+					}
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		// every entry removed subtracts exactly its weight so the total must drop to zero if it matched the entries
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0L, cache.getWeight());
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.math.strategies;
+
+import org.jbasics.math.AlgorithmStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+public class BinarySplittingAlgorithmStrategyTest {
+	private static final MathContext MC = new MathContext(100);
+	private static final BigDecimal PI = new BigDecimal("3.14159265358979323846264338327950288419716939937510582097494459230781640628620899862803482534211706798214808651");
+	private static final BigDecimal E = new BigDecimal("2.71828182845904523536028747135266249775724709369995957496696762772407663035354759457138217852516642742746");
+	private static final BigDecimal LN2 = new BigDecimal("0.69314718055994530941723212145817656807550013436025525412068000949339362196969471560586332699641868754200");
+	private static final BigDecimal SIN1 = new BigDecimal("0.84147098480789650665250232163029899962256306079837106567275170999191040439123966894863974354305269585434");
+
+	@Test
+	public void testConstants() {
+		Assert.assertEquals(BinarySplittingAlgorithmStrategyTest.PI.round(BinarySplittingAlgorithmStrategyTest.MC), calculate(new PiChudnovskyAlgorithmStrategy()));
+		Assert.assertEquals(BinarySplittingAlgorithmStrategyTest.E.round(BinarySplittingAlgorithmStrategyTest.MC), calculate(new ExponentialBinarySplittingAlgorithmStrategy(), BigDecimal.ONE));
+		Assert.assertEquals(BinarySplittingAlgorithmStrategyTest.LN2.round(BinarySplittingAlgorithmStrategyTest.MC), calculate(new NaturalLogarithmAGMAlgorithmStrategy(), BigDecimal.valueOf(2)));
+		Assert.assertEquals(BinarySplittingAlgorithmStrategyTest.SIN1.round(BinarySplittingAlgorithmStrategyTest.MC), calculate(new SineBinarySplittingAlgorithmStrategy(), BigDecimal.ONE));
+		Assert.assertEquals(0, BinarySplittingAlgorithmStrategyTest.PI.round(BinarySplittingAlgorithmStrategyTest.MC).compareTo(
+				calculate(new ArcTangentBinarySplittingAlgorithmStrategy(), BigDecimal.ONE).multiply(BigDecimal.valueOf(4))));
+	}
+
+	@Test
+	public void testIdentities() {
+		final MathContext compare = new MathContext(95);
+		for (final String value : new String[]{"0.000123", "0.5", "1.0000001", "7.25", "-12.3456789", "1234.5"}) {
+			final BigDecimal x = new BigDecimal(value);
+			final BigDecimal sin = calculate(new SineBinarySplittingAlgorithmStrategy(), x);
+			final BigDecimal cos = calculate(new CosineBinarySplittingAlgorithmStrategy(), x);
+			Assert.assertEquals(0, BigDecimal.ONE.compareTo(sin.multiply(sin).add(cos.multiply(cos)).round(compare)));
+			Assert.assertEquals(Math.sin(x.doubleValue()), sin.doubleValue(), 1e-12);
+			Assert.assertEquals(Math.atan(x.doubleValue()), calculate(new ArcTangentBinarySplittingAlgorithmStrategy(), x).doubleValue(), 1e-15);
+			final BigDecimal exp = calculate(new ExponentialBinarySplittingAlgorithmStrategy(), x);
+			Assert.assertEquals(0, x.round(compare).compareTo(calculate(new NaturalLogarithmAGMAlgorithmStrategy(), exp).round(compare)));
+		}
+	}
+
+	@Test
+	public void testSelection() {
+		final AlgorithmStrategy<BigDecimal> strategy = new PrecisionSelectingAlgorithmStrategy(20, new SineAlgorithmStrategy(), new SineBinarySplittingAlgorithmStrategy());
+		Assert.assertEquals(BigDecimal.valueOf(Math.sin(1)).round(MathContext.DECIMAL32), strategy.calculate(MathContext.DECIMAL32, null, BigDecimal.ONE));
+		Assert.assertEquals(BinarySplittingAlgorithmStrategyTest.SIN1.round(MathContext.DECIMAL128), strategy.calculate(MathContext.DECIMAL128, null, BigDecimal.ONE));
+	}
+
+	private BigDecimal calculate(final AlgorithmStrategy<BigDecimal> strategy, final BigDecimal... xn) {
+		return strategy.calculate(BinarySplittingAlgorithmStrategyTest.MC, null, xn);
+	}
+}
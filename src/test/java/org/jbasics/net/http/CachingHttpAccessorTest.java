@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachingHttpAccessorTest {
+	private static final String ETAG = "\"v1\""; //$NON-NLS-1$
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private HttpServer server;
+	private PooledHttpAccessor delegate;
+	private AtomicInteger requests;
+	private AtomicInteger notModified;
+
+	@Before
+	public void setUp() throws IOException {
+		this.requests = new AtomicInteger();
+		this.notModified = new AtomicInteger();
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.server.createContext("/etag", exchange -> { //$NON-NLS-1$
+			this.requests.incrementAndGet();
+			exchange.getResponseHeaders().set(HTTPHeaderConstants.ETAG_HEADER, CachingHttpAccessorTest.ETAG);
+			if (CachingHttpAccessorTest.ETAG.equals(exchange.getRequestHeaders().getFirst(HTTPHeaderConstants.IF_NONE_MATCH_HEADER))) {
+				this.notModified.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+			} else {
+				respond(exchange, "tagged content"); //$NON-NLS-1$
+			}
+		});
+		this.server.createContext("/fresh", exchange -> { //$NON-NLS-1$
+			this.requests.incrementAndGet();
+			exchange.getResponseHeaders().set(HTTPHeaderConstants.EXPIRES_HEADER, HttpDates.format(new Date(System.currentTimeMillis() + 60000L)));
+			respond(exchange, "fresh content"); //$NON-NLS-1$
+		});
+		this.server.createContext("/maxage", exchange -> { //$NON-NLS-1$
+			this.requests.incrementAndGet();
+			exchange.getResponseHeaders().set(HTTPHeaderConstants.CACHE_CONTROL_HEADER, "public, max-age=60"); //$NON-NLS-1$
+			respond(exchange, "max-age content"); //$NON-NLS-1$
+		});
+		this.server.createContext("/nostore", exchange -> { //$NON-NLS-1$
+			this.requests.incrementAndGet();
+			exchange.getResponseHeaders().set(HTTPHeaderConstants.EXPIRES_HEADER, HttpDates.format(new Date(System.currentTimeMillis() + 60000L)));
+			exchange.getResponseHeaders().set(HTTPHeaderConstants.CACHE_CONTROL_HEADER, exchange.getRequestURI().getQuery());
+			respond(exchange, "no-store content"); //$NON-NLS-1$
+		});
+		this.server.createContext("/vary", exchange -> { //$NON-NLS-1$
+			this.requests.incrementAndGet();
+			exchange.getResponseHeaders().set(HTTPHeaderConstants.EXPIRES_HEADER, HttpDates.format(new Date(System.currentTimeMillis() + 60000L)));
+			exchange.getResponseHeaders().set(HTTPHeaderConstants.VARY_HEADER, "*"); //$NON-NLS-1$
+			respond(exchange, "vary content"); //$NON-NLS-1$
+		});
+		this.server.createContext("/plain", exchange -> { //$NON-NLS-1$
+			this.requests.incrementAndGet();
+			respond(exchange, "plain content"); //$NON-NLS-1$
+		});
+		this.server.start();
+		this.delegate = PooledHttpAccessor.newBuilder().build();
+	}
+
+	@After
+	public void tearDown() {
+		this.delegate.close();
+		this.server.stop(0);
+	}
+
+	@Test
+	public void testFreshResponseServedFromMemory() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().build();
+		for (int i = 0; i < 3; i++) {
+			Assert.assertEquals("fresh content", get(accessor, "fresh")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		Assert.assertEquals(1, this.requests.get());
+		Assert.assertEquals(13L, accessor.getMemorySize());
+	}
+
+	@Test
+	public void testConditionalRevalidation() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().build();
+		for (int i = 0; i < 3; i++) {
+			Assert.assertEquals("tagged content", get(accessor, "etag")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		Assert.assertEquals(3, this.requests.get());
+		Assert.assertEquals(2, this.notModified.get());
+	}
+
+	@Test
+	public void testUncacheableResponse() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().build();
+		Assert.assertEquals("plain content", get(accessor, "plain")); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals("plain content", get(accessor, "plain")); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals(2, this.requests.get());
+		Assert.assertEquals(0L, accessor.getMemorySize());
+	}
+
+	@Test
+	public void testDiskTier() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().withMaxMemorySize(20L).withMaxMemoryEntrySize(4)
+				.withDiskDirectory(this.folder.getRoot()).build();
+		Assert.assertEquals("fresh content", get(accessor, "fresh")); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals(13L, accessor.getDiskSize());
+		Assert.assertEquals("fresh content", get(accessor, "fresh")); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals(1, this.requests.get());
+		accessor.clear();
+		Assert.assertEquals(0L, accessor.getDiskSize());
+		Assert.assertEquals(0, this.folder.getRoot().list().length);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().withMaxMemorySize(20L).build();
+		get(accessor, "fresh"); //$NON-NLS-1$
+		get(accessor, "etag"); //$NON-NLS-1$
+		Assert.assertEquals(14L, accessor.getMemorySize());
+		get(accessor, "fresh"); //$NON-NLS-1$
+		Assert.assertEquals(3, this.requests.get());
+	}
+
+	@Test
+	public void testInvalidateOnPost() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().build();
+		get(accessor, "fresh"); //$NON-NLS-1$
+		accessor.post(URI.create("fresh"), new CharSequenceRequestEntity("update"), (meta, in) -> readFully(in)); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals(0L, accessor.getMemorySize());
+		get(accessor, "fresh"); //$NON-NLS-1$
+		Assert.assertEquals(3, this.requests.get());
+	}
+
+	@Test
+	public void testMaxAge() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().build();
+		Assert.assertEquals("max-age content", get(accessor, "maxage")); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals("max-age content", get(accessor, "maxage")); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals(1, this.requests.get());
+	}
+
+	@Test
+	public void testResponsesForbiddingCache() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().build();
+		for (final String path : new String[]{"nostore?no-store", "nostore?private", "nostore?no-cache", "vary"}) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			this.requests.set(0);
+			get(accessor, path);
+			get(accessor, path);
+			Assert.assertEquals(path, 2, this.requests.get());
+		}
+		Assert.assertEquals(0L, accessor.getMemorySize());
+	}
+
+	@Test
+	public void testAuthorizedRequestsBypassCache() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().build();
+		final RequestHeaders headers = new RequestHeaders();
+		headers.getExtensionHeaders().put(HTTPHeaderConstants.AUTHORIZATION_HEADER, new Object[]{"Basic dXNlcjpwYXNz"}); //$NON-NLS-1$
+		get(accessor, "fresh", headers); //$NON-NLS-1$
+		get(accessor, "fresh", headers); //$NON-NLS-1$
+		Assert.assertEquals(2, this.requests.get());
+		Assert.assertEquals(0L, accessor.getMemorySize());
+	}
+
+	@Test
+	public void testStaleDiskEntriesArePurged() throws IOException {
+		final File stale = this.folder.newFile("entry123.cache"); //$NON-NLS-1$
+		final File other = this.folder.newFile("other.txt"); //$NON-NLS-1$
+		createAccessor().withDiskDirectory(this.folder.getRoot()).build();
+		Assert.assertFalse(stale.exists());
+		Assert.assertTrue(other.exists());
+	}
+
+	@Test
+	public void testCachedMetaIsCopied() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().build();
+		final List<ResponseMeta> metas = new ArrayList<ResponseMeta>();
+		for (int i = 0; i < 2; i++) {
+			Assert.assertEquals(200, accessor.get(URI.create("fresh"), new RequestHeaders(), (meta, in) -> { //$NON-NLS-1$
+				readFully(in);
+				metas.add(meta);
+			}));
+			metas.get(i).getExpires().setTime(0L);
+			metas.get(i).setETag("changed"); //$NON-NLS-1$
+		}
+		Assert.assertEquals(1, this.requests.get());
+		Assert.assertNotSame(metas.get(0), metas.get(1));
+		Assert.assertEquals(200, accessor.get(URI.create("fresh"), new RequestHeaders(), (meta, in) -> { //$NON-NLS-1$
+			readFully(in);
+			Assert.assertNull(meta.getETag());
+			Assert.assertNotEquals(0L, meta.getExpires().getTime());
+		}));
+	}
+
+	@Test
+	public void testAcceptEncodingIsPartOfKey() throws IOException {
+		final CachingHttpAccessor accessor = createAccessor().build();
+		final RequestHeaders gzip = new RequestHeaders();
+		gzip.setAcceptEncodings(new AcceptParameter<String>("gzip")); //$NON-NLS-1$
+		get(accessor, "fresh"); //$NON-NLS-1$
+		get(accessor, "fresh", gzip); //$NON-NLS-1$
+		get(accessor, "fresh", gzip); //$NON-NLS-1$
+		get(accessor, "fresh"); //$NON-NLS-1$
+		Assert.assertEquals(2, this.requests.get());
+	}
+
+	private CachingHttpAccessor.CachingHttpAccessorBuilder createAccessor() {
+		return CachingHttpAccessor.newBuilder().withDelegate(this.delegate)
+				.withBase(URI.create("http://127.0.0.1:" + this.server.getAddress().getPort() + "/")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private String get(final HttpAccessor accessor, final String path) throws IOException {
+		return get(accessor, path, new RequestHeaders());
+	}
+
+	private String get(final HttpAccessor accessor, final String path, final RequestHeaders headers) throws IOException {
+		final StringBuilder result = new StringBuilder();
+		Assert.assertEquals(200, accessor.get(URI.create(path), headers,
+				(meta, in) -> result.append(new String(readFully(in), StandardCharsets.ISO_8859_1))));
+		return result.toString();
+	}
+
+	private void respond(final HttpExchange exchange, final String content) throws IOException {
+		readFully(exchange.getRequestBody());
+		final byte[] data = content.getBytes(StandardCharsets.ISO_8859_1);
+		exchange.sendResponseHeaders(200, data.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(data);
+		}
+		exchange.close();
+	}
+
+	private static byte[] readFully(final InputStream in) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[1024];
+		int count;
+		while ((count = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+}
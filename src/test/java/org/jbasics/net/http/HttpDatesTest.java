@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Date;
+
+public class HttpDatesTest {
+	private static final Date DATE = Date.from(Instant.parse("1994-11-06T08:49:37Z")); //$NON-NLS-1$
+
+	@Test
+	public void testFormatPadsDay() {
+		Assert.assertEquals("Sun, 06 Nov 1994 08:49:37 GMT", HttpDates.format(HttpDatesTest.DATE)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testParseAllFormats() {
+		Assert.assertEquals(HttpDatesTest.DATE, HttpDates.parse("Sun, 06 Nov 1994 08:49:37 GMT")); //$NON-NLS-1$
+		Assert.assertEquals(HttpDatesTest.DATE, HttpDates.parse("Sun, 6 Nov 1994 08:49:37 GMT")); //$NON-NLS-1$
+		Assert.assertEquals(HttpDatesTest.DATE, HttpDates.parse("Sunday, 06-Nov-94 08:49:37 GMT")); //$NON-NLS-1$
+		Assert.assertEquals(HttpDatesTest.DATE, HttpDates.parse("Sun Nov  6 08:49:37 1994")); //$NON-NLS-1$
+		Assert.assertNull(HttpDates.parse("yesterday")); //$NON-NLS-1$
+		Assert.assertNull(HttpDates.parse(null));
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Inet6Address;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PooledHttpAccessorTest {
+	private HttpServer server;
+	private PooledHttpAccessor accessor;
+	private Set<Integer> clientPorts;
+
+	@Before
+	public void setUp() throws IOException {
+		this.clientPorts = ConcurrentHashMap.newKeySet();
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.server.createContext("/fixed", exchange -> respond(exchange, "fixed content", false)); //$NON-NLS-1$ //$NON-NLS-2$
+		this.server.createContext("/chunked", exchange -> respond(exchange, "chunked content", true)); //$NON-NLS-1$ //$NON-NLS-2$
+		this.server.createContext("/echo", exchange -> { //$NON-NLS-1$
+			respond(exchange, new String(readFully(exchange.getRequestBody()), StandardCharsets.ISO_8859_1), false);
+		});
+		this.server.start();
+		this.accessor = PooledHttpAccessor.newBuilder()
+				.withBase(URI.create("http://127.0.0.1:" + this.server.getAddress().getPort() + "/")).build(); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@After
+	public void tearDown() {
+		this.accessor.close();
+		this.server.stop(0);
+	}
+
+	@Test
+	public void testKeepAlive() throws IOException {
+		final StringBuilder result = new StringBuilder();
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals(200, this.accessor.get(URI.create("fixed"), new RequestHeaders(), collect(result))); //$NON-NLS-1$
+			Assert.assertEquals(200, this.accessor.get(URI.create("chunked"), new RequestHeaders(), collect(result))); //$NON-NLS-1$
+		}
+		Assert.assertEquals(1, this.clientPorts.size());
+		Assert.assertTrue(result.toString().startsWith("fixed contentchunked content")); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testHead() throws IOException {
+		final StringBuilder result = new StringBuilder();
+		Assert.assertEquals(200, this.accessor.head(URI.create("fixed"), new RequestHeaders(), collect(result))); //$NON-NLS-1$
+		Assert.assertEquals(0, result.length());
+		Assert.assertEquals(200, this.accessor.get(URI.create("fixed"), new RequestHeaders(), collect(result))); //$NON-NLS-1$
+		Assert.assertEquals("fixed content", result.toString()); //$NON-NLS-1$
+		Assert.assertEquals(1, this.clientPorts.size());
+	}
+
+	@Test
+	public void testPost() throws IOException {
+		final StringBuilder result = new StringBuilder();
+		Assert.assertEquals(200, this.accessor.post(URI.create("echo"), new CharSequenceRequestEntity("posted data"), collect(result))); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals("posted data", result.toString()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testAsync() throws Exception {
+		final List<CompletableFuture<Integer>> futures = new ArrayList<CompletableFuture<Integer>>();
+		for (int i = 0; i < 20; i++) {
+			futures.add(this.accessor.getAsync(URI.create("chunked"), new RequestHeaders(), collect(new StringBuilder()))); //$NON-NLS-1$
+		}
+		for (final CompletableFuture<Integer> future : futures) {
+			Assert.assertEquals(Integer.valueOf(200), future.get(10, TimeUnit.SECONDS));
+		}
+		Assert.assertTrue(this.clientPorts.size() <= PooledHttpAccessor.DEFAULT_MAX_CONNECTIONS_PER_HOST);
+	}
+
+	@Test
+	public void testPoolWaitIsIndependentOfConnectTimeout() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch finish = new CountDownLatch(1);
+		try (PooledHttpAccessor limited = PooledHttpAccessor.newBuilder().withMaxConnectionsPerHost(1).withConnectTimeout(0).withPoolWait(50)
+				.withBase(URI.create("http://127.0.0.1:" + this.server.getAddress().getPort() + "/")).build()) { //$NON-NLS-1$ //$NON-NLS-2$
+			final CompletableFuture<Integer> blocking = limited.getAsync(URI.create("fixed"), new RequestHeaders(), (meta, in) -> { //$NON-NLS-1$
+				started.countDown();
+				try {
+					finish.await(10, TimeUnit.SECONDS);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				readFully(in);
+			});
+			Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+			try {
+				limited.get(URI.create("fixed"), new RequestHeaders(), collect(new StringBuilder())); //$NON-NLS-1$
+				Assert.fail("Pool must not provide a second connection");
+			} catch (final IOException e) {
+				// expected
+			} finally {
+				finish.countDown();
+			}
+			Assert.assertEquals(Integer.valueOf(200), blocking.get(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void testIPv6HostHeader() throws Exception {
+		final HttpServer ipv6Server;
+		try {
+			ipv6Server = HttpServer.create(new InetSocketAddress(Inet6Address.getByName("::1"), 0), 0); //$NON-NLS-1$
+		} catch (final IOException e) {
+			Assume.assumeNoException(e);
+			return;
+		}
+		final StringBuilder host = new StringBuilder();
+		ipv6Server.createContext("/host", exchange -> { //$NON-NLS-1$
+			host.append(exchange.getRequestHeaders().getFirst("Host")); //$NON-NLS-1$
+			respond(exchange, "ok", false); //$NON-NLS-1$
+		});
+		ipv6Server.start();
+		try (PooledHttpAccessor ipv6 = PooledHttpAccessor.newBuilder().build()) {
+			final URI uri = URI.create("http://[::1]:" + ipv6Server.getAddress().getPort() + "/host"); //$NON-NLS-1$ //$NON-NLS-2$
+			Assert.assertEquals(200, ipv6.get(uri, new RequestHeaders(), collect(new StringBuilder())));
+			Assert.assertEquals("[::1]:" + ipv6Server.getAddress().getPort(), host.toString()); //$NON-NLS-1$
+		} finally {
+			ipv6Server.stop(0);
+		}
+	}
+
+	@Test
+	public void testHttpsHostMatchingCertificate() throws Exception {
+		final StringBuilder result = new StringBuilder();
+		Assert.assertEquals(200, getHttps("localhost.jks", result)); //$NON-NLS-1$
+		Assert.assertEquals("fixed content", result.toString()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testHttpsHostMismatchingCertificate() throws Exception {
+		try {
+			getHttps("mismatch.jks", new StringBuilder()); //$NON-NLS-1$
+			Assert.fail("Certificate for another host must be rejected");
+		} catch (final SSLHandshakeException e) {
+			// expected
+		}
+	}
+
+	/*
+	 * Requests https://localhost from a server using the certificate of the key store which is also the only trusted
+	 * certificate of the client.
+	 */
+	private int getHttps(final String keyStoreName, final StringBuilder result) throws Exception {
+		final KeyStore keyStore = KeyStore.getInstance("JKS"); //$NON-NLS-1$
+		try (InputStream in = PooledHttpAccessorTest.class.getResourceAsStream(keyStoreName)) {
+			keyStore.load(in, "changeit".toCharArray()); //$NON-NLS-1$
+		}
+		final KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagers.init(keyStore, "changeit".toCharArray()); //$NON-NLS-1$
+		final TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trustManagers.init(keyStore);
+		final SSLContext context = SSLContext.getInstance("TLS"); //$NON-NLS-1$
+		context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+		final HttpsServer httpsServer = HttpsServer.create(new InetSocketAddress(0), 0);
+		httpsServer.setHttpsConfigurator(new HttpsConfigurator(context));
+		httpsServer.createContext("/fixed", exchange -> respond(exchange, "fixed content", false)); //$NON-NLS-1$ //$NON-NLS-2$
+		httpsServer.start();
+		try (PooledHttpAccessor https = PooledHttpAccessor.newBuilder().withSSLSocketFactory(context.getSocketFactory()).build()) {
+			final URI uri = URI.create("https://localhost:" + httpsServer.getAddress().getPort() + "/fixed"); //$NON-NLS-1$ //$NON-NLS-2$
+			return https.get(uri, new RequestHeaders(), collect(result));
+		} finally {
+			httpsServer.stop(0);
+		}
+	}
+
+	private RequestHandler collect(final StringBuilder result) {
+		return (meta, in) -> result.append(new String(readFully(in), StandardCharsets.ISO_8859_1));
+	}
+
+	private void respond(final HttpExchange exchange, final String content, final boolean chunked) throws IOException {
+		this.clientPorts.add(Integer.valueOf(exchange.getRemoteAddress().getPort()));
+		readFully(exchange.getRequestBody());
+		final byte[] data = content.getBytes(StandardCharsets.ISO_8859_1);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=ISO-8859-1"); //$NON-NLS-1$ //$NON-NLS-2$
+		if ("HEAD".equals(exchange.getRequestMethod())) { //$NON-NLS-1$
+			exchange.sendResponseHeaders(200, -1);
+		} else {
+			exchange.sendResponseHeaders(200, chunked ? 0 : data.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(data);
+			}
+		}
+		exchange.close();
+	}
+
+	private static byte[] readFully(final InputStream in) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[1024];
+		int count;
+		while ((count = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+}
@@ -28,6 +28,8 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 public class AcceptMediaTypeSetTest extends Java14LoggingTestCase {
 
@@ -42,4 +44,17 @@ public class AcceptMediaTypeSetTest extends Java14LoggingTestCase {
 		assertEquals(toMatch, matchedOne);
 		this.logger.exiting(AcceptMediaTypeSetTest.class.getName(), "testSimple");
 	}
+
+	@Test
+	public void testValueOfCached() {
+		AcceptMediaTypeSet temp = AcceptMediaTypeSet.valueOf("text/html;q=0.8, application/xml");
+		assertSame(temp, AcceptMediaTypeSet.valueOf("text/html;q=0.8, application/xml"));
+		assertEquals(MediaType.APPLICATION_XML_TYPE, temp.matchClosest(null, MediaType.TEXT_HTML_TYPE, MediaType.APPLICATION_XML_TYPE));
+		try {
+			temp.add("text/plain");
+			fail("Cached set must not be modifiable");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.net.mediatype;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MediaTypeNegotiatorTest {
+	private static final MediaType JSON = MediaType.valueOf("application/json");
+	private static final MediaType UTF8_HTML = MediaType.valueOf("text/html;charset=utf-8");
+
+	@Test
+	public void testMatchesAcceptMediaTypeSet() {
+		MediaType[] produced = new MediaType[]{MediaType.APPLICATION_XML_TYPE, MediaTypeNegotiatorTest.JSON, MediaTypeNegotiatorTest.UTF8_HTML,
+				MediaType.TEXT_PLAIN_TYPE};
+		MediaTypeNegotiator negotiator = new MediaTypeNegotiator(produced);
+		String[] headers = new String[]{"application/json", "text/*;q=0.9, application/json;q=0.5", "text/html;charset=utf-8, */*;q=0.1",
+				"text/html;charset=iso-8859-1", "*/*", "image/png", "application/*;q=0.3, text/plain"};
+		for (String header : headers) {
+			MediaType expected = AcceptMediaTypeSet.valueOf(header).matchClosest(null, produced);
+			assertEquals(header, expected, negotiator.matchClosest(header, null));
+			assertEquals(header, expected, negotiator.matchClosest(header, null));
+			assertEquals(header, expected, negotiator.matchClosest(AcceptMediaTypeSet.valueOf(header), null));
+		}
+	}
+
+	@Test
+	public void testDefaults() {
+		MediaTypeNegotiator negotiator = new MediaTypeNegotiator(MediaTypeNegotiatorTest.JSON, MediaType.APPLICATION_XML_TYPE);
+		assertEquals(MediaTypeNegotiatorTest.JSON, negotiator.matchClosest((String) null, MediaType.TEXT_PLAIN_TYPE));
+		assertEquals(MediaType.TEXT_PLAIN_TYPE, negotiator.matchClosest("text/html", MediaType.TEXT_PLAIN_TYPE));
+		assertNull(negotiator.matchClosest("text/html", null));
+	}
+}
@@ -87,6 +87,34 @@ public class RFC2616MediaTypeParserTest extends Java14LoggingTestCase {
 		}
 	}
 
+	@Test
+	public void testParseAcceptMediaTypes() {
+		AcceptMediaTypeSet temp = RFC2616MediaTypeParser.parseAcceptMediaTypes("Text/HTML; level=1; q=0.5; ext=\"a, b\" ,, application/xml;q=.9 , */*;q=");
+		assertEquals(3, temp.size());
+		AcceptMediaTypeRange first = temp.first();
+		assertEquals("*", first.getMediaTypeRange().getType());
+		assertEquals(1.0d, first.getQualifyFactor(), 0.0d);
+		AcceptMediaTypeRange last = temp.last();
+		assertEquals("text", last.getMediaTypeRange().getType());
+		assertEquals("html", last.getMediaTypeRange().getSubType());
+		assertEquals("1", last.getMediaTypeRange().getParameter("level"));
+		assertEquals(0.5d, last.getQualifyFactor(), 0.0d);
+		assertEquals("\"a, b\"", last.getAcceptParameter("ext"));
+		assertEquals("vnd.ms-excel", MediaType.valueOf("application/vnd.ms-excel").getSubType());
+	}
+
+	@Test
+	public void testParseErrors() {
+		for (String invalid : new String[]{"text/html foo", "1text/html", "text/html; q=2", "text/html;=x", "text/html, text/plain"}) {
+			try {
+				RFC2616MediaTypeParser.parseAcceptMediaTypeEntry(invalid);
+				fail(invalid);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
 	@Test
 	public void testAcceptMediaTypePattern() {
 		try {
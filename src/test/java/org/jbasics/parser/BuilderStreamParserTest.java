@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.parser;
+
+import org.jbasics.parser.annotations.Attribute;
+import org.jbasics.parser.annotations.Content;
+import org.jbasics.parser.annotations.Element;
+import org.jbasics.parser.annotations.ElementImplementor;
+import org.jbasics.pattern.builder.Builder;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.namespace.QName;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BuilderStreamParserTest {
+	private static final String NS = "urn:jbasics:test:feed"; //$NON-NLS-1$
+	private static final String DOCUMENT = "<f:feed xmlns:f=\"" + BuilderStreamParserTest.NS + "\" title=\"News\">" //$NON-NLS-1$ //$NON-NLS-2$
+			+ "<f:entries><f:item id=\"1\">first</f:item><!-- skipped --><f:item id=\"2\"><![CDATA[sec]]>ond</f:item>" //$NON-NLS-1$
+			+ "<f:item id=\"3\">third</f:item></f:entries></f:feed>"; //$NON-NLS-1$
+
+	@Test
+	public void testParse() throws Exception {
+		final Feed feed = BuilderParserContext.<Feed>getOrCreateContext(Feed.class).createStreamParser()
+				.parse(createReader(BuilderStreamParserTest.DOCUMENT));
+		Assert.assertEquals("News", feed.title); //$NON-NLS-1$
+		Assert.assertEquals(3, feed.items.size());
+		Assert.assertEquals("1", feed.items.get(0).id); //$NON-NLS-1$
+		Assert.assertEquals("second", feed.items.get(1).text); //$NON-NLS-1$
+		Assert.assertEquals("third", feed.items.get(2).text); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testParseMatchesContentHandler() throws Exception {
+		final BuilderContentHandler<Feed> handler = BuilderParserContext.<Feed>getOrCreateContext(Feed.class)
+				.createContentHandler();
+		final SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+		final XMLReader reader = factory.newSAXParser().getXMLReader();
+		reader.setContentHandler(handler);
+		reader.parse(new InputSource(new StringReader(BuilderStreamParserTest.DOCUMENT)));
+		final Feed expected = handler.getParsingResult();
+		final Feed feed = BuilderParserContext.<Feed>getOrCreateContext(Feed.class).createStreamParser()
+				.parse(createReader(BuilderStreamParserTest.DOCUMENT));
+		Assert.assertEquals(expected.items.size(), feed.items.size());
+		for (int i = 0; i < feed.items.size(); i++) {
+			Assert.assertEquals(expected.items.get(i).id, feed.items.get(i).id);
+			Assert.assertEquals(expected.items.get(i).text, feed.items.get(i).text);
+		}
+	}
+
+	@Test
+	public void testRecords() throws Exception {
+		final List<Object> records = new ArrayList<Object>();
+		final Feed feed = BuilderParserContext.<Feed>getOrCreateContext(Feed.class).createStreamParser()
+				.parseRecords(createReader(BuilderStreamParserTest.DOCUMENT),
+						new QName(BuilderStreamParserTest.NS, "entries"), records::add); //$NON-NLS-1$
+		Assert.assertEquals("News", feed.title); //$NON-NLS-1$
+		Assert.assertTrue(feed.items.isEmpty());
+		Assert.assertEquals(3, records.size());
+		Assert.assertEquals("2", ((Item) records.get(1)).id); //$NON-NLS-1$
+		Assert.assertEquals("third", ((Item) records.get(2)).text); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testRecordsOfEveryContainer() throws Exception {
+		final List<Object> records = new ArrayList<Object>();
+		final Feed feed = BuilderParserContext.<Feed>getOrCreateContext(Feed.class).createStreamParser()
+				.parseRecords(createReader(BuilderStreamParserTest.DOCUMENT.replace("</f:feed>", //$NON-NLS-1$
+						"<f:entries><f:item id=\"4\">fourth</f:item></f:entries></f:feed>")), //$NON-NLS-1$
+						new QName(BuilderStreamParserTest.NS, "entries"), records::add); //$NON-NLS-1$
+		Assert.assertTrue(feed.items.isEmpty());
+		Assert.assertEquals(4, records.size());
+		Assert.assertEquals("4", ((Item) records.get(3)).id); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testUnknownElement() throws Exception {
+		try {
+			BuilderParserContext.<Feed>getOrCreateContext(Feed.class).createStreamParser()
+					.parse(createReader("<f:feed xmlns:f=\"" + BuilderStreamParserTest.NS + "\"><f:unknown/></f:feed>")); //$NON-NLS-1$ //$NON-NLS-2$
+			Assert.fail("Unknown element must fail"); //$NON-NLS-1$
+		} catch (XMLStreamException e) {
+			Assert.assertNotNull(e.getLocation());
+		}
+	}
+
+	private XMLStreamReader createReader(final String document) throws XMLStreamException {
+		return XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(document));
+	}
+
+	@ElementImplementor(builderClass = Feed.class, namespace = BuilderStreamParserTest.NS, localName = "feed")
+	public static class Feed {
+		private final String title;
+		private final List<Item> items;
+
+		private Feed(final FeedBuilder builder) {
+			this.title = builder.title;
+			this.items = Collections.unmodifiableList(new ArrayList<Item>(builder.items));
+		}
+
+		public static FeedBuilder newBuilder() {
+			return new FeedBuilder();
+		}
+	}
+
+	public static class FeedBuilder implements Builder<Feed> {
+		private final List<Item> items = new ArrayList<Item>();
+		private String title;
+
+		@Attribute(name = "title")
+		public FeedBuilder setTitle(final String title) {
+			this.title = title;
+			return this;
+		}
+
+		@Element(namespace = BuilderStreamParserTest.NS, name = "entries")
+		public FeedBuilder addEntries(final Entries entries) {
+			this.items.addAll(entries.items);
+			return this;
+		}
+
+		public Feed build() {
+			return new Feed(this);
+		}
+
+		public void reset() {
+			this.title = null;
+			this.items.clear();
+		}
+	}
+
+	public static class Entries {
+		private final List<Item> items;
+
+		private Entries(final List<Item> items) {
+			this.items = items;
+		}
+
+		public static EntriesBuilder newBuilder() {
+			return new EntriesBuilder();
+		}
+	}
+
+	public static class EntriesBuilder implements Builder<Entries> {
+		private final List<Item> items = new ArrayList<Item>();
+
+		@Element(namespace = BuilderStreamParserTest.NS, name = "item", maxOccurs = Element.UNBOUND)
+		public EntriesBuilder addItem(final Item item) {
+			this.items.add(item);
+			return this;
+		}
+
+		public Entries build() {
+			return new Entries(new ArrayList<Item>(this.items));
+		}
+
+		public void reset() {
+			this.items.clear();
+		}
+	}
+
+	public static class Item {
+		private final String id;
+		private final String text;
+
+		private Item(final String id, final String text) {
+			this.id = id;
+			this.text = text;
+		}
+
+		public static ItemBuilder newBuilder() {
+			return new ItemBuilder();
+		}
+	}
+
+	public static class ItemBuilder implements Builder<Item> {
+		private String id;
+		private String text;
+
+		@Attribute(name = "id")
+		public ItemBuilder setId(final String id) {
+			this.id = id;
+			return this;
+		}
+
+		@Content
+		public ItemBuilder setText(final String text) {
+			this.text = text;
+			return this;
+		}
+
+		public Item build() {
+			return new Item(this.id, this.text);
+		}
+
+		public void reset() {
+			this.id = null;
+			this.text = null;
+		}
+	}
+}
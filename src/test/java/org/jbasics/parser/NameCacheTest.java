@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.parser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+
+public class NameCacheTest {
+
+	@Test
+	public void testQualifiedNameIsInterned() {
+		final NameCache cache = new NameCache();
+		final QName name = cache.qualifiedName("urn:test/", "item", "t:item"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		Assert.assertEquals(new QName("urn:test", "item"), name); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals("t", name.getPrefix()); //$NON-NLS-1$
+		Assert.assertSame(name, cache.qualifiedName("urn:test/", "item", "t:item")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		final QName unprefixed = cache.qualifiedName("", "item", ""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		Assert.assertEquals("", unprefixed.getPrefix()); //$NON-NLS-1$
+		Assert.assertSame(unprefixed, cache.qualifiedName("", "item", null)); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertSame(cache.namespace("urn:test"), cache.namespace("urn:test")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void testNullNamespace() {
+		final NameCache cache = new NameCache();
+		final QName name = cache.qualifiedName(null, "item", null); //$NON-NLS-1$
+		Assert.assertEquals(new QName("item"), name); //$NON-NLS-1$
+		Assert.assertSame(name, cache.qualifiedName("", "item", null)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void testCacheIsBounded() {
+		final NameCache cache = new NameCache();
+		for (int i = 0; i < NameCache.MAX_ENTRIES; i++) {
+			cache.qualifiedName("urn:test", "e" + i, null); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		final QName name = cache.qualifiedName("urn:test", "overflow", null); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertEquals(name, cache.qualifiedName("urn:test", "overflow", null)); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertNotSame(name, cache.qualifiedName("urn:test", "overflow", null)); //$NON-NLS-1$ //$NON-NLS-2$
+		Assert.assertSame(cache.qualifiedName("urn:test", "e1", null), cache.qualifiedName("urn:test", "e1", null)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.parser.invoker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+
+public class InvokerTest {
+	private static final QName NAME = new QName("urn:test", "value"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	@Test
+	public void testAttributeConversion() throws Exception {
+		final PublicBuilder builder = new PublicBuilder();
+		AttributeInvoker.createInvoker(PublicBuilder.class, PublicBuilder.class.getMethod("setCount", Integer.class)) //$NON-NLS-1$
+				.invoke(builder, InvokerTest.NAME, "42"); //$NON-NLS-1$
+		Assert.assertEquals(Integer.valueOf(42), builder.count);
+		AttributeInvoker.createInvoker(PublicBuilder.class,
+				PublicBuilder.class.getMethod("setAny", QName.class, String.class)) //$NON-NLS-1$
+				.invoke(builder, InvokerTest.NAME, "text"); //$NON-NLS-1$
+		Assert.assertEquals(InvokerTest.NAME, builder.name);
+		Assert.assertEquals("text", builder.text); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testContentAndElement() throws Exception {
+		final PublicBuilder builder = new PublicBuilder();
+		ContentInvoker.createInvoker(PublicBuilder.class, PublicBuilder.class.getMethod("setContent", String.class)) //$NON-NLS-1$
+				.invoke(builder, null, "content"); //$NON-NLS-1$
+		Assert.assertEquals("content", builder.text); //$NON-NLS-1$
+		final ElementInvoker<PublicBuilder, Long> invoker = ElementInvoker.createInvoker(PublicBuilder.class, Long.class,
+				PublicBuilder.class.getMethod("addElement", Long.class)); //$NON-NLS-1$
+		invoker.invoke(builder, InvokerTest.NAME, Long.valueOf(7));
+		Assert.assertEquals(Long.valueOf(7), builder.element);
+		QualifiedNameInvoker.createInvoker(PublicBuilder.class, PublicBuilder.class.getMethod("setName", QName.class)) //$NON-NLS-1$
+				.invoke(builder, InvokerTest.NAME, InvokerTest.NAME);
+		Assert.assertEquals(InvokerTest.NAME, builder.name);
+	}
+
+	@Test
+	public void testNonPublicBuilder() throws Exception {
+		final HiddenBuilder builder = new HiddenBuilder();
+		ContentInvoker.createInvoker(HiddenBuilder.class, HiddenBuilder.class.getMethod("setContent", String.class)) //$NON-NLS-1$
+				.invoke(builder, null, "hidden"); //$NON-NLS-1$
+		Assert.assertEquals("hidden", builder.text); //$NON-NLS-1$
+		AttributeInvoker.createInvoker(HiddenBuilder.class, HiddenBuilder.class.getMethod("setCount", Integer.class)) //$NON-NLS-1$
+				.invoke(builder, InvokerTest.NAME, "3"); //$NON-NLS-1$
+		Assert.assertEquals(Integer.valueOf(3), builder.count);
+	}
+
+	@Test
+	public void testBindingIsShared() throws Exception {
+		Assert.assertSame(MethodBinding.bind(PublicBuilder.class.getMethod("setContent", String.class)), //$NON-NLS-1$
+				MethodBinding.bind(PublicBuilder.class.getMethod("setContent", String.class))); //$NON-NLS-1$
+		Assert.assertTrue(MethodBinding.bind(PublicBuilder.class.getMethod("setName", QName.class)) //$NON-NLS-1$
+				.getClass().isSynthetic());
+		Assert.assertFalse(MethodBinding.bind(HiddenBuilder.class.getMethod("setContent", String.class)) //$NON-NLS-1$
+				.getClass().isSynthetic());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRuntimeExceptionPassesThrough() throws Exception {
+		ContentInvoker.createInvoker(PublicBuilder.class, PublicBuilder.class.getMethod("setContent", String.class)) //$NON-NLS-1$
+				.invoke(new PublicBuilder(), null, null);
+	}
+
+	@Test
+	public void testCheckedExceptionIsWrapped() throws Exception {
+		try {
+			ContentInvoker.createInvoker(PublicBuilder.class, PublicBuilder.class.getMethod("setFailing", String.class)) //$NON-NLS-1$
+					.invoke(new PublicBuilder(), null, "fail"); //$NON-NLS-1$
+			Assert.fail("Checked exception expected"); //$NON-NLS-1$
+		} catch (RuntimeException e) {
+			Assert.assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	public static class PublicBuilder {
+		private Integer count;
+		private QName name;
+		private String text;
+		private Long element;
+
+		public PublicBuilder setCount(final Integer count) {
+			this.count = count;
+			return this;
+		}
+
+		public void setAny(final QName name, final String text) {
+			this.name = name;
+			this.text = text;
+		}
+
+		public void setContent(final String text) {
+			if (text == null) {
+				throw new IllegalStateException("No content"); //$NON-NLS-1$
+			}
+			this.text = text;
+		}
+
+		public void setFailing(final String text) throws IOException {
+			throw new IOException(text);
+		}
+
+		public void addElement(final Long element) {
+			this.element = element;
+		}
+
+		public void setName(final QName name) {
+			this.name = name;
+		}
+	}
+
+	private static class HiddenBuilder {
+		private Integer count;
+		private String text;
+
+		public void setCount(final Integer count) {
+			this.count = count;
+		}
+
+		public void setContent(final String text) {
+			this.text = text;
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.types.pools;
+
+import org.jbasics.pattern.delegation.LifecycleDelegate;
+import org.jbasics.pattern.factory.Factory;
+import org.jbasics.pattern.pooling.PooledInstance;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class BlockingPoolMetricsTest {
+
+	@Test
+	public void testCountsAndTimeouts() {
+		final BlockingPool<Object> pool = new BlockingPool<Object>(new InstanceFactory(), 1, 1, 10);
+		final BlockingPoolMetrics metrics = pool.getMetrics();
+		final PooledInstance<Object> first = pool.aquire();
+		first.delegate();
+		Assert.assertEquals(1, metrics.getActiveCount());
+		Assert.assertEquals(1, metrics.getCreatedCount());
+		try {
+			pool.aquire(20).delegate();
+			Assert.fail("Pool must time out");
+		} catch (final RuntimeException e) {
+			// expected
+		}
+		Assert.assertEquals(1, metrics.getTimeoutCount());
+		first.release();
+		Assert.assertEquals(0, metrics.getActiveCount());
+		Assert.assertEquals(1, metrics.getIdleCount());
+		final PooledInstance<Object> second = pool.aquire();
+		second.delegate();
+		second.release();
+		Assert.assertEquals(2, metrics.getAcquireCount());
+		long total = 0;
+		for (final long count : metrics.getAcquireLatencyHistogram()) {
+			total += count;
+		}
+		Assert.assertEquals(2, total);
+		Assert.assertTrue(metrics.getAcquireLatencyPercentile99() >= metrics.getAcquireLatencyPercentile50());
+		pool.close();
+		Assert.assertEquals(1, metrics.getDestroyedCount());
+	}
+
+	@Test
+	public void testLeakDetectionAndJMX() throws Exception {
+		final BlockingPool<Object> pool = new BlockingPool<Object>(new InstanceFactory(), 2, 2, 10, 1);
+		final ObjectName name = pool.registerMBean("leak,test");
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			final PooledInstance<Object> leaked = pool.aquire();
+			leaked.delegate();
+			Thread.sleep(20);
+			final String[] suspects = pool.getMetrics().getLeakSuspects();
+			Assert.assertEquals(1, suspects.length);
+			Assert.assertTrue(suspects[0].contains("testLeakDetectionAndJMX"));
+			Assert.assertEquals(1, pool.getMetrics().reportLeaks());
+			Assert.assertEquals(0, pool.getMetrics().reportLeaks());
+			Assert.assertEquals(1, server.getAttribute(name, "ActiveCount"));
+			Assert.assertEquals(1, ((String[]) server.getAttribute(name, "LeakSuspects")).length);
+			leaked.release();
+			Assert.assertEquals(0, ((String[]) server.getAttribute(name, "LeakSuspects")).length);
+		} finally {
+			pool.close();
+		}
+		Assert.assertFalse(server.isRegistered(name));
+	}
+
+	@Test
+	public void testFailingLifecycleKeepsMetricsPaired() {
+		final FailingInstanceFactory factory = new FailingInstanceFactory();
+		final BlockingPool<Object> pool = new BlockingPool<Object>(factory, 1, 1, 10);
+		final BlockingPoolMetrics metrics = pool.getMetrics();
+		factory.failActivate = true;
+		try {
+			pool.aquire().delegate();
+			Assert.fail("Activation must fail");
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+		Assert.assertEquals(0, metrics.getActiveCount());
+		Assert.assertEquals(1, metrics.getDestroyedCount());
+		factory.failActivate = false;
+		factory.failPassivate = true;
+		final PooledInstance<Object> borrowed = pool.aquire();
+		borrowed.delegate();
+		Assert.assertEquals(1, metrics.getActiveCount());
+		try {
+			borrowed.release();
+			Assert.fail("Passivation must fail");
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+		Assert.assertEquals(0, metrics.getActiveCount());
+		Assert.assertEquals(2, metrics.getDestroyedCount());
+		factory.failPassivate = false;
+		final PooledInstance<Object> next = pool.aquire(20);
+		next.delegate();
+		next.release();
+		Assert.assertEquals(0, metrics.getTimeoutCount());
+		Assert.assertEquals(3, metrics.getCreatedCount());
+		pool.close();
+	}
+
+	private static final class FailingInstanceFactory implements Factory<LifecycleDelegate<Object>> {
+		private boolean failActivate;
+		private boolean failPassivate;
+
+		@Override
+		public LifecycleDelegate<Object> newInstance() {
+			final Object instance = new Object();
+			return new LifecycleDelegate<Object>() {
+				@Override
+				public void activate() {
+					if (FailingInstanceFactory.this.failActivate) {
+						throw new IllegalStateException("activate");
+					}
+				}
+
+				@Override
+				public void passivate() {
+					if (FailingInstanceFactory.this.failPassivate) {
+						throw new IllegalStateException("passivate");
+					}
+				}
+
+				@Override
+				public boolean release() {
+					return true;
+				}
+
+				@Override
+				public Object delegate() {
+					return instance;
+				}
+			};
+		}
+	}
+
+	private static final class InstanceFactory implements Factory<LifecycleDelegate<Object>> {
+		@Override
+		public LifecycleDelegate<Object> newInstance() {
+			final Object instance = new Object();
+			return new LifecycleDelegate<Object>() {
+				@Override
+				public void activate() {
+					// nothing to do
+				}
+
+				@Override
+				public void passivate() {
+					// nothing to do
+				}
+
+				@Override
+				public boolean release() {
+					return true;
+				}
+
+				@Override
+				public Object delegate() {
+					return instance;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.types.pools;
+
+import org.jbasics.pattern.delegation.LifecycleDelegate;
+import org.jbasics.pattern.factory.ParameterFactory;
+import org.jbasics.pattern.pooling.PooledInstance;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentKeyedPoolTest {
+
+	@Test
+	public void testPerKeyReuseAndLimit() {
+		final AtomicInteger created = new AtomicInteger();
+		final AtomicInteger destroyed = new AtomicInteger();
+		final ConcurrentKeyedPool<String, String> pool = new ConcurrentKeyedPool<String, String>(new InstanceFactory(created, destroyed), 1, 2, 10, 10, 0);
+		final PooledInstance<String> first = pool.aquire("a");
+		Assert.assertEquals("a1", first.delegate());
+		first.release();
+		final PooledInstance<String> second = pool.aquire("a");
+		Assert.assertEquals("a1", second.delegate());
+		final PooledInstance<String> third = pool.aquire("a");
+		Assert.assertEquals("a2", third.delegate());
+		try {
+			pool.aquire("a", 20);
+			Assert.fail("Per key limit must be reached");
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+		Assert.assertEquals("b3", pool.aquire("b").delegate());
+		second.release();
+		third.release();
+		Assert.assertEquals(1, pool.getIdleCount("a"));
+		Assert.assertEquals(1, destroyed.get());
+		pool.close();
+		Assert.assertEquals(2, destroyed.get());
+	}
+
+	@Test
+	public void testGlobalLimitEvictsLeastRecentlyUsedKey() {
+		final AtomicInteger created = new AtomicInteger();
+		final AtomicInteger destroyed = new AtomicInteger();
+		final ConcurrentKeyedPool<String, String> pool = new ConcurrentKeyedPool<String, String>(new InstanceFactory(created, destroyed), 2, 2, 2, 10, 0);
+		pool.aquire("a").release();
+		pool.aquire("b").release();
+		Assert.assertEquals(2, pool.getManagedCount());
+		// a is the least recently used key so its idle instance makes room for c
+		Assert.assertEquals("c3", pool.aquire("c").delegate());
+		Assert.assertEquals(0, pool.getManagedCount("a"));
+		Assert.assertEquals(1, pool.getIdleCount("b"));
+		Assert.assertEquals(1, destroyed.get());
+	}
+
+	@Test
+	public void testTimedAquireWaitsForRelease() throws Exception {
+		final ConcurrentKeyedPool<String, String> pool = new ConcurrentKeyedPool<String, String>(new InstanceFactory(new AtomicInteger(), new AtomicInteger()), 1,
+				1, 1, 10, 0);
+		final PooledInstance<String> borrowed = pool.aquire("a");
+		final CountDownLatch started = new CountDownLatch(1);
+		new Thread() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					Thread.sleep(50);
+				} catch (final InterruptedException e) {
+					// ignore
+				}
+				borrowed.release();
+			}
+		}.start();
+		started.await();
+		Assert.assertEquals("a1", pool.aquire("a", 5000).delegate());
+	}
+
+	@Test
+	public void testZeroTimeoutWaitsWithoutLimit() throws Exception {
+		final ConcurrentKeyedPool<String, String> pool = new ConcurrentKeyedPool<String, String>(new InstanceFactory(new AtomicInteger(), new AtomicInteger()), 1,
+				1, 1, 10, 0);
+		final PooledInstance<String> borrowed = pool.aquire("a");
+		new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (final InterruptedException e) {
+					// ignore
+				}
+				borrowed.release();
+			}
+		}.start();
+		Assert.assertEquals("a1", pool.aquire("a", 0).delegate());
+	}
+
+	@Test
+	public void testIdleKeyEviction() throws Exception {
+		final AtomicInteger destroyed = new AtomicInteger();
+		final ConcurrentKeyedPool<String, String> pool = new ConcurrentKeyedPool<String, String>(new InstanceFactory(new AtomicInteger(), destroyed), 2, 2,
+				10, 10, 10);
+		pool.aquire("a").release();
+		final PooledInstance<String> active = pool.aquire("b");
+		Thread.sleep(30);
+		Assert.assertEquals(1, pool.evictIdleKeys());
+		Assert.assertEquals(1, pool.getKeyCount());
+		Assert.assertEquals(1, destroyed.get());
+		active.release();
+		Assert.assertEquals("a3", pool.aquire("a").delegate());
+	}
+
+	private static final class InstanceFactory implements ParameterFactory<LifecycleDelegate<String>, String> {
+		private final AtomicInteger created;
+		private final AtomicInteger destroyed;
+
+		private InstanceFactory(final AtomicInteger created, final AtomicInteger destroyed) {
+			this.created = created;
+			this.destroyed = destroyed;
+		}
+
+		@Override
+		public LifecycleDelegate<String> create(final String key) {
+			final String instance = key + this.created.incrementAndGet();
+			return new LifecycleDelegate<String>() {
+				@Override
+				public void activate() {
+					// nothing to do
+				}
+
+				@Override
+				public void passivate() {
+					// nothing to do
+				}
+
+				@Override
+				public boolean release() {
+					InstanceFactory.this.destroyed.incrementAndGet();
+					return true;
+				}
+
+				@Override
+				public String delegate() {
+					return instance;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.types.pools;
+
+import org.jbasics.pattern.factory.Factory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentPoolTest {
+
+	@Test
+	public void testStrictMaximum() {
+		final AtomicInteger created = new AtomicInteger();
+		final ConcurrentPool<Object> pool = new ConcurrentPool<Object>(new CountingFactory(created), 3);
+		final List<Object> acquired = new ArrayList<Object>();
+		for (int i = 0; i < 5; i++) {
+			acquired.add(pool.acquire());
+		}
+		Assert.assertEquals(5, created.get());
+		int accepted = 0;
+		for (final Object temp : acquired) {
+			if (pool.release(temp)) {
+				accepted++;
+			}
+		}
+		Assert.assertEquals(3, accepted);
+		Assert.assertEquals(3, pool.getIdleCount());
+		for (int i = 0; i < 3; i++) {
+			Assert.assertTrue(acquired.contains(pool.acquire()));
+		}
+		Assert.assertEquals(0, pool.getIdleCount());
+		Assert.assertEquals(5, created.get());
+		pool.acquire();
+		Assert.assertEquals(6, created.get());
+	}
+
+	@Test
+	public void testIdleEviction() throws Exception {
+		final AtomicInteger created = new AtomicInteger();
+		final ConcurrentPool<Object> pool = new ConcurrentPool<Object>(new CountingFactory(created), 4, 20);
+		final Object first = pool.acquire();
+		Assert.assertTrue(pool.release(first));
+		Assert.assertSame(first, pool.acquire());
+		Assert.assertTrue(pool.release(first));
+		Thread.sleep(50);
+		Assert.assertEquals(1, pool.evictIdle());
+		Assert.assertEquals(0, pool.getIdleCount());
+		Assert.assertNotSame(first, pool.acquire());
+		Assert.assertEquals(2, created.get());
+	}
+
+	@Test
+	public void testConcurrentAccessNeverSharesInstances() throws Exception {
+		final AtomicInteger created = new AtomicInteger();
+		final ConcurrentPool<Object> pool = new ConcurrentPool<Object>(new CountingFactory(created), 8);
+		final Set<Object> inUse = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		final AtomicInteger failures = new AtomicInteger();
+		final int threads = 8;
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 20000; i++) {
+							final Object temp = pool.acquire();
+							synchronized (inUse) {
+								if (!inUse.add(temp)) {
+									failures.incrementAndGet();
+								}
+							}
+							synchronized (inUse) {
+								inUse.remove(temp);
+							}
+							pool.release(temp);
+						}
+					} finally {
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+		done.await();
+		Assert.assertEquals(0, failures.get());
+		Assert.assertTrue(pool.getIdleCount() <= 8);
+		pool.clear();
+		Assert.assertEquals(0, pool.getIdleCount());
+	}
+
+	private static final class CountingFactory implements Factory<Object> {
+		private final AtomicInteger created;
+
+		private CountingFactory(final AtomicInteger created) {
+			this.created = created;
+		}
+
+		@Override
+		public Object newInstance() {
+			this.created.incrementAndGet();
+			return new Object();
+		}
+	}
+}
@@ -23,16 +23,28 @@
  */
 package org.jbasics.xml;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.xpath.XPathConstants;
 
 import static org.jbasics.xml.DOMDocumentParser.xmlXIncludeAwareDocumentFrom;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class XPathEvaluatorTest {
 
@@ -63,4 +75,68 @@ public class XPathEvaluatorTest {
 
     }
 
+    @Test public void testSharedCompiledExpressions() {
+        final Document baseNode = xmlXIncludeAwareDocumentFrom(getClass().getResource("xpath-test.xml"));
+        XPathExpressionCache.clear();
+        final String expression = "//a:test/b:string[@name = $myVar]";
+        assertEquals("Hello Stephan!", new XPathEvaluator(baseNode)
+                .withNSPrefix("a", "http://example.org/ns1")
+                .withNSPrefix("b", "http://example.org/ns2")
+                .withVariable(new QName("myVar"), "stephan")
+                .evaluate(expression).get());
+        assertEquals(1, XPathExpressionCache.size());
+        assertEquals("Hello World!", new XPathEvaluator(baseNode)
+                .withNSPrefix("a", "http://example.org/ns1")
+                .withNSPrefix("b", "http://example.org/ns2")
+                .withNSPrefix("c", "http://example.org/unused")
+                .withVariable(new QName("myVar"), "world")
+                .evaluate(expression).get());
+        assertEquals(1, XPathExpressionCache.size());
+        assertFalse(new XPathEvaluator(baseNode)
+                .withNSPrefix("a", "http://example.org/ns1")
+                .withNSPrefix("b", "http://example.org/other")
+                .withVariable(new QName("myVar"), "stephan")
+                .evaluate(expression).isPresent());
+        assertEquals(2, XPathExpressionCache.size());
+    }
+
+    @Test public void testEvaluateAll() {
+        final Document baseNode = xmlXIncludeAwareDocumentFrom(getClass().getResource("xpath-test.xml"));
+        final XPathEvaluator evaluator = new XPathEvaluator(baseNode)
+                .withNSPrefix("a", "http://example.org/ns1")
+                .withNSPrefix("b", "http://example.org/ns2");
+        final Map<String, String> expressions = new LinkedHashMap<>();
+        expressions.put("world", "//a:test/b:string[@name = 'world']");
+        expressions.put("missing", "//a:test/b:string[@name = 'missing']");
+        expressions.put("count", "count(//b:string)");
+        final Map<String, String> result = evaluator.evaluateAll(expressions);
+        assertEquals(2, result.size());
+        assertEquals("Hello World!", result.get("world"));
+        assertEquals("2", result.get("count"));
+        final Map<String, Object> numbers = evaluator.evaluateAll(expressions, baseNode, XPathConstants.NUMBER);
+        assertEquals(Double.valueOf(2), numbers.get("count"));
+        assertTrue(((Double) numbers.get("world")).isNaN());
+    }
+
+    @Test public void testConcurrentEvaluation() throws Exception {
+        final Document baseNode = xmlXIncludeAwareDocumentFrom(getClass().getResource("xpath-test.xml"));
+        final XPathEvaluator evaluator = new XPathEvaluator(baseNode)
+                .withNSPrefix("a", "http://example.org/ns1")
+                .withNSPrefix("b", "http://example.org/ns2")
+                .withVariable(new QName("myVar"), "stephan");
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final Node node = xmlXIncludeAwareDocumentFrom(getClass().getResource("xpath-test.xml"));
+                results.add(executor.submit((Callable<String>) () -> evaluator.evaluate("//a:test/b:string[@name = $myVar]", node).get()));
+            }
+            for (Future<String> result : results) {
+                assertEquals("Hello Stephan!", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
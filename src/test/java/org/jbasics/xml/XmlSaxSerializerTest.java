@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.jbasics.xml.transform.TransformerHandlerPool;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+public class XmlSaxSerializerTest {
+
+	@Test
+	public void testSerializeWithPooledHandler() {
+		final TransformerHandlerPool pool = new TransformerHandlerPool();
+		final XmlSaxSerializer utf8 = new XmlSaxSerializer("UTF-8", pool);
+		final XmlSaxSerializer latin1 = new XmlSaxSerializer("ISO-8859-1", pool);
+		assertTrue(serialize(utf8, "first").startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\""));
+		assertEquals(1, pool.getIdleCount());
+		final String second = serialize(latin1, "second");
+		assertTrue(second.startsWith("<?xml version=\"1.0\" encoding=\"ISO-8859-1\""));
+		assertEquals(1, pool.getIdleCount());
+		final Document document = DOMDocumentParser.xmlDocumentFrom(new ByteArrayInputStream(second.getBytes(StandardCharsets.ISO_8859_1)));
+		assertEquals("second", document.getDocumentElement().getLocalName());
+		assertEquals("text", document.getDocumentElement().getTextContent());
+	}
+
+	@Test
+	public void testFailedHandlerIsNotReused() {
+		final TransformerHandlerPool pool = new TransformerHandlerPool();
+		try {
+			new XmlSaxSerializer("UTF-8", pool).serialize((handler, attributes) -> {
+				throw new SAXException("failed");
+			}, new StreamResult(new StringWriter()));
+			fail("Expected the serialization to fail");
+		} catch (final RuntimeException e) {
+			assertTrue(e.getCause() instanceof SAXException);
+		}
+		assertEquals(0, pool.getIdleCount());
+	}
+
+	private static String serialize(final XmlSaxSerializer serializer, final String name) {
+		final StringWriter writer = new StringWriter();
+		serializer.serialize((handler, attributes) -> {
+			handler.startElement("", name, name, new AttributesImpl());
+			handler.characters("text".toCharArray(), 0, 4);
+			handler.endElement("", name, name);
+		}, new StreamResult(writer));
+		return writer.toString();
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.xml.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringWriter;
+
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+public class TransformerHandlerPoolTest {
+
+	@Test
+	public void testReleaseDropsResult() throws Exception {
+		final TransformerHandlerPool pool = new TransformerHandlerPool();
+		final StringWriter writer = new StringWriter();
+		final TransformerHandler handler = pool.acquire();
+		handler.setResult(new StreamResult(writer));
+		serialize(handler, "first"); //$NON-NLS-1$
+		final String written = writer.toString();
+		pool.release(handler);
+		final TransformerHandler reused = pool.acquire();
+		assertSame(handler, reused);
+		serialize(reused, "second"); //$NON-NLS-1$
+		assertEquals(written, writer.toString());
+	}
+
+	private static void serialize(final TransformerHandler handler, final String element) throws Exception {
+		handler.startDocument();
+		handler.startElement("", element, element, new AttributesImpl()); //$NON-NLS-1$
+		handler.endElement("", element, element); //$NON-NLS-1$
+		handler.endDocument();
+	}
+}
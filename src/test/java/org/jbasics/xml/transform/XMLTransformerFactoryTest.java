@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2009-2015
+ * 	IT-Consulting Stephan Schloepke (http://www.schloepke.de/)
+ * 	klemm software consulting Mirko Klemm (http://www.klemm-scs.com/)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jbasics.xml.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class XMLTransformerFactoryTest {
+	private static final String STYLESHEET = "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">" //$NON-NLS-1$
+			+ "<xsl:output method=\"text\"/><xsl:template match=\"/\">Hello <xsl:value-of select=\"/name\"/></xsl:template></xsl:stylesheet>"; //$NON-NLS-1$
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testTemplatesCachedBySystemId() throws Exception {
+		final File stylesheet = this.folder.newFile("hello.xsl"); //$NON-NLS-1$
+		Files.write(stylesheet.toPath(), STYLESHEET.getBytes(StandardCharsets.UTF_8));
+		final XMLTransformerFactory factory = new XMLTransformerFactory();
+		final Templates templates = factory.getTemplates(new StreamSource(stylesheet));
+		assertSame(templates, factory.getTemplates(new StreamSource(stylesheet)));
+
+		final StringWriter result = new StringWriter();
+		factory.create(new StreamSource(stylesheet)).transform(new StreamSource(new StringReader("<name>World</name>")), new StreamResult(result)); //$NON-NLS-1$
+		assertEquals("Hello World", result.toString()); //$NON-NLS-1$
+
+		factory.clearTemplates();
+		assertNotSame(templates, factory.getTemplates(new StreamSource(stylesheet)));
+	}
+
+	@Test
+	public void testTemplatesOfStreamWithSystemIdNotCached() {
+		final XMLTransformerFactory factory = new XMLTransformerFactory();
+		final StreamSource first = new StreamSource(new StringReader(STYLESHEET), "file:/base/"); //$NON-NLS-1$
+		final StreamSource second = new StreamSource(new StringReader(STYLESHEET.replace("Hello", "Bye")), "file:/base/"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertNotSame(factory.getTemplates(first), factory.getTemplates(second));
+	}
+
+	@Test
+	public void testTemplatesCachedByExplicitKey() {
+		final XMLTransformerFactory factory = new XMLTransformerFactory();
+		final Templates templates = factory.getTemplates("hello", new StreamSource(new StringReader(STYLESHEET))); //$NON-NLS-1$
+		assertSame(templates, factory.getTemplates("hello", new StreamSource(new StringReader(STYLESHEET)))); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testTemplatesWithoutSystemIdNotCached() {
+		final XMLTransformerFactory factory = new XMLTransformerFactory();
+		assertNotSame(factory.getTemplates(new StreamSource(new StringReader(STYLESHEET))),
+				factory.getTemplates(new StreamSource(new StringReader(STYLESHEET))));
+	}
+}